@@ -0,0 +1,38 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.annotation;
+
+/**
+ * Memory semantics of the store used to inject an attribute value into an annotated field.
+ */
+public enum FieldAccessMode {
+    /**
+     * Plain store; readers on other threads need their own synchronization to see the value.
+     */
+    PLAIN,
+
+    /**
+     * Ordered (release) store, as with lazySet(): the value is not reordered with the stores made before it, so a
+     * reader that sees the value also sees the values injected before it.  Cheaper than a volatile store.  The field
+     * must be volatile.
+     */
+    ORDERED,
+
+    /**
+     * Volatile store.  The field must be volatile.
+     */
+    VOLATILE
+}
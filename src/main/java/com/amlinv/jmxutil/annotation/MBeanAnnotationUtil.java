@@ -16,7 +16,11 @@
 
 package com.amlinv.jmxutil.annotation;
 
+import com.amlinv.jmxutil.connection.AttributePathUtil;
+
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -42,14 +46,68 @@ public class MBeanAnnotationUtil {
         for ( Method oneMethod : methods ) {
             MBeanAttribute attribute = oneMethod.getAnnotation(MBeanAttribute.class);
 
-            if ( attribute != null ) {
+            if ( ( attribute != null ) && ( ! attribute.rate() ) ) {
                 //
-                // Record the name of the attribute with the method, which must be the setter.
+                // Record the name of the attribute, qualified with its path, if any, with the method, which must be
+                //  the setter.
                 //
-                result.put(attribute.name(), oneMethod);
+                result.put(AttributePathUtil.qualify(attribute.name(), attribute.path()), oneMethod);
+            }
+        }
+
+        return  result;
+    }
+
+    /**
+     * Locate the setters annotated with @MBeanAttribute(rate = true), which receive the rates of counter attributes.
+     *
+     * @param mbeanLocation object to scan.
+     * @return map of the attribute names, qualified with paths, to the setters of their rates.
+     */
+    public static Map<String, Method> getRateAttributes (Object mbeanLocation) {
+        Map<String, Method> result = new TreeMap<String, Method>();
+
+        for ( Method oneMethod : mbeanLocation.getClass().getMethods() ) {
+            MBeanAttribute attribute = oneMethod.getAnnotation(MBeanAttribute.class);
+
+            if ( ( attribute != null ) && ( attribute.rate() ) ) {
+                result.put(AttributePathUtil.qualify(attribute.name(), attribute.path()), oneMethod);
             }
         }
 
         return  result;
     }
+
+    /**
+     * Locate the fields annotated with @MBeanAttribute on the given object's class and its superclasses.  Fields of
+     * any visibility are included and made accessible; static and final fields are ignored.
+     *
+     * @param mbeanLocation object to scan.
+     * @return map of the attribute names, qualified with paths, to the annotated fields.
+     */
+    public static Map<String, Field> getAttributeFields (Object mbeanLocation) {
+        Map<String, Field> result = new TreeMap<String, Field>();
+
+        Class<?> clazz = mbeanLocation.getClass();
+        while ( clazz != null ) {
+            for ( Field oneField : clazz.getDeclaredFields() ) {
+                MBeanAttribute attribute = oneField.getAnnotation(MBeanAttribute.class);
+
+                if ( ( attribute != null ) && ( ! Modifier.isStatic(oneField.getModifiers()) ) &&
+                        ( ! Modifier.isFinal(oneField.getModifiers()) ) ) {
+                    String key = AttributePathUtil.qualify(attribute.name(), attribute.path());
+
+                    // Fields of subclasses take precedence over those they hide.
+                    if ( ! result.containsKey(key) ) {
+                        oneField.setAccessible(true);
+                        result.put(key, oneField);
+                    }
+                }
+            }
+
+            clazz = clazz.getSuperclass();
+        }
+
+        return  result;
+    }
 }
@@ -22,13 +22,32 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 /**
- * Indicates an mbean attribute with the given name; <b>must</b> be the setter.
+ * Indicates an mbean attribute with the given name; <b>must</b> be the setter, or the field into which the value is
+ * stored directly.  When a path is given, only the value at that path within the attribute (e.g. the "used" field of
+ * HeapMemoryUsage) is retrieved and injected.
  * Created by art on 3/31/15.
  */
 @Retention(RetentionPolicy.RUNTIME)
-@Target(ElementType.METHOD)
+@Target({ElementType.METHOD, ElementType.FIELD})
 public @interface MBeanAttribute {
     String name();
 
     Class<?> type();
+
+    /**
+     * Optional path within the attribute's value, using Jolokia path syntax (e.g. "used" or "map/key/0").
+     */
+    String path() default "";
+
+    /**
+     * Memory semantics of the store into an annotated field; ignored for setters.
+     */
+    FieldAccessMode access() default FieldAccessMode.PLAIN;
+
+    /**
+     * When true, the setter receives the per-second rate of change of the attribute, a monotonic counter (e.g.
+     * EnqueueCount), instead of its value; it may accompany a setter of the value itself.  Counter resets, such as
+     * after a restart of the JVM, are handled.  Ignored for fields.
+     */
+    boolean rate() default false;
 }
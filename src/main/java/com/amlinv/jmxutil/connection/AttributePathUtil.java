@@ -0,0 +1,220 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.amlinv.jmxutil.connection;
+
+import javax.management.openmbean.CompositeData;
+import java.lang.reflect.Array;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utilities for attribute references that select a value inside an attribute, such as one field of a CompositeData.
+ * A reference is the attribute name, optionally followed by a separator and a path using the same syntax as Jolokia
+ * paths (e.g. "HeapMemoryUsage/used").  As in Jolokia paths, the escape character makes the following character
+ * literal, so a separator within the attribute name, or within one element of the path, is written as "!/" and the
+ * escape character itself as "!!".
+ */
+public class AttributePathUtil {
+    public static final char PATH_SEPARATOR = '/';
+    public static final char ESCAPE = '!';
+
+    /**
+     * Form the reference for the given attribute name and path.
+     *
+     * @param attributeName name of the attribute; escaped as needed.
+     * @param path path within the attribute's value, already escaped; null or empty for the entire value.
+     * @return reference to the attribute, with the path, if any.
+     */
+    public static String qualify(String attributeName, String path) {
+        String escapedName = escape(attributeName);
+
+        if ((path == null) || (path.isEmpty())) {
+            return escapedName;
+        }
+
+        return escapedName + PATH_SEPARATOR + path;
+    }
+
+    /**
+     * Determine whether the given reference includes a path.
+     */
+    public static boolean hasPath(String reference) {
+        return (findSeparator(reference) != -1);
+    }
+
+    /**
+     * Determine whether the given reference is the attribute name itself, with neither a path nor escapes, so it can be
+     * passed to the server as-is.
+     */
+    public static boolean isPlainName(String reference) {
+        return (reference.indexOf(PATH_SEPARATOR) == -1) && (reference.indexOf(ESCAPE) == -1);
+    }
+
+    /**
+     * Extract the attribute name from the given reference.
+     */
+    public static String getAttributeName(String reference) {
+        int separatorPos = findSeparator(reference);
+        if (separatorPos == -1) {
+            return unescape(reference);
+        }
+
+        return unescape(reference.substring(0, separatorPos));
+    }
+
+    /**
+     * Extract the path from the given reference.
+     *
+     * @return the path, still escaped, or null if the reference has no path.
+     */
+    public static String getPath(String reference) {
+        int separatorPos = findSeparator(reference);
+        if (separatorPos == -1) {
+            return null;
+        }
+
+        return reference.substring(separatorPos + 1);
+    }
+
+    /**
+     * Resolve the given path against an attribute value, walking CompositeData keys, Map keys, and List or array
+     * indexes.
+     *
+     * @param value value of the attribute.
+     * @param path path to resolve, escaped; null or empty for the value itself.
+     * @return value at the given path, or null if any element of the path does not exist.
+     */
+    public static Object resolvePath(Object value, String path) {
+        if ((path == null) || (path.isEmpty())) {
+            return value;
+        }
+
+        Object current = value;
+        String remaining = path;
+        while (remaining != null) {
+            if (current == null) {
+                return null;
+            }
+
+            int separatorPos = findSeparator(remaining);
+            String element;
+            if (separatorPos == -1) {
+                element = remaining;
+                remaining = null;
+            } else {
+                element = remaining.substring(0, separatorPos);
+                remaining = remaining.substring(separatorPos + 1);
+            }
+
+            current = resolveElement(current, unescape(element));
+        }
+
+        return current;
+    }
+
+    /**
+     * Escape the separator and escape characters in the given name or path element.
+     */
+    public static String escape(String text) {
+        if (isPlainName(text)) {
+            return text;
+        }
+
+        StringBuilder result = new StringBuilder(text.length() + 4);
+        for (int cur = 0; cur < text.length(); cur++) {
+            char oneChar = text.charAt(cur);
+            if ((oneChar == PATH_SEPARATOR) || (oneChar == ESCAPE)) {
+                result.append(ESCAPE);
+            }
+            result.append(oneChar);
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * Remove the escapes from the given name or path element.  A trailing escape character is kept as-is.
+     */
+    public static String unescape(String text) {
+        if (text.indexOf(ESCAPE) == -1) {
+            return text;
+        }
+
+        StringBuilder result = new StringBuilder(text.length());
+        for (int cur = 0; cur < text.length(); cur++) {
+            char oneChar = text.charAt(cur);
+            if ((oneChar == ESCAPE) && (cur + 1 < text.length())) {
+                cur++;
+                oneChar = text.charAt(cur);
+            }
+            result.append(oneChar);
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * @return position of the first separator that is not escaped, or -1 if there is none.
+     */
+    protected static int findSeparator(String reference) {
+        for (int cur = 0; cur < reference.length(); cur++) {
+            char oneChar = reference.charAt(cur);
+            if (oneChar == ESCAPE) {
+                cur++;
+            } else if (oneChar == PATH_SEPARATOR) {
+                return cur;
+            }
+        }
+
+        return -1;
+    }
+
+    protected static Object resolveElement(Object value, String element) {
+        if (value instanceof CompositeData) {
+            CompositeData compositeData = (CompositeData) value;
+            if (compositeData.containsKey(element)) {
+                return compositeData.get(element);
+            }
+
+            return null;
+        }
+
+        if (value instanceof Map) {
+            return ((Map<?, ?>) value).get(element);
+        }
+
+        if ((value instanceof List) || (value.getClass().isArray())) {
+            int index;
+            try {
+                index = Integer.parseInt(element);
+            } catch (NumberFormatException nfExc) {
+                return null;
+            }
+
+            if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                if ((index >= 0) && (index < list.size())) {
+                    return list.get(index);
+                }
+            } else if ((index >= 0) && (index < Array.getLength(value))) {
+                return Array.get(value, index);
+            }
+        }
+
+        return null;
+    }
+}
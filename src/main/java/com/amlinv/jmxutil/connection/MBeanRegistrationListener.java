@@ -0,0 +1,31 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.connection;
+
+import javax.management.ObjectName;
+
+/**
+ * Listener notified when an mbean is registered or unregistered on the server of a connection.
+ */
+public interface MBeanRegistrationListener {
+    /**
+     * Notify the listener that the mbean with the given object name was registered or unregistered.  Called on a
+     * notification thread of the connection, so implementations must be quick and thread-safe.
+     *
+     * @param objectName object name of the mbean that was registered or unregistered.
+     */
+    void onRegistrationChange(ObjectName objectName);
+}
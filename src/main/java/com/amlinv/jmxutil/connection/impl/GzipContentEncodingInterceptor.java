@@ -0,0 +1,93 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.amlinv.jmxutil.connection.impl;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.entity.GzipDecompressingEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+
+/**
+ * HTTP client interceptor that requests gzip-encoded responses and transparently decompresses them.  The response
+ * entity is wrapped so that decompression streams directly into the Jolokia JSON parser; the full response is never
+ * held in memory in either form.
+ *
+ * Note the Content-Encoding of the response is always removed: the Jolokia client interprets any remaining
+ * Content-Encoding value as a character set name, so leaving it in place breaks parsing of the response.
+ */
+public class GzipContentEncodingInterceptor implements HttpRequestInterceptor, HttpResponseInterceptor {
+    public static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+    public static final String GZIP_ENCODING = "gzip";
+
+    @Override
+    public void process(HttpRequest request, HttpContext context) throws HttpException, IOException {
+        if (!request.containsHeader(ACCEPT_ENCODING_HEADER)) {
+            request.addHeader(ACCEPT_ENCODING_HEADER, GZIP_ENCODING);
+        }
+    }
+
+    @Override
+    public void process(HttpResponse response, HttpContext context) throws HttpException, IOException {
+        HttpEntity entity = response.getEntity();
+
+        if ((entity == null) || (entity.getContentLength() == 0)) {
+            return;
+        }
+
+        Header encoding = entity.getContentEncoding();
+        if (encoding == null) {
+            return;
+        }
+
+        String encodingName = encoding.getValue().trim().toLowerCase();
+
+        if (encodingName.equals(GZIP_ENCODING) || encodingName.equals("x-gzip")) {
+            response.setEntity(new GzipDecompressingEntity(entity));
+            response.removeHeaders("Content-Length");
+            response.removeHeaders("Content-MD5");
+        } else if (encodingName.equals("identity")) {
+            // Strip the encoding from the entity so it is not mistaken for a character set.
+            response.setEntity(new IdentityEncodedEntity(entity));
+        } else {
+            throw new HttpException("unsupported content encoding in response: " + encoding.getValue());
+        }
+
+        response.removeHeaders("Content-Encoding");
+    }
+
+    /**
+     * Wrapper for an entity with identity content encoding that hides the encoding.
+     */
+    protected static class IdentityEncodedEntity extends HttpEntityWrapper {
+        public IdentityEncodedEntity(HttpEntity wrappedEntity) {
+            super(wrappedEntity);
+        }
+
+        @Override
+        public Header getContentEncoding() {
+            return null;
+        }
+    }
+}
@@ -16,23 +16,35 @@
 
 package com.amlinv.jmxutil.connection.impl;
 
-import com.amlinv.jmxutil.connection.MBeanAccessConnection;
+import com.amlinv.jmxutil.connection.AttributePathUtil;
+import com.amlinv.jmxutil.connection.MBeanRegistrationListener;
 
 import javax.management.Attribute;
+import javax.management.AttributeList;
 import javax.management.InstanceNotFoundException;
+import javax.management.IntrospectionException;
+import javax.management.MBeanInfo;
 import javax.management.MBeanServerConnection;
+import javax.management.MBeanServerDelegate;
+import javax.management.MBeanServerNotification;
+import javax.management.Notification;
+import javax.management.NotificationListener;
 import javax.management.ObjectName;
 import javax.management.QueryExp;
 import javax.management.ReflectionException;
 import javax.management.remote.JMXConnector;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Created by art on 5/7/15.
  */
-public class JMXMBeanConnection implements MBeanAccessConnection {
+public class JMXMBeanConnection implements MBeanInfoCapableAccessConnection {
     private final JMXConnector jmxConnector;
     private final MBeanServerConnection mBeanServerConnection;
 
@@ -45,7 +57,11 @@ public class JMXMBeanConnection implements MBeanAccessConnection {
     public List<Attribute> getAttributes(ObjectName objectName, String... attributeNames)
             throws InstanceNotFoundException, IOException, ReflectionException {
 
-        return this.mBeanServerConnection.getAttributes(objectName, attributeNames).asList();
+        if (!this.anyPath(attributeNames)) {
+            return this.mBeanServerConnection.getAttributes(objectName, attributeNames).asList();
+        }
+
+        return this.getAttributesWithPaths(objectName, attributeNames);
     }
 
     @Override
@@ -53,8 +69,95 @@ public class JMXMBeanConnection implements MBeanAccessConnection {
         return this.mBeanServerConnection.queryNames(pattern, query);
     }
 
+    @Override
+    public MBeanInfo getMBeanInfo(ObjectName objectName)
+            throws InstanceNotFoundException, IOException, ReflectionException {
+
+        try {
+            return this.mBeanServerConnection.getMBeanInfo(objectName);
+        } catch (IntrospectionException introspectionExc) {
+            throw new ReflectionException(introspectionExc, "failed to introspect mbean " + objectName);
+        }
+    }
+
+    @Override
+    public boolean addRegistrationListener(final MBeanRegistrationListener listener) throws IOException {
+        NotificationListener notificationListener = new NotificationListener() {
+            @Override
+            public void handleNotification(Notification notification, Object handback) {
+                if (notification instanceof MBeanServerNotification) {
+                    listener.onRegistrationChange(((MBeanServerNotification) notification).getMBeanName());
+                }
+            }
+        };
+
+        try {
+            this.mBeanServerConnection.addNotificationListener(MBeanServerDelegate.DELEGATE_NAME, notificationListener,
+                    null, null);
+        } catch (InstanceNotFoundException infExc) {
+            // Server without the standard delegate; registration changes cannot be tracked.
+            return false;
+        }
+
+        return true;
+    }
+
     @Override
     public void close() throws IOException {
         this.jmxConnector.close();
     }
+
+    /**
+     * @return true => if any reference has a path or an escaped name, and so cannot be passed to the server as-is.
+     */
+    protected boolean anyPath(String... attributeNames) {
+        for (String oneName : attributeNames) {
+            if (!AttributePathUtil.isPlainName(oneName)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Query attributes, some of which have paths.  JMX has no means to select part of an attribute remotely, so each
+     * underlying attribute is retrieved once, in one request, and the paths are resolved here, before any value is
+     * returned to the caller.
+     *
+     * @param objectName object name of the mbean to query.
+     * @param attributeReferences attribute names, optionally qualified with paths.
+     * @return list of attribute values named by the given references.
+     */
+    protected List<Attribute> getAttributesWithPaths(ObjectName objectName, String... attributeReferences)
+            throws InstanceNotFoundException, IOException, ReflectionException {
+
+        Set<String> baseNames = new LinkedHashSet<>();
+        for (String oneReference : attributeReferences) {
+            baseNames.add(AttributePathUtil.getAttributeName(oneReference));
+        }
+
+        AttributeList baseValues =
+                this.mBeanServerConnection.getAttributes(objectName, baseNames.toArray(new String[baseNames.size()]));
+
+        Map<String, Object> valuesByName = new HashMap<>();
+        for (Attribute oneAttribute : baseValues.asList()) {
+            valuesByName.put(oneAttribute.getName(), oneAttribute.getValue());
+        }
+
+        List<Attribute> result = new LinkedList<>();
+        for (String oneReference : attributeReferences) {
+            String baseName = AttributePathUtil.getAttributeName(oneReference);
+
+            // Skip attributes the server did not return, consistent with getAttributes() on the server connection.
+            if (valuesByName.containsKey(baseName)) {
+                Object value = AttributePathUtil.resolvePath(valuesByName.get(baseName),
+                        AttributePathUtil.getPath(oneReference));
+
+                result.add(new Attribute(oneReference, value));
+            }
+        }
+
+        return result;
+    }
 }
@@ -19,9 +19,15 @@
 
 package com.amlinv.jmxutil.connection.impl;
 
+import com.amlinv.jmxutil.connection.AttributePathUtil;
+import com.amlinv.jmxutil.connection.MBeanRegistrationListener;
+import com.amlinv.logging.util.RepeatLogMessageSuppressor;
 import org.jolokia.client.J4pClient;
 import org.jolokia.client.exception.J4pBulkRemoteException;
 import org.jolokia.client.exception.J4pException;
+import org.jolokia.client.exception.J4pRemoteException;
+import org.jolokia.client.request.J4pListRequest;
+import org.jolokia.client.request.J4pListResponse;
 import org.jolokia.client.request.J4pReadRequest;
 import org.jolokia.client.request.J4pReadResponse;
 import org.jolokia.client.request.J4pSearchRequest;
@@ -31,28 +37,49 @@ import org.slf4j.LoggerFactory;
 
 import javax.management.Attribute;
 import javax.management.InstanceNotFoundException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
 import javax.management.QueryExp;
 import javax.management.ReflectionException;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by art on 5/7/15.
  */
-public class JolokiaConnection implements MBeanBatchCapableAccessConnection {
+public class JolokiaConnection implements MBeanBatchCapableAccessConnection, MBeanInfoCapableAccessConnection {
     private static final Logger DEFAULT_LOGGER = LoggerFactory.getLogger(JolokiaConnection.class);
 
+    // Form of the values Jolokia reports in place of attributes it failed to read, when ignoring errors.
+    private static final String IGNORED_ERROR_PREFIX = "ERROR: ";
+    private static final String IGNORED_ERROR_CLASS_MARKER = " (class ";
+
     private Logger log = DEFAULT_LOGGER;
 
     private final J4pClient jolokiaClient;
 
+    private JolokiaProcessingOptions processingOptions = JolokiaProcessingOptions.NONE;
+    private Map<String, JolokiaProcessingOptions> attributeProcessingOptions =
+            new ConcurrentHashMap<String, JolokiaProcessingOptions>();
+
+    private int maxTransientRetries = JolokiaConnectionConfig.DEFAULT_MAX_TRANSIENT_RETRIES;
+    private long transientRetryBudget = JolokiaConnectionConfig.DEFAULT_TRANSIENT_RETRY_BUDGET;
+
+    private RepeatLogMessageSuppressor logElementFailureThrottle = new RepeatLogMessageSuppressor();
+    private RepeatLogMessageSuppressor logIgnoredErrorThrottle = new RepeatLogMessageSuppressor();
+
     public JolokiaConnection(J4pClient initJolokiaClient) {
         this.jolokiaClient = initJolokiaClient;
     }
@@ -65,11 +92,74 @@ public class JolokiaConnection implements MBeanBatchCapableAccessConnection {
         this.log = log;
     }
 
+    public JolokiaProcessingOptions getProcessingOptions() {
+        return processingOptions;
+    }
+
+    /**
+     * Set the processing options applied to batch queries; changes take effect on the next poll.
+     *
+     * @param processingOptions options for all attributes without options of their own.
+     */
+    public void setProcessingOptions(JolokiaProcessingOptions processingOptions) {
+        this.processingOptions = processingOptions;
+    }
+
+    public int getMaxTransientRetries() {
+        return maxTransientRetries;
+    }
+
+    /**
+     * Set the maximum number of follow-up bulk requests used to retry transiently failed elements of a batch query.
+     *
+     * @param maxTransientRetries maximum number of follow-up requests; 0 disables retries.
+     */
+    public void setMaxTransientRetries(int maxTransientRetries) {
+        this.maxTransientRetries = maxTransientRetries;
+    }
+
+    public long getTransientRetryBudget() {
+        return transientRetryBudget;
+    }
+
+    /**
+     * Set the time, in milliseconds from the start of a batch query, after which no more retries are started so the
+     * query completes within the poll cycle.
+     *
+     * @param transientRetryBudget time budget for retries, in milliseconds.
+     */
+    public void setTransientRetryBudget(long transientRetryBudget) {
+        this.transientRetryBudget = transientRetryBudget;
+    }
+
+    public JolokiaProcessingOptions getAttributeProcessingOptions(String attributeName) {
+        return this.attributeProcessingOptions.get(attributeName);
+    }
+
+    /**
+     * Set processing options for one attribute in batch queries; options not set here fall back to the connection's
+     * processing options.
+     *
+     * @param attributeName name of the attribute, or the attribute qualified with a path.
+     * @param options options for the attribute; null to remove the attribute's options.
+     */
+    public void setAttributeProcessingOptions(String attributeName, JolokiaProcessingOptions options) {
+        if (options != null) {
+            this.attributeProcessingOptions.put(attributeName, options);
+        } else {
+            this.attributeProcessingOptions.remove(attributeName);
+        }
+    }
+
     @Override
     public List<Attribute> getAttributes(ObjectName objectName, String... attributeNames)
             throws InstanceNotFoundException, IOException, ReflectionException {
 
         try {
+            if ( this.anyPath(attributeNames) ) {
+                return  this.getAttributesWithPaths(objectName, attributeNames);
+            }
+
             J4pReadRequest request = new J4pReadRequest(objectName, attributeNames);
             J4pReadResponse response = this.jolokiaClient.execute(request);
 
@@ -80,6 +170,8 @@ public class JolokiaConnection implements MBeanBatchCapableAccessConnection {
             }
 
             return  result;
+        } catch (MalformedObjectNameException malformedObjectNameExc) {
+            throw new IOException("jolokia response with invalid object name", malformedObjectNameExc);
         } catch (J4pException jolokiaExc) {
             // TODO: consider finer analysis of the exception
             throw new IOException("jolokia request failure", jolokiaExc);
@@ -90,33 +182,16 @@ public class JolokiaConnection implements MBeanBatchCapableAccessConnection {
     public Map<ObjectName, List<Attribute>> batchQueryAttributes(Map<ObjectName, List<String>> objectAttNames)
             throws IOException, ReflectionException, MalformedObjectNameException {
 
-        Map<ObjectName, List<Attribute>> result;
-        List<J4pReadRequest> requests = new LinkedList<>();
-
-        for ( ObjectName oneObjectName : objectAttNames.keySet() ) {
-            List<String> attributeNames = objectAttNames.get(oneObjectName);
-            String[] attributeNameArray = new String[attributeNames.size()];
-            attributeNameArray = attributeNames.toArray(attributeNameArray);
-
-            J4pReadRequest oneReadRequest = new J4pReadRequest(oneObjectName, attributeNameArray);
-            requests.add(oneReadRequest);
-        }
+        Map<ObjectName, List<Attribute>> result = new HashMap<>();
 
-        try {
-            List<J4pReadResponse> responses = this.jolokiaClient.execute(requests);
-            result = this.copyOutBatchAttributes(responses, objectAttNames);
-        } catch (J4pBulkRemoteException j4pBulkRemoteExc ) {
-            //
-            // May have a partial result; copy out what we can.
-            //
-            List responses = new LinkedList(j4pBulkRemoteExc.getResponses());
-            responses.addAll(j4pBulkRemoteExc.getRemoteExceptions());
+        //
+        // Processing options apply to an entire bulk request, so attributes with different options are queried with
+        //  separate bulk requests.
+        //
+        Map<JolokiaProcessingOptions, Map<ObjectName, List<String>>> optionGroups =
+                this.groupByProcessingOptions(objectAttNames);
 
-            result = this.copyOutBatchAttributes(responses, objectAttNames);
-        } catch (J4pException jolokiaExc) {
-            // TODO: consider finer analysis of the exception
-            throw new IOException("jolokia request failure", jolokiaExc);
-        }
+        this.executeBatchQuery(optionGroups, result);
 
         return result;
     }
@@ -135,32 +210,303 @@ public class JolokiaConnection implements MBeanBatchCapableAccessConnection {
         }
     }
 
+    /**
+     * Describe the mbean using a Jolokia list request.  Jolokia does not report the class name of mbeans, so the
+     * class name of the result is null; only the attributes are populated.
+     */
+    @Override
+    public MBeanInfo getMBeanInfo(ObjectName objectName)
+            throws InstanceNotFoundException, IOException, ReflectionException {
+
+        Map<String, Object> description;
+        try {
+            J4pListResponse response = this.jolokiaClient.execute(new J4pListRequest(objectName));
+            description = response.getValue();
+        } catch (J4pRemoteException remoteExc) {
+            if (JolokiaElementFailureType.classify(remoteExc) == JolokiaElementFailureType.MISSING_MBEAN) {
+                InstanceNotFoundException infExc = new InstanceNotFoundException(objectName.toString());
+                infExc.initCause(remoteExc);
+
+                throw infExc;
+            }
+
+            throw new ReflectionException(remoteExc, "jolokia failed to describe mbean " + objectName);
+        } catch (J4pException jolokiaExc) {
+            throw new IOException("jolokia request failure", jolokiaExc);
+        }
+
+        List<MBeanAttributeInfo> attributeInfos = new LinkedList<>();
+
+        Object attributes = ( description != null ) ? description.get("attr") : null;
+        if ( attributes instanceof Map ) {
+            for ( Map.Entry<?, ?> oneEntry : ((Map<?, ?>) attributes).entrySet() ) {
+                Map<?, ?> details;
+                if ( oneEntry.getValue() instanceof Map ) {
+                    details = (Map<?, ?>) oneEntry.getValue();
+                } else {
+                    details = Collections.emptyMap();
+                }
+
+                Object type = details.get("type");
+                Object desc = details.get("desc");
+
+                attributeInfos.add(new MBeanAttributeInfo(String.valueOf(oneEntry.getKey()),
+                        ( type != null ) ? type.toString() : null, ( desc != null ) ? desc.toString() : null, true,
+                        Boolean.TRUE.equals(details.get("rw")), false));
+            }
+        }
+
+        Object desc = ( description != null ) ? description.get("desc") : null;
+
+        return new MBeanInfo(null, ( desc != null ) ? desc.toString() : null,
+                attributeInfos.toArray(new MBeanAttributeInfo[attributeInfos.size()]), null, null, null);
+    }
+
+    /**
+     * Jolokia offers no notification of registration changes to its clients, so listeners are not supported.
+     *
+     * @return false always.
+     */
+    @Override
+    public boolean addRegistrationListener(MBeanRegistrationListener listener) {
+        return false;
+    }
 
     @Override
     public void close() throws IOException {
     }
 
+    /**
+     * Execute one bulk request for each group of attributes, using the group's processing options, and copy the
+     * results into the given result map.  Elements that fail transiently are re-issued, alone, in follow-up bulk
+     * requests of their group as long as retries remain and the retry time budget, measured from the start of the
+     * query, has not passed.  The retries and the time budget are shared by all of the groups: each follow-up bulk
+     * request counts as one retry, so a query with several groups makes no more retries than one with a single group.
+     */
+    protected void executeBatchQuery(Map<JolokiaProcessingOptions, Map<ObjectName, List<String>>> optionGroups,
+                                     Map<ObjectName, List<Attribute>> result)
+            throws IOException, MalformedObjectNameException {
+
+        long retryDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.transientRetryBudget);
+        Map<JolokiaProcessingOptions, List<J4pReadRequest>> retryGroups = new LinkedHashMap<>();
+
+        for ( Map.Entry<JolokiaProcessingOptions, Map<ObjectName, List<String>>> oneGroup : optionGroups.entrySet() ) {
+            List<J4pReadRequest> requests = new LinkedList<>();
+            for ( Map.Entry<ObjectName, List<String>> oneEntry : oneGroup.getValue().entrySet() ) {
+                requests.addAll(this.createReadRequests(oneEntry.getKey(), oneEntry.getValue()));
+            }
+
+            List<J4pReadRequest> retryRequests =
+                    this.executeBulkRequest(requests, oneGroup.getValue(), oneGroup.getKey(), result);
+
+            if ( ! retryRequests.isEmpty() ) {
+                retryGroups.put(oneGroup.getKey(), retryRequests);
+            }
+        }
+
+        int retryCount = 0;
+        int droppedCount = 0;
+
+        while ( ! retryGroups.isEmpty() ) {
+            Map<JolokiaProcessingOptions, List<J4pReadRequest>> nextRetryGroups = new LinkedHashMap<>();
+
+            for ( Map.Entry<JolokiaProcessingOptions, List<J4pReadRequest>> oneGroup : retryGroups.entrySet() ) {
+                if ( ( retryCount >= this.maxTransientRetries ) || ( System.nanoTime() - retryDeadline >= 0 ) ) {
+                    droppedCount += oneGroup.getValue().size();
+                    continue;
+                }
+
+                retryCount++;
+
+                try {
+                    List<J4pReadRequest> retryRequests = this.executeBulkRequest(oneGroup.getValue(),
+                            optionGroups.get(oneGroup.getKey()), oneGroup.getKey(), result);
+
+                    if ( ! retryRequests.isEmpty() ) {
+                        nextRetryGroups.put(oneGroup.getKey(), retryRequests);
+                    }
+                } catch (IOException ioExc) {
+                    // Keep the results already collected; the next poll will determine whether the connection is lost.
+                    this.log.info("failed to retry {} elements of a bulk query", oneGroup.getValue().size(), ioExc);
+                }
+            }
+
+            retryGroups = nextRetryGroups;
+        }
+
+        if ( droppedCount > 0 ) {
+            this.log.info("dropping {} transiently failed elements of a bulk query after {} retries", droppedCount,
+                    retryCount);
+        }
+    }
+
+    /**
+     * Execute a single bulk request and copy out the results.
+     *
+     * @return requests for the elements that failed transiently; empty if none.
+     */
+    protected List<J4pReadRequest> executeBulkRequest(List<J4pReadRequest> requests,
+                                                      Map<ObjectName, List<String>> objectAttNames,
+                                                      JolokiaProcessingOptions options,
+                                                      Map<ObjectName, List<Attribute>> result)
+            throws IOException, MalformedObjectNameException {
+
+        List<J4pReadRequest> retryRequests = new LinkedList<>();
+        boolean ignoreErrors = Boolean.TRUE.equals(options.getIgnoreErrors());
+
+        try {
+            List<J4pReadResponse> responses;
+            if ( options.isEmpty() ) {
+                responses = this.jolokiaClient.execute(requests);
+            } else {
+                responses = this.jolokiaClient.execute(requests, options.toQueryParameters());
+            }
+
+            this.copyOutBatchAttributes(responses, objectAttNames, result, ignoreErrors);
+        } catch (J4pBulkRemoteException j4pBulkRemoteExc ) {
+            //
+            // May have a partial result; copy out what we can.
+            //
+            this.copyOutBatchAttributes(j4pBulkRemoteExc.getResponses(), objectAttNames, result, ignoreErrors);
+
+            //
+            // Classify the failed elements and collect those worth retrying.
+            //
+            for ( J4pRemoteException oneRemoteExc : j4pBulkRemoteExc.getRemoteExceptions() ) {
+                JolokiaElementFailureType failureType = JolokiaElementFailureType.classify(oneRemoteExc);
+
+                if ( failureType.isRetryable() ) {
+                    this.log.info("error on element of a bulk query", oneRemoteExc);
+
+                    if ( oneRemoteExc.getRequest() instanceof J4pReadRequest ) {
+                        retryRequests.add((J4pReadRequest) oneRemoteExc.getRequest());
+                    }
+                } else {
+                    this.logElementFailureThrottle.debug(this.log, "non-retryable error on element of a bulk query: " +
+                            "failureType={}", failureType, oneRemoteExc);
+                }
+            }
+        } catch (J4pException jolokiaExc) {
+            // TODO: consider finer analysis of the exception
+            throw new IOException("jolokia request failure", jolokiaExc);
+        }
+
+        return  retryRequests;
+    }
+
+    /**
+     * Partition the attributes to query by their effective processing options.  In the common case of no
+     * attribute-specific options, the result is a single group containing the original map.
+     */
+    protected Map<JolokiaProcessingOptions, Map<ObjectName, List<String>>> groupByProcessingOptions(
+            Map<ObjectName, List<String>> objectAttNames) {
+
+        Map<JolokiaProcessingOptions, Map<ObjectName, List<String>>> result = new LinkedHashMap<>();
+
+        if ( this.attributeProcessingOptions.isEmpty() ) {
+            result.put(this.processingOptions, objectAttNames);
+            return  result;
+        }
+
+        for ( Map.Entry<ObjectName, List<String>> oneEntry : objectAttNames.entrySet() ) {
+            for ( String oneReference : oneEntry.getValue() ) {
+                JolokiaProcessingOptions options = this.getEffectiveProcessingOptions(oneReference);
+
+                Map<ObjectName, List<String>> group = result.get(options);
+                if ( group == null ) {
+                    group = new HashMap<>();
+                    result.put(options, group);
+                }
+
+                List<String> groupAttNames = group.get(oneEntry.getKey());
+                if ( groupAttNames == null ) {
+                    groupAttNames = new LinkedList<>();
+                    group.put(oneEntry.getKey(), groupAttNames);
+                }
+
+                groupAttNames.add(oneReference);
+            }
+        }
+
+        return  result;
+    }
+
+    protected JolokiaProcessingOptions getEffectiveProcessingOptions(String attributeReference) {
+        JolokiaProcessingOptions options = this.attributeProcessingOptions.get(attributeReference);
+        if ( options == null ) {
+            options = this.attributeProcessingOptions.get(AttributePathUtil.getAttributeName(attributeReference));
+        }
+
+        if ( options == null ) {
+            return  this.processingOptions;
+        }
+
+        return  options.withDefaults(this.processingOptions);
+    }
+
     protected Map<ObjectName, List<Attribute>> copyOutBatchAttributes (List responses,
                                                                        Map<ObjectName, List<String>> objectAttNames)
             throws MalformedObjectNameException {
 
         Map<ObjectName, List<Attribute>> result = new HashMap<>();
+        this.copyOutBatchAttributes(responses, objectAttNames, result);
+
+        return result;
+    }
+
+    protected void copyOutBatchAttributes (List responses, Map<ObjectName, List<String>> objectAttNames,
+                                           Map<ObjectName, List<Attribute>> result)
+            throws MalformedObjectNameException {
+
+        this.copyOutBatchAttributes(responses, objectAttNames, result, false);
+    }
+
+    /**
+     * Copy out the values of the responses to a bulk request.  When the request was sent with ignoreErrors, Jolokia
+     * reports a failed attribute with an error message in place of its value; those values are logged and skipped.
+     */
+    protected void copyOutBatchAttributes (List responses, Map<ObjectName, List<String>> objectAttNames,
+                                           Map<ObjectName, List<Attribute>> result, boolean ignoreErrors)
+            throws MalformedObjectNameException {
 
         for ( Object oneResponse : responses ) {
             if ( oneResponse instanceof J4pReadResponse ) {
                 J4pReadResponse j4pReadResponse = (J4pReadResponse) oneResponse;
+                J4pReadRequest j4pReadRequest = j4pReadResponse.getRequest();
 
-                for (ObjectName oneObjectName : j4pReadResponse.getObjectNames()) {
-                    List<Attribute> values = new LinkedList<>();
-                    List<String> attNames = objectAttNames.get(oneObjectName);
+                if ( j4pReadRequest.getPath() != null ) {
+                    //
+                    // Path requests always read a single attribute of a single mbean.
+                    //
+                    String reference = AttributePathUtil.qualify(j4pReadRequest.getAttribute(),
+                            j4pReadRequest.getPath());
+                    Object value = j4pReadResponse.getValue();
 
-                    for (String oneAttributeName : attNames) {
-                        Object value = j4pReadResponse.getValue(oneObjectName, oneAttributeName);
-                        Attribute att = new Attribute(oneAttributeName, value);
-                        values.add(att);
-                    }
+                    if ( ( ! ignoreErrors ) ||
+                            ( ! this.isIgnoredError(j4pReadRequest.getObjectName(), reference, value) ) ) {
 
-                    result.put(oneObjectName, values);
+                        Attribute att = new Attribute(reference, value);
+                        this.getResultList(result, j4pReadRequest.getObjectName()).add(att);
+                    }
+                } else {
+                    for (ObjectName oneObjectName : j4pReadResponse.getObjectNames()) {
+                        List<Attribute> values = this.getResultList(result, oneObjectName);
+                        List<String> attNames = objectAttNames.get(oneObjectName);
+
+                        for (String oneAttributeName : attNames) {
+                            if ( ! AttributePathUtil.hasPath(oneAttributeName) ) {
+                                Object value = j4pReadResponse.getValue(oneObjectName,
+                                        AttributePathUtil.getAttributeName(oneAttributeName));
+
+                                if ( ( ! ignoreErrors ) ||
+                                        ( ! this.isIgnoredError(oneObjectName, oneAttributeName, value) ) ) {
+
+                                    Attribute att = new Attribute(oneAttributeName, value);
+                                    values.add(att);
+                                }
+                            }
+                        }
+                    }
                 }
             } else if ( oneResponse instanceof Exception ) {
                 this.log.info("error on element of a bulk query", (Exception) oneResponse);
@@ -176,7 +522,98 @@ public class JolokiaConnection implements MBeanBatchCapableAccessConnection {
                 }
             }
         }
+    }
 
-        return result;
+    /**
+     * Create the read requests for the given attributes of one mbean.  Attributes without paths are all read with a
+     * single request; Jolokia applies a request's path to every attribute of the request, so each attribute with a
+     * path is read with its own request.
+     *
+     * @param objectName name of the mbean to read.
+     * @param attributeReferences names of the attributes to read, optionally qualified with paths.
+     * @return list of read requests.
+     */
+    protected List<J4pReadRequest> createReadRequests(ObjectName objectName, List<String> attributeReferences) {
+        List<J4pReadRequest> requests = new LinkedList<>();
+        List<String> plainNames = new LinkedList<>();
+
+        for ( String oneReference : attributeReferences ) {
+            if ( AttributePathUtil.hasPath(oneReference) ) {
+                J4pReadRequest pathRequest =
+                        new J4pReadRequest(objectName, AttributePathUtil.getAttributeName(oneReference));
+                pathRequest.setPath(AttributePathUtil.getPath(oneReference));
+
+                requests.add(pathRequest);
+            } else {
+                plainNames.add(AttributePathUtil.getAttributeName(oneReference));
+            }
+        }
+
+        if ( ! plainNames.isEmpty() ) {
+            requests.add(0, new J4pReadRequest(objectName, plainNames.toArray(new String[plainNames.size()])));
+        }
+
+        return  requests;
+    }
+
+    protected List<Attribute> getAttributesWithPaths(ObjectName objectName, String... attributeReferences)
+            throws J4pException, MalformedObjectNameException {
+
+        List<String> referenceList = Arrays.asList(attributeReferences);
+        List<J4pReadResponse> responses = this.jolokiaClient.execute(this.createReadRequests(objectName, referenceList));
+
+        Map<ObjectName, List<Attribute>> result =
+                this.copyOutBatchAttributes(responses, Collections.singletonMap(objectName, referenceList));
+
+        List<Attribute> attributes = result.get(objectName);
+        if ( attributes == null ) {
+            attributes = new LinkedList<>();
+        }
+
+        return  attributes;
+    }
+
+    /**
+     * Determine whether the given value is the error that Jolokia reports, with ignoreErrors, in place of the value of
+     * an attribute it failed to read (e.g. "ERROR: message (class java.lang.IllegalStateException)"), and log it.
+     */
+    protected boolean isIgnoredError(ObjectName objectName, String attributeReference, Object value) {
+        if ( ! ( value instanceof String ) ) {
+            return  false;
+        }
+
+        String text = (String) value;
+        if ( ( ! text.startsWith(IGNORED_ERROR_PREFIX) ) || ( ! text.endsWith(")") ) ||
+                ( ! text.contains(IGNORED_ERROR_CLASS_MARKER) ) ) {
+            return  false;
+        }
+
+        this.logIgnoredErrorThrottle.info(this.log, "error reading attribute in bulk query: oname={}; attribute={}; " +
+                "error={}", objectName, attributeReference, text);
+
+        return  true;
+    }
+
+    /**
+     * @return true => if any reference has a path or an escaped name, and so cannot be passed to the server as-is.
+     */
+    protected boolean anyPath(String... attributeNames) {
+        for ( String oneName : attributeNames ) {
+            if ( ! AttributePathUtil.isPlainName(oneName) ) {
+                return  true;
+            }
+        }
+
+        return  false;
+    }
+
+    private List<Attribute> getResultList(Map<ObjectName, List<Attribute>> result, ObjectName objectName) {
+        List<Attribute> values = result.get(objectName);
+        if ( values == null ) {
+            values = new LinkedList<>();
+            result.put(objectName, values);
+        }
+
+        return  values;
     }
 }
@@ -0,0 +1,258 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.amlinv.jmxutil.connection.impl;
+
+/**
+ * Immutable HTTP tuning for connections created by the JolokiaConnectionFactory.  Create instances with the builder:
+ *
+ * <pre>
+ *     JolokiaConnectionConfig config = JolokiaConnectionConfig.builder()
+ *             .maxTotalConnections(50)
+ *             .maxConnectionsPerRoute(2)
+ *             .socketTimeout(10000)
+ *             .build();
+ * </pre>
+ *
+ * All timeouts are in milliseconds; a timeout of 0 means wait indefinitely.
+ */
+public class JolokiaConnectionConfig {
+    public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 5;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 2;      // http client default; Jolokia does not set it
+    public static final int DEFAULT_CONNECTION_POOL_TIMEOUT = 30000;    // Jolokia default is 0.5 seconds -- far too short.
+    public static final int DEFAULT_CONNECT_TIMEOUT = 20000;
+    public static final int DEFAULT_SOCKET_TIMEOUT = 0;
+    public static final long DEFAULT_KEEP_ALIVE_TIMEOUT = 0;
+    public static final int DEFAULT_MAX_TRANSIENT_RETRIES = 1;
+    public static final long DEFAULT_TRANSIENT_RETRY_BUDGET = 5000;
+
+    private final int maxTotalConnections;
+    private final int maxConnectionsPerRoute;
+    private final int connectionPoolTimeout;
+    private final int connectTimeout;
+    private final int socketTimeout;
+    private final boolean keepAlive;
+    private final long keepAliveTimeout;
+    private final boolean responseCompression;
+    private final JolokiaProcessingOptions processingOptions;
+    private final int maxTransientRetries;
+    private final long transientRetryBudget;
+
+    protected JolokiaConnectionConfig(Builder builder) {
+        this.maxTotalConnections = builder.maxTotalConnections;
+        this.maxConnectionsPerRoute = builder.maxConnectionsPerRoute;
+        this.connectionPoolTimeout = builder.connectionPoolTimeout;
+        this.connectTimeout = builder.connectTimeout;
+        this.socketTimeout = builder.socketTimeout;
+        this.keepAlive = builder.keepAlive;
+        this.keepAliveTimeout = builder.keepAliveTimeout;
+        this.responseCompression = builder.responseCompression;
+        this.processingOptions = builder.processingOptions;
+        this.maxTransientRetries = builder.maxTransientRetries;
+        this.transientRetryBudget = builder.transientRetryBudget;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Maximum number of pooled connections across all routes.
+     */
+    public int getMaxTotalConnections() {
+        return maxTotalConnections;
+    }
+
+    /**
+     * Maximum number of pooled connections to any single route (i.e. Jolokia host and port).
+     */
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    /**
+     * Time to wait for a connection to become available from the pool.
+     */
+    public int getConnectionPoolTimeout() {
+        return connectionPoolTimeout;
+    }
+
+    /**
+     * Time to wait for the TCP connection to establish.
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Maximum time to wait for data on an established connection; protects against threads stuck on slow servers.
+     */
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    /**
+     * Whether connections are reused between requests.
+     */
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Maximum time an idle connection is kept for reuse; 0 => use the duration indicated by the server, if any.
+     */
+    public long getKeepAliveTimeout() {
+        return keepAliveTimeout;
+    }
+
+    /**
+     * Whether gzip-compressed responses are requested from the server; compressed responses are decompressed as they
+     * are parsed.
+     */
+    public boolean isResponseCompression() {
+        return responseCompression;
+    }
+
+    /**
+     * Processing options applied to batch queries of the connections created.
+     */
+    public JolokiaProcessingOptions getProcessingOptions() {
+        return processingOptions;
+    }
+
+    /**
+     * Maximum number of follow-up bulk requests used to retry the transiently failed elements of a batch query.
+     */
+    public int getMaxTransientRetries() {
+        return maxTransientRetries;
+    }
+
+    /**
+     * Time from the start of a batch query after which no more retries are started.
+     */
+    public long getTransientRetryBudget() {
+        return transientRetryBudget;
+    }
+
+    /**
+     * Builder of JolokiaConnectionConfig objects; starts with the defaults used before the configuration was
+     * introduced.
+     */
+    public static class Builder {
+        private int maxTotalConnections = DEFAULT_MAX_TOTAL_CONNECTIONS;
+        private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+        private int connectionPoolTimeout = DEFAULT_CONNECTION_POOL_TIMEOUT;
+        private int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+        private int socketTimeout = DEFAULT_SOCKET_TIMEOUT;
+        private boolean keepAlive = true;
+        private long keepAliveTimeout = DEFAULT_KEEP_ALIVE_TIMEOUT;
+        private boolean responseCompression = true;
+        private JolokiaProcessingOptions processingOptions = JolokiaProcessingOptions.NONE;
+        private int maxTransientRetries = DEFAULT_MAX_TRANSIENT_RETRIES;
+        private long transientRetryBudget = DEFAULT_TRANSIENT_RETRY_BUDGET;
+
+        protected Builder() {
+        }
+
+        public Builder maxTotalConnections(int maxTotalConnections) {
+            this.maxTotalConnections = requirePositive("maxTotalConnections", maxTotalConnections);
+            return this;
+        }
+
+        public Builder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = requirePositive("maxConnectionsPerRoute", maxConnectionsPerRoute);
+            return this;
+        }
+
+        public Builder connectionPoolTimeout(int connectionPoolTimeout) {
+            this.connectionPoolTimeout = requireNonNegative("connectionPoolTimeout", connectionPoolTimeout);
+            return this;
+        }
+
+        public Builder connectTimeout(int connectTimeout) {
+            this.connectTimeout = requireNonNegative("connectTimeout", connectTimeout);
+            return this;
+        }
+
+        public Builder socketTimeout(int socketTimeout) {
+            this.socketTimeout = requireNonNegative("socketTimeout", socketTimeout);
+            return this;
+        }
+
+        public Builder keepAlive(boolean keepAlive) {
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        public Builder keepAliveTimeout(long keepAliveTimeout) {
+            if (keepAliveTimeout < 0) {
+                throw new IllegalArgumentException("keepAliveTimeout must not be negative: " + keepAliveTimeout);
+            }
+
+            this.keepAliveTimeout = keepAliveTimeout;
+            return this;
+        }
+
+        public Builder responseCompression(boolean responseCompression) {
+            this.responseCompression = responseCompression;
+            return this;
+        }
+
+        public Builder processingOptions(JolokiaProcessingOptions processingOptions) {
+            if (processingOptions == null) {
+                throw new IllegalArgumentException("processingOptions must not be null");
+            }
+
+            this.processingOptions = processingOptions;
+            return this;
+        }
+
+        public Builder maxTransientRetries(int maxTransientRetries) {
+            this.maxTransientRetries = requireNonNegative("maxTransientRetries", maxTransientRetries);
+            return this;
+        }
+
+        public Builder transientRetryBudget(long transientRetryBudget) {
+            if (transientRetryBudget < 0) {
+                throw new IllegalArgumentException("transientRetryBudget must not be negative: " +
+                        transientRetryBudget);
+            }
+
+            this.transientRetryBudget = transientRetryBudget;
+            return this;
+        }
+
+        public JolokiaConnectionConfig build() {
+            return new JolokiaConnectionConfig(this);
+        }
+
+        private static int requirePositive(String name, int value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(name + " must be positive: " + value);
+            }
+
+            return value;
+        }
+
+        private static int requireNonNegative(String name, int value) {
+            if (value < 0) {
+                throw new IllegalArgumentException(name + " must not be negative: " + value);
+            }
+
+            return value;
+        }
+    }
+}
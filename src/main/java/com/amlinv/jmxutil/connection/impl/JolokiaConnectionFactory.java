@@ -18,6 +18,19 @@ package com.amlinv.jmxutil.connection.impl;
 
 import com.amlinv.jmxutil.connection.MBeanAccessConnection;
 import com.amlinv.jmxutil.connection.MBeanAccessConnectionFactory;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.NoConnectionReuseStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
 import org.jolokia.client.J4pClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,22 +50,31 @@ public class JolokiaConnectionFactory implements MBeanAccessConnectionFactory {
      */
     private final String jolokiaUrl;
 
+    private final JolokiaConnectionConfig config;
+
     private Logger log = DEFAULT_LOGGER;
 
     public JolokiaConnectionFactory(String initJolokiaUrl) {
+        this(initJolokiaUrl, JolokiaConnectionConfig.builder().build());
+    }
+
+    public JolokiaConnectionFactory(String initJolokiaUrl, JolokiaConnectionConfig initConfig) {
         this.jolokiaUrl = initJolokiaUrl;
+        this.config = initConfig;
+    }
+
+    public JolokiaConnectionConfig getConfig() {
+        return config;
     }
 
     @Override
     public MBeanAccessConnection createConnection() throws IOException {
-        J4pClient client = J4pClient
-                .url(this.jolokiaUrl)
-                .pooledConnections()
-                .maxConnectionPoolTimeout(30000)    // 30 seconds; default is 0.5 seconds -- far too short.
-                .maxTotalConnections(5)
-                .build();
+        J4pClient client = new J4pClient(this.jolokiaUrl, this.createHttpClient());
 
         JolokiaConnection connection = new JolokiaConnection(client);
+        connection.setProcessingOptions(this.config.getProcessingOptions());
+        connection.setMaxTransientRetries(this.config.getMaxTransientRetries());
+        connection.setTransientRetryBudget(this.config.getTransientRetryBudget());
 
         return connection;
     }
@@ -61,4 +83,75 @@ public class JolokiaConnectionFactory implements MBeanAccessConnectionFactory {
     public String getTargetDescription() {
         return "jolokia:url=" + this.jolokiaUrl;
     }
+
+    /**
+     * Create the HTTP client used by the Jolokia client.  The Jolokia client builder does not expose per-route limits,
+     * keep-alive, or compression settings, so the client is built here instead.
+     *
+     * @return new http client configured per the connection configuration.
+     */
+    protected HttpClient createHttpClient() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(this.config.getMaxTotalConnections());
+        connectionManager.setDefaultMaxPerRoute(this.config.getMaxConnectionsPerRoute());
+        connectionManager.setDefaultSocketConfig(
+                SocketConfig.custom()
+                        .setTcpNoDelay(true)
+                        .setSoTimeout(this.config.getSocketTimeout())
+                        .build());
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(this.config.getConnectionPoolTimeout())
+                .setConnectTimeout(this.config.getConnectTimeout())
+                .setSocketTimeout(this.config.getSocketTimeout())
+                .build();
+
+        HttpClientBuilder builder = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig);
+
+        if (this.config.isKeepAlive()) {
+            if (this.config.getKeepAliveTimeout() > 0) {
+                builder.setKeepAliveStrategy(new CappedKeepAliveStrategy(this.config.getKeepAliveTimeout()));
+            }
+        } else {
+            builder.setConnectionReuseStrategy(NoConnectionReuseStrategy.INSTANCE);
+        }
+
+        //
+        // Use gzip-only response compression in place of the http client's built-in handling, which also advertises
+        //  deflate and leaves some encodings on the entity for the Jolokia client to misread as a character set.
+        //
+        builder.disableContentCompression();
+
+        if (this.config.isResponseCompression()) {
+            GzipContentEncodingInterceptor gzipInterceptor = new GzipContentEncodingInterceptor();
+            builder.addInterceptorLast((HttpRequestInterceptor) gzipInterceptor);
+            builder.addInterceptorFirst((HttpResponseInterceptor) gzipInterceptor);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Keep-alive strategy that honors the server's keep-alive duration, if any, up to a fixed maximum.
+     */
+    protected static class CappedKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+        private final long maxKeepAlive;
+
+        public CappedKeepAliveStrategy(long maxKeepAlive) {
+            this.maxKeepAlive = maxKeepAlive;
+        }
+
+        @Override
+        public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+
+            if ((serverKeepAlive > 0) && (serverKeepAlive < this.maxKeepAlive)) {
+                return serverKeepAlive;
+            }
+
+            return this.maxKeepAlive;
+        }
+    }
 }
@@ -0,0 +1,83 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.amlinv.jmxutil.connection.impl;
+
+import org.jolokia.client.exception.J4pRemoteException;
+
+/**
+ * Classification of the failure of one element of a Jolokia bulk request.
+ */
+public enum JolokiaElementFailureType {
+    /**
+     * The mbean does not exist (e.g. a queue that was removed); retrying will not help.
+     */
+    MISSING_MBEAN,
+
+    /**
+     * The mbean exists but lacks the attribute; retrying will not help.
+     */
+    MISSING_ATTRIBUTE,
+
+    /**
+     * The request was rejected (e.g. invalid request or access denied); retrying will not help.
+     */
+    PERMANENT,
+
+    /**
+     * Any other failure, such as an exception reading the attribute on the server; the element may succeed if
+     * retried.
+     */
+    TRANSIENT;
+
+    public boolean isRetryable() {
+        return this == TRANSIENT;
+    }
+
+    /**
+     * Classify the failure of one element of a bulk request.
+     *
+     * @param remoteException the failure reported by Jolokia for the element.
+     * @return classification of the failure.
+     */
+    public static JolokiaElementFailureType classify(J4pRemoteException remoteException) {
+        String errorType = remoteException.getErrorType();
+
+        if (errorType != null) {
+            if (errorType.endsWith("InstanceNotFoundException")) {
+                return MISSING_MBEAN;
+            }
+
+            if (errorType.endsWith("AttributeNotFoundException")) {
+                return MISSING_ATTRIBUTE;
+            }
+        }
+
+        switch (remoteException.getStatus()) {
+            case 404:
+                return MISSING_MBEAN;
+
+            case 400:
+            case 401:
+            case 403:
+            case 405:
+                return PERMANENT;
+
+            default:
+                return TRANSIENT;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.amlinv.jmxutil.connection.impl;
+
+import org.jolokia.client.request.J4pQueryParameter;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Immutable Jolokia processing options that bound the size of read responses and control error handling.  Options
+ * that are not set are left to the Jolokia agent's defaults.
+ *
+ * <ul>
+ *     <li>maxDepth - maximum depth to which values are serialized;</li>
+ *     <li>maxCollectionSize - maximum number of elements serialized from any one collection;</li>
+ *     <li>maxObjects - maximum number of objects serialized for any one value;</li>
+ *     <li>ignoreErrors - when true, a failure reading one attribute of a multi-attribute read is reported in that
+ *     attribute's value instead of failing the entire read.</li>
+ * </ul>
+ */
+public class JolokiaProcessingOptions {
+    public static final JolokiaProcessingOptions NONE = builder().build();
+
+    private final Integer maxDepth;
+    private final Integer maxCollectionSize;
+    private final Integer maxObjects;
+    private final Boolean ignoreErrors;
+
+    protected JolokiaProcessingOptions(Integer maxDepth, Integer maxCollectionSize, Integer maxObjects,
+                                       Boolean ignoreErrors) {
+        this.maxDepth = maxDepth;
+        this.maxCollectionSize = maxCollectionSize;
+        this.maxObjects = maxObjects;
+        this.ignoreErrors = ignoreErrors;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Integer getMaxDepth() {
+        return maxDepth;
+    }
+
+    public Integer getMaxCollectionSize() {
+        return maxCollectionSize;
+    }
+
+    public Integer getMaxObjects() {
+        return maxObjects;
+    }
+
+    public Boolean getIgnoreErrors() {
+        return ignoreErrors;
+    }
+
+    public boolean isEmpty() {
+        return (maxDepth == null) && (maxCollectionSize == null) && (maxObjects == null) && (ignoreErrors == null);
+    }
+
+    /**
+     * Combine these options with the given defaults; options set here take precedence.
+     *
+     * @param defaults options to use for any option not set here.
+     * @return the combined options.
+     */
+    public JolokiaProcessingOptions withDefaults(JolokiaProcessingOptions defaults) {
+        return new JolokiaProcessingOptions(
+                (this.maxDepth != null) ? this.maxDepth : defaults.maxDepth,
+                (this.maxCollectionSize != null) ? this.maxCollectionSize : defaults.maxCollectionSize,
+                (this.maxObjects != null) ? this.maxObjects : defaults.maxObjects,
+                (this.ignoreErrors != null) ? this.ignoreErrors : defaults.ignoreErrors);
+    }
+
+    /**
+     * Convert the options into query parameters for the Jolokia client.
+     *
+     * @return map of the query parameters for the options that are set.
+     */
+    public Map<J4pQueryParameter, String> toQueryParameters() {
+        Map<J4pQueryParameter, String> result = new EnumMap<>(J4pQueryParameter.class);
+
+        if (this.maxDepth != null) {
+            result.put(J4pQueryParameter.MAX_DEPTH, this.maxDepth.toString());
+        }
+        if (this.maxCollectionSize != null) {
+            result.put(J4pQueryParameter.MAX_COLLECTION_SIZE, this.maxCollectionSize.toString());
+        }
+        if (this.maxObjects != null) {
+            result.put(J4pQueryParameter.MAX_OBJECTS, this.maxObjects.toString());
+        }
+        if (this.ignoreErrors != null) {
+            result.put(J4pQueryParameter.IGNORE_ERRORS, this.ignoreErrors.toString());
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof JolokiaProcessingOptions)) {
+            return false;
+        }
+
+        JolokiaProcessingOptions that = (JolokiaProcessingOptions) other;
+
+        return equalOrBothNull(this.maxDepth, that.maxDepth) &&
+                equalOrBothNull(this.maxCollectionSize, that.maxCollectionSize) &&
+                equalOrBothNull(this.maxObjects, that.maxObjects) &&
+                equalOrBothNull(this.ignoreErrors, that.ignoreErrors);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (maxDepth != null) ? maxDepth.hashCode() : 0;
+        result = 31 * result + ((maxCollectionSize != null) ? maxCollectionSize.hashCode() : 0);
+        result = 31 * result + ((maxObjects != null) ? maxObjects.hashCode() : 0);
+        result = 31 * result + ((ignoreErrors != null) ? ignoreErrors.hashCode() : 0);
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "JolokiaProcessingOptions{maxDepth=" + maxDepth + ", maxCollectionSize=" + maxCollectionSize +
+                ", maxObjects=" + maxObjects + ", ignoreErrors=" + ignoreErrors + "}";
+    }
+
+    private static boolean equalOrBothNull(Object first, Object second) {
+        if (first == null) {
+            return (second == null);
+        }
+
+        return first.equals(second);
+    }
+
+    /**
+     * Builder of JolokiaProcessingOptions; all options start unset.
+     */
+    public static class Builder {
+        private Integer maxDepth;
+        private Integer maxCollectionSize;
+        private Integer maxObjects;
+        private Boolean ignoreErrors;
+
+        protected Builder() {
+        }
+
+        public Builder maxDepth(int maxDepth) {
+            this.maxDepth = requireNonNegative("maxDepth", maxDepth);
+            return this;
+        }
+
+        public Builder maxCollectionSize(int maxCollectionSize) {
+            this.maxCollectionSize = requireNonNegative("maxCollectionSize", maxCollectionSize);
+            return this;
+        }
+
+        public Builder maxObjects(int maxObjects) {
+            this.maxObjects = requireNonNegative("maxObjects", maxObjects);
+            return this;
+        }
+
+        public Builder ignoreErrors(boolean ignoreErrors) {
+            this.ignoreErrors = ignoreErrors;
+            return this;
+        }
+
+        public JolokiaProcessingOptions build() {
+            return new JolokiaProcessingOptions(maxDepth, maxCollectionSize, maxObjects, ignoreErrors);
+        }
+
+        private static int requireNonNegative(String name, int value) {
+            if (value < 0) {
+                throw new IllegalArgumentException(name + " must not be negative: " + value);
+            }
+
+            return value;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.connection.impl;
+
+import com.amlinv.jmxutil.connection.MBeanAccessConnection;
+import com.amlinv.jmxutil.connection.MBeanRegistrationListener;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.io.IOException;
+
+/**
+ * Connection that can describe mbeans, enabling attributes to be validated before they are polled.
+ */
+public interface MBeanInfoCapableAccessConnection extends MBeanAccessConnection {
+    /**
+     * Retrieve the description of the mbean with the given object name.  At a minimum, the attribute names and types
+     * are populated.
+     *
+     * @param objectName object name of the mbean to describe.
+     * @return description of the mbean.
+     * @throws InstanceNotFoundException if the mbean with the given object name does not exist.
+     * @throws IOException
+     * @throws ReflectionException if the server failed to describe the mbean.
+     */
+    MBeanInfo getMBeanInfo(ObjectName objectName) throws InstanceNotFoundException, IOException, ReflectionException;
+
+    /**
+     * Register a listener for mbean registration changes on the server.
+     *
+     * @param listener listener to notify on each registration change.
+     * @return true => if the listener was registered; false => if the connection cannot report registration changes.
+     * @throws IOException
+     */
+    boolean addRegistrationListener(MBeanRegistrationListener listener) throws IOException;
+}
@@ -0,0 +1,181 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+import com.amlinv.jmxutil.polling.AttributeSnapshot;
+
+import javax.management.ObjectName;
+import java.util.List;
+
+/**
+ * Aggregate of a sub-expression over all of the snapshots of a cycle whose ObjectNames match a pattern, such as the
+ * sum of EnqueueCount across all queues.  Snapshots for which the sub-expression is NaN are skipped.  The value is
+ * constant over a cycle, so it is computed once per cycle and cached.  Not thread-safe; expressions are evaluated by
+ * one thread at a time.
+ */
+public final class AggregateExpression implements DerivedExpression {
+    private final AggregateFunction function;
+    private final DerivedExpression operand;
+    private final ObjectName pattern;
+
+    private EvaluationContext cachedContext;
+    private long cachedGeneration = -1;
+    private double cachedValue;
+
+    /**
+     * @param function the aggregate function.
+     * @param operand expression evaluated for each snapshot.
+     * @param pattern pattern of the ObjectNames of the snapshots aggregated; null for all snapshots.
+     */
+    public AggregateExpression(AggregateFunction function, DerivedExpression operand, ObjectName pattern) {
+        this.function = function;
+        this.operand = operand;
+        this.pattern = pattern;
+    }
+
+    public AggregateFunction getFunction() {
+        return function;
+    }
+
+    public ObjectName getPattern() {
+        return pattern;
+    }
+
+    @Override
+    public double evaluate(EvaluationContext context) {
+        if ((this.cachedContext != context) || (this.cachedGeneration != context.getGeneration())) {
+            this.cachedValue = this.compute(context);
+            this.cachedContext = context;
+            this.cachedGeneration = context.getGeneration();
+        }
+
+        return this.cachedValue;
+    }
+
+    @Override
+    public boolean isCycleConstant() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return this.function.name().toLowerCase() + "(" + this.operand +
+                ((this.pattern != null) ? ", \"" + this.pattern + "\"" : "") + ")";
+    }
+
+    protected double compute(EvaluationContext context) {
+        AttributeSnapshot saved = context.getCurrent();
+        List<AttributeSnapshot> snapshots = context.getSnapshots();
+
+        long count = 0;
+        double result = 0.0;
+
+        for (AttributeSnapshot oneSnapshot : snapshots) {
+            if ((this.pattern != null) &&
+                    ((oneSnapshot.getObjectName() == null) || (!this.pattern.apply(oneSnapshot.getObjectName())))) {
+                continue;
+            }
+
+            context.setCurrent(oneSnapshot);
+            double value = this.operand.evaluate(context);
+
+            if (!Double.isNaN(value)) {
+                result = (count == 0) ? this.function.first(value) : this.function.accumulate(result, value);
+                count++;
+            }
+        }
+
+        context.setCurrent(saved);
+
+        return this.function.complete(result, count);
+    }
+
+    /**
+     * Functions by which values are aggregated.
+     */
+    public enum AggregateFunction {
+        SUM {
+            @Override
+            protected double accumulate(double result, double value) {
+                return result + value;
+            }
+        },
+        MIN {
+            @Override
+            protected double accumulate(double result, double value) {
+                return Math.min(result, value);
+            }
+        },
+        MAX {
+            @Override
+            protected double accumulate(double result, double value) {
+                return Math.max(result, value);
+            }
+        },
+        AVG {
+            @Override
+            protected double accumulate(double result, double value) {
+                return result + value;
+            }
+
+            @Override
+            protected double complete(double result, long count) {
+                return (count > 0) ? result / count : Double.NaN;
+            }
+        },
+        COUNT {
+            @Override
+            protected double accumulate(double result, double value) {
+                return result;
+            }
+
+            @Override
+            protected double complete(double result, long count) {
+                return count;
+            }
+        };
+
+        protected double first(double value) {
+            return value;
+        }
+
+        protected abstract double accumulate(double result, double value);
+
+        /**
+         * @return the aggregate of the values; NaN if there were none, except for SUM and COUNT, which are 0.
+         */
+        protected double complete(double result, long count) {
+            if (count == 0) {
+                return (this == SUM) ? 0.0 : Double.NaN;
+            }
+
+            return result;
+        }
+
+        /**
+         * @return the function with the given name, ignoring case; null if there is none.
+         */
+        public static AggregateFunction forName(String name) {
+            for (AggregateFunction oneFunction : values()) {
+                if (oneFunction.name().equalsIgnoreCase(name)) {
+                    return oneFunction;
+                }
+            }
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+/**
+ * Reference to the value of an attribute of the current snapshot.
+ */
+public final class AttributeExpression implements DerivedExpression {
+    private final String attributeName;
+
+    public AttributeExpression(String attributeName) {
+        this.attributeName = attributeName;
+    }
+
+    public String getAttributeName() {
+        return attributeName;
+    }
+
+    @Override
+    public double evaluate(EvaluationContext context) {
+        return context.getValue(this.attributeName);
+    }
+
+    @Override
+    public boolean isCycleConstant() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + this.attributeName + "]";
+    }
+}
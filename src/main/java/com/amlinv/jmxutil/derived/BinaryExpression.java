@@ -0,0 +1,154 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+/**
+ * Arithmetic on two sub-expressions, with one subclass per operator so that evaluation involves no dispatch on the
+ * operator.
+ */
+public abstract class BinaryExpression implements DerivedExpression {
+    protected final DerivedExpression left;
+    protected final DerivedExpression right;
+
+    protected BinaryExpression(DerivedExpression left, DerivedExpression right) {
+        this.left = left;
+        this.right = right;
+    }
+
+    /**
+     * Create the expression applying the given operator.
+     *
+     * @param operator one of + - * / %.
+     * @return the expression.
+     */
+    public static BinaryExpression create(char operator, DerivedExpression left, DerivedExpression right) {
+        switch (operator) {
+            case '+':
+                return new Add(left, right);
+            case '-':
+                return new Subtract(left, right);
+            case '*':
+                return new Multiply(left, right);
+            case '/':
+                return new Divide(left, right);
+            case '%':
+                return new Remainder(left, right);
+            default:
+                throw new IllegalArgumentException("unknown operator: " + operator);
+        }
+    }
+
+    public abstract char getOperator();
+
+    @Override
+    public boolean isCycleConstant() {
+        return this.left.isCycleConstant() && this.right.isCycleConstant();
+    }
+
+    @Override
+    public String toString() {
+        return "(" + this.left + " " + this.getOperator() + " " + this.right + ")";
+    }
+
+    public static final class Add extends BinaryExpression {
+        public Add(DerivedExpression left, DerivedExpression right) {
+            super(left, right);
+        }
+
+        @Override
+        public double evaluate(EvaluationContext context) {
+            return this.left.evaluate(context) + this.right.evaluate(context);
+        }
+
+        @Override
+        public char getOperator() {
+            return '+';
+        }
+    }
+
+    public static final class Subtract extends BinaryExpression {
+        public Subtract(DerivedExpression left, DerivedExpression right) {
+            super(left, right);
+        }
+
+        @Override
+        public double evaluate(EvaluationContext context) {
+            return this.left.evaluate(context) - this.right.evaluate(context);
+        }
+
+        @Override
+        public char getOperator() {
+            return '-';
+        }
+    }
+
+    public static final class Multiply extends BinaryExpression {
+        public Multiply(DerivedExpression left, DerivedExpression right) {
+            super(left, right);
+        }
+
+        @Override
+        public double evaluate(EvaluationContext context) {
+            return this.left.evaluate(context) * this.right.evaluate(context);
+        }
+
+        @Override
+        public char getOperator() {
+            return '*';
+        }
+    }
+
+    /**
+     * Division; division by zero yields NaN rather than an infinity, since it signals a missing denominator (e.g. a
+     * limit of zero) more often than an actual infinite ratio.
+     */
+    public static final class Divide extends BinaryExpression {
+        public Divide(DerivedExpression left, DerivedExpression right) {
+            super(left, right);
+        }
+
+        @Override
+        public double evaluate(EvaluationContext context) {
+            double divisor = this.right.evaluate(context);
+            if (divisor == 0.0) {
+                return Double.NaN;
+            }
+
+            return this.left.evaluate(context) / divisor;
+        }
+
+        @Override
+        public char getOperator() {
+            return '/';
+        }
+    }
+
+    public static final class Remainder extends BinaryExpression {
+        public Remainder(DerivedExpression left, DerivedExpression right) {
+            super(left, right);
+        }
+
+        @Override
+        public double evaluate(EvaluationContext context) {
+            return this.left.evaluate(context) % this.right.evaluate(context);
+        }
+
+        @Override
+        public char getOperator() {
+            return '%';
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+/**
+ * Numeric literal, or a sub-expression folded into a constant when the expression is compiled.
+ */
+public final class ConstantExpression implements DerivedExpression {
+    private final double value;
+
+    public ConstantExpression(double value) {
+        this.value = value;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    @Override
+    public double evaluate(EvaluationContext context) {
+        return this.value;
+    }
+
+    @Override
+    public boolean isCycleConstant() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return Double.toString(this.value);
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+/**
+ * Compiled expression over polled attribute values, evaluated to a primitive double.  Missing or non-numeric values
+ * evaluate to NaN, which propagates through arithmetic.
+ */
+public interface DerivedExpression {
+    double evaluate(EvaluationContext context);
+
+    /**
+     * @return true => if the value is the same for every snapshot of a cycle (it refers to no attribute outside of an
+     * aggregate); false => otherwise.
+     */
+    boolean isCycleConstant();
+}
@@ -0,0 +1,93 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+import javax.management.ObjectName;
+import java.text.ParseException;
+
+/**
+ * Declaration of an attribute derived from polled attributes by an expression, such as
+ * "QueueSize / MemoryLimit * 100" evaluated for each queue, or "sum(EnqueueCount, \"org.apache.activemq:type=Broker,
+ * destinationType=Queue,*\")" evaluated once per cycle.  The expression is parsed once, when the metric is created.
+ *
+ * Metrics whose expressions reference attributes only within aggregates are cycle-level metrics, evaluated once per
+ * cycle; all other metrics are evaluated for each snapshot whose ObjectName matches the metric's pattern.
+ */
+public class DerivedMetric {
+    private final String name;
+    private final ObjectName objectNamePattern;
+    private final String expressionText;
+    private final DerivedExpression expression;
+
+    /**
+     * @param name name of the derived attribute.
+     * @param objectNamePattern pattern of the ObjectNames of the snapshots for which the metric is evaluated; null for
+     *                          all snapshots.  Not used for cycle-level metrics.
+     * @param expressionText the expression defining the metric.
+     * @throws ParseException if the expression is not valid.
+     */
+    public DerivedMetric(String name, ObjectName objectNamePattern, String expressionText) throws ParseException {
+        if (name == null) {
+            throw new IllegalArgumentException("derived metric name is required");
+        }
+
+        this.name = name;
+        this.objectNamePattern = objectNamePattern;
+        this.expressionText = expressionText;
+        this.expression = ExpressionParser.parse(expressionText);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ObjectName getObjectNamePattern() {
+        return objectNamePattern;
+    }
+
+    public String getExpressionText() {
+        return expressionText;
+    }
+
+    public DerivedExpression getExpression() {
+        return expression;
+    }
+
+    /**
+     * @return true => if the metric is evaluated once per cycle; false => if it is evaluated for each matching
+     * snapshot.
+     */
+    public boolean isCycleLevel() {
+        return this.expression.isCycleConstant();
+    }
+
+    /**
+     * Determine whether the metric is evaluated for the snapshot of the given mbean.
+     */
+    public boolean matches(ObjectName objectName) {
+        if (this.objectNamePattern == null) {
+            return true;
+        }
+
+        return (objectName != null) && this.objectNamePattern.apply(objectName);
+    }
+
+    @Override
+    public String toString() {
+        return "DerivedMetric{name=" + name + ", objectNamePattern=" + objectNamePattern + ", expression=" +
+                expressionText + "}";
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+import com.amlinv.jmxutil.polling.AttributeSnapshot;
+import com.amlinv.jmxutil.polling.PollCycleResult;
+import com.amlinv.jmxutil.polling.PollCycleSubscriber;
+import com.amlinv.jmxutil.polling.PollCycleSubscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ObjectName;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Subscriber to poll cycle results that evaluates derived metrics after each cycle and reports their values to
+ * listeners.  Each cycle is evaluated with a single reusable context, and aggregates are computed once per cycle no
+ * matter how many metrics or snapshots reference them.
+ */
+public class DerivedMetricEvaluator implements PollCycleSubscriber {
+    private static final Logger DEFAULT_LOGGER = LoggerFactory.getLogger(DerivedMetricEvaluator.class);
+
+    private final List<DerivedMetric> metrics = new CopyOnWriteArrayList<>();
+    private final List<DerivedMetricListener> listeners = new CopyOnWriteArrayList<>();
+    private final EvaluationContext context = new EvaluationContext();
+
+    private Logger log = DEFAULT_LOGGER;
+
+    public Logger getLog() {
+        return log;
+    }
+
+    public void setLog(Logger log) {
+        this.log = log;
+    }
+
+    public void addMetric(DerivedMetric metric) {
+        this.metrics.add(metric);
+    }
+
+    public void removeMetric(DerivedMetric metric) {
+        this.metrics.remove(metric);
+    }
+
+    public List<DerivedMetric> getMetrics() {
+        return metrics;
+    }
+
+    public void addListener(DerivedMetricListener listener) {
+        this.listeners.add(listener);
+    }
+
+    public void removeListener(DerivedMetricListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    @Override
+    public void onSubscribe(PollCycleSubscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(PollCycleResult result) {
+        this.evaluate(result);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        this.log.warn("poll cycle publisher failed; derived metrics are no longer evaluated", throwable);
+    }
+
+    @Override
+    public void onComplete() {
+    }
+
+    /**
+     * Evaluate all of the metrics over the given cycle, reporting the values to the listeners.
+     *
+     * @param result result of the poll cycle.
+     */
+    public synchronized void evaluate(PollCycleResult result) {
+        List<AttributeSnapshot> snapshots = result.getSnapshots();
+        this.context.reset(snapshots);
+
+        for (DerivedMetric oneMetric : this.metrics) {
+            DerivedExpression expression = oneMetric.getExpression();
+
+            if (oneMetric.isCycleLevel()) {
+                this.context.setCurrent(null);
+                this.report(oneMetric, null, result.getTimestamp(), expression.evaluate(this.context));
+            } else {
+                for (AttributeSnapshot oneSnapshot : snapshots) {
+                    if (oneMetric.matches(oneSnapshot.getObjectName())) {
+                        this.context.setCurrent(oneSnapshot);
+                        this.report(oneMetric, oneSnapshot.getObjectName(), oneSnapshot.getTimestamp(),
+                                expression.evaluate(this.context));
+                    }
+                }
+            }
+        }
+
+        // Release the snapshots of the cycle.
+        this.context.reset(Collections.<AttributeSnapshot>emptyList());
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    protected void report(DerivedMetric metric, ObjectName objectName, long timestamp, double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+
+        for (DerivedMetricListener oneListener : this.listeners) {
+            try {
+                oneListener.onDerivedValue(metric, objectName, timestamp, value);
+            } catch (RuntimeException rtExc) {
+                this.log.warn("derived metric listener failed: metric={}", metric.getName(), rtExc);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+import javax.management.ObjectName;
+
+/**
+ * Listener for the values of derived metrics.
+ */
+public interface DerivedMetricListener {
+    /**
+     * Receive one value of a derived metric.  Metrics that evaluate to NaN, such as when an attribute is missing, are
+     * not reported.
+     *
+     * @param metric the metric.
+     * @param objectName name of the mbean for which the value was evaluated; null for cycle-level metrics.
+     * @param timestamp timestamp of the snapshot, or of the cycle for cycle-level metrics.
+     * @param value the value.
+     */
+    void onDerivedValue(DerivedMetric metric, ObjectName objectName, long timestamp, double value);
+}
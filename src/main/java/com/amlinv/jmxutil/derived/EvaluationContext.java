@@ -0,0 +1,86 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+import com.amlinv.jmxutil.polling.AttributeSnapshot;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * State of the evaluation of expressions over one poll cycle: all of the snapshots of the cycle, and the snapshot
+ * whose attributes are currently referenced.  Reused from one cycle to the next.
+ */
+public class EvaluationContext {
+    private List<AttributeSnapshot> snapshots = Collections.emptyList();
+    private AttributeSnapshot current;
+    private long generation = 0;
+
+    /**
+     * Start the evaluation of a new cycle.
+     */
+    public void reset(List<AttributeSnapshot> snapshots) {
+        this.snapshots = snapshots;
+        this.current = null;
+        this.generation++;
+    }
+
+    public List<AttributeSnapshot> getSnapshots() {
+        return snapshots;
+    }
+
+    public AttributeSnapshot getCurrent() {
+        return current;
+    }
+
+    public void setCurrent(AttributeSnapshot current) {
+        this.current = current;
+    }
+
+    /**
+     * @return number identifying the current cycle, used to cache values that are constant over a cycle.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return the numeric value of the named attribute of the current snapshot; NaN if it is absent or not numeric.
+     */
+    public double getValue(String attributeName) {
+        if (this.current == null) {
+            return Double.NaN;
+        }
+
+        return toDouble(this.current.getValue(attributeName));
+    }
+
+    /**
+     * @return the numeric value of the given attribute value: booleans are 1 or 0, and values that are not numeric are
+     * NaN.
+     */
+    public static double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+
+        if (value instanceof Boolean) {
+            return ((Boolean) value) ? 1.0 : 0.0;
+        }
+
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.text.ParseException;
+
+/**
+ * Parser of derived metric expressions into trees of DerivedExpression nodes.  Sub-expressions over constants only are
+ * folded into a single constant.
+ *
+ * Grammar:
+ * <pre>
+ *     expression := term (('+' | '-') term)*
+ *     term       := unary (('*' | '/' | '%') unary)*
+ *     unary      := '-' unary | primary
+ *     primary    := number | attribute | function '(' expression (',' '"' pattern '"')? ')' | '(' expression ')'
+ *     attribute  := identifier | '[' any characters other than ']' ']'
+ *     function   := sum | min | max | avg | count
+ * </pre>
+ *
+ * Identifiers consist of letters, digits, '_' and '.', and do not start with a digit; bracketed attribute names allow
+ * any other name, such as paths into composite values (e.g. [HeapMemoryUsage/used]).
+ */
+public class ExpressionParser {
+    private final String text;
+    private int pos;
+
+    protected ExpressionParser(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parse the given expression.
+     *
+     * @param text text of the expression.
+     * @return the root of the compiled expression.
+     * @throws ParseException if the text is not a valid expression; the error offset identifies the location of the
+     * problem.
+     */
+    public static DerivedExpression parse(String text) throws ParseException {
+        if (text == null) {
+            throw new ParseException("missing expression", 0);
+        }
+
+        ExpressionParser parser = new ExpressionParser(text);
+        DerivedExpression result = parser.parseExpression();
+
+        parser.skipWhitespace();
+        if (!parser.atEnd()) {
+            throw new ParseException("unexpected character '" + parser.peek() + "'", parser.pos);
+        }
+
+        return result;
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    protected DerivedExpression parseExpression() throws ParseException {
+        DerivedExpression result = this.parseTerm();
+
+        while (true) {
+            this.skipWhitespace();
+            char operator = this.peek();
+            if ((operator != '+') && (operator != '-')) {
+                return result;
+            }
+
+            this.pos++;
+            result = this.combine(operator, result, this.parseTerm());
+        }
+    }
+
+    protected DerivedExpression parseTerm() throws ParseException {
+        DerivedExpression result = this.parseUnary();
+
+        while (true) {
+            this.skipWhitespace();
+            char operator = this.peek();
+            if ((operator != '*') && (operator != '/') && (operator != '%')) {
+                return result;
+            }
+
+            this.pos++;
+            result = this.combine(operator, result, this.parseUnary());
+        }
+    }
+
+    protected DerivedExpression parseUnary() throws ParseException {
+        this.skipWhitespace();
+
+        if (this.peek() == '-') {
+            this.pos++;
+            DerivedExpression operand = this.parseUnary();
+
+            if (operand instanceof ConstantExpression) {
+                return new ConstantExpression(-((ConstantExpression) operand).getValue());
+            }
+
+            return new NegateExpression(operand);
+        }
+
+        return this.parsePrimary();
+    }
+
+    protected DerivedExpression parsePrimary() throws ParseException {
+        this.skipWhitespace();
+
+        if (this.atEnd()) {
+            throw new ParseException("unexpected end of expression", this.pos);
+        }
+
+        char ch = this.peek();
+
+        if (ch == '(') {
+            this.pos++;
+            DerivedExpression result = this.parseExpression();
+            this.expect(')');
+
+            return result;
+        }
+
+        if (ch == '[') {
+            int start = this.pos + 1;
+            int end = this.text.indexOf(']', start);
+            if (end == -1) {
+                throw new ParseException("unterminated attribute name", this.pos);
+            }
+            if (end == start) {
+                throw new ParseException("empty attribute name", this.pos);
+            }
+
+            this.pos = end + 1;
+
+            return new AttributeExpression(this.text.substring(start, end));
+        }
+
+        if (Character.isDigit(ch) || (ch == '.')) {
+            return this.parseNumber();
+        }
+
+        if (isIdentifierStart(ch)) {
+            int start = this.pos;
+            String identifier = this.parseIdentifier();
+
+            this.skipWhitespace();
+            if (this.peek() == '(') {
+                return this.parseFunction(identifier, start);
+            }
+
+            return new AttributeExpression(identifier);
+        }
+
+        throw new ParseException("unexpected character '" + ch + "'", this.pos);
+    }
+
+    protected DerivedExpression parseFunction(String name, int start) throws ParseException {
+        AggregateExpression.AggregateFunction function = AggregateExpression.AggregateFunction.forName(name);
+        if (function == null) {
+            throw new ParseException("unknown function " + name, start);
+        }
+
+        this.expect('(');
+        DerivedExpression operand = this.parseExpression();
+
+        ObjectName pattern = null;
+
+        this.skipWhitespace();
+        if (this.peek() == ',') {
+            this.pos++;
+            pattern = this.parsePattern();
+        }
+
+        this.expect(')');
+
+        return new AggregateExpression(function, operand, pattern);
+    }
+
+    protected ObjectName parsePattern() throws ParseException {
+        this.skipWhitespace();
+
+        int start = this.pos;
+        if (this.peek() != '"') {
+            throw new ParseException("expected quoted ObjectName pattern", start);
+        }
+
+        int end = this.text.indexOf('"', start + 1);
+        if (end == -1) {
+            throw new ParseException("unterminated ObjectName pattern", start);
+        }
+
+        this.pos = end + 1;
+
+        try {
+            return new ObjectName(this.text.substring(start + 1, end));
+        } catch (MalformedObjectNameException monExc) {
+            throw new ParseException("invalid ObjectName pattern: " + monExc.getMessage(), start);
+        }
+    }
+
+    protected DerivedExpression parseNumber() throws ParseException {
+        int start = this.pos;
+
+        while ((!this.atEnd()) && (Character.isDigit(this.peek()) || (this.peek() == '.'))) {
+            this.pos++;
+        }
+
+        if ((!this.atEnd()) && ((this.peek() == 'e') || (this.peek() == 'E'))) {
+            this.pos++;
+            if ((this.peek() == '+') || (this.peek() == '-')) {
+                this.pos++;
+            }
+            while ((!this.atEnd()) && Character.isDigit(this.peek())) {
+                this.pos++;
+            }
+        }
+
+        try {
+            return new ConstantExpression(Double.parseDouble(this.text.substring(start, this.pos)));
+        } catch (NumberFormatException nfExc) {
+            throw new ParseException("invalid number " + this.text.substring(start, this.pos), start);
+        }
+    }
+
+    protected String parseIdentifier() {
+        int start = this.pos;
+
+        while ((!this.atEnd()) && isIdentifierPart(this.peek())) {
+            this.pos++;
+        }
+
+        return this.text.substring(start, this.pos);
+    }
+
+    /**
+     * Combine two operands with the given operator, folding the result when both are constants.
+     */
+    protected DerivedExpression combine(char operator, DerivedExpression left, DerivedExpression right) {
+        BinaryExpression result = BinaryExpression.create(operator, left, right);
+
+        if ((left instanceof ConstantExpression) && (right instanceof ConstantExpression)) {
+            return new ConstantExpression(result.evaluate(null));
+        }
+
+        return result;
+    }
+
+    protected void expect(char expected) throws ParseException {
+        this.skipWhitespace();
+
+        if (this.peek() != expected) {
+            if (this.atEnd()) {
+                throw new ParseException("expected '" + expected + "' at end of expression", this.pos);
+            }
+
+            throw new ParseException("expected '" + expected + "' but found '" + this.peek() + "'", this.pos);
+        }
+
+        this.pos++;
+    }
+
+    protected void skipWhitespace() {
+        while ((!this.atEnd()) && Character.isWhitespace(this.text.charAt(this.pos))) {
+            this.pos++;
+        }
+    }
+
+    protected boolean atEnd() {
+        return this.pos >= this.text.length();
+    }
+
+    protected char peek() {
+        if (this.atEnd()) {
+            return '\0';
+        }
+
+        return this.text.charAt(this.pos);
+    }
+
+    protected static boolean isIdentifierStart(char ch) {
+        return Character.isLetter(ch) || (ch == '_');
+    }
+
+    protected static boolean isIdentifierPart(char ch) {
+        return Character.isLetterOrDigit(ch) || (ch == '_') || (ch == '.');
+    }
+}
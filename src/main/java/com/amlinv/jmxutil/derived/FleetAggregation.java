@@ -0,0 +1,97 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+import com.amlinv.jmxutil.derived.AggregateExpression.AggregateFunction;
+
+import javax.management.ObjectName;
+
+/**
+ * Declaration of an attribute aggregated across a fleet of targets, such as the queue depth across all brokers.  The
+ * values of the attribute of the mbeans of one target that match the pattern are first combined into a single value
+ * for the target with the target function (e.g. the sum of the depths of the queues of one broker); the fleet-wide
+ * statistics are then computed over the values of the targets.
+ */
+public class FleetAggregation {
+    private final String name;
+    private final ObjectName objectNamePattern;
+    private final String attributeName;
+    private final AggregateFunction targetFunction;
+
+    /**
+     * @param name name of the aggregation.
+     * @param objectNamePattern pattern of the ObjectNames of the mbeans aggregated; null for all mbeans.
+     * @param attributeName name of the attribute aggregated.
+     * @param targetFunction function combining the values of the matching mbeans of one target.
+     */
+    public FleetAggregation(String name, ObjectName objectNamePattern, String attributeName,
+                            AggregateFunction targetFunction) {
+        if (name == null) {
+            throw new IllegalArgumentException("fleet aggregation name is required");
+        }
+        if (attributeName == null) {
+            throw new IllegalArgumentException("fleet aggregation attribute name is required");
+        }
+        if (targetFunction == null) {
+            throw new IllegalArgumentException("fleet aggregation target function is required");
+        }
+
+        this.name = name;
+        this.objectNamePattern = objectNamePattern;
+        this.attributeName = attributeName;
+        this.targetFunction = targetFunction;
+    }
+
+    /**
+     * Create an aggregation that sums the values of the matching mbeans of each target.
+     */
+    public FleetAggregation(String name, ObjectName objectNamePattern, String attributeName) {
+        this(name, objectNamePattern, attributeName, AggregateFunction.SUM);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ObjectName getObjectNamePattern() {
+        return objectNamePattern;
+    }
+
+    public String getAttributeName() {
+        return attributeName;
+    }
+
+    public AggregateFunction getTargetFunction() {
+        return targetFunction;
+    }
+
+    /**
+     * Determine whether the given mbean is aggregated.
+     */
+    public boolean matches(ObjectName objectName) {
+        if (this.objectNamePattern == null) {
+            return true;
+        }
+
+        return (objectName != null) && this.objectNamePattern.apply(objectName);
+    }
+
+    @Override
+    public String toString() {
+        return "FleetAggregation{name=" + name + ", objectNamePattern=" + objectNamePattern + ", attributeName=" +
+                attributeName + ", targetFunction=" + targetFunction + "}";
+    }
+}
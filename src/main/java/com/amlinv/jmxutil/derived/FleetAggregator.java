@@ -0,0 +1,382 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+import com.amlinv.jmxutil.derived.AggregateExpression.AggregateFunction;
+import com.amlinv.jmxutil.polling.AttributeSnapshot;
+import com.amlinv.jmxutil.polling.PollCycleResult;
+import com.amlinv.jmxutil.polling.PollCycleSubscriber;
+import com.amlinv.jmxutil.polling.PollCycleSubscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Subscriber to the poll cycle results of a fleet of targets, such as a PollCycleAggregatePublisher combining the
+ * pollers of many brokers, that maintains fleet-wide statistics of attributes across all of the targets.
+ * <p/>
+ * Each target, identified by the source of its results, is assigned a dense ID.  When a target's cycle completes, only
+ * that target's snapshots are scanned, and its contribution replaces its previous one in primitive arrays indexed by
+ * target ID; the fleet-wide sum and count are updated incrementally, and the minimum and maximum are rescanned only
+ * when the target holding the extreme value moves away from it.  Targets keep contributing their latest values until
+ * they are removed.
+ */
+public class FleetAggregator implements PollCycleSubscriber {
+    private static final Logger DEFAULT_LOGGER = LoggerFactory.getLogger(FleetAggregator.class);
+
+    public static final int DEFAULT_INITIAL_TARGET_CAPACITY = 64;
+
+    private final Map<Object, Integer> targetIds = new HashMap<>();
+    private final List<Object> targetsById = new ArrayList<>();
+    private final Map<FleetAggregation, FleetState> states = new LinkedHashMap<>();
+
+    private int targetCapacity = DEFAULT_INITIAL_TARGET_CAPACITY;
+
+    private Logger log = DEFAULT_LOGGER;
+
+    public Logger getLog() {
+        return log;
+    }
+
+    public void setLog(Logger log) {
+        this.log = log;
+    }
+
+    public synchronized void addAggregation(FleetAggregation aggregation) {
+        if (!this.states.containsKey(aggregation)) {
+            this.states.put(aggregation, new FleetState(this.targetCapacity));
+        }
+    }
+
+    public synchronized void removeAggregation(FleetAggregation aggregation) {
+        this.states.remove(aggregation);
+    }
+
+    public synchronized List<FleetAggregation> getAggregations() {
+        return new ArrayList<>(this.states.keySet());
+    }
+
+    /**
+     * @return ID of the given target, or -1 if no results of the target have been received.
+     */
+    public synchronized int getTargetId(Object source) {
+        Integer result = this.targetIds.get(source);
+
+        return (result != null) ? result : -1;
+    }
+
+    /**
+     * @return one more than the highest target ID assigned.
+     */
+    public synchronized int getTargetCount() {
+        return this.targetsById.size();
+    }
+
+    /**
+     * Remove the contributions of the given target, such as when it is no longer polled.  The target keeps its ID.
+     */
+    public synchronized void removeTarget(Object source) {
+        Integer targetId = this.targetIds.get(source);
+
+        if (targetId != null) {
+            for (FleetState oneState : this.states.values()) {
+                oneState.update(targetId, Double.NaN);
+            }
+        }
+    }
+
+    @Override
+    public void onSubscribe(PollCycleSubscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(PollCycleResult result) {
+        this.update(result);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        this.log.warn("poll cycle publisher failed; fleet aggregates are no longer updated", throwable);
+    }
+
+    @Override
+    public void onComplete() {
+    }
+
+    /**
+     * Replace the contributions of the result's target with the values of the result.
+     *
+     * @param result result of one cycle of one target.
+     */
+    public synchronized void update(PollCycleResult result) {
+        int targetId = this.getOrCreateTargetId(result.getSource());
+        List<AttributeSnapshot> snapshots = result.getSnapshots();
+
+        for (Map.Entry<FleetAggregation, FleetState> oneEntry : this.states.entrySet()) {
+            oneEntry.getValue().update(targetId, this.computeTargetValue(oneEntry.getKey(), snapshots));
+        }
+    }
+
+    /**
+     * @return the value contributed by the given target, or NaN if it has none.
+     */
+    public synchronized double getTargetValue(FleetAggregation aggregation, Object source) {
+        Integer targetId = this.targetIds.get(source);
+        if (targetId == null) {
+            return Double.NaN;
+        }
+
+        return this.getState(aggregation).values[targetId];
+    }
+
+    /**
+     * @return number of targets contributing a value.
+     */
+    public synchronized int getCount(FleetAggregation aggregation) {
+        return this.getState(aggregation).count;
+    }
+
+    public synchronized double getSum(FleetAggregation aggregation) {
+        return this.getState(aggregation).sum;
+    }
+
+    /**
+     * @return the average of the targets' values, or NaN if no target contributes a value.
+     */
+    public synchronized double getAverage(FleetAggregation aggregation) {
+        FleetState state = this.getState(aggregation);
+
+        return (state.count > 0) ? state.sum / state.count : Double.NaN;
+    }
+
+    /**
+     * @return the minimum of the targets' values, or NaN if no target contributes a value.
+     */
+    public synchronized double getMin(FleetAggregation aggregation) {
+        FleetState state = this.getState(aggregation);
+        state.validateExtremes();
+
+        return state.min;
+    }
+
+    /**
+     * @return the maximum of the targets' values, or NaN if no target contributes a value.
+     */
+    public synchronized double getMax(FleetAggregation aggregation) {
+        FleetState state = this.getState(aggregation);
+        state.validateExtremes();
+
+        return state.max;
+    }
+
+    /**
+     * Compute a percentile of the targets' values using the nearest-rank method.
+     *
+     * @param percentile percentile, from 0 to 100.
+     * @return the percentile, or NaN if no target contributes a value.
+     */
+    public synchronized double getPercentile(FleetAggregation aggregation, double percentile) {
+        if ((percentile < 0.0) || (percentile > 100.0) || Double.isNaN(percentile)) {
+            throw new IllegalArgumentException("percentile must be from 0 to 100: " + percentile);
+        }
+
+        FleetState state = this.getState(aggregation);
+        if (state.count == 0) {
+            return Double.NaN;
+        }
+
+        double[] sorted = state.sortedValues();
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+
+        return sorted[Math.max(rank - 1, 0)];
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    protected int getOrCreateTargetId(Object source) {
+        Integer result = this.targetIds.get(source);
+
+        if (result == null) {
+            result = this.targetsById.size();
+            this.targetsById.add(source);
+            this.targetIds.put(source, result);
+
+            if (result >= this.targetCapacity) {
+                this.targetCapacity = Math.max(this.targetCapacity * 2, result + 1);
+                for (FleetState oneState : this.states.values()) {
+                    oneState.ensureCapacity(this.targetCapacity);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    protected double computeTargetValue(FleetAggregation aggregation, List<AttributeSnapshot> snapshots) {
+        AggregateFunction function = aggregation.getTargetFunction();
+        String attributeName = aggregation.getAttributeName();
+
+        long count = 0;
+        double result = 0.0;
+
+        for (AttributeSnapshot oneSnapshot : snapshots) {
+            if (!aggregation.matches(oneSnapshot.getObjectName())) {
+                continue;
+            }
+
+            double value = EvaluationContext.toDouble(oneSnapshot.getValue(attributeName));
+
+            if (!Double.isNaN(value)) {
+                result = (count == 0) ? function.first(value) : function.accumulate(result, value);
+                count++;
+            }
+        }
+
+        return function.complete(result, count);
+    }
+
+    protected FleetState getState(FleetAggregation aggregation) {
+        FleetState result = this.states.get(aggregation);
+        if (result == null) {
+            throw new IllegalArgumentException("unknown fleet aggregation: " + aggregation);
+        }
+
+        return result;
+    }
+
+    /**
+     * Fleet-wide state of one aggregation: the value of each target, indexed by target ID, with NaN for targets that
+     * contribute no value, and the running statistics over them.
+     */
+    protected static class FleetState {
+        protected double[] values;
+        protected int count = 0;
+        protected double sum = 0.0;
+        protected double min = Double.NaN;
+        protected double max = Double.NaN;
+        protected boolean extremesValid = true;
+
+        protected FleetState(int capacity) {
+            this.values = new double[capacity];
+            Arrays.fill(this.values, Double.NaN);
+        }
+
+        protected void ensureCapacity(int capacity) {
+            if (this.values.length < capacity) {
+                int oldLength = this.values.length;
+                this.values = Arrays.copyOf(this.values, capacity);
+                Arrays.fill(this.values, oldLength, capacity, Double.NaN);
+            }
+        }
+
+        protected void update(int targetId, double value) {
+            double old = this.values[targetId];
+            this.values[targetId] = value;
+
+            if (!Double.isNaN(old)) {
+                this.count--;
+                this.sum -= old;
+
+                if ((old == this.min) || (old == this.max)) {
+                    this.extremesValid = false;
+                }
+            }
+
+            if (!Double.isNaN(value)) {
+                this.count++;
+                this.sum += value;
+
+                if (this.extremesValid) {
+                    if (this.count == 1) {
+                        this.min = value;
+                        this.max = value;
+                    } else {
+                        this.min = Math.min(this.min, value);
+                        this.max = Math.max(this.max, value);
+                    }
+                }
+            }
+
+            if (this.count == 0) {
+                // Discard any rounding error accumulated in the running sum.
+                this.sum = 0.0;
+                this.min = Double.NaN;
+                this.max = Double.NaN;
+                this.extremesValid = true;
+            }
+        }
+
+        /**
+         * Rescan the values for the minimum and maximum, and the sum to discard accumulated rounding error, if the
+         * target holding an extreme value changed.
+         */
+        protected void validateExtremes() {
+            if (this.extremesValid) {
+                return;
+            }
+
+            double newMin = Double.NaN;
+            double newMax = Double.NaN;
+            double newSum = 0.0;
+
+            for (double oneValue : this.values) {
+                if (!Double.isNaN(oneValue)) {
+                    newSum += oneValue;
+
+                    if (Double.isNaN(newMin)) {
+                        newMin = oneValue;
+                        newMax = oneValue;
+                    } else {
+                        newMin = Math.min(newMin, oneValue);
+                        newMax = Math.max(newMax, oneValue);
+                    }
+                }
+            }
+
+            this.min = newMin;
+            this.max = newMax;
+            this.sum = newSum;
+            this.extremesValid = true;
+        }
+
+        protected double[] sortedValues() {
+            double[] result = new double[this.count];
+            int pos = 0;
+
+            for (double oneValue : this.values) {
+                if (!Double.isNaN(oneValue)) {
+                    result[pos] = oneValue;
+                    pos++;
+                }
+            }
+
+            Arrays.sort(result);
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+/**
+ * Negation of a sub-expression.
+ */
+public final class NegateExpression implements DerivedExpression {
+    private final DerivedExpression operand;
+
+    public NegateExpression(DerivedExpression operand) {
+        this.operand = operand;
+    }
+
+    @Override
+    public double evaluate(EvaluationContext context) {
+        return -this.operand.evaluate(context);
+    }
+
+    @Override
+    public boolean isCycleConstant() {
+        return this.operand.isCycleConstant();
+    }
+
+    @Override
+    public String toString() {
+        return "(-" + this.operand + ")";
+    }
+}
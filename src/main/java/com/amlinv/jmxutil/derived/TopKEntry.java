@@ -0,0 +1,44 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+import javax.management.ObjectName;
+
+/**
+ * Immutable entry of a top-K view: one mbean and its latest value.
+ */
+public class TopKEntry {
+    private final ObjectName objectName;
+    private final double value;
+
+    public TopKEntry(ObjectName objectName, double value) {
+        this.objectName = objectName;
+        this.value = value;
+    }
+
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "TopKEntry{objectName=" + objectName + ", value=" + value + "}";
+    }
+}
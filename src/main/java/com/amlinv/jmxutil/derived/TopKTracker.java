@@ -0,0 +1,334 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+import com.amlinv.jmxutil.polling.PollResultEvent;
+import com.amlinv.jmxutil.polling.PollResultListener;
+
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Listener for poll results that tracks the K mbeans with the largest values of one attribute, such as the 20 deepest
+ * of 50,000 queues, updated incrementally as values arrive.  Register it with
+ * BatchPollProcessor.addPollResultListener() or JmxAttributePoller.addPollResultListener() for one target; values
+ * that are not numeric are ignored.
+ * <p/>
+ * The latest value of each mbean is held in a primitive array indexed by a dense mbean ID, and the top K in an indexed
+ * min-heap of those IDs, so that each value costs at most O(log K) and no sort of all of the mbeans is ever needed.
+ * An upper bound of the values outside of the heap is maintained; only when a member of the heap drops below that
+ * bound may an outside mbean belong in the top K, in which case the heap is rebuilt, in O(n log K), the next time the
+ * view is read.
+ */
+public class TopKTracker implements PollResultListener {
+    private final String attributeName;
+    private final ObjectName objectNamePattern;
+    private final int k;
+
+    private final Map<ObjectName, Integer> ids = new HashMap<>();
+    private final List<ObjectName> objectNames = new ArrayList<>();
+    private double[] values = new double[16];
+    private int[] heapPositions = new int[16];
+    private int valueCount = 0;
+
+    // Min-heap of the IDs of the top K mbeans, ordered by value.
+    private final int[] heap;
+    private int heapSize = 0;
+    private double outsideBound = Double.NEGATIVE_INFINITY;
+    private boolean dirty = false;
+    private long rebuildCount = 0;
+
+    /**
+     * @param attributeName name of the attribute tracked.
+     * @param objectNamePattern pattern of the ObjectNames of the mbeans tracked; null for all mbeans.
+     * @param k number of mbeans in the view.
+     */
+    public TopKTracker(String attributeName, ObjectName objectNamePattern, int k) {
+        if (attributeName == null) {
+            throw new IllegalArgumentException("attribute name is required");
+        }
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+
+        this.attributeName = attributeName;
+        this.objectNamePattern = objectNamePattern;
+        this.k = k;
+        this.heap = new int[k];
+    }
+
+    public String getAttributeName() {
+        return attributeName;
+    }
+
+    public ObjectName getObjectNamePattern() {
+        return objectNamePattern;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * @return number of mbeans with a value.
+     */
+    public synchronized int getTrackedCount() {
+        return this.valueCount;
+    }
+
+    /**
+     * @return number of times the heap was rebuilt from all of the values.
+     */
+    public synchronized long getRebuildCount() {
+        return this.rebuildCount;
+    }
+
+    @Override
+    public void onPollResult(PollResultEvent event) {
+        if ((!this.attributeName.equals(event.getAttributeName())) || (event.getObjectName() == null)) {
+            return;
+        }
+
+        if ((this.objectNamePattern != null) && (!this.objectNamePattern.apply(event.getObjectName()))) {
+            return;
+        }
+
+        double value = EvaluationContext.toDouble(event.getValue());
+        if (!Double.isNaN(value)) {
+            this.update(event.getObjectName(), value);
+        }
+    }
+
+    /**
+     * Update the latest value of the given mbean.
+     */
+    public synchronized void update(ObjectName objectName, double value) {
+        int id = this.getOrCreateId(objectName);
+        double old = this.values[id];
+
+        this.values[id] = value;
+        if (Double.isNaN(old)) {
+            this.valueCount++;
+        }
+
+        if (this.dirty) {
+            return;
+        }
+
+        int pos = this.heapPositions[id];
+        if (pos >= 0) {
+            if (value > old) {
+                this.siftDown(pos);
+            } else {
+                this.siftUp(pos);
+
+                if (value < this.outsideBound) {
+                    this.dirty = true;
+                }
+            }
+        } else {
+            this.offer(id);
+        }
+    }
+
+    /**
+     * Stop tracking the given mbean, such as when it is unregistered.
+     */
+    public synchronized void remove(ObjectName objectName) {
+        Integer id = this.ids.get(objectName);
+        if ((id == null) || Double.isNaN(this.values[id])) {
+            return;
+        }
+
+        this.values[id] = Double.NaN;
+        this.valueCount--;
+
+        int pos = this.heapPositions[id];
+        if (pos >= 0) {
+            this.removeAt(pos);
+
+            if (this.valueCount > this.heapSize) {
+                this.dirty = true;
+            }
+        }
+    }
+
+    /**
+     * @return the (up to) K mbeans with the largest values, largest first.
+     */
+    public synchronized List<TopKEntry> getTopK() {
+        if (this.dirty) {
+            this.rebuild();
+        }
+
+        List<TopKEntry> result = new ArrayList<>(this.heapSize);
+        for (int cur = 0; cur < this.heapSize; cur++) {
+            int id = this.heap[cur];
+            result.add(new TopKEntry(this.objectNames.get(id), this.values[id]));
+        }
+
+        Collections.sort(result, new Comparator<TopKEntry>() {
+            @Override
+            public int compare(TopKEntry first, TopKEntry second) {
+                return Double.compare(second.getValue(), first.getValue());
+            }
+        });
+
+        return result;
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    protected int getOrCreateId(ObjectName objectName) {
+        Integer result = this.ids.get(objectName);
+
+        if (result == null) {
+            result = this.objectNames.size();
+            this.objectNames.add(objectName);
+            this.ids.put(objectName, result);
+
+            if (result >= this.values.length) {
+                int oldLength = this.values.length;
+                this.values = Arrays.copyOf(this.values, oldLength * 2);
+                this.heapPositions = Arrays.copyOf(this.heapPositions, oldLength * 2);
+                Arrays.fill(this.heapPositions, oldLength, oldLength * 2, -1);
+            }
+
+            this.values[result] = Double.NaN;
+            this.heapPositions[result] = -1;
+        }
+
+        return result;
+    }
+
+    /**
+     * Offer an mbean that is not in the heap, evicting the smallest member if the heap is full and the mbean's value
+     * is larger.
+     */
+    protected void offer(int id) {
+        double value = this.values[id];
+
+        if (this.heapSize < this.k) {
+            this.heap[this.heapSize] = id;
+            this.heapPositions[id] = this.heapSize;
+            this.heapSize++;
+            this.siftUp(this.heapSize - 1);
+        } else if (value > this.values[this.heap[0]]) {
+            int evicted = this.heap[0];
+            this.heapPositions[evicted] = -1;
+            this.outsideBound = Math.max(this.outsideBound, this.values[evicted]);
+
+            this.heap[0] = id;
+            this.heapPositions[id] = 0;
+            this.siftDown(0);
+        } else {
+            this.outsideBound = Math.max(this.outsideBound, value);
+        }
+    }
+
+    protected void rebuild() {
+        for (int cur = 0; cur < this.heapSize; cur++) {
+            this.heapPositions[this.heap[cur]] = -1;
+        }
+
+        this.heapSize = 0;
+        this.outsideBound = Double.NEGATIVE_INFINITY;
+
+        int count = this.objectNames.size();
+        for (int id = 0; id < count; id++) {
+            if (!Double.isNaN(this.values[id])) {
+                this.offer(id);
+            }
+        }
+
+        this.dirty = false;
+        this.rebuildCount++;
+    }
+
+    protected void removeAt(int pos) {
+        int id = this.heap[pos];
+        this.heapPositions[id] = -1;
+        this.heapSize--;
+
+        if (pos < this.heapSize) {
+            int moved = this.heap[this.heapSize];
+            this.heap[pos] = moved;
+            this.heapPositions[moved] = pos;
+
+            this.siftDown(pos);
+            this.siftUp(this.heapPositions[moved]);
+        }
+    }
+
+    protected void siftUp(int pos) {
+        int id = this.heap[pos];
+        double value = this.values[id];
+
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            int parentId = this.heap[parent];
+
+            if (this.values[parentId] <= value) {
+                break;
+            }
+
+            this.heap[pos] = parentId;
+            this.heapPositions[parentId] = pos;
+            pos = parent;
+        }
+
+        this.heap[pos] = id;
+        this.heapPositions[id] = pos;
+    }
+
+    protected void siftDown(int pos) {
+        int id = this.heap[pos];
+        double value = this.values[id];
+
+        while (true) {
+            int child = (pos * 2) + 1;
+            if (child >= this.heapSize) {
+                break;
+            }
+
+            if ((child + 1 < this.heapSize) && (this.values[this.heap[child + 1]] < this.values[this.heap[child]])) {
+                child++;
+            }
+
+            int childId = this.heap[child];
+            if (value <= this.values[childId]) {
+                break;
+            }
+
+            this.heap[pos] = childId;
+            this.heapPositions[childId] = pos;
+            pos = child;
+        }
+
+        this.heap[pos] = id;
+        this.heapPositions[id] = pos;
+    }
+}
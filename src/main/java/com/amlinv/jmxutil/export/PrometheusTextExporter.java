@@ -0,0 +1,514 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.export;
+
+import com.amlinv.jmxutil.store.SampleSink;
+import com.amlinv.jmxutil.store.SeriesKey;
+import com.amlinv.jmxutil.store.SeriesRegistry;
+
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Sink retaining the latest value of each series that renders those values in the Prometheus text exposition format.
+ * Add it to a PollResultSampleRecorder to expose the latest polled values.
+ * <p/>
+ * The metric name of a series is formed from the namespace, the domain of its ObjectName and its attribute name, and
+ * its labels from the target of the series and the key properties of the ObjectName, with names sanitized to the
+ * characters Prometheus allows.  The name and labels of a series are rendered into bytes once, when the series is
+ * prepared or first sampled, and each scrape writes those bytes and the formatted values into a reusable buffer, so
+ * that rendering allocates nothing per series.  Series of the same metric name are grouped under a single TYPE line;
+ * the type is "untyped" since polled attributes may be gauges or counters.
+ */
+public class PrometheusTextExporter implements SampleSink {
+    private static final int INITIAL_SERIES_CAPACITY = 64;
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    // Values at or above this magnitude are integral as doubles.
+    private static final double LONG_FORMAT_LIMIT = 1.0e15;
+    private static final int SIGNIFICANT_DIGITS = 15;
+
+    private static final byte[] NAN_BYTES = "NaN".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] POSITIVE_INFINITY_BYTES = "+Inf".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NEGATIVE_INFINITY_BYTES = "-Inf".getBytes(StandardCharsets.US_ASCII);
+
+    private final SeriesRegistry seriesRegistry;
+    private final String namespace;
+    private boolean includeTimestamps = false;
+
+    // Indexed by series ID.
+    private byte[][] seriesPrefixes = new byte[INITIAL_SERIES_CAPACITY][];
+    private double[] values = new double[INITIAL_SERIES_CAPACITY];
+    private long[] timestamps = new long[INITIAL_SERIES_CAPACITY];
+    private boolean[] sampled = new boolean[INITIAL_SERIES_CAPACITY];
+
+    private final Map<String, MetricFamily> familiesByName = new HashMap<>();
+    private final List<MetricFamily> families = new ArrayList<>();
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int length = 0;
+    private final byte[] digits = new byte[20];
+
+    public PrometheusTextExporter(SeriesRegistry seriesRegistry) {
+        this(seriesRegistry, null);
+    }
+
+    /**
+     * @param seriesRegistry registry of the series exported.
+     * @param namespace prefix of all metric names (e.g. "activemq"); null for none.
+     */
+    public PrometheusTextExporter(SeriesRegistry seriesRegistry, String namespace) {
+        this.seriesRegistry = seriesRegistry;
+        this.namespace = namespace;
+    }
+
+    public SeriesRegistry getSeriesRegistry() {
+        return seriesRegistry;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public synchronized boolean isIncludeTimestamps() {
+        return includeTimestamps;
+    }
+
+    /**
+     * @param includeTimestamps true => write the timestamp of each sample; false => leave timestamps to the scraper,
+     *                          as Prometheus recommends.
+     */
+    public synchronized void setIncludeTimestamps(boolean includeTimestamps) {
+        this.includeTimestamps = includeTimestamps;
+    }
+
+    /**
+     * @return true => always; the latest value of the series replaces its previous value.
+     */
+    @Override
+    public synchronized boolean append(int seriesId, long timestamp, double value) {
+        this.prepare(seriesId);
+
+        this.values[seriesId] = value;
+        this.timestamps[seriesId] = timestamp;
+        this.sampled[seriesId] = true;
+
+        return true;
+    }
+
+    /**
+     * Precompute the rendering of the name and labels of a series, such as when its polling is planned, so that the
+     * first sample does not pay for it.
+     *
+     * @throws IllegalArgumentException if the series is not registered.
+     */
+    public synchronized void prepare(int seriesId) {
+        if ((seriesId < this.seriesPrefixes.length) && (seriesId >= 0) && (this.seriesPrefixes[seriesId] != null)) {
+            return;
+        }
+
+        SeriesKey key = this.seriesRegistry.getKey(seriesId);
+        if (key == null) {
+            throw new IllegalArgumentException("unknown series id " + seriesId);
+        }
+
+        this.ensureSeriesCapacity(seriesId + 1);
+
+        String metricName = this.formatMetricName(key);
+        this.seriesPrefixes[seriesId] = (metricName + this.formatLabels(key) + " ").getBytes(StandardCharsets.UTF_8);
+
+        MetricFamily family = this.familiesByName.get(metricName);
+        if (family == null) {
+            family = new MetricFamily(metricName);
+            this.familiesByName.put(metricName, family);
+            this.families.add(family);
+        }
+
+        family.add(seriesId);
+    }
+
+    /**
+     * Forget the latest value of a series, such as when its mbean is unregistered, so that it is no longer exported.
+     */
+    public synchronized void remove(int seriesId) {
+        if ((seriesId >= 0) && (seriesId < this.sampled.length)) {
+            this.sampled[seriesId] = false;
+        }
+    }
+
+    /**
+     * Render the latest values of all of the sampled series and write them to the given stream.
+     *
+     * @param out destination of the exposition text.
+     * @return number of bytes written.
+     */
+    public synchronized int writeTo(OutputStream out) throws IOException {
+        this.render();
+        out.write(this.buffer, 0, this.length);
+
+        return this.length;
+    }
+
+    /**
+     * @return the exposition text of the latest values of all of the sampled series.
+     */
+    public synchronized String renderToString() {
+        this.render();
+
+        return new String(this.buffer, 0, this.length, StandardCharsets.UTF_8);
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    protected void render() {
+        this.length = 0;
+
+        for (MetricFamily oneFamily : this.families) {
+            boolean headerWritten = false;
+
+            for (int cur = 0; cur < oneFamily.size; cur++) {
+                int seriesId = oneFamily.seriesIds[cur];
+                if (!this.sampled[seriesId]) {
+                    continue;
+                }
+
+                if (!headerWritten) {
+                    this.write(oneFamily.header);
+                    headerWritten = true;
+                }
+
+                this.write(this.seriesPrefixes[seriesId]);
+                this.writeDouble(this.values[seriesId]);
+
+                if (this.includeTimestamps) {
+                    this.write((byte) ' ');
+                    this.writeLong(this.timestamps[seriesId]);
+                }
+
+                this.write((byte) '\n');
+            }
+        }
+    }
+
+    protected String formatMetricName(SeriesKey key) {
+        StringBuilder result = new StringBuilder();
+
+        if ((this.namespace != null) && (!this.namespace.isEmpty())) {
+            result.append(this.namespace).append('_');
+        }
+
+        result.append(key.getObjectName().getDomain()).append('_').append(key.getAttributeName());
+
+        return sanitizeName(result.toString(), true);
+    }
+
+    protected String formatLabels(SeriesKey key) {
+        // Sorted for a stable order of the labels.
+        Map<String, String> labels = new TreeMap<>();
+        Set<String> reserved = new HashSet<>();
+
+        if (key.getTarget() != null) {
+            labels.put("target", key.getTarget());
+            reserved.add("target");
+        }
+
+        for (Map.Entry<String, String> oneProperty : key.getObjectName().getKeyPropertyList().entrySet()) {
+            String labelName = sanitizeName(oneProperty.getKey(), false);
+
+            if ((!reserved.contains(labelName)) && (!labels.containsKey(labelName))) {
+                labels.put(labelName, unquote(oneProperty.getValue()));
+            }
+        }
+
+        StringBuilder result = new StringBuilder("{");
+        for (Map.Entry<String, String> oneLabel : labels.entrySet()) {
+            if (result.length() > 1) {
+                result.append(',');
+            }
+
+            result.append(oneLabel.getKey()).append("=\"");
+            escapeLabelValue(oneLabel.getValue(), result);
+            result.append('"');
+        }
+        result.append('}');
+
+        return result.toString();
+    }
+
+    /**
+     * Replace the characters not allowed in metric names (when metricName is true) or label names with underscores.
+     */
+    protected static String sanitizeName(String name, boolean metricName) {
+        StringBuilder result = new StringBuilder(name.length() + 1);
+
+        for (int cur = 0; cur < name.length(); cur++) {
+            char ch = name.charAt(cur);
+
+            boolean digit = (ch >= '0') && (ch <= '9');
+            boolean allowed = ((ch >= 'a') && (ch <= 'z')) || ((ch >= 'A') && (ch <= 'Z')) || (ch == '_') || digit ||
+                    (metricName && (ch == ':'));
+
+            // Names may not start with a digit.
+            if (digit && (cur == 0)) {
+                result.append('_');
+            }
+
+            result.append(allowed ? ch : '_');
+        }
+
+        if (result.length() == 0) {
+            result.append('_');
+        }
+
+        return result.toString();
+    }
+
+    protected static String unquote(String value) {
+        if ((value.length() >= 2) && (value.charAt(0) == '"') && (value.charAt(value.length() - 1) == '"')) {
+            return ObjectName.unquote(value);
+        }
+
+        return value;
+    }
+
+    protected static void escapeLabelValue(String value, StringBuilder result) {
+        for (int cur = 0; cur < value.length(); cur++) {
+            char ch = value.charAt(cur);
+
+            switch (ch) {
+                case '\\':
+                    result.append("\\\\");
+                    break;
+                case '"':
+                    result.append("\\\"");
+                    break;
+                case '\n':
+                    result.append("\\n");
+                    break;
+                default:
+                    result.append(ch);
+            }
+        }
+    }
+
+    protected void ensureSeriesCapacity(int capacity) {
+        if (capacity > this.seriesPrefixes.length) {
+            int newCapacity = Math.max(capacity, this.seriesPrefixes.length * 2);
+
+            this.seriesPrefixes = Arrays.copyOf(this.seriesPrefixes, newCapacity);
+            this.values = Arrays.copyOf(this.values, newCapacity);
+            this.timestamps = Arrays.copyOf(this.timestamps, newCapacity);
+            this.sampled = Arrays.copyOf(this.sampled, newCapacity);
+        }
+    }
+
+    protected void ensureBufferSpace(int needed) {
+        if (this.length + needed > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(this.length + needed, this.buffer.length * 2));
+        }
+    }
+
+    protected void write(byte value) {
+        this.ensureBufferSpace(1);
+        this.buffer[this.length++] = value;
+    }
+
+    protected void write(byte[] bytes) {
+        this.ensureBufferSpace(bytes.length);
+        System.arraycopy(bytes, 0, this.buffer, this.length, bytes.length);
+        this.length += bytes.length;
+    }
+
+    protected void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            this.write(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+
+        if (value < 0) {
+            this.write((byte) '-');
+            value = -value;
+        }
+
+        int count = this.formatDigits(value);
+        this.ensureBufferSpace(count);
+        System.arraycopy(this.digits, this.digits.length - count, this.buffer, this.length, count);
+        this.length += count;
+    }
+
+    /**
+     * Write a double value without allocating: integral values as integers, and other values with up to 15
+     * significant digits, the precision that a double always preserves.
+     */
+    protected void writeDouble(double value) {
+        if (Double.isNaN(value)) {
+            this.write(NAN_BYTES);
+            return;
+        }
+        if (value == Double.POSITIVE_INFINITY) {
+            this.write(POSITIVE_INFINITY_BYTES);
+            return;
+        }
+        if (value == Double.NEGATIVE_INFINITY) {
+            this.write(NEGATIVE_INFINITY_BYTES);
+            return;
+        }
+
+        if ((Math.abs(value) < LONG_FORMAT_LIMIT) && (value == Math.rint(value))) {
+            this.writeLong((long) value);
+            return;
+        }
+
+        if (value < 0) {
+            this.write((byte) '-');
+            value = -value;
+        }
+
+        // Scale the value to a 15-digit mantissa; log10() may be off by one near powers of ten, so correct for it.
+        int exponent = (int) Math.floor(Math.log10(value));
+        long mantissa = this.scaleToMantissa(value, exponent);
+
+        if (mantissa >= 1000000000000000L) {
+            exponent++;
+            mantissa = this.scaleToMantissa(value, exponent);
+        } else if (mantissa < 100000000000000L) {
+            exponent--;
+            mantissa = this.scaleToMantissa(value, exponent);
+        }
+
+        if (mantissa >= 1000000000000000L) {
+            // Rounded up to the next power of ten.
+            mantissa /= 10;
+            exponent++;
+        }
+
+        int digitCount = SIGNIFICANT_DIGITS;
+        while ((digitCount > 1) && ((mantissa % 10) == 0)) {
+            mantissa /= 10;
+            digitCount--;
+        }
+
+        this.formatDigits(mantissa);
+        int first = this.digits.length - digitCount;
+
+        if ((exponent >= 0) && (exponent < SIGNIFICANT_DIGITS)) {
+            // The integer part may be longer than the significant digits, padded with zeros, followed by the fraction.
+            this.ensureBufferSpace(Math.max(exponent + 1, digitCount) + 1);
+
+            for (int cur = 0; cur <= exponent; cur++) {
+                this.buffer[this.length++] = (cur < digitCount) ? this.digits[first + cur] : (byte) '0';
+            }
+
+            if (digitCount > exponent + 1) {
+                this.buffer[this.length++] = '.';
+                for (int cur = exponent + 1; cur < digitCount; cur++) {
+                    this.buffer[this.length++] = this.digits[first + cur];
+                }
+            }
+        } else if ((exponent < 0) && (exponent >= -4)) {
+            this.ensureBufferSpace(digitCount + 1 - exponent);
+
+            this.buffer[this.length++] = '0';
+            this.buffer[this.length++] = '.';
+            for (int cur = -1; cur > exponent; cur--) {
+                this.buffer[this.length++] = '0';
+            }
+            for (int cur = 0; cur < digitCount; cur++) {
+                this.buffer[this.length++] = this.digits[first + cur];
+            }
+        } else {
+            // The exponent itself is written by writeLong(), which reserves its own space.
+            this.ensureBufferSpace(digitCount + 2);
+
+            this.buffer[this.length++] = this.digits[first];
+            if (digitCount > 1) {
+                this.buffer[this.length++] = '.';
+                for (int cur = 1; cur < digitCount; cur++) {
+                    this.buffer[this.length++] = this.digits[first + cur];
+                }
+            }
+
+            this.buffer[this.length++] = 'e';
+            this.writeLong(exponent);
+        }
+    }
+
+    protected long scaleToMantissa(double value, int exponent) {
+        int shift = (SIGNIFICANT_DIGITS - 1) - exponent;
+
+        if (shift > 300) {
+            // Scale in two steps so that the power of ten does not overflow, for values near the subnormal range.
+            return Math.round(value * Math.pow(10, shift - 300) * 1.0e300);
+        }
+
+        if (shift >= 0) {
+            return Math.round(value * Math.pow(10, shift));
+        }
+
+        return Math.round(value / Math.pow(10, -shift));
+    }
+
+    /**
+     * Format the digits of a non-negative value right-aligned in the digit scratch array.
+     *
+     * @return number of digits.
+     */
+    protected int formatDigits(long value) {
+        int pos = this.digits.length;
+
+        do {
+            this.digits[--pos] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value > 0);
+
+        return this.digits.length - pos;
+    }
+
+    /**
+     * Series of one metric name, rendered together under one TYPE line.
+     */
+    protected static class MetricFamily {
+        protected final byte[] header;
+        protected int[] seriesIds = new int[4];
+        protected int size = 0;
+
+        protected MetricFamily(String metricName) {
+            this.header = ("# TYPE " + metricName + " untyped\n").getBytes(StandardCharsets.UTF_8);
+        }
+
+        protected void add(int seriesId) {
+            if (this.size == this.seriesIds.length) {
+                this.seriesIds = Arrays.copyOf(this.seriesIds, this.size * 2);
+            }
+
+            this.seriesIds[this.size++] = seriesId;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Binding of one injection point for attribute values (a setter or a field) to the converter for the values it
+ * receives.  The converter is resolved once for the type of value last seen and kept until a value of a different type
+ * arrives, so that the common case of an attribute that always reports the same type costs a single type comparison
+ * per value.
+ */
+public abstract class AttributeBinding {
+    private final Class<?> parameterType;
+
+    private volatile ResolvedConverter resolved;
+
+    protected AttributeBinding(Class<?> parameterType) {
+        this.parameterType = parameterType;
+    }
+
+    /**
+     * Type of the values accepted by the injection point.
+     */
+    public Class<?> getParameterType() {
+        return parameterType;
+    }
+
+    public boolean isResolved() {
+        return this.resolved != null;
+    }
+
+    /**
+     * Select the converter for values of the given type ahead of the first value, such as from the attribute type
+     * declared by the mbean.
+     *
+     * @param sourceType type of the values expected.
+     * @param registry registry from which to resolve the converter.
+     */
+    public void preselect(Class<?> sourceType, ValueConverterRegistry registry) {
+        Class<?> wrapperType = ValueConverterRegistry.wrapperType(sourceType);
+
+        this.resolved = new ResolvedConverter(wrapperType, registry.lookup(wrapperType, this.parameterType));
+    }
+
+    /**
+     * Determine the converter for values of the given type.
+     *
+     * @param sourceType type of the value to convert.
+     * @param registry registry from which to resolve the converter when the type differs from the last one seen.
+     * @return the converter; null if no conversion is available.
+     */
+    public ValueConverter getConverter(Class<?> sourceType, ValueConverterRegistry registry) {
+        ResolvedConverter current = this.resolved;
+        if ((current != null) && (current.sourceType == sourceType)) {
+            return current.converter;
+        }
+
+        ValueConverter converter = registry.lookup(sourceType, this.parameterType);
+        this.resolved = new ResolvedConverter(sourceType, converter);
+
+        return converter;
+    }
+
+    /**
+     * Inject the given, already converted, value into the target.
+     */
+    public abstract void inject(Object target, Object value) throws InvocationTargetException, IllegalAccessException;
+
+    /**
+     * Immutable pairing of a source type with its converter so both are published together.
+     */
+    protected static class ResolvedConverter {
+        private final Class<?> sourceType;
+        private final ValueConverter converter;
+
+        public ResolvedConverter(Class<?> sourceType, ValueConverter converter) {
+            this.sourceType = sourceType;
+            this.converter = converter;
+        }
+    }
+}
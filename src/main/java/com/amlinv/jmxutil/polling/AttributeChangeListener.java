@@ -0,0 +1,34 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import javax.management.ObjectName;
+import java.util.Set;
+
+/**
+ * Listener for the attributes that changed for a polled object in a poll cycle, such as for exporting deltas.
+ */
+public interface AttributeChangeListener {
+    /**
+     * Report the attributes whose values changed for the given target in one poll cycle.  Called once per target per
+     * cycle while change detection is enabled, on the polling thread.
+     *
+     * @param target the polled object.
+     * @param objectName object name of the polled mbean.
+     * @param changedAttributes names of the attributes that changed; empty if none changed.
+     */
+    void onAttributesChanged(Object target, ObjectName objectName, Set<String> changedAttributes);
+}
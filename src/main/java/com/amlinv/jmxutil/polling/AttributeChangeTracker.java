@@ -0,0 +1,141 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracker of the last values injected into each polled object, used to skip injection of unchanged values.  Objects
+ * are tracked by identity, not equality, since each instance (e.g. each buffer of a double-buffered object) holds its
+ * own values, and are held weakly so that objects removed from polling are forgotten.
+ */
+public class AttributeChangeTracker {
+    private final ConcurrentHashMap<IdentityKey, LastValues> lastValuesByTarget = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> collectedTargets = new ReferenceQueue<>();
+
+    /**
+     * Get the last values of the given target, starting to track it if needed.
+     *
+     * @param target the polled object.
+     * @return the last values injected into the target.
+     */
+    public LastValues getLastValues(Object target) {
+        this.purgeCollectedTargets();
+
+        LastValues result = this.lastValuesByTarget.get(new IdentityKey(target, null));
+        if (result == null) {
+            result = new LastValues();
+
+            LastValues existing =
+                    this.lastValuesByTarget.putIfAbsent(new IdentityKey(target, this.collectedTargets), result);
+            if (existing != null) {
+                result = existing;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Forget the last values of all targets, so that all values are treated as changed on the next cycle.
+     */
+    public void clear() {
+        this.lastValuesByTarget.clear();
+    }
+
+    public int getTrackedCount() {
+        this.purgeCollectedTargets();
+
+        return this.lastValuesByTarget.size();
+    }
+
+    protected void purgeCollectedTargets() {
+        Reference<?> collected = this.collectedTargets.poll();
+        while (collected != null) {
+            this.lastValuesByTarget.remove(collected);
+            collected = this.collectedTargets.poll();
+        }
+    }
+
+    /**
+     * Last values injected into one target, by attribute name.
+     */
+    public static class LastValues {
+        // Marks null values, which the map cannot hold.
+        private static final Object NULL_VALUE = new Object();
+
+        private final ConcurrentHashMap<String, Object> values = new ConcurrentHashMap<>();
+
+        /**
+         * Determine whether the given value differs from the last one recorded for the attribute.  Boxed primitives
+         * compare by value and other objects by equals().
+         *
+         * @return true => if the value changed, or none was recorded yet; false => if it is unchanged.
+         */
+        public boolean isChanged(String attributeName, Object value) {
+            Object last = this.values.get(attributeName);
+            if (last == null) {
+                return true;
+            }
+
+            if (value == null) {
+                return last != NULL_VALUE;
+            }
+
+            return !value.equals(last);
+        }
+
+        public void record(String attributeName, Object value) {
+            this.values.put(attributeName, (value != null) ? value : NULL_VALUE);
+        }
+    }
+
+    /**
+     * Weak key comparing targets by identity.
+     */
+    protected static class IdentityKey extends WeakReference<Object> {
+        private final int hash;
+
+        public IdentityKey(Object target, ReferenceQueue<Object> queue) {
+            super(target, queue);
+
+            this.hash = System.identityHashCode(target);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+
+            if (!(other instanceof IdentityKey)) {
+                return false;
+            }
+
+            Object target = this.get();
+
+            return (target != null) && (target == ((IdentityKey) other).get());
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import com.amlinv.jmxutil.annotation.FieldAccessMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Binding of one annotated field to the converter for the values it receives, storing values directly into the field
+ * with the requested memory semantics instead of calling a setter.
+ * <p/>
+ * Ordered stores use the lazySet() of an atomic field updater, which is only available for int, long and reference
+ * fields that are accessible to this class (e.g. public fields); other fields fall back to a volatile store, which is
+ * stronger.  Fields that are not volatile fall back to plain stores for every mode.  Every fallback is logged as a
+ * warning when the binding is created, and getAccessMode() reports the mode in effect.
+ */
+public class AttributeFieldBinding extends AttributeBinding {
+    private static final Logger DEFAULT_LOGGER = LoggerFactory.getLogger(AttributeFieldBinding.class);
+
+    private final Field field;
+    private final FieldAccessMode accessMode;
+    private final FieldStore fieldStore;
+
+    private Logger log = DEFAULT_LOGGER;
+
+    public AttributeFieldBinding(Field field, FieldAccessMode accessMode) {
+        super(field.getType());
+
+        this.field = field;
+        this.field.setAccessible(true);
+
+        FieldAccessMode effectiveMode = accessMode;
+        if ((accessMode != FieldAccessMode.PLAIN) && (!Modifier.isVolatile(field.getModifiers()))) {
+            this.log.warn("field is not volatile; using plain stores: field={}; accessMode={}", field, accessMode);
+            effectiveMode = FieldAccessMode.PLAIN;
+        }
+
+        FieldStore store = null;
+        if (effectiveMode == FieldAccessMode.ORDERED) {
+            store = this.createOrderedStore(field);
+            if (store == null) {
+                effectiveMode = FieldAccessMode.VOLATILE;
+            }
+        }
+
+        if (store == null) {
+            store = new ReflectionFieldStore(field);
+        }
+
+        this.accessMode = effectiveMode;
+        this.fieldStore = store;
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * Access mode in effect for the field, which may be stronger or weaker than the one requested; see the class
+     * description.
+     */
+    public FieldAccessMode getAccessMode() {
+        return accessMode;
+    }
+
+    @Override
+    public void inject(Object target, Object value) throws IllegalAccessException {
+        if ((value == null) && (this.field.getType().isPrimitive())) {
+            throw new IllegalArgumentException("cannot store null into primitive field " + this.field);
+        }
+
+        this.fieldStore.store(target, value);
+    }
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    @SuppressWarnings("unchecked")
+    protected FieldStore createOrderedStore(Field orderedField) {
+        // The updaters check the target's class at runtime, so they are typed for any target.
+        Class<Object> declaringClass = (Class<Object>) orderedField.getDeclaringClass();
+        Class<?> type = orderedField.getType();
+        String name = orderedField.getName();
+
+        try {
+            if (type == long.class) {
+                final AtomicLongFieldUpdater<Object> updater = AtomicLongFieldUpdater.newUpdater(declaringClass, name);
+
+                return new FieldStore() {
+                    @Override
+                    public void store(Object target, Object value) {
+                        updater.lazySet(target, (Long) value);
+                    }
+                };
+            } else if (type == int.class) {
+                final AtomicIntegerFieldUpdater<Object> updater =
+                        AtomicIntegerFieldUpdater.newUpdater(declaringClass, name);
+
+                return new FieldStore() {
+                    @Override
+                    public void store(Object target, Object value) {
+                        updater.lazySet(target, (Integer) value);
+                    }
+                };
+            } else if (!type.isPrimitive()) {
+                final AtomicReferenceFieldUpdater<Object, Object> updater =
+                        AtomicReferenceFieldUpdater.newUpdater(declaringClass, (Class<Object>) type, name);
+
+                return new FieldStore() {
+                    @Override
+                    public void store(Object target, Object value) {
+                        updater.lazySet(target, value);
+                    }
+                };
+            }
+
+            this.log.warn("ordered stores not available for field type; using volatile stores: field={}",
+                    orderedField);
+        } catch (RuntimeException rtExc) {
+            this.log.warn("ordered stores not available for field; using volatile stores: field={}", orderedField,
+                    rtExc);
+        }
+
+        return null;
+    }
+
+    /**
+     * Store of values into a field.
+     */
+    protected interface FieldStore {
+        void store(Object target, Object value) throws IllegalAccessException;
+    }
+
+    /**
+     * Store through reflection, which has the semantics of the field's declaration: volatile if it is volatile,
+     * otherwise plain.
+     */
+    protected static class ReflectionFieldStore implements FieldStore {
+        private final Field field;
+
+        public ReflectionFieldStore(Field field) {
+            this.field = field;
+        }
+
+        @Override
+        public void store(Object target, Object value) throws IllegalAccessException {
+            this.field.set(target, value);
+        }
+    }
+}
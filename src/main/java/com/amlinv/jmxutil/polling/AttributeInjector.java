@@ -16,15 +16,25 @@
 
 package com.amlinv.jmxutil.polling;
 
+import com.amlinv.jmxutil.annotation.FieldAccessMode;
+import com.amlinv.jmxutil.annotation.MBeanAttribute;
+import com.amlinv.logging.util.RepeatLogMessageSuppressor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.management.Attribute;
 import javax.management.ObjectName;
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Inject attribute values into an object based on field names and setters.
@@ -34,7 +44,23 @@ import java.util.Map;
 public class AttributeInjector {
     private static final Logger DEFAULT_LOGGER = LoggerFactory.getLogger(AttributeInjector.class);
 
+    private final ConcurrentHashMap<Method, AttributeSetterBinding> bindings = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Field, AttributeFieldBinding> fieldBindings = new ConcurrentHashMap<>();
+
     private Logger log = DEFAULT_LOGGER;
+    private RepeatLogMessageSuppressor logNoConversionThrottle = new RepeatLogMessageSuppressor();
+    private RepeatLogMessageSuppressor logNonNumericRateThrottle = new RepeatLogMessageSuppressor();
+
+    private ValueConverterRegistry converterRegistry = new ValueConverterRegistry();
+
+    private boolean changeDetection = false;
+    private AttributeChangeTracker changeTracker = new AttributeChangeTracker();
+    private final List<AttributeChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private final List<AttributeSnapshotReceiver> snapshotListeners = new CopyOnWriteArrayList<>();
+
+    private PollResultRingBuffer pollResultRingBuffer;
+
+    private CounterRateTracker counterRateTracker = new CounterRateTracker();
 
     public Logger getLog() {
         return log;
@@ -44,6 +70,81 @@ public class AttributeInjector {
         this.log = log;
     }
 
+    public ValueConverterRegistry getConverterRegistry() {
+        return converterRegistry;
+    }
+
+    public void setConverterRegistry(ValueConverterRegistry converterRegistry) {
+        this.converterRegistry = converterRegistry;
+    }
+
+    public boolean isChangeDetection() {
+        return changeDetection;
+    }
+
+    /**
+     * Enable, or disable, change detection.  When enabled, the last value injected for each attribute of each target
+     * is kept, values equal to the last one are not injected, and the names of the attributes that changed are
+     * reported to the change listeners after each copy-out.
+     *
+     * @param changeDetection true => inject only changed values; false => inject all values.
+     */
+    public void setChangeDetection(boolean changeDetection) {
+        this.changeDetection = changeDetection;
+    }
+
+    public AttributeChangeTracker getChangeTracker() {
+        return changeTracker;
+    }
+
+    public void setChangeTracker(AttributeChangeTracker changeTracker) {
+        this.changeTracker = changeTracker;
+    }
+
+    public PollResultRingBuffer getPollResultRingBuffer() {
+        return pollResultRingBuffer;
+    }
+
+    /**
+     * Set the ring buffer to which every stored value is published; null to disable publishing.
+     */
+    public void setPollResultRingBuffer(PollResultRingBuffer pollResultRingBuffer) {
+        this.pollResultRingBuffer = pollResultRingBuffer;
+    }
+
+    public CounterRateTracker getCounterRateTracker() {
+        return counterRateTracker;
+    }
+
+    /**
+     * Set the tracker of the previous counter values from which the rates injected into rate setters are computed.
+     */
+    public void setCounterRateTracker(CounterRateTracker counterRateTracker) {
+        this.counterRateTracker = counterRateTracker;
+    }
+
+    public void addChangeListener(AttributeChangeListener listener) {
+        this.changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(AttributeChangeListener listener) {
+        this.changeListeners.remove(listener);
+    }
+
+    /**
+     * Add a listener that receives a snapshot of the values stored for every target, such as to collect the results
+     * of a poll cycle.
+     *
+     * @param listener listener to add.
+     */
+    public void addSnapshotListener(AttributeSnapshotReceiver listener) {
+        this.snapshotListeners.add(listener);
+    }
+
+    public void removeSnapshotListener(AttributeSnapshotReceiver listener) {
+        this.snapshotListeners.remove(listener);
+    }
+
     /**
      * For a JMX MBean idenfitied by an ObjectName, copy the values of the given attributes into the target object
      * using the specified setter methods mapped by attribute name.
@@ -56,7 +157,37 @@ public class AttributeInjector {
     public void copyOutAttributes(Object target, List<Attribute> jmxAttributeValues,
                                   Map<String, Method> attributeSetters, ObjectName objectName) {
 
-        this.copyOutAttributes(target, jmxAttributeValues, attributeSetters, "oname", objectName);
+        this.copyOutAttributes(new ObjectQueryInfo(target, objectName, attributeSetters), jmxAttributeValues);
+    }
+
+    /**
+     * For a JMX MBean idenfitied by an ObjectName, copy the values of the given attributes into the target object
+     * using the specified setter methods mapped by attribute name, with converters preselected from the attribute types
+     * declared by the mbean, where known.
+     *
+     * @param target object into which values are injected.
+     * @param jmxAttributeValues values of the attributes to inject.
+     * @param attributeSetters map of attribute name to setter used to determine how to inject each attribute's value.
+     * @param attributeTypes map of attribute name to the type declared by the mbean.
+     * @param objectName name of the MBean involved - used only for logging.
+     */
+    public void copyOutAttributes(Object target, List<Attribute> jmxAttributeValues,
+                                  Map<String, Method> attributeSetters, Map<String, Class<?>> attributeTypes,
+                                  ObjectName objectName) {
+
+        this.copyOutAttributes(new ObjectQueryInfo(target, objectName, attributeSetters, attributeTypes),
+                jmxAttributeValues);
+    }
+
+    /**
+     * Copy the values of the given attributes into the target of a prepared query, using the query's setters, fields,
+     * rate setters and declared attribute types.
+     *
+     * @param queryInfo the prepared query.
+     * @param jmxAttributeValues values of the attributes to inject.
+     */
+    public void copyOutAttributes(ObjectQueryInfo queryInfo, List<Attribute> jmxAttributeValues) {
+        this.copyOutAttributes(queryInfo, jmxAttributeValues, "oname", queryInfo.getObjectName());
     }
 
     /**
@@ -72,23 +203,140 @@ public class AttributeInjector {
     protected void copyOutAttributes(Object target, List<Attribute> jmxAttributeValues,
                                      Map<String, Method> attributeSetters, String identifierKey, Object identifier) {
 
+        ObjectName objectName = (identifier instanceof ObjectName) ? (ObjectName) identifier : null;
+
+        this.copyOutAttributes(new ObjectQueryInfo(target, objectName, attributeSetters), jmxAttributeValues,
+                identifierKey, identifier);
+    }
+
+    /**
+     * Copy the values of the given attributes into the target of a prepared query using its setter methods, or
+     * fields, mapped by attribute name.  Targets that are AttributeSnapshotReceivers instead receive all of the
+     * converted values at once, in a single snapshot.  Each value is converted to the type accepted by its setter or
+     * field using the converter cached on the binding; where the mbean declared the type of an attribute, that
+     * converter is selected before the first value.  With change detection enabled, values equal to the last one
+     * injected into the target are skipped (snapshots still contain all values) and the changed attributes are
+     * reported to the change listeners.  Every value stored is also published to the poll result ring buffer, when one
+     * is set, and a snapshot of the values stored is given to the snapshot listeners.
+     * <p/>
+     * The per-second rates of counter attributes are injected into the query's rate setters.  Rates are computed from
+     * the value of the previous copy-out into the same target, so no rate is injected on the first.  Snapshots hold
+     * each rate under the attribute name followed by AttributeSnapshot.RATE_SUFFIX, and rate setters are not called in
+     * snapshot mode.  The raw values of attributes that only have rate setters are still included in snapshots, change
+     * detection and the ring buffer, unconverted.
+     *
+     * @param queryInfo the prepared query, holding the target, setters, fields, rate setters and attribute types.
+     * @param jmxAttributeValues values of the attributes to inject.
+     * @param identifierKey key, or name, of the identifier - used only for logging purposes.
+     * @param identifier identifier to include in the output - used only for logging purposes.
+     */
+    protected void copyOutAttributes(ObjectQueryInfo queryInfo, List<Attribute> jmxAttributeValues,
+                                     String identifierKey, Object identifier) {
+
+        Object target = queryInfo.getTarget();
+        Map<String, Method> attributeSetters = queryInfo.getAttributeSetters();
+        Map<String, Field> attributeFields = queryInfo.getAttributeFields();
+        Map<String, Method> attributeRateSetters = queryInfo.getAttributeRateSetters();
+        Map<String, Class<?>> attributeTypes = queryInfo.getAttributeTypes();
+
+        ObjectName objectName = queryInfo.getObjectName();
+        long timestamp = System.currentTimeMillis();
+
+        PollResultRingBuffer ringBuffer = this.pollResultRingBuffer;
+        if ((ringBuffer != null) && (!ringBuffer.hasListeners())) {
+            ringBuffer = null;
+        }
+
+        //
+        // In snapshot mode, collect the converted values instead of injecting them.
+        //
+        boolean snapshotMode = target instanceof AttributeSnapshotReceiver;
+
+        Map<String, Object> snapshotValues = null;
+        if ((snapshotMode) || (!this.snapshotListeners.isEmpty())) {
+            snapshotValues = new LinkedHashMap<>();
+        }
+
+        AttributeChangeTracker.LastValues lastValues = null;
+        Set<String> changedAttributes = null;
+        if (this.changeDetection) {
+            lastValues = this.changeTracker.getLastValues(target);
+            changedAttributes = new LinkedHashSet<>();
+        }
+
         for (Attribute oneAttribute : jmxAttributeValues) {
             String attributeName = oneAttribute.getName();
 
+            Method rateSetter = attributeRateSetters.get(attributeName);
+            if (rateSetter != null) {
+                Object rate = this.injectRate(target, rateSetter, attributeName, oneAttribute.getValue(), timestamp,
+                        !snapshotMode, identifierKey, identifier);
+
+                if ((rate != null) && (snapshotValues != null)) {
+                    snapshotValues.put(attributeName + AttributeSnapshot.RATE_SUFFIX, rate);
+                }
+            }
+
+            // Without a setter or field, only the rate of the attribute is stored; the raw value is still reported.
+            AttributeBinding binding = null;
             Method setter = attributeSetters.get(attributeName);
+            if (setter != null) {
+                binding = this.getBinding(setter);
+            } else {
+                Field field = attributeFields.get(attributeName);
+                if (field != null) {
+                    binding = this.getBinding(field);
+                }
+            }
+
             Object value = oneAttribute.getValue();
 
+            //
+            // Use the type declared by the mbean, when known, to select the converter before the first value.
+            //
+            if ((binding != null) && (!binding.isResolved())) {
+                Class<?> declaredType = attributeTypes.get(attributeName);
+                if (declaredType != null) {
+                    binding.preselect(declaredType, this.converterRegistry);
+                }
+            }
+
             try {
+                if ((binding != null) && (value != null)) {
+                    ValueConverter converter = binding.getConverter(value.getClass(), this.converterRegistry);
+
+                    if (converter == null) {
+                        this.logNoConversionThrottle.info(log, "no conversion available storing mbean results: " +
+                                        "{}={}; attributeName={}; valueType={}; parameterType={}", identifierKey,
+                                identifier, attributeName, value.getClass().getName(),
+                                binding.getParameterType().getName());
+                        continue;
+                    }
+
+                    value = converter.convert(value);
+                }
+
+                boolean changed = (lastValues == null) || lastValues.isChanged(attributeName, value);
+
+                if ((binding != null) && (!snapshotMode) && (changed)) {
+                    binding.inject(target, value);
+                }
+
+                if (snapshotValues != null) {
+                    snapshotValues.put(attributeName, value);
+                }
+
                 //
-                // Automatically down-convert longs to integers as-needed.
+                // Record the value only once it is stored so a failed injection is retried on the next cycle.
                 //
-                if ((setter.getParameterTypes()[0].isAssignableFrom(Integer.class)) ||
-                    (setter.getParameterTypes()[0].isAssignableFrom(int.class))) {
-                    if (value instanceof Long) {
-                        value = ((Long) value).intValue();
-                    }
+                if ((lastValues != null) && (changed)) {
+                    lastValues.record(attributeName, value);
+                    changedAttributes.add(attributeName);
+                }
+
+                if (ringBuffer != null) {
+                    ringBuffer.publish(target, objectName, attributeName, value, timestamp);
                 }
-                setter.invoke(target, value);
             } catch (InvocationTargetException invocationExc) {
                 this.log.info("invocation exception storing mbean results: {}={}; attributeName={}", identifierKey,
                         identifier, attributeName, invocationExc);
@@ -100,5 +348,115 @@ public class AttributeInjector {
                         identifierKey, identifier, attributeName, illegalArgumentExc);
             }
         }
+
+        if (snapshotValues != null) {
+            AttributeSnapshot snapshot = new AttributeSnapshot(objectName, timestamp, snapshotValues);
+
+            if (snapshotMode) {
+                ((AttributeSnapshotReceiver) target).publishSnapshot(snapshot);
+            }
+
+            for (AttributeSnapshotReceiver oneListener : this.snapshotListeners) {
+                oneListener.publishSnapshot(snapshot);
+            }
+        }
+
+        if (changedAttributes != null) {
+            this.notifyChangeListeners(target, objectName, Collections.unmodifiableSet(changedAttributes));
+        }
+    }
+
+    /**
+     * Compute the rate of a counter attribute from its raw value and, unless told otherwise, inject the rate into the
+     * given setter.
+     *
+     * @param inject true => call the rate setter; false => only compute and convert the rate, as for snapshots.
+     * @return the rate converted to the setter's parameter type; null if no rate is available.
+     */
+    protected Object injectRate(Object target, Method rateSetter, String attributeName, Object rawValue,
+                                long timestamp, boolean inject, String identifierKey, Object identifier) {
+
+        if (!(rawValue instanceof Number)) {
+            this.logNonNumericRateThrottle.info(log, "ignoring non-numeric value of counter attribute: {}={}; " +
+                    "attributeName={}", identifierKey, identifier, attributeName);
+            return null;
+        }
+
+        double rate = this.counterRateTracker.getCounterStates(target)
+                .update(attributeName, timestamp, ((Number) rawValue).doubleValue());
+
+        if (Double.isNaN(rate)) {
+            return null;
+        }
+
+        AttributeSetterBinding binding = this.getBinding(rateSetter);
+        ValueConverter converter = binding.getConverter(Double.class, this.converterRegistry);
+
+        if (converter == null) {
+            this.logNoConversionThrottle.info(log, "no conversion available storing mbean rate: {}={}; " +
+                            "attributeName={}; parameterType={}", identifierKey, identifier, attributeName,
+                    binding.getParameterType().getName());
+            return null;
+        }
+
+        Object result;
+        try {
+            result = converter.convert(rate);
+
+            if (inject) {
+                binding.inject(target, result);
+            }
+        } catch (InvocationTargetException | IllegalAccessException | IllegalArgumentException exc) {
+            this.log.info("exception storing mbean rate: {}={}; attributeName={}", identifierKey, identifier,
+                    attributeName, exc);
+            return null;
+        }
+
+        return result;
+    }
+
+    protected void notifyChangeListeners(Object target, ObjectName objectName, Set<String> changedAttributes) {
+        for (AttributeChangeListener oneListener : this.changeListeners) {
+            oneListener.onAttributesChanged(target, objectName, changedAttributes);
+        }
+    }
+
+    /**
+     * Get the binding of the given setter, creating it on first use.
+     */
+    protected AttributeSetterBinding getBinding(Method setter) {
+        AttributeSetterBinding result = this.bindings.get(setter);
+
+        if (result == null) {
+            result = new AttributeSetterBinding(setter);
+
+            AttributeSetterBinding existing = this.bindings.putIfAbsent(setter, result);
+            if (existing != null) {
+                result = existing;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the binding of the given field, creating it on first use with the access mode from its annotation.
+     */
+    protected AttributeFieldBinding getBinding(Field field) {
+        AttributeFieldBinding result = this.fieldBindings.get(field);
+
+        if (result == null) {
+            MBeanAttribute annotation = field.getAnnotation(MBeanAttribute.class);
+            FieldAccessMode accessMode = (annotation != null) ? annotation.access() : FieldAccessMode.PLAIN;
+
+            result = new AttributeFieldBinding(field, accessMode);
+
+            AttributeFieldBinding existing = this.fieldBindings.putIfAbsent(field, result);
+            if (existing != null) {
+                result = existing;
+            }
+        }
+
+        return result;
     }
 }
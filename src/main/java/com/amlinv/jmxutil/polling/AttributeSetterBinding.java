@@ -0,0 +1,41 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Binding of one attribute setter to the converter for the values it receives.
+ */
+public class AttributeSetterBinding extends AttributeBinding {
+    private final Method setter;
+
+    public AttributeSetterBinding(Method setter) {
+        super(setter.getParameterTypes()[0]);
+
+        this.setter = setter;
+    }
+
+    public Method getSetter() {
+        return setter;
+    }
+
+    @Override
+    public void inject(Object target, Object value) throws InvocationTargetException, IllegalAccessException {
+        this.setter.invoke(target, value);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import javax.management.ObjectName;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the attribute values polled for one target in one poll cycle.  Values are converted to the
+ * types of the target's annotated setters or fields, but are not injected into the target.  Attributes that were not
+ * returned by the poll (e.g. due to an error) are absent.  The rates of counter attributes with rate setters are held
+ * under the attribute name followed by RATE_SUFFIX.
+ */
+public class AttributeSnapshot {
+    public static final String RATE_SUFFIX = "#rate";
+
+    private final ObjectName objectName;
+    private final long timestamp;
+    private final Map<String, Object> values;
+
+    /**
+     * @param objectName object name of the polled mbean.
+     * @param timestamp time, in milliseconds since the epoch, at which the snapshot was taken.
+     * @param values values of the attributes mapped by attribute name; copied.
+     */
+    public AttributeSnapshot(ObjectName objectName, long timestamp, Map<String, Object> values) {
+        this.objectName = objectName;
+        this.timestamp = timestamp;
+        this.values = Collections.unmodifiableMap(new LinkedHashMap<>(values));
+    }
+
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return unmodifiable map of the attribute values by attribute name.
+     */
+    public Map<String, Object> getValues() {
+        return values;
+    }
+
+    public boolean hasValue(String attributeName) {
+        return values.containsKey(attributeName);
+    }
+
+    /**
+     * @return the value of the named attribute; null if the attribute is absent or its value is null.
+     */
+    public Object getValue(String attributeName) {
+        return values.get(attributeName);
+    }
+
+    @Override
+    public String toString() {
+        return "AttributeSnapshot{objectName=" + objectName + ", timestamp=" + timestamp + ", values=" + values + "}";
+    }
+}
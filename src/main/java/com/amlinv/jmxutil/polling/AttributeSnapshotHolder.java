@@ -0,0 +1,39 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Base class for polled objects in snapshot mode.  Each poll cycle replaces the snapshot with a single atomic
+ * reference swap, so readers on any thread get a consistent set of values from one cycle without locking, and never
+ * wait on the poller.
+ */
+public abstract class AttributeSnapshotHolder implements AttributeSnapshotReceiver {
+    private final AtomicReference<AttributeSnapshot> snapshot = new AtomicReference<>();
+
+    @Override
+    public void publishSnapshot(AttributeSnapshot newSnapshot) {
+        this.snapshot.set(newSnapshot);
+    }
+
+    /**
+     * @return the most recently published snapshot; null until the first poll completes.
+     */
+    public AttributeSnapshot getSnapshot() {
+        return this.snapshot.get();
+    }
+}
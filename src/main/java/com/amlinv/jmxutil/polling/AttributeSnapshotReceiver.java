@@ -0,0 +1,32 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+/**
+ * Polled object that receives each poll cycle's results as an immutable snapshot instead of having its annotated
+ * setters or fields updated in place.  The annotations still define the attributes to poll and the types to which
+ * their values are converted.
+ *
+ * @see AttributeSnapshotHolder
+ */
+public interface AttributeSnapshotReceiver {
+    /**
+     * Publish the snapshot of a completed poll of this object.  Called once per poll cycle.
+     *
+     * @param snapshot the new snapshot.
+     */
+    void publishSnapshot(AttributeSnapshot snapshot);
+}
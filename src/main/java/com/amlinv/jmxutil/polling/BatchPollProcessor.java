@@ -38,6 +38,8 @@ public class BatchPollProcessor {
 
     private AttributeInjector attributeInjector = new AttributeInjector();
     private ObjectQueryPreparer objectQueryPreparer = new ObjectQueryPreparer();
+    private MBeanInfoCache mBeanInfoCache = new MBeanInfoCache();
+    private PollResultRingBuffer pollResultRingBuffer;
 
     private Logger log = DEFAULT_LOGGER;
 
@@ -49,6 +51,10 @@ public class BatchPollProcessor {
 
     public void setAttributeInjector(AttributeInjector attributeInjector) {
         this.attributeInjector = attributeInjector;
+
+        if (this.pollResultRingBuffer != null) {
+            attributeInjector.setPollResultRingBuffer(this.pollResultRingBuffer);
+        }
     }
 
     public ObjectQueryPreparer getObjectQueryPreparer() {
@@ -59,6 +65,40 @@ public class BatchPollProcessor {
         this.objectQueryPreparer = objectQueryPreparer;
     }
 
+    public MBeanInfoCache getmBeanInfoCache() {
+        return mBeanInfoCache;
+    }
+
+    public void setmBeanInfoCache(MBeanInfoCache mBeanInfoCache) {
+        this.mBeanInfoCache = mBeanInfoCache;
+    }
+
+    public PollResultRingBuffer getPollResultRingBuffer() {
+        return pollResultRingBuffer;
+    }
+
+    public void setPollResultRingBuffer(PollResultRingBuffer pollResultRingBuffer) {
+        this.pollResultRingBuffer = pollResultRingBuffer;
+        this.attributeInjector.setPollResultRingBuffer(pollResultRingBuffer);
+    }
+
+    /**
+     * Add a listener for the values polled, which is called on its own thread through the poll result ring buffer.
+     *
+     * @param listener listener to add.
+     */
+    public synchronized void addPollResultListener(PollResultListener listener) {
+        if (this.pollResultRingBuffer == null) {
+            this.setPollResultRingBuffer(new PollResultRingBuffer());
+        }
+
+        this.pollResultRingBuffer.addListener(listener);
+    }
+
+    public synchronized boolean removePollResultListener(PollResultListener listener) {
+        return (this.pollResultRingBuffer != null) && (this.pollResultRingBuffer.removeListener(listener));
+    }
+
     public Logger getLog() {
         return log;
     }
@@ -86,6 +126,10 @@ public class BatchPollProcessor {
             try {
                 queryInfo = this.objectQueryPreparer.prepareObjectQuery(onePolledObject);
 
+                if (queryInfo != null) {
+                    queryInfo = this.mBeanInfoCache.validateQuery(batchApi, queryInfo);
+                }
+
                 if (queryInfo != null) {
                     objectAttributes.put(queryInfo.getObjectName(),
                             new LinkedList<String>(queryInfo.getAttributeNames()));
@@ -121,13 +165,17 @@ public class BatchPollProcessor {
             ObjectName objectName = entry.getKey();
 
             ObjectQueryInfo queryInfo = objectQueryInfo.get(objectName);
-            this.attributeInjector.copyOutAttributes(queryInfo.getTarget(), entry.getValue(),
-                    queryInfo.getAttributeSetters(), queryInfo.getObjectName());
+            this.attributeInjector.copyOutAttributes(queryInfo, entry.getValue());
         }
     }
 
     public void shutdown() {
         this.shutdownInd = true;
+
+        PollResultRingBuffer ringBuffer = this.pollResultRingBuffer;
+        if (ringBuffer != null) {
+            ringBuffer.shutdown();
+        }
     }
 
 }
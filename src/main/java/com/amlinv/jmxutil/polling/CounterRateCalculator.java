@@ -0,0 +1,134 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import java.util.Arrays;
+
+/**
+ * Converts samples of monotonic counters (e.g. EnqueueCount or CollectionCount) into per-second rates, keyed by
+ * series ID.  The previous timestamp and value of each series are held in primitive arrays, so that computing a rate
+ * allocates nothing once the arrays cover the series.
+ * <p/>
+ * A value lower than the previous one means the counter was reset, such as by a restart of the JVM; the counter is
+ * then assumed to have restarted from zero, so the rate is computed from the new value alone.
+ * <p/>
+ * Not thread-safe; each series must be updated by one thread at a time.
+ */
+public class CounterRateCalculator {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] timestamps;
+    private double[] values;
+
+    public CounterRateCalculator() {
+        this.timestamps = new long[INITIAL_CAPACITY];
+        this.values = new double[INITIAL_CAPACITY];
+
+        Arrays.fill(this.timestamps, Long.MIN_VALUE);
+    }
+
+    /**
+     * Record the next sample of a counter and compute its rate since the previous sample.
+     *
+     * @param seriesId ID of the series; non-negative.
+     * @param timestamp time of the sample, in milliseconds.
+     * @param value value of the counter.
+     * @return the per-second rate since the previous sample; NaN for the first sample of the series, or a sample that
+     * is not newer than the previous one, which is then ignored.
+     */
+    public double update(int seriesId, long timestamp, double value) {
+        if (seriesId >= this.timestamps.length) {
+            this.grow(seriesId);
+        }
+
+        long previousTimestamp = this.timestamps[seriesId];
+        if ((previousTimestamp != Long.MIN_VALUE) && (timestamp <= previousTimestamp)) {
+            return Double.NaN;
+        }
+
+        double result = computeRate(previousTimestamp, this.values[seriesId], timestamp, value);
+
+        this.timestamps[seriesId] = timestamp;
+        this.values[seriesId] = value;
+
+        return result;
+    }
+
+    /**
+     * Forget the previous sample of a series, such as when it is no longer polled.
+     */
+    public void reset(int seriesId) {
+        if (seriesId < this.timestamps.length) {
+            this.timestamps[seriesId] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Compute the per-second rate of a counter between two samples.
+     *
+     * @param previousTimestamp time of the previous sample, or Long.MIN_VALUE if there is none.
+     * @param previousValue value of the previous sample.
+     * @param timestamp time of the sample, in milliseconds.
+     * @param value value of the sample.
+     * @return the per-second rate; NaN if there is no previous sample or no time elapsed.
+     */
+    public static double computeRate(long previousTimestamp, double previousValue, long timestamp, double value) {
+        if (previousTimestamp == Long.MIN_VALUE) {
+            return Double.NaN;
+        }
+
+        long elapsed = timestamp - previousTimestamp;
+        if (elapsed <= 0) {
+            return Double.NaN;
+        }
+
+        return computeIncrease(previousValue, value) * 1000.0 / elapsed;
+    }
+
+    /**
+     * Compute the increase of a counter between two samples, treating a decrease as a reset after which the counter
+     * restarted from zero.
+     *
+     * @param previousValue value of the previous sample.
+     * @param value value of the sample.
+     * @return the increase of the counter.
+     */
+    public static double computeIncrease(double previousValue, double value) {
+        double increase = value - previousValue;
+        if (increase < 0) {
+            // Counter reset; it restarted from zero.
+            increase = value;
+        }
+
+        return increase;
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    protected void grow(int seriesId) {
+        int capacity = Math.max(this.timestamps.length * 2, seriesId + 1);
+        int oldCapacity = this.timestamps.length;
+
+        this.timestamps = Arrays.copyOf(this.timestamps, capacity);
+        this.values = Arrays.copyOf(this.values, capacity);
+
+        Arrays.fill(this.timestamps, oldCapacity, capacity, Long.MIN_VALUE);
+    }
+}
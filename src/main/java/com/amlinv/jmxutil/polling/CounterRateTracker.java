@@ -0,0 +1,120 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracker of the previous sample of each counter attribute of each polled object, used to compute the rates injected
+ * into setters annotated with @MBeanAttribute(rate = true).  Like the AttributeChangeTracker, objects are tracked by
+ * identity and held weakly.
+ */
+public class CounterRateTracker {
+    private final ConcurrentHashMap<AttributeChangeTracker.IdentityKey, CounterStates> statesByTarget =
+            new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> collectedTargets = new ReferenceQueue<>();
+
+    /**
+     * Get the counter states of the given target, starting to track it if needed.
+     */
+    public CounterStates getCounterStates(Object target) {
+        this.purgeCollectedTargets();
+
+        CounterStates result = this.statesByTarget.get(new AttributeChangeTracker.IdentityKey(target, null));
+        if (result == null) {
+            result = new CounterStates();
+
+            CounterStates existing = this.statesByTarget.putIfAbsent(
+                    new AttributeChangeTracker.IdentityKey(target, this.collectedTargets), result);
+            if (existing != null) {
+                result = existing;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Forget the previous samples of all targets.
+     */
+    public void clear() {
+        this.statesByTarget.clear();
+    }
+
+    public int getTrackedCount() {
+        this.purgeCollectedTargets();
+
+        return this.statesByTarget.size();
+    }
+
+    protected void purgeCollectedTargets() {
+        Reference<?> collected = this.collectedTargets.poll();
+        while (collected != null) {
+            this.statesByTarget.remove(collected);
+            collected = this.collectedTargets.poll();
+        }
+    }
+
+    /**
+     * Previous samples of the counters of one target, by attribute name.
+     */
+    public static class CounterStates {
+        private final ConcurrentHashMap<String, CounterState> states = new ConcurrentHashMap<>();
+
+        /**
+         * Record the next sample of a counter and compute its rate since the previous sample.
+         *
+         * @return the per-second rate; NaN for the first sample or a sample not newer than the previous one.
+         * @see CounterRateCalculator#computeRate(long, double, long, double)
+         */
+        public double update(String attributeName, long timestamp, double value) {
+            CounterState state = this.states.get(attributeName);
+            if (state == null) {
+                state = new CounterState();
+
+                CounterState existing = this.states.putIfAbsent(attributeName, state);
+                if (existing != null) {
+                    state = existing;
+                }
+            }
+
+            return state.update(timestamp, value);
+        }
+    }
+
+    /**
+     * Previous sample of one counter.
+     */
+    protected static class CounterState {
+        private long timestamp = Long.MIN_VALUE;
+        private double value;
+
+        public synchronized double update(long timestamp, double value) {
+            if ((this.timestamp != Long.MIN_VALUE) && (timestamp <= this.timestamp)) {
+                return Double.NaN;
+            }
+
+            double result = CounterRateCalculator.computeRate(this.timestamp, this.value, timestamp, value);
+
+            this.timestamp = timestamp;
+            this.value = value;
+
+            return result;
+        }
+    }
+}
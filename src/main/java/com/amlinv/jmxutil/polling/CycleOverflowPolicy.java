@@ -0,0 +1,32 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+/**
+ * Handling of poll cycles that complete while a subscriber has no outstanding demand.
+ */
+public enum CycleOverflowPolicy {
+    /**
+     * Skip the cycle for the subscriber; the number skipped is reported on the next result it receives.
+     */
+    SKIP,
+
+    /**
+     * Coalesce the cycle with any other undelivered cycles, keeping the latest values of each mbean, and deliver the
+     * combined result once the subscriber requests more.
+     */
+    COALESCE
+}
@@ -0,0 +1,75 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+/**
+ * Pair of instances of an annotated polled object, registered with the poller in place of a single instance.  The
+ * poller injects each cycle's values into the back buffer and flips the buffers once the cycle completes, so readers of
+ * the front buffer see values from one complete cycle without any allocation per cycle.
+ * <p/>
+ * Because the instances are reused, a reader must fetch the front buffer anew for each read and finish reading before
+ * the next cycle completes; a reader that must be certain can compare the generation before and after reading.
+ * Attributes not returned in a cycle keep the values from the last cycle that injected into the same buffer.
+ *
+ * @param <T> type of the annotated polled object.
+ */
+public class DoubleBufferedObject<T> {
+    private final T first;
+    private final T second;
+
+    private volatile long generation;
+
+    /**
+     * @param first instance used as the initial front buffer.
+     * @param second instance used as the initial back buffer.
+     */
+    public DoubleBufferedObject(T first, T second) {
+        if ((first == null) || (second == null) || (first == second)) {
+            throw new IllegalArgumentException("two distinct instances are required");
+        }
+
+        this.first = first;
+        this.second = second;
+    }
+
+    /**
+     * @return the instance holding the values of the last completed cycle.
+     */
+    public T getFront() {
+        return ((this.generation & 1) == 0) ? this.first : this.second;
+    }
+
+    /**
+     * @return the instance into which the current cycle injects values.
+     */
+    public T getBack() {
+        return ((this.generation & 1) == 0) ? this.second : this.first;
+    }
+
+    /**
+     * @return number of flips so far; changes each time the front buffer changes.
+     */
+    public long getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Swap the front and back buffers.  Only the poller calls this, so a single writer updates the generation.
+     */
+    public void flip() {
+        this.generation = this.generation + 1;
+    }
+}
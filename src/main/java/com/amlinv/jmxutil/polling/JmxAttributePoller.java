@@ -61,6 +61,12 @@ public class JmxAttributePoller {
     private AttributeInjector attributeInjector = new AttributeInjector();
     private ObjectQueryPreparer objectQueryPreparer = new ObjectQueryPreparer();
     private BatchPollProcessor batchPollProcessor = new BatchPollProcessor();
+    private MBeanInfoCache mBeanInfoCache = new MBeanInfoCache();
+    private PollResultRingBuffer pollResultRingBuffer;
+
+    private PollCycleResultPublisher cyclePublisher;
+    private PollCycleCollector cycleCollector;
+    private long cycleCount = 0;
 
     private boolean shutdownInd = false;
     private boolean pollActiveInd = false;
@@ -106,6 +112,14 @@ public class JmxAttributePoller {
 
     public void setAttributeInjector(AttributeInjector attributeInjector) {
         this.attributeInjector = attributeInjector;
+
+        if (this.pollResultRingBuffer != null) {
+            attributeInjector.setPollResultRingBuffer(this.pollResultRingBuffer);
+        }
+
+        if (this.cycleCollector != null) {
+            attributeInjector.addSnapshotListener(this.cycleCollector);
+        }
     }
 
     public BatchPollProcessor getBatchPollProcessor() {
@@ -114,6 +128,14 @@ public class JmxAttributePoller {
 
     public void setBatchPollProcessor(BatchPollProcessor batchPollProcessor) {
         this.batchPollProcessor = batchPollProcessor;
+
+        if (this.pollResultRingBuffer != null) {
+            batchPollProcessor.setPollResultRingBuffer(this.pollResultRingBuffer);
+        }
+
+        if (this.cycleCollector != null) {
+            this.addCycleCollector(batchPollProcessor.getAttributeInjector());
+        }
     }
 
     public void setConcurrencyTestHooks(ConcurrencyTestHooks concurrencyTestHooks) {
@@ -128,6 +150,73 @@ public class JmxAttributePoller {
         this.objectQueryPreparer = objectQueryPreparer;
     }
 
+    public MBeanInfoCache getmBeanInfoCache() {
+        return mBeanInfoCache;
+    }
+
+    public void setmBeanInfoCache(MBeanInfoCache mBeanInfoCache) {
+        this.mBeanInfoCache = mBeanInfoCache;
+    }
+
+    public PollResultRingBuffer getPollResultRingBuffer() {
+        return pollResultRingBuffer;
+    }
+
+    /**
+     * Set the ring buffer to which polled values are published, for both individual and batch polling.
+     */
+    public void setPollResultRingBuffer(PollResultRingBuffer pollResultRingBuffer) {
+        this.pollResultRingBuffer = pollResultRingBuffer;
+        this.attributeInjector.setPollResultRingBuffer(pollResultRingBuffer);
+        this.batchPollProcessor.setPollResultRingBuffer(pollResultRingBuffer);
+    }
+
+    /**
+     * Add a listener for the values polled, which is called on its own thread through the poll result ring buffer so
+     * that exporters and aggregators do not slow down polling.
+     *
+     * @param listener listener to add.
+     */
+    public synchronized void addPollResultListener(PollResultListener listener) {
+        if (this.pollResultRingBuffer == null) {
+            this.setPollResultRingBuffer(new PollResultRingBuffer());
+        }
+
+        this.pollResultRingBuffer.addListener(listener);
+    }
+
+    public synchronized boolean removePollResultListener(PollResultListener listener) {
+        return (this.pollResultRingBuffer != null) && (this.pollResultRingBuffer.removeListener(listener));
+    }
+
+    /**
+     * Get the publisher of the results of this poller's cycles, creating it with the given overflow policy on first
+     * use.  Only completed cycles are published, and subscribers that fall behind have cycles skipped or coalesced
+     * rather than slowing down polling.
+     *
+     * @param overflowPolicy handling of cycles completed while a subscriber has no demand; used on first call only.
+     * @return the publisher.
+     */
+    public synchronized PollCyclePublisher getCyclePublisher(CycleOverflowPolicy overflowPolicy) {
+        if (this.cyclePublisher == null) {
+            this.cycleCollector = new PollCycleCollector();
+            this.cyclePublisher = new PollCycleResultPublisher(overflowPolicy);
+
+            this.addCycleCollector(this.attributeInjector);
+            this.addCycleCollector(this.batchPollProcessor.getAttributeInjector());
+
+            if (this.shutdownInd) {
+                this.cyclePublisher.complete();
+            }
+        }
+
+        return this.cyclePublisher;
+    }
+
+    public PollCyclePublisher getCyclePublisher() {
+        return this.getCyclePublisher(CycleOverflowPolicy.COALESCE);
+    }
+
     /**
      * Poll the configured objects now and store the results in the objects themselves.
      *
@@ -150,13 +239,24 @@ public class JmxAttributePoller {
 
             this.concurrencyTestHooks.beforePollProcessorStart();
 
+            boolean stopped;
             if (this.mBeanAccessConnection instanceof MBeanBatchCapableAccessConnection) {
                 this.batchPollProcessor.pollBatch((MBeanBatchCapableAccessConnection) this.mBeanAccessConnection,
                         this.polledObjects);
+                stopped = this.shutdownInd;
             } else {
-                this.pollIndividually();
+                stopped = this.pollIndividually();
+            }
+
+            // Only expose the results of complete cycles.
+            if (!stopped) {
+                this.flipBuffers();
+                this.publishCycle();
+            } else {
+                this.discardCycle();
             }
         } catch (IOException ioExc) {
+            this.discardCycle();
             this.safeClose(this.mBeanAccessConnection);
             this.mBeanAccessConnection = null;
 
@@ -234,9 +334,21 @@ public class JmxAttributePoller {
         this.shutdownInd = true;
         this.batchPollProcessor.shutdown();
 
+        PollResultRingBuffer ringBuffer = this.pollResultRingBuffer;
+        if (ringBuffer != null) {
+            ringBuffer.shutdown();
+        }
+
+        PollCycleResultPublisher publisher;
         synchronized (this) {
+            publisher = this.cyclePublisher;
             this.notifyAll();
         }
+
+        // Subscribers receive any pending results, and then completion.
+        if (publisher != null) {
+            publisher.complete();
+        }
     }
 
     public void waitUntilShutdown() throws InterruptedException {
@@ -255,6 +367,51 @@ public class JmxAttributePoller {
         }
     }
 
+    /**
+     * Flip the buffers of all double-buffered polled objects after a completed cycle.
+     */
+    protected void flipBuffers() {
+        for (Object onePolledObject : this.polledObjects) {
+            if (onePolledObject instanceof DoubleBufferedObject) {
+                ((DoubleBufferedObject<?>) onePolledObject).flip();
+            }
+        }
+    }
+
+    /**
+     * Publish the results of a completed cycle, if anyone asked for the cycle publisher.
+     */
+    protected void publishCycle() {
+        PollCycleResultPublisher publisher;
+        PollCycleCollector collector;
+        synchronized (this) {
+            publisher = this.cyclePublisher;
+            collector = this.cycleCollector;
+        }
+
+        if (publisher != null) {
+            this.cycleCount++;
+            publisher.publish(collector.completeCycle(this, this.cycleCount, System.currentTimeMillis()));
+        }
+    }
+
+    protected void discardCycle() {
+        PollCycleCollector collector;
+        synchronized (this) {
+            collector = this.cycleCollector;
+        }
+
+        if (collector != null) {
+            collector.reset();
+        }
+    }
+
+    private void addCycleCollector(AttributeInjector injector) {
+        if (injector != null) {
+            injector.addSnapshotListener(this.cycleCollector);
+        }
+    }
+
     protected void checkConnection() throws IOException {
         if (this.mBeanAccessConnection == null) {
             this.mBeanAccessConnection = this.mBeanAccessConnectionFactory.createConnection();
@@ -267,10 +424,14 @@ public class JmxAttributePoller {
 
         ObjectQueryInfo queryInfo = objectQueryPreparer.prepareObjectQuery(obj);
 
+        if (queryInfo != null) {
+            queryInfo = this.mBeanInfoCache.validateQuery(this.mBeanAccessConnection, queryInfo);
+        }
+
         if (queryInfo != null) {
             try {
-                String[] attributeNames = new String[queryInfo.getAttributeSetters().size()];
-                attributeNames = queryInfo.getAttributeSetters().keySet().toArray(attributeNames);
+                String[] attributeNames = new String[queryInfo.getAttributeNames().size()];
+                attributeNames = queryInfo.getAttributeNames().toArray(attributeNames);
 
                 //
                 // Query the values now.
@@ -281,8 +442,7 @@ public class JmxAttributePoller {
                 //
                 // Finally, copy out the results.
                 //
-                this.attributeInjector.copyOutAttributes(obj, attributeValues, queryInfo.getAttributeSetters(),
-                        queryInfo.getObjectName());
+                this.attributeInjector.copyOutAttributes(queryInfo, attributeValues);
             } catch (InstanceNotFoundException infExc) {
                 this.logInstanceNotFoundThrottle.debug(log, "instance not found on polling object: oname={}",
                         queryInfo.getObjectName(), infExc);
@@ -0,0 +1,287 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import com.amlinv.jmxutil.connection.AttributePathUtil;
+import com.amlinv.jmxutil.connection.MBeanAccessConnection;
+import com.amlinv.jmxutil.connection.MBeanRegistrationListener;
+import com.amlinv.jmxutil.connection.impl.MBeanInfoCapableAccessConnection;
+import com.amlinv.logging.util.RepeatLogMessageSuppressor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of the descriptions of polled mbeans, used to prune attributes that the mbeans do not provide from the poll
+ * plan, and to learn the declared types of the attributes before the first values arrive.  Each description is fetched
+ * once through the connection and refreshed when the mbean is registered or unregistered, if the connection reports
+ * registration changes, or otherwise once it reaches the maximum age.
+ * <p/>
+ * The cache tracks one connection at a time; when given a different connection (e.g. after a reconnect), all
+ * descriptions are discarded.  Connections that cannot describe mbeans are passed through without validation.
+ */
+public class MBeanInfoCache {
+    private static final Logger DEFAULT_LOGGER = LoggerFactory.getLogger(MBeanInfoCache.class);
+
+    public static final long DEFAULT_MAX_AGE = TimeUnit.MINUTES.toMillis(5);
+
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<>();
+
+    static {
+        PRIMITIVE_TYPES.put("boolean", boolean.class);
+        PRIMITIVE_TYPES.put("byte", byte.class);
+        PRIMITIVE_TYPES.put("char", char.class);
+        PRIMITIVE_TYPES.put("short", short.class);
+        PRIMITIVE_TYPES.put("int", int.class);
+        PRIMITIVE_TYPES.put("long", long.class);
+        PRIMITIVE_TYPES.put("float", float.class);
+        PRIMITIVE_TYPES.put("double", double.class);
+    }
+
+    private final Map<ObjectName, CachedMBeanInfo> cache = new ConcurrentHashMap<>();
+
+    private Logger log = DEFAULT_LOGGER;
+    private RepeatLogMessageSuppressor logPrunedAttributeThrottle = new RepeatLogMessageSuppressor();
+    private RepeatLogMessageSuppressor logMissingMBeanThrottle = new RepeatLogMessageSuppressor();
+
+    private long maxAge = DEFAULT_MAX_AGE;
+
+    private MBeanAccessConnection connection;
+    private boolean registrationTracked;
+
+    public Logger getLog() {
+        return log;
+    }
+
+    public void setLog(Logger log) {
+        this.log = log;
+    }
+
+    public long getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Set the maximum age, in milliseconds, of a cached description when the connection does not report registration
+     * changes.
+     *
+     * @param maxAge maximum age of descriptions, in milliseconds.
+     */
+    public void setMaxAge(long maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Validate the query of an object against the description of its mbean.
+     *
+     * @param connection connection over which the query will be executed.
+     * @param queryInfo the prepared query.
+     * @return the query reduced to the attributes the mbean provides, with their declared types; the given query
+     * unchanged if the mbean could not be described; or null if the mbean does not exist or provides none of the
+     * attributes.
+     * @throws IOException
+     */
+    public ObjectQueryInfo validateQuery(MBeanAccessConnection connection, ObjectQueryInfo queryInfo)
+            throws IOException {
+
+        if (!(connection instanceof MBeanInfoCapableAccessConnection)) {
+            return queryInfo;
+        }
+
+        CachedMBeanInfo cachedInfo =
+                this.lookup((MBeanInfoCapableAccessConnection) connection, queryInfo.getObjectName());
+
+        if (cachedInfo == null) {
+            return queryInfo;
+        }
+
+        if (cachedInfo.attributeTypes == null) {
+            this.logMissingMBeanThrottle.debug(log, "skipping poll of missing mbean: oname={}",
+                    queryInfo.getObjectName());
+            return null;
+        }
+
+        Map<String, Method> validSetters = new LinkedHashMap<>();
+        Map<String, Field> validFields = new LinkedHashMap<>();
+        Map<String, Method> validRateSetters = new LinkedHashMap<>();
+        Map<String, Class<?>> declaredTypes = new HashMap<>();
+
+        for (String reference : queryInfo.getAttributeNames()) {
+            String attributeName = AttributePathUtil.getAttributeName(reference);
+
+            if (cachedInfo.attributeTypes.containsKey(attributeName)) {
+                if (queryInfo.getAttributeSetters().containsKey(reference)) {
+                    validSetters.put(reference, queryInfo.getAttributeSetters().get(reference));
+                } else if (queryInfo.getAttributeFields().containsKey(reference)) {
+                    validFields.put(reference, queryInfo.getAttributeFields().get(reference));
+                }
+
+                if (queryInfo.getAttributeRateSetters().containsKey(reference)) {
+                    validRateSetters.put(reference, queryInfo.getAttributeRateSetters().get(reference));
+                }
+
+                // The declared type describes the attribute as a whole, not the part selected by a path.
+                Class<?> declaredType = cachedInfo.attributeTypes.get(attributeName);
+                if ((declaredType != null) && (!AttributePathUtil.hasPath(reference))) {
+                    declaredTypes.put(reference, declaredType);
+                }
+            } else {
+                this.logPrunedAttributeThrottle.info(log, "pruning attribute not provided by mbean: oname={}; " +
+                        "attribute={}", queryInfo.getObjectName(), attributeName);
+            }
+        }
+
+        if ((validSetters.isEmpty()) && (validFields.isEmpty()) && (validRateSetters.isEmpty())) {
+            return null;
+        }
+
+        return new ObjectQueryInfo(queryInfo.getTarget(), queryInfo.getObjectName(), validSetters, validFields,
+                declaredTypes, validRateSetters);
+    }
+
+    /**
+     * Discard the cached description of the given mbean, if any.
+     *
+     * @param objectName object name of the mbean.
+     */
+    public void invalidate(ObjectName objectName) {
+        this.cache.remove(objectName);
+    }
+
+    /**
+     * Discard all cached descriptions.
+     */
+    public void clear() {
+        this.cache.clear();
+    }
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    protected CachedMBeanInfo lookup(MBeanInfoCapableAccessConnection infoConnection, ObjectName objectName)
+            throws IOException {
+
+        boolean tracked = this.checkConnection(infoConnection);
+
+        CachedMBeanInfo result = this.cache.get(objectName);
+        long now = System.currentTimeMillis();
+
+        if ((result == null) || ((!tracked) && (now - result.fetchTime >= this.maxAge))) {
+            try {
+                MBeanInfo mBeanInfo = infoConnection.getMBeanInfo(objectName);
+                result = new CachedMBeanInfo(this.extractAttributeTypes(mBeanInfo), now);
+            } catch (InstanceNotFoundException infExc) {
+                result = new CachedMBeanInfo(null, now);
+            } catch (ReflectionException reflectionExc) {
+                this.log.info("failed to describe mbean; skipping validation: oname={}", objectName, reflectionExc);
+                return null;
+            }
+
+            this.cache.put(objectName, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Start tracking the given connection if it is not the one already tracked.
+     *
+     * @return true => if the connection reports registration changes; false => otherwise.
+     */
+    protected synchronized boolean checkConnection(MBeanInfoCapableAccessConnection infoConnection)
+            throws IOException {
+
+        if (infoConnection != this.connection) {
+            this.cache.clear();
+            this.connection = infoConnection;
+            this.registrationTracked = infoConnection.addRegistrationListener(new MBeanRegistrationListener() {
+                @Override
+                public void onRegistrationChange(ObjectName objectName) {
+                    invalidate(objectName);
+                }
+            });
+        }
+
+        return this.registrationTracked;
+    }
+
+    protected Map<String, Class<?>> extractAttributeTypes(MBeanInfo mBeanInfo) {
+        MBeanAttributeInfo[] attributeInfos = mBeanInfo.getAttributes();
+        if (attributeInfos == null) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Class<?>> result = new HashMap<>();
+        for (MBeanAttributeInfo oneAttributeInfo : attributeInfos) {
+            if (oneAttributeInfo.isReadable()) {
+                result.put(oneAttributeInfo.getName(), this.resolveType(oneAttributeInfo.getType()));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Resolve the declared type name of an attribute.
+     *
+     * @return the type; null if it is not known locally.
+     */
+    protected Class<?> resolveType(String typeName) {
+        if (typeName == null) {
+            return null;
+        }
+
+        Class<?> result = PRIMITIVE_TYPES.get(typeName);
+        if (result == null) {
+            try {
+                result = Class.forName(typeName, false, MBeanInfoCache.class.getClassLoader());
+            } catch (ClassNotFoundException | LinkageError exc) {
+                this.log.debug("declared attribute type not available locally: type={}", typeName);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Cached description of one mbean: the declared types of its readable attributes mapped by name, with null types
+     * for those not known locally; or null attribute types if the mbean does not exist.
+     */
+    protected static class CachedMBeanInfo {
+        private final Map<String, Class<?>> attributeTypes;
+        private final long fetchTime;
+
+        public CachedMBeanInfo(Map<String, Class<?>> attributeTypes, long fetchTime) {
+            this.attributeTypes = attributeTypes;
+            this.fetchTime = fetchTime;
+        }
+    }
+}
@@ -17,9 +17,12 @@
 package com.amlinv.jmxutil.polling;
 
 import javax.management.ObjectName;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Created by art on 8/22/15.
@@ -28,11 +31,52 @@ public class ObjectQueryInfo {
     private final Object target;
     private final ObjectName objectName;
     private final Map<String, Method> attributeSetters;
+    private final Map<String, Field> attributeFields;
+    private final Map<String, Class<?>> attributeTypes;
+    private final Map<String, Method> attributeRateSetters;
 
     public ObjectQueryInfo(Object target, ObjectName objectName, Map<String, Method> attributeSetters) {
+        this(target, objectName, attributeSetters, Collections.<String, Class<?>>emptyMap());
+    }
+
+    /**
+     * @param attributeTypes types of the attributes as declared by the mbean, when known; attributes missing from the
+     *                       map have unknown types.
+     */
+    public ObjectQueryInfo(Object target, ObjectName objectName, Map<String, Method> attributeSetters,
+                           Map<String, Class<?>> attributeTypes) {
+        this(target, objectName, attributeSetters, Collections.<String, Field>emptyMap(), attributeTypes);
+    }
+
+    /**
+     * @param attributeFields annotated fields into which attribute values are stored directly, mapped by attribute
+     *                        name; attributes with setters take precedence.
+     * @param attributeTypes types of the attributes as declared by the mbean, when known; attributes missing from the
+     *                       map have unknown types.
+     */
+    public ObjectQueryInfo(Object target, ObjectName objectName, Map<String, Method> attributeSetters,
+                           Map<String, Field> attributeFields, Map<String, Class<?>> attributeTypes) {
+        this(target, objectName, attributeSetters, attributeFields, attributeTypes,
+                Collections.<String, Method>emptyMap());
+    }
+
+    /**
+     * @param attributeFields annotated fields into which attribute values are stored directly, mapped by attribute
+     *                        name; attributes with setters take precedence.
+     * @param attributeTypes types of the attributes as declared by the mbean, when known; attributes missing from the
+     *                       map have unknown types.
+     * @param attributeRateSetters setters receiving the per-second rates of counter attributes, mapped by attribute
+     *                             name.
+     */
+    public ObjectQueryInfo(Object target, ObjectName objectName, Map<String, Method> attributeSetters,
+                           Map<String, Field> attributeFields, Map<String, Class<?>> attributeTypes,
+                           Map<String, Method> attributeRateSetters) {
         this.target = target;
         this.objectName = objectName;
         this.attributeSetters = attributeSetters;
+        this.attributeFields = attributeFields;
+        this.attributeTypes = attributeTypes;
+        this.attributeRateSetters = attributeRateSetters;
     }
 
     public Object getTarget() {
@@ -47,7 +91,27 @@ public class ObjectQueryInfo {
         return attributeSetters;
     }
 
+    public Map<String, Field> getAttributeFields() {
+        return attributeFields;
+    }
+
+    public Map<String, Class<?>> getAttributeTypes() {
+        return attributeTypes;
+    }
+
+    public Map<String, Method> getAttributeRateSetters() {
+        return attributeRateSetters;
+    }
+
     public Set<String> getAttributeNames() {
-        return attributeSetters.keySet();
+        if ((attributeFields.isEmpty()) && (attributeRateSetters.isEmpty())) {
+            return attributeSetters.keySet();
+        }
+
+        Set<String> result = new TreeSet<>(attributeSetters.keySet());
+        result.addAll(attributeFields.keySet());
+        result.addAll(attributeRateSetters.keySet());
+
+        return Collections.unmodifiableSet(result);
     }
 }
@@ -24,7 +24,9 @@ import org.slf4j.LoggerFactory;
 
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -59,17 +61,25 @@ public class ObjectQueryPreparer {
     /**
      * Prepare to query the given object.
      *
-     * @param obj the object to prepare; must be annotated appropriately with @MBeanLocation on the class and
-     * @MBeanAttribute on setter methods.
+     * @param polledObject the object to prepare; must be annotated appropriately with @MBeanLocation on the class and
+     * @MBeanAttribute on setter methods or fields, or be a DoubleBufferedObject of such objects.
      * @return the results of the prepared object.
      * @throws MalformedObjectNameException
      * @see com.amlinv.jmxutil.annotation.MBeanLocation
      * @see com.amlinv.jmxutil.annotation.MBeanAttribute
      */
-    public ObjectQueryInfo prepareObjectQuery(Object obj) throws MalformedObjectNameException {
+    public ObjectQueryInfo prepareObjectQuery(Object polledObject) throws MalformedObjectNameException {
 
         ObjectQueryInfo result;
 
+        //
+        // Double-buffered objects are polled into their back buffers.
+        //
+        Object obj = polledObject;
+        if (polledObject instanceof DoubleBufferedObject) {
+            obj = ((DoubleBufferedObject<?>) polledObject).getBack();
+        }
+
         //
         // Extract the mbean info from the object (TBD: cache this information ahead of time)
         //
@@ -77,11 +87,13 @@ public class ObjectQueryPreparer {
 
         if (onamePattern != null) {
             //
-            // Locate the setters and continue only if at least one was found.
+            // Locate the setters and fields and continue only if at least one was found.
             //
             Map<String, Method> attributeSetters = MBeanAnnotationUtil.getAttributes(obj);
+            Map<String, Field> attributeFields = MBeanAnnotationUtil.getAttributeFields(obj);
+            Map<String, Method> attributeRateSetters = MBeanAnnotationUtil.getRateAttributes(obj);
 
-            if (attributeSetters.size() > 0) {
+            if ((attributeSetters.size() > 0) || (attributeFields.size() > 0) || (attributeRateSetters.size() > 0)) {
                 String onameString;
 
                 if (obj instanceof MBeanLocationParameterSource) {
@@ -93,7 +105,8 @@ public class ObjectQueryPreparer {
 
                 ObjectName oname = new ObjectName(onameString);
 
-                result = new ObjectQueryInfo(obj, oname, attributeSetters);
+                result = new ObjectQueryInfo(obj, oname, attributeSetters, attributeFields,
+                        Collections.<String, Class<?>>emptyMap(), attributeRateSetters);
             } else {
                 this.logNoAttributeThrottle.warn(log,
                         "ignoring attempt to prepare to poll an MBean object with no attributes: onamePattern={}",
@@ -0,0 +1,123 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publisher of the poll cycle results of multiple sources, such as the pollers of several targets.  The sources are
+ * consumed with unbounded demand and their results republished with this publisher's own backpressure, so that a slow
+ * subscriber causes cycles to be skipped, or coalesced per source, rather than slowing any source.  Completes once it
+ * is closed, meaning no more sources will be added, and all of the sources complete; a source that has already
+ * completed when it is added therefore cannot complete the aggregate early.
+ */
+public class PollCycleAggregatePublisher extends PollCycleResultPublisher {
+    private final AtomicInteger activeSourceCount = new AtomicInteger();
+
+    // Active sources, plus one until closed, so the aggregate cannot complete while sources are still being added.
+    private final AtomicInteger completionHolds = new AtomicInteger(1);
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    public PollCycleAggregatePublisher() {
+    }
+
+    public PollCycleAggregatePublisher(CycleOverflowPolicy overflowPolicy) {
+        super(overflowPolicy);
+    }
+
+    /**
+     * Add a source whose results are republished by this publisher.
+     *
+     * @param source publisher of the source's results.
+     */
+    public void addSource(PollCyclePublisher source) {
+        if (this.closed.get()) {
+            throw new IllegalStateException("cannot add a source to a closed aggregate publisher");
+        }
+
+        this.activeSourceCount.incrementAndGet();
+        this.completionHolds.incrementAndGet();
+        source.subscribe(new SourceSubscriber());
+    }
+
+    /**
+     * Indicate that no more sources will be added, so the aggregate completes once the sources added complete.
+     */
+    public void close() {
+        if (this.closed.compareAndSet(false, true)) {
+            this.releaseCompletionHold();
+        }
+    }
+
+    public boolean isClosed() {
+        return this.closed.get();
+    }
+
+    public int getActiveSourceCount() {
+        return this.activeSourceCount.get();
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    protected void releaseCompletionHold() {
+        if (this.completionHolds.decrementAndGet() == 0) {
+            this.complete();
+        }
+    }
+
+    /**
+     * Subscriber to one source.
+     */
+    protected class SourceSubscriber implements PollCycleSubscriber {
+        private boolean done = false;
+
+        @Override
+        public void onSubscribe(PollCycleSubscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(PollCycleResult result) {
+            publish(result);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            getLog().warn("source of aggregate poll cycles failed", throwable);
+            this.sourceDone();
+        }
+
+        @Override
+        public void onComplete() {
+            this.sourceDone();
+        }
+
+        protected void sourceDone() {
+            if (this.done) {
+                return;
+            }
+
+            this.done = true;
+            activeSourceCount.decrementAndGet();
+            releaseCompletionHold();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Collector of the snapshots produced during a poll cycle, which may be stored concurrently when objects are polled
+ * individually.
+ */
+public class PollCycleCollector implements AttributeSnapshotReceiver {
+    private final ConcurrentLinkedQueue<AttributeSnapshot> snapshots = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public void publishSnapshot(AttributeSnapshot snapshot) {
+        this.snapshots.add(snapshot);
+    }
+
+    /**
+     * Complete the current cycle, removing the snapshots collected for it.
+     *
+     * @return the result of the cycle.
+     */
+    public PollCycleResult completeCycle(Object source, long cycle, long timestamp) {
+        return new PollCycleResult(source, cycle, timestamp, this.drain());
+    }
+
+    /**
+     * Discard the snapshots collected for an incomplete cycle.
+     */
+    public void reset() {
+        this.drain();
+    }
+
+    protected List<AttributeSnapshot> drain() {
+        List<AttributeSnapshot> result = new ArrayList<>();
+
+        AttributeSnapshot oneSnapshot = this.snapshots.poll();
+        while (oneSnapshot != null) {
+            result.add(oneSnapshot);
+            oneSnapshot = this.snapshots.poll();
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+/**
+ * Publisher of the results of poll cycles, following the Reactive Streams contract: results are only delivered to a
+ * subscriber as it signals demand through its subscription.
+ */
+public interface PollCyclePublisher {
+    /**
+     * Subscribe to the poll cycle results.  The subscriber's onSubscribe() is called with the subscription before any
+     * other signal.
+     *
+     * @param subscriber subscriber to receive the results.
+     */
+    void subscribe(PollCycleSubscriber subscriber);
+}
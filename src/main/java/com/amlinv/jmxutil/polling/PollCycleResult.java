@@ -0,0 +1,128 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable result of one poll cycle of one source (e.g. one JmxAttributePoller): the snapshots of the values polled
+ * for each mbean.  A result may also cover several cycles that were coalesced while the subscriber had no demand.
+ */
+public class PollCycleResult {
+    private final Object source;
+    private final long cycle;
+    private final long timestamp;
+    private final List<AttributeSnapshot> snapshots;
+    private final int cycleCount;
+    private final long skippedCycles;
+
+    public PollCycleResult(Object source, long cycle, long timestamp, List<AttributeSnapshot> snapshots) {
+        this(source, cycle, timestamp, snapshots, 1, 0);
+    }
+
+    public PollCycleResult(Object source, long cycle, long timestamp, List<AttributeSnapshot> snapshots,
+                           int cycleCount, long skippedCycles) {
+        this.source = source;
+        this.cycle = cycle;
+        this.timestamp = timestamp;
+        this.snapshots = Collections.unmodifiableList(new ArrayList<>(snapshots));
+        this.cycleCount = cycleCount;
+        this.skippedCycles = skippedCycles;
+    }
+
+    /**
+     * @return the source of the cycle, such as the poller.
+     */
+    public Object getSource() {
+        return source;
+    }
+
+    /**
+     * @return sequence number of the (latest) cycle, counting from 1 for each source.
+     */
+    public long getCycle() {
+        return cycle;
+    }
+
+    /**
+     * @return completion time of the (latest) cycle, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public List<AttributeSnapshot> getSnapshots() {
+        return snapshots;
+    }
+
+    /**
+     * @return number of cycles covered by this result; greater than 1 when cycles were coalesced.
+     */
+    public int getCycleCount() {
+        return cycleCount;
+    }
+
+    /**
+     * @return number of cycles skipped for the subscriber since the last result delivered to it.
+     */
+    public long getSkippedCycles() {
+        return skippedCycles;
+    }
+
+    /**
+     * Combine this result with a later one from the same source, keeping the latest snapshot of each mbean.
+     *
+     * @param later the later result.
+     * @return the combined result.
+     */
+    public PollCycleResult coalesce(PollCycleResult later) {
+        Map<ObjectName, AttributeSnapshot> combined = new LinkedHashMap<>();
+        for (AttributeSnapshot oneSnapshot : this.snapshots) {
+            combined.put(oneSnapshot.getObjectName(), oneSnapshot);
+        }
+        for (AttributeSnapshot oneSnapshot : later.snapshots) {
+            combined.put(oneSnapshot.getObjectName(), oneSnapshot);
+        }
+
+        return new PollCycleResult(later.source, later.cycle, later.timestamp,
+                new ArrayList<>(combined.values()), this.cycleCount + later.cycleCount,
+                this.skippedCycles + later.skippedCycles);
+    }
+
+    /**
+     * @return this result with the given number of skipped cycles added.
+     */
+    public PollCycleResult withSkippedCycles(long skipped) {
+        if (skipped == 0) {
+            return this;
+        }
+
+        return new PollCycleResult(this.source, this.cycle, this.timestamp, this.snapshots, this.cycleCount,
+                this.skippedCycles + skipped);
+    }
+
+    @Override
+    public String toString() {
+        return "PollCycleResult{source=" + source + ", cycle=" + cycle + ", timestamp=" + timestamp +
+                ", snapshotCount=" + snapshots.size() + ", cycleCount=" + cycleCount + ", skippedCycles=" +
+                skippedCycles + "}";
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publisher of poll cycle results with demand-based backpressure.  Publishing never blocks: cycles completed while a
+ * subscriber has no outstanding demand are skipped, or coalesced, for that subscriber according to the overflow
+ * policy, so a slow subscriber neither stalls polling nor accumulates an unbounded backlog.
+ * <p/>
+ * Results are delivered on the thread that publishes them or that requests more, whichever finds them deliverable,
+ * and never concurrently to the same subscriber.
+ */
+public class PollCycleResultPublisher implements PollCyclePublisher {
+    private static final Logger DEFAULT_LOGGER = LoggerFactory.getLogger(PollCycleResultPublisher.class);
+
+    private final CycleOverflowPolicy overflowPolicy;
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private volatile boolean terminated = false;
+    private volatile Throwable failure;
+
+    private Logger log = DEFAULT_LOGGER;
+
+    public PollCycleResultPublisher() {
+        this(CycleOverflowPolicy.COALESCE);
+    }
+
+    public PollCycleResultPublisher(CycleOverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public Logger getLog() {
+        return log;
+    }
+
+    public void setLog(Logger log) {
+        this.log = log;
+    }
+
+    public CycleOverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public int getSubscriberCount() {
+        return this.subscriptions.size();
+    }
+
+    @Override
+    public void subscribe(PollCycleSubscriber subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+
+        Subscription subscription = new Subscription(subscriber);
+        this.subscriptions.add(subscription);
+
+        subscriber.onSubscribe(subscription);
+
+        // Cover termination racing with the subscription.
+        if (this.terminated) {
+            subscription.terminate(this.failure);
+        }
+    }
+
+    /**
+     * Publish the result of a cycle to all subscribers.
+     *
+     * @param result result of the cycle.
+     */
+    public void publish(PollCycleResult result) {
+        if (this.terminated) {
+            return;
+        }
+
+        for (Subscription oneSubscription : this.subscriptions) {
+            oneSubscription.offer(result);
+        }
+    }
+
+    /**
+     * Signal completion to all subscribers, once they have received any results already pending for them.
+     */
+    public void complete() {
+        this.terminate(null);
+    }
+
+    /**
+     * Signal failure to all subscribers, once they have received any results already pending for them.
+     *
+     * @param cause cause of the failure.
+     */
+    public void fail(Throwable cause) {
+        this.terminate(cause);
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    protected void terminate(Throwable cause) {
+        if (this.terminated) {
+            return;
+        }
+
+        this.failure = cause;
+        this.terminated = true;
+
+        for (Subscription oneSubscription : this.subscriptions) {
+            oneSubscription.terminate(cause);
+        }
+    }
+
+    /**
+     * Subscription of one subscriber, holding its demand and the results pending delivery to it, by source.
+     */
+    protected class Subscription implements PollCycleSubscription {
+        private final PollCycleSubscriber subscriber;
+
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger workInProgress = new AtomicInteger();
+
+        // Guarded by this subscription.
+        private final Map<Object, PollCycleResult> pending = new LinkedHashMap<>();
+        private final Map<Object, Long> skipped = new HashMap<>();
+
+        private volatile boolean cancelled = false;
+        private volatile boolean terminating = false;
+        private Throwable terminalCause;
+
+        public Subscription(PollCycleSubscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long count) {
+            if (count <= 0) {
+                this.terminate(new IllegalArgumentException("non-positive request count: " + count));
+                return;
+            }
+
+            long current;
+            long updated;
+            do {
+                current = this.demand.get();
+                updated = current + count;
+                if (updated < 0) {
+                    updated = Long.MAX_VALUE;
+                }
+            } while (!this.demand.compareAndSet(current, updated));
+
+            this.drain();
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+            subscriptions.remove(this);
+
+            synchronized (this) {
+                this.pending.clear();
+                this.skipped.clear();
+            }
+        }
+
+        protected void offer(PollCycleResult result) {
+            Object source = result.getSource();
+
+            synchronized (this) {
+                PollCycleResult existing = this.pending.get(source);
+
+                if (existing != null) {
+                    if (overflowPolicy == CycleOverflowPolicy.COALESCE) {
+                        this.pending.put(source, existing.coalesce(result));
+                    } else {
+                        this.countSkipped(source);
+                    }
+                } else if ((overflowPolicy == CycleOverflowPolicy.COALESCE) ||
+                        (this.demand.get() > this.pending.size())) {
+
+                    this.pending.put(source, result);
+                } else {
+                    this.countSkipped(source);
+                }
+            }
+
+            this.drain();
+        }
+
+        protected void terminate(Throwable cause) {
+            synchronized (this) {
+                if (this.terminating) {
+                    return;
+                }
+
+                this.terminalCause = cause;
+                this.terminating = true;
+            }
+
+            this.drain();
+        }
+
+        /**
+         * Deliver pending results while there is demand, and then any terminal signal.  Only one thread drains at a
+         * time; signals arriving while another thread drains are picked up by that thread.
+         */
+        protected void drain() {
+            if (this.workInProgress.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            do {
+                while ((!this.cancelled) && (this.demand.get() > 0)) {
+                    PollCycleResult next = this.takePending();
+                    if (next == null) {
+                        break;
+                    }
+
+                    if (this.demand.get() != Long.MAX_VALUE) {
+                        this.demand.decrementAndGet();
+                    }
+
+                    try {
+                        this.subscriber.onNext(next);
+                    } catch (RuntimeException rtExc) {
+                        log.warn("poll cycle subscriber failed on result; cancelling: result={}", next, rtExc);
+                        this.cancel();
+                    }
+                }
+
+                if ((this.terminating) && (!this.cancelled) && (this.isPendingEmpty())) {
+                    this.cancel();
+
+                    if (this.terminalCause != null) {
+                        this.subscriber.onError(this.terminalCause);
+                    } else {
+                        this.subscriber.onComplete();
+                    }
+                }
+
+                missed = this.workInProgress.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        protected synchronized PollCycleResult takePending() {
+            Iterator<Map.Entry<Object, PollCycleResult>> iterator = this.pending.entrySet().iterator();
+            if (!iterator.hasNext()) {
+                return null;
+            }
+
+            Map.Entry<Object, PollCycleResult> entry = iterator.next();
+            iterator.remove();
+
+            Long skippedCount = this.skipped.remove(entry.getKey());
+
+            return (skippedCount != null) ? entry.getValue().withSkippedCycles(skippedCount) : entry.getValue();
+        }
+
+        protected synchronized boolean isPendingEmpty() {
+            return this.pending.isEmpty();
+        }
+
+        private void countSkipped(Object source) {
+            Long count = this.skipped.get(source);
+            this.skipped.put(source, (count != null) ? count + 1 : 1L);
+        }
+    }
+}
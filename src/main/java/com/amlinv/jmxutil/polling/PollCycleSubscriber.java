@@ -0,0 +1,41 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+/**
+ * Subscriber to the results of poll cycles.  Signals to one subscriber are never concurrent.
+ */
+public interface PollCycleSubscriber {
+    /**
+     * Start of the subscription; no results are delivered until demand is requested through the subscription.
+     */
+    void onSubscribe(PollCycleSubscription subscription);
+
+    /**
+     * Receive the result of one poll cycle, or of several coalesced cycles.
+     */
+    void onNext(PollCycleResult result);
+
+    /**
+     * The publisher failed; no further signals follow.
+     */
+    void onError(Throwable throwable);
+
+    /**
+     * The publisher completed, such as when polling is shutdown; no further signals follow.
+     */
+    void onComplete();
+}
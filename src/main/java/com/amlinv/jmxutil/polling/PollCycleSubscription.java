@@ -0,0 +1,33 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+/**
+ * Link between a PollCyclePublisher and one of its subscribers, through which the subscriber signals demand.
+ */
+public interface PollCycleSubscription {
+    /**
+     * Request delivery of up to the given number of additional results.
+     *
+     * @param count number of results; must be positive, and Long.MAX_VALUE requests an unbounded number.
+     */
+    void request(long count);
+
+    /**
+     * Stop delivery of results to the subscriber.
+     */
+    void cancel();
+}
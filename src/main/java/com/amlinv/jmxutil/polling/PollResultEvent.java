@@ -0,0 +1,64 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import javax.management.ObjectName;
+
+/**
+ * One polled attribute value.  Events are preallocated in a PollResultRingBuffer and reused, so they are only valid for
+ * the duration of the listener call that receives them.
+ */
+public class PollResultEvent {
+    private Object target;
+    private ObjectName objectName;
+    private String attributeName;
+    private Object value;
+    private long timestamp;
+
+    public Object getTarget() {
+        return target;
+    }
+
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    public String getAttributeName() {
+        return attributeName;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    protected void set(Object target, ObjectName objectName, String attributeName, Object value, long timestamp) {
+        this.target = target;
+        this.objectName = objectName;
+        this.attributeName = attributeName;
+        this.value = value;
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "PollResultEvent{objectName=" + objectName + ", attributeName=" + attributeName + ", value=" + value +
+                ", timestamp=" + timestamp + "}";
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+/**
+ * Listener for the attribute values produced by polling.  Each listener is called on its own consumer thread, off of
+ * the polling thread.
+ */
+public interface PollResultListener {
+    /**
+     * Process one polled attribute value.  The event is reused for later values once this method returns, so copy any
+     * of its contents that need to be retained.
+     *
+     * @param event the polled value.
+     */
+    void onPollResult(PollResultEvent event);
+}
@@ -0,0 +1,380 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ObjectName;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ring buffer of preallocated PollResultEvents that hands polled values from the polling thread to the consumer
+ * threads of the registered listeners without allocating per event.  Every listener receives every event, in order, on
+ * its own daemon thread.
+ * <p/>
+ * Publishing is single-producer: concurrent publishers (e.g. individual polling on multiple scheduler threads) are
+ * serialized.  The producer never waits on consumers; when the slowest consumer is a full buffer behind, the event is
+ * dropped and counted instead, so a slow exporter cannot stall polling.
+ * <p/>
+ * Idle consumers spin briefly, then park until the producer signals them; the producer only pays for the signal when a
+ * consumer is actually parked.
+ */
+public class PollResultRingBuffer {
+    private static final Logger DEFAULT_LOGGER = LoggerFactory.getLogger(PollResultRingBuffer.class);
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final int IDLE_SPIN_COUNT = 100;
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final PollResultEvent[] events;
+    private final int mask;
+
+    // Sequence of the last published event.
+    private final AtomicLong cursor = new AtomicLong(-1L);
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private volatile Consumer[] consumers = new Consumer[0];
+
+    // Consumers whose progress limits the producer: the active ones, plus stopped ones that are still draining.
+    private volatile Consumer[] gatingConsumers = new Consumer[0];
+
+    // Consumers that were stopped, until their threads are known to have finished.
+    private final List<Consumer> stoppedConsumers = new CopyOnWriteArrayList<>();
+
+    // Minimum consumer sequence last seen by the producer; only accessed while holding the lock on this buffer.
+    private long cachedMinimumSequence = -1L;
+
+    private Logger log = DEFAULT_LOGGER;
+
+    public PollResultRingBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a ring buffer with at least the given capacity, rounded up to a power of two.
+     *
+     * @param capacity minimum number of events buffered between the producer and the slowest consumer.
+     */
+    public PollResultRingBuffer(int capacity) {
+        if ((capacity < 1) || (capacity > (1 << 30))) {
+            throw new IllegalArgumentException("invalid capacity: " + capacity);
+        }
+
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+
+        this.events = new PollResultEvent[size];
+        for (int cur = 0; cur < size; cur++) {
+            this.events[cur] = new PollResultEvent();
+        }
+
+        this.mask = size - 1;
+    }
+
+    public Logger getLog() {
+        return log;
+    }
+
+    public void setLog(Logger log) {
+        this.log = log;
+    }
+
+    public int getCapacity() {
+        return this.events.length;
+    }
+
+    /**
+     * @return number of events dropped because the buffer was full.
+     */
+    public long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
+    public boolean hasListeners() {
+        return this.consumers.length > 0;
+    }
+
+    /**
+     * Add a listener and start its consumer thread.  The listener receives events published from now on.
+     *
+     * @param listener listener to add.
+     */
+    public synchronized void addListener(PollResultListener listener) {
+        Consumer consumer = new Consumer(listener, this.cursor.get());
+
+        this.consumers = this.appendConsumer(this.consumers, consumer);
+        this.gatingConsumers = this.appendConsumer(this.gatingConsumers, consumer);
+
+        Thread thread = new Thread(consumer, "poll-result-consumer-" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        consumer.thread = thread;
+
+        thread.start();
+    }
+
+    /**
+     * Remove a listener and stop its consumer thread once it has processed the events already published.
+     *
+     * @param listener listener to remove.
+     * @return true => if the listener was removed; false => if it was not registered.
+     */
+    public synchronized boolean removeListener(PollResultListener listener) {
+        Consumer[] current = this.consumers;
+
+        for (Consumer oneConsumer : current) {
+            if (oneConsumer.listener == listener) {
+                this.consumers = this.removeConsumer(current, oneConsumer);
+
+                oneConsumer.stop(this.cursor.get());
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Publish one polled value to the listeners.
+     *
+     * @return true => if the event was published; false => if there are no listeners or the buffer is full.
+     */
+    public synchronized boolean publish(Object target, ObjectName objectName, String attributeName, Object value,
+                                        long timestamp) {
+
+        Consumer[] current = this.consumers;
+        if (current.length == 0) {
+            return false;
+        }
+
+        long next = this.cursor.get() + 1;
+        long wrapPoint = next - this.events.length;
+
+        //
+        // Only rescan the consumers' progress when the cached minimum no longer leaves room.
+        //
+        if (wrapPoint > this.cachedMinimumSequence) {
+            this.cachedMinimumSequence = this.getMinimumSequence(this.gatingConsumers, next - 1);
+
+            if (wrapPoint > this.cachedMinimumSequence) {
+                this.droppedCount.incrementAndGet();
+                return false;
+            }
+        }
+
+        this.events[(int) next & this.mask].set(target, objectName, attributeName, value, timestamp);
+
+        // Release the event's contents to the consumers.  This is a full volatile write so that a consumer cannot
+        // announce that it is parking without either seeing the event or being seen as parked below.
+        this.cursor.set(next);
+
+        for (Consumer oneConsumer : current) {
+            if (oneConsumer.parked) {
+                LockSupport.unpark(oneConsumer.thread);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Stop all of the consumer threads once they have processed the events already published.
+     */
+    public synchronized void shutdown() {
+        Consumer[] current = this.consumers;
+        this.consumers = new Consumer[0];
+
+        long stopSequence = this.cursor.get();
+        for (Consumer oneConsumer : current) {
+            oneConsumer.stop(stopSequence);
+        }
+    }
+
+    /**
+     * Wait for the consumer threads of all listeners to stop after shutdown.
+     *
+     * @param timeout maximum time to wait, in milliseconds.
+     * @return true => if all consumers stopped; false => if the timeout expired first.
+     */
+    public boolean awaitShutdown(long timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+        for (Consumer oneConsumer : this.stoppedConsumers) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining > 0) {
+                oneConsumer.thread.join(remaining);
+            }
+
+            if (oneConsumer.thread.isAlive()) {
+                return false;
+            }
+
+            this.stoppedConsumers.remove(oneConsumer);
+        }
+
+        return true;
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    protected Consumer[] appendConsumer(Consumer[] current, Consumer consumer) {
+        Consumer[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[updated.length - 1] = consumer;
+
+        return updated;
+    }
+
+    protected Consumer[] removeConsumer(Consumer[] current, Consumer consumer) {
+        for (int cur = 0; cur < current.length; cur++) {
+            if (current[cur] == consumer) {
+                Consumer[] updated = new Consumer[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, cur);
+                System.arraycopy(current, cur + 1, updated, cur, current.length - cur - 1);
+
+                return updated;
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * Stop gating the producer on a consumer that finished draining.
+     */
+    protected synchronized void releaseConsumer(Consumer consumer) {
+        this.gatingConsumers = this.removeConsumer(this.gatingConsumers, consumer);
+    }
+
+    protected long getMinimumSequence(Consumer[] current, long minimum) {
+        long result = minimum;
+        for (Consumer oneConsumer : current) {
+            long sequence = oneConsumer.sequence.get();
+            if (sequence < result) {
+                result = sequence;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Consumer of the events for one listener, running on its own thread.
+     */
+    protected class Consumer implements Runnable {
+        private final PollResultListener listener;
+
+        // Sequence of the last event processed by this consumer.
+        private final AtomicLong sequence;
+
+        private volatile boolean running = true;
+        private volatile boolean parked = false;
+
+        // Last event to deliver once stopped; events published after the stop are not delivered.
+        private volatile long stopSequence = Long.MAX_VALUE;
+        private Thread thread;
+
+        public Consumer(PollResultListener listener, long startSequence) {
+            this.listener = listener;
+            this.sequence = new AtomicLong(startSequence);
+        }
+
+        @Override
+        public void run() {
+            long next = this.sequence.get() + 1;
+            int idleCount = 0;
+
+            try {
+                while (true) {
+                    // Read the cursor before the running flag, so that events published after the stop are excluded.
+                    long available = cursor.get();
+                    boolean stillRunning = this.running;
+
+                    if (!stillRunning) {
+                        available = Math.min(available, this.stopSequence);
+                    }
+
+                    if (next <= available) {
+                        while (next <= available) {
+                            this.deliver(events[(int) next & mask]);
+                            next++;
+                        }
+
+                        // Release the slots back to the producer.
+                        this.sequence.lazySet(available);
+                        idleCount = 0;
+                    } else if (!stillRunning) {
+                        break;
+                    } else if (idleCount < IDLE_SPIN_COUNT) {
+                        idleCount++;
+                        Thread.yield();
+                    } else {
+                        this.park(next);
+                    }
+                }
+            } finally {
+                // This consumer no longer reads any slots, so the producer may reuse them.
+                releaseConsumer(this);
+            }
+        }
+
+        /**
+         * Park until the producer publishes the next event or the consumer is stopped.
+         */
+        protected void park(long next) {
+            this.parked = true;
+
+            if ((cursor.get() < next) && (this.running)) {
+                LockSupport.park(this);
+            }
+
+            this.parked = false;
+        }
+
+        protected void stop(long lastSequence) {
+            this.stopSequence = lastSequence;
+            this.running = false;
+            LockSupport.unpark(this.thread);
+
+            for (Consumer oneStopped : stoppedConsumers) {
+                if (!oneStopped.thread.isAlive()) {
+                    stoppedConsumers.remove(oneStopped);
+                }
+            }
+            stoppedConsumers.add(this);
+        }
+
+        protected void deliver(PollResultEvent event) {
+            try {
+                this.listener.onPollResult(event);
+            } catch (RuntimeException rtExc) {
+                log.warn("poll result listener failed: event={}", event, rtExc);
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+/**
+ * Conversion of attribute values from one type to another, selected once for a pair of types.
+ */
+public interface ValueConverter {
+    /**
+     * Convert the given value.
+     *
+     * @param value non-null value of the source type for which this converter was selected.
+     * @return the converted value.
+     * @throws IllegalArgumentException if the value cannot be converted (e.g. an unparsable string).
+     */
+    Object convert(Object value);
+}
@@ -0,0 +1,346 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import javax.management.openmbean.CompositeData;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the converters between attribute value types and the types accepted by setters.  Converters are resolved
+ * once per (source type, target type) pair and cached, so callers never repeat the type analysis per value.
+ * <p/>
+ * Supported conversions:
+ * <ul>
+ *     <li>any value to a type it is already assignable to (identity);</li>
+ *     <li>numbers to any other primitive numeric type or its wrapper (e.g. Integer to long, Double to float);</li>
+ *     <li>strings to numeric types and booleans, as Jolokia may report numbers as strings;</li>
+ *     <li>CompositeData, or maps as reported by Jolokia, to beans with a public no-argument constructor, by setter
+ *     name.</li>
+ * </ul>
+ */
+public class ValueConverterRegistry {
+    /**
+     * Converter returning values unchanged.
+     */
+    public static final ValueConverter IDENTITY = new ValueConverter() {
+        @Override
+        public Object convert(Object value) {
+            return value;
+        }
+    };
+
+    private static final Map<Class<?>, Class<?>> WRAPPER_TYPES = new HashMap<>();
+
+    static {
+        WRAPPER_TYPES.put(boolean.class, Boolean.class);
+        WRAPPER_TYPES.put(byte.class, Byte.class);
+        WRAPPER_TYPES.put(char.class, Character.class);
+        WRAPPER_TYPES.put(short.class, Short.class);
+        WRAPPER_TYPES.put(int.class, Integer.class);
+        WRAPPER_TYPES.put(long.class, Long.class);
+        WRAPPER_TYPES.put(float.class, Float.class);
+        WRAPPER_TYPES.put(double.class, Double.class);
+    }
+
+    // Marker for pairs of types with no available conversion, since the cache cannot hold nulls.
+    private static final ValueConverter NO_CONVERSION = new ValueConverter() {
+        @Override
+        public Object convert(Object value) {
+            throw new IllegalArgumentException("no conversion available");
+        }
+    };
+
+    private final Map<ConversionKey, ValueConverter> converters = new ConcurrentHashMap<>();
+
+    /**
+     * Determine the wrapper type for the given type.
+     *
+     * @return the wrapper type of a primitive type; otherwise the given type itself.
+     */
+    public static Class<?> wrapperType(Class<?> type) {
+        Class<?> result = WRAPPER_TYPES.get(type);
+        if (result != null) {
+            return result;
+        }
+
+        return type;
+    }
+
+    /**
+     * Lookup the converter from the source type to the target type.
+     *
+     * @param sourceType type of the values to convert.
+     * @param targetType type required by the receiver of the values; may be primitive.
+     * @return the converter; null if no conversion is available.
+     */
+    public ValueConverter lookup(Class<?> sourceType, Class<?> targetType) {
+        ConversionKey key = new ConversionKey(sourceType, targetType);
+
+        ValueConverter result = this.converters.get(key);
+        if (result == null) {
+            result = this.resolve(wrapperType(sourceType), wrapperType(targetType));
+            if (result == null) {
+                result = NO_CONVERSION;
+            }
+
+            this.converters.put(key, result);
+        }
+
+        if (result == NO_CONVERSION) {
+            return null;
+        }
+
+        return result;
+    }
+
+    /**
+     * Register a custom converter from the source type to the target type, replacing any existing one.
+     *
+     * @param sourceType type of the values to convert.
+     * @param targetType type required by the receiver of the values.
+     * @param converter the converter.
+     */
+    public void register(Class<?> sourceType, Class<?> targetType, ValueConverter converter) {
+        this.converters.put(new ConversionKey(sourceType, targetType), converter);
+    }
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    protected ValueConverter resolve(Class<?> sourceType, Class<?> targetType) {
+        if (targetType.isAssignableFrom(sourceType)) {
+            return IDENTITY;
+        }
+
+        if (Number.class.isAssignableFrom(sourceType)) {
+            return this.resolveNumberConverter(targetType);
+        }
+
+        if (sourceType == String.class) {
+            return this.resolveStringConverter(targetType);
+        }
+
+        if ((CompositeData.class.isAssignableFrom(sourceType)) || (Map.class.isAssignableFrom(sourceType))) {
+            return this.resolveBeanConverter(targetType);
+        }
+
+        return null;
+    }
+
+    protected ValueConverter resolveNumberConverter(Class<?> targetType) {
+        if (targetType == Long.class) {
+            return new ValueConverter() {
+                @Override
+                public Object convert(Object value) {
+                    return ((Number) value).longValue();
+                }
+            };
+        } else if (targetType == Integer.class) {
+            return new ValueConverter() {
+                @Override
+                public Object convert(Object value) {
+                    return ((Number) value).intValue();
+                }
+            };
+        } else if (targetType == Short.class) {
+            return new ValueConverter() {
+                @Override
+                public Object convert(Object value) {
+                    return ((Number) value).shortValue();
+                }
+            };
+        } else if (targetType == Byte.class) {
+            return new ValueConverter() {
+                @Override
+                public Object convert(Object value) {
+                    return ((Number) value).byteValue();
+                }
+            };
+        } else if (targetType == Double.class) {
+            return new ValueConverter() {
+                @Override
+                public Object convert(Object value) {
+                    return ((Number) value).doubleValue();
+                }
+            };
+        } else if (targetType == Float.class) {
+            return new ValueConverter() {
+                @Override
+                public Object convert(Object value) {
+                    return ((Number) value).floatValue();
+                }
+            };
+        }
+
+        return null;
+    }
+
+    protected ValueConverter resolveStringConverter(Class<?> targetType) {
+        if (targetType == Boolean.class) {
+            return new ValueConverter() {
+                @Override
+                public Object convert(Object value) {
+                    return Boolean.valueOf((String) value);
+                }
+            };
+        }
+
+        if ((Number.class.isAssignableFrom(targetType)) && (WRAPPER_TYPES.containsValue(targetType))) {
+            // Parse as a double only when needed, so large longs keep their precision.
+            final ValueConverter numberConverter = this.resolveNumberConverter(targetType);
+
+            return new ValueConverter() {
+                @Override
+                public Object convert(Object value) {
+                    String text = ((String) value).trim();
+
+                    Number parsed;
+                    try {
+                        parsed = Long.valueOf(text);
+                    } catch (NumberFormatException nfExc) {
+                        parsed = Double.valueOf(text);
+                    }
+
+                    return numberConverter.convert(parsed);
+                }
+            };
+        }
+
+        return null;
+    }
+
+    protected ValueConverter resolveBeanConverter(Class<?> targetType) {
+        if ((targetType.isInterface()) || (Modifier.isAbstract(targetType.getModifiers())) ||
+                (WRAPPER_TYPES.containsValue(targetType)) || (targetType == String.class)) {
+            return null;
+        }
+
+        try {
+            Constructor<?> constructor = targetType.getConstructor();
+
+            return new BeanConverter(constructor, this.findPropertySetters(targetType));
+        } catch (NoSuchMethodException nsmExc) {
+            return null;
+        }
+    }
+
+    protected Map<String, Method> findPropertySetters(Class<?> targetType) {
+        Map<String, Method> result = new HashMap<>();
+
+        for (Method oneMethod : targetType.getMethods()) {
+            String name = oneMethod.getName();
+
+            if ((name.length() > 3) && (name.startsWith("set")) && (oneMethod.getParameterTypes().length == 1) &&
+                    (!Modifier.isStatic(oneMethod.getModifiers()))) {
+
+                String property = Character.toLowerCase(name.charAt(3)) + name.substring(4);
+                result.put(property, oneMethod);
+            }
+        }
+
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Converter of CompositeData and maps into beans, one property at a time, by matching keys to setter names.  Keys
+     * without setters, and values that cannot be converted to the setter's type, are skipped.
+     */
+    protected class BeanConverter implements ValueConverter {
+        private final Constructor<?> constructor;
+        private final Map<String, Method> propertySetters;
+
+        public BeanConverter(Constructor<?> constructor, Map<String, Method> propertySetters) {
+            this.constructor = constructor;
+            this.propertySetters = propertySetters;
+        }
+
+        @Override
+        public Object convert(Object value) {
+            try {
+                Object result = this.constructor.newInstance();
+
+                for (Map.Entry<String, Method> oneProperty : this.propertySetters.entrySet()) {
+                    Object propertyValue = this.getProperty(value, oneProperty.getKey());
+
+                    if (propertyValue != null) {
+                        Method setter = oneProperty.getValue();
+                        ValueConverter converter = lookup(propertyValue.getClass(), setter.getParameterTypes()[0]);
+
+                        if (converter != null) {
+                            setter.invoke(result, converter.convert(propertyValue));
+                        }
+                    }
+                }
+
+                return result;
+            } catch (InstantiationException | IllegalAccessException | InvocationTargetException exc) {
+                throw new IllegalArgumentException("failed to convert value to " +
+                        this.constructor.getDeclaringClass().getName(), exc);
+            }
+        }
+
+        protected Object getProperty(Object value, String property) {
+            if (value instanceof CompositeData) {
+                CompositeData compositeData = (CompositeData) value;
+
+                if (compositeData.containsKey(property)) {
+                    return compositeData.get(property);
+                }
+
+                return null;
+            }
+
+            return ((Map<?, ?>) value).get(property);
+        }
+    }
+
+    /**
+     * Key of the converter cache.
+     */
+    protected static class ConversionKey {
+        private final Class<?> sourceType;
+        private final Class<?> targetType;
+
+        public ConversionKey(Class<?> sourceType, Class<?> targetType) {
+            this.sourceType = sourceType;
+            this.targetType = targetType;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof ConversionKey)) {
+                return false;
+            }
+
+            ConversionKey that = (ConversionKey) other;
+
+            return (this.sourceType == that.sourceType) && (this.targetType == that.targetType);
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * this.sourceType.hashCode()) + this.targetType.hashCode();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.query;
+
+/**
+ * Aggregation of the samples of a series within each step of a range query.
+ */
+public enum Aggregation {
+    MIN,
+    MAX,
+    AVG,
+    SUM,
+
+    /**
+     * Value of the newest sample in the step.
+     */
+    LAST,
+
+    /**
+     * Per-second rate of change over the step, from the newest sample before the step (or the first sample in the
+     * step) to the newest sample in the step.
+     */
+    RATE
+}
@@ -0,0 +1,206 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.query;
+
+import com.amlinv.jmxutil.store.SeriesKey;
+import com.amlinv.jmxutil.store.TimestampUtil;
+
+import javax.management.ObjectName;
+
+/**
+ * Immutable query of the samples of the series matching an ObjectName pattern and attribute name, aggregated into
+ * steps of a fixed size over a time range.
+ * <p/>
+ * Steps are aligned to multiples of the step size, so that the results of queries covering different ranges line
+ * up; the first step is the one containing the start time, and the last step is the one containing the last
+ * millisecond before the end time.  Each step aggregates all of its samples, including those of the first step that
+ * precede the start time.
+ */
+public class RangeQuery {
+    public static final int MAX_STEP_COUNT = 11000;
+
+    private final ObjectName objectNamePattern;
+    private final String attributeName;
+    private final String target;
+    private final long startTime;
+    private final long endTime;
+    private final long step;
+    private final Aggregation aggregation;
+
+    protected RangeQuery(ObjectName objectNamePattern, String attributeName, String target, long startTime,
+                         long endTime, long step, Aggregation aggregation) {
+        this.objectNamePattern = objectNamePattern;
+        this.attributeName = attributeName;
+        this.target = target;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.step = step;
+        this.aggregation = aggregation;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public ObjectName getObjectNamePattern() {
+        return objectNamePattern;
+    }
+
+    /**
+     * @return name of the attribute selected, or null to select all attributes.
+     */
+    public String getAttributeName() {
+        return attributeName;
+    }
+
+    /**
+     * @return target selected, or null to select all targets.
+     */
+    public String getTarget() {
+        return target;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public long getStep() {
+        return step;
+    }
+
+    public Aggregation getAggregation() {
+        return aggregation;
+    }
+
+    /**
+     * @return start time of the first step.
+     */
+    public long getAlignedStartTime() {
+        return TimestampUtil.alignDown(this.startTime, this.step);
+    }
+
+    public int getStepCount() {
+        return (int) ((this.endTime - 1 - this.getAlignedStartTime()) / this.step) + 1;
+    }
+
+    /**
+     * @return true => if the given series is selected by this query; false => otherwise.
+     */
+    public boolean matches(SeriesKey key) {
+        if ((this.attributeName != null) && (!this.attributeName.equals(key.getAttributeName()))) {
+            return false;
+        }
+
+        if ((this.target != null) && (!this.target.equals(key.getTarget()))) {
+            return false;
+        }
+
+        return this.objectNamePattern.apply(key.getObjectName());
+    }
+
+    @Override
+    public String toString() {
+        return "RangeQuery{objectNamePattern=" + objectNamePattern + ", attributeName=" + attributeName +
+                ", target=" + target + ", startTime=" + startTime + ", endTime=" + endTime + ", step=" + step +
+                ", aggregation=" + aggregation + "}";
+    }
+
+    /**
+     * Builder of RangeQuery; the ObjectName pattern, time range and step are required.
+     */
+    public static class Builder {
+        private ObjectName objectNamePattern;
+        private String attributeName;
+        private String target;
+        private Long startTime;
+        private Long endTime;
+        private Long step;
+        private Aggregation aggregation = Aggregation.AVG;
+
+        protected Builder() {
+        }
+
+        public Builder objectNamePattern(ObjectName objectNamePattern) {
+            this.objectNamePattern = objectNamePattern;
+            return this;
+        }
+
+        public Builder attributeName(String attributeName) {
+            this.attributeName = attributeName;
+            return this;
+        }
+
+        public Builder target(String target) {
+            this.target = target;
+            return this;
+        }
+
+        /**
+         * @param startTime start of the range, inclusive.
+         * @param endTime end of the range, exclusive.
+         */
+        public Builder timeRange(long startTime, long endTime) {
+            if (endTime <= startTime) {
+                throw new IllegalArgumentException("endTime must be after startTime: startTime=" + startTime +
+                        "; endTime=" + endTime);
+            }
+
+            this.startTime = startTime;
+            this.endTime = endTime;
+            return this;
+        }
+
+        public Builder step(long step) {
+            if (step <= 0) {
+                throw new IllegalArgumentException("step must be positive: " + step);
+            }
+
+            this.step = step;
+            return this;
+        }
+
+        public Builder aggregation(Aggregation aggregation) {
+            if (aggregation == null) {
+                throw new IllegalArgumentException("aggregation must not be null");
+            }
+
+            this.aggregation = aggregation;
+            return this;
+        }
+
+        public RangeQuery build() {
+            if (this.objectNamePattern == null) {
+                throw new IllegalStateException("objectNamePattern is required");
+            }
+            if ((this.startTime == null) || (this.step == null)) {
+                throw new IllegalStateException("timeRange and step are required");
+            }
+
+            RangeQuery result = new RangeQuery(this.objectNamePattern, this.attributeName, this.target,
+                    this.startTime, this.endTime, this.step, this.aggregation);
+
+            if ((this.endTime - 1 - result.getAlignedStartTime()) / this.step >= MAX_STEP_COUNT) {
+                throw new IllegalStateException("query exceeds " + MAX_STEP_COUNT + " steps: " + result);
+            }
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.query;
+
+import com.amlinv.jmxutil.store.SampleStore;
+import com.amlinv.jmxutil.store.SeriesKey;
+import com.amlinv.jmxutil.store.SeriesRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates range queries against the samples held in a SampleStore, so that ad-hoc queries are answered from the
+ * collected samples instead of by polling the monitored servers again.
+ * <p/>
+ * Samples are aggregated as the store decodes them, one series at a time, so that the cost of a query is bounded by
+ * the number of steps rather than the number of samples.  The series selected by each combination of ObjectName
+ * pattern, attribute and target are cached, and only the series registered since the last query are matched.
+ */
+public class RangeQueryEngine {
+    public static final int MAX_CACHED_SELECTIONS = 256;
+
+    private final SampleStore sampleStore;
+
+    // Selections by their criteria: the ObjectName pattern, attribute name and target of the query.
+    private final Map<List<Object>, Selection> selections = new HashMap<>();
+
+    public RangeQueryEngine(SampleStore sampleStore) {
+        this.sampleStore = sampleStore;
+    }
+
+    public SampleStore getSampleStore() {
+        return sampleStore;
+    }
+
+    /**
+     * Evaluate the given query.
+     *
+     * @return one result for each selected series that has samples in the range, in order of series ID.
+     */
+    public List<RangeSeries> execute(RangeQuery query) {
+        List<RangeSeries> result = new ArrayList<>();
+        SeriesRegistry registry = this.sampleStore.getSeriesRegistry();
+
+        // A rate needs the last sample before the first step as its baseline.
+        int lookback = (query.getAggregation() == Aggregation.RATE) ? 1 : 0;
+
+        StepAggregator aggregator = new StepAggregator();
+
+        for (int seriesId : this.selectSeries(query)) {
+            aggregator.reset(query.getAlignedStartTime() - (lookback * query.getStep()), query.getStep(),
+                    query.getStepCount() + lookback);
+
+            this.sampleStore.scan(seriesId, aggregator.getStartTime(), aggregator.getEndTime(), aggregator);
+
+            if (aggregator.hasSamples(lookback)) {
+                result.add(new RangeSeries(registry.getKey(seriesId), query.getAlignedStartTime(), query.getStep(),
+                        aggregator.getValues(query.getAggregation(), lookback)));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return IDs of the series selected by the query.
+     */
+    public List<Integer> selectSeries(RangeQuery query) {
+        Selection selection = this.getSelection(query);
+
+        synchronized (selection) {
+            selection.update(query, this.sampleStore.getSeriesRegistry());
+
+            return new ArrayList<>(selection.seriesIds);
+        }
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    protected Selection getSelection(RangeQuery query) {
+        List<Object> criteria = Arrays.<Object>asList(query.getObjectNamePattern(), query.getAttributeName(),
+                query.getTarget());
+
+        synchronized (this.selections) {
+            Selection result = this.selections.get(criteria);
+
+            if (result == null) {
+                // Ad-hoc queries could otherwise grow the cache without bound.
+                if (this.selections.size() >= MAX_CACHED_SELECTIONS) {
+                    this.selections.clear();
+                }
+
+                result = new Selection();
+                this.selections.put(criteria, result);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * IDs of the series selected by one set of criteria, as of the number of series matched so far.  Series IDs are
+     * only added, except for IDs that were skipped when restoring persisted series, which are rechecked until
+     * assigned.
+     */
+    protected static class Selection {
+        private final List<Integer> seriesIds = new ArrayList<>();
+        private final List<Integer> unassignedIds = new ArrayList<>();
+        private int matchedCount = 0;
+
+        protected void update(RangeQuery query, SeriesRegistry registry) {
+            boolean added = false;
+
+            Iterator<Integer> unassignedIter = this.unassignedIds.iterator();
+            while (unassignedIter.hasNext()) {
+                int seriesId = unassignedIter.next();
+                SeriesKey key = registry.getKey(seriesId);
+
+                if (key != null) {
+                    unassignedIter.remove();
+
+                    if (query.matches(key)) {
+                        this.seriesIds.add(seriesId);
+                        added = true;
+                    }
+                }
+            }
+
+            // Keep the IDs in order, as the skipped IDs precede the new ones.
+            if (added) {
+                Collections.sort(this.seriesIds);
+            }
+
+            List<SeriesKey> newKeys = registry.getKeys(this.matchedCount);
+            for (SeriesKey oneKey : newKeys) {
+                int seriesId = this.matchedCount++;
+
+                if (oneKey == null) {
+                    this.unassignedIds.add(seriesId);
+                } else if (query.matches(oneKey)) {
+                    this.seriesIds.add(seriesId);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.query;
+
+import com.amlinv.jmxutil.store.SeriesKey;
+
+import java.util.Arrays;
+
+/**
+ * Result of a range query for one series: one value per step, with NaN for steps without a value.
+ */
+public class RangeSeries {
+    private final SeriesKey key;
+    private final long startTime;
+    private final long step;
+    private final double[] values;
+
+    /**
+     * @param key key of the series; may be null for a series computed from others.
+     * @param startTime start time of the first step.
+     * @param step size of each step, in milliseconds.
+     * @param values value of each step, or NaN for a step without a value.
+     */
+    public RangeSeries(SeriesKey key, long startTime, long step, double[] values) {
+        this.key = key;
+        this.startTime = startTime;
+        this.step = step;
+        this.values = values;
+    }
+
+    public SeriesKey getKey() {
+        return key;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getStep() {
+        return step;
+    }
+
+    public int getStepCount() {
+        return this.values.length;
+    }
+
+    public long getTimestamp(int index) {
+        return this.startTime + (index * this.step);
+    }
+
+    public double getValue(int index) {
+        return this.values[index];
+    }
+
+    public boolean hasValue(int index) {
+        return !Double.isNaN(this.values[index]);
+    }
+
+    /**
+     * @return the values of the steps; the array is shared, not copied.
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return "RangeSeries{key=" + key + ", startTime=" + startTime + ", step=" + step + ", values=" +
+                Arrays.toString(values) + "}";
+    }
+}
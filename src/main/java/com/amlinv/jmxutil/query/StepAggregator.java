@@ -0,0 +1,240 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.query;
+
+import com.amlinv.jmxutil.polling.CounterRateCalculator;
+import com.amlinv.jmxutil.store.SampleVisitor;
+
+import java.util.Arrays;
+
+/**
+ * Sample visitor that aggregates the samples of one series into fixed steps as they are decoded, keeping only
+ * per-step primitive state so that no object is allocated per sample.  Reset it to reuse it for the next series.
+ * Rates accumulate the increase between consecutive samples, so counter resets within a step are handled the same
+ * way as by the CounterRateCalculator.
+ */
+public class StepAggregator implements SampleVisitor {
+    private long startTime;
+    private long step;
+    private int stepCount;
+
+    private long[] counts = new long[0];
+    private double[] mins = new double[0];
+    private double[] maxes = new double[0];
+    private double[] sums = new double[0];
+    private long[] firstTimestamps = new long[0];
+    private long[] lastTimestamps = new long[0];
+    private double[] lastValues = new double[0];
+
+    // Increase of the counter from the previous sample to the first sample of each step, and within each step.
+    private double[] entryIncreases = new double[0];
+    private double[] innerIncreases = new double[0];
+
+    private long previousTimestamp = Long.MIN_VALUE;
+    private double previousValue;
+
+    /**
+     * Prepare to aggregate the samples of a series.
+     *
+     * @param startTime start time of the first step; must be aligned to the step.
+     * @param step size of each step, in milliseconds.
+     * @param stepCount number of steps.
+     */
+    public void reset(long startTime, long step, int stepCount) {
+        this.startTime = startTime;
+        this.step = step;
+        this.stepCount = stepCount;
+
+        if (this.counts.length < stepCount) {
+            this.counts = new long[stepCount];
+            this.mins = new double[stepCount];
+            this.maxes = new double[stepCount];
+            this.sums = new double[stepCount];
+            this.firstTimestamps = new long[stepCount];
+            this.lastTimestamps = new long[stepCount];
+            this.lastValues = new double[stepCount];
+            this.entryIncreases = new double[stepCount];
+            this.innerIncreases = new double[stepCount];
+        } else {
+            Arrays.fill(this.counts, 0, stepCount, 0L);
+        }
+
+        this.previousTimestamp = Long.MIN_VALUE;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getStep() {
+        return step;
+    }
+
+    public int getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * @return end of the steps, inclusive, for scanning the store.
+     */
+    public long getEndTime() {
+        return this.startTime + (this.stepCount * this.step) - 1;
+    }
+
+    @Override
+    public void onSample(long timestamp, double value) {
+        double increase = 0.0;
+        if (this.previousTimestamp != Long.MIN_VALUE) {
+            increase = CounterRateCalculator.computeIncrease(this.previousValue, value);
+        }
+        this.previousTimestamp = timestamp;
+        this.previousValue = value;
+
+        if (timestamp < this.startTime) {
+            return;
+        }
+
+        long index = (timestamp - this.startTime) / this.step;
+        if (index >= this.stepCount) {
+            return;
+        }
+
+        int cur = (int) index;
+        if (this.counts[cur] == 0) {
+            this.mins[cur] = value;
+            this.maxes[cur] = value;
+            this.sums[cur] = value;
+            this.firstTimestamps[cur] = timestamp;
+            this.entryIncreases[cur] = increase;
+            this.innerIncreases[cur] = 0.0;
+        } else {
+            if (value < this.mins[cur]) {
+                this.mins[cur] = value;
+            }
+            if (value > this.maxes[cur]) {
+                this.maxes[cur] = value;
+            }
+            this.sums[cur] += value;
+            this.innerIncreases[cur] += increase;
+        }
+
+        this.counts[cur]++;
+        this.lastTimestamps[cur] = timestamp;
+        this.lastValues[cur] = value;
+    }
+
+    public long getCount(int index) {
+        return this.counts[index];
+    }
+
+    /**
+     * @return true => if any step from the given one has samples; false => otherwise.
+     */
+    public boolean hasSamples(int firstStep) {
+        for (int cur = firstStep; cur < this.stepCount; cur++) {
+            if (this.counts[cur] > 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Compute the aggregated values of the steps.
+     *
+     * @param aggregation aggregation to compute.
+     * @param firstStep index of the first step to include in the result; earlier steps only serve as the baseline of
+     *                  a rate.
+     * @return the value of each step from the first step, or NaN for steps without a value.
+     */
+    public double[] getValues(Aggregation aggregation, int firstStep) {
+        double[] result = new double[this.stepCount - firstStep];
+        int baseline = -1;
+
+        for (int cur = 0; cur < this.stepCount; cur++) {
+            double value = Double.NaN;
+
+            if (this.counts[cur] > 0) {
+                switch (aggregation) {
+                    case MIN:
+                        value = this.mins[cur];
+                        break;
+
+                    case MAX:
+                        value = this.maxes[cur];
+                        break;
+
+                    case AVG:
+                        value = this.sums[cur] / this.counts[cur];
+                        break;
+
+                    case SUM:
+                        value = this.sums[cur];
+                        break;
+
+                    case LAST:
+                        value = this.lastValues[cur];
+                        break;
+
+                    case RATE:
+                        value = this.computeRate(cur, baseline);
+                        baseline = cur;
+                        break;
+
+                    default:
+                        throw new IllegalArgumentException("unsupported aggregation " + aggregation);
+                }
+            }
+
+            if (cur >= firstStep) {
+                result[cur - firstStep] = value;
+            }
+        }
+
+        return result;
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    /**
+     * Compute the rate of a step from the last sample of the baseline step, or from the first sample of the step itself
+     * without a baseline.  The steps in between have no samples, so the increase since the baseline is all recorded
+     * on the step.
+     */
+    protected double computeRate(int index, int baseline) {
+        long fromTime;
+        double increase = this.innerIncreases[index];
+
+        if (baseline >= 0) {
+            fromTime = this.lastTimestamps[baseline];
+            increase += this.entryIncreases[index];
+        } else {
+            fromTime = this.firstTimestamps[index];
+        }
+
+        long elapsed = this.lastTimestamps[index] - fromTime;
+        if (elapsed <= 0) {
+            return Double.NaN;
+        }
+
+        return increase * 1000.0 / elapsed;
+    }
+}
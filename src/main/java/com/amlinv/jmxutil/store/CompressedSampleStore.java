@@ -0,0 +1,251 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * In-memory store of the history of each series as a sequence of Gorilla-compressed blocks, which keeps far more
+ * history in the same memory than raw samples when values are sampled at a fixed interval.  Samples are appended to
+ * an open block per series, which is sealed once full; the oldest sealed blocks are dropped beyond the maximum number
+ * per series.
+ */
+public class CompressedSampleStore implements SampleStore {
+    public static final int DEFAULT_SAMPLES_PER_BLOCK = 120;
+    public static final int DEFAULT_MAX_BLOCKS_PER_SERIES = 720;
+
+    private final SeriesRegistry seriesRegistry;
+    private final int samplesPerBlock;
+    private final int maxBlocksPerSeries;
+
+    private volatile CompressedSeries[] series = new CompressedSeries[0];
+
+    public CompressedSampleStore(SeriesRegistry seriesRegistry) {
+        this(seriesRegistry, DEFAULT_SAMPLES_PER_BLOCK, DEFAULT_MAX_BLOCKS_PER_SERIES);
+    }
+
+    /**
+     * @param seriesRegistry registry of the series held.
+     * @param samplesPerBlock number of samples in each block.
+     * @param maxBlocksPerSeries number of sealed blocks kept per series, in addition to the open block.
+     */
+    public CompressedSampleStore(SeriesRegistry seriesRegistry, int samplesPerBlock, int maxBlocksPerSeries) {
+        if (samplesPerBlock < 1) {
+            throw new IllegalArgumentException("samplesPerBlock must be positive: " + samplesPerBlock);
+        }
+        if (maxBlocksPerSeries < 0) {
+            throw new IllegalArgumentException("maxBlocksPerSeries must not be negative: " + maxBlocksPerSeries);
+        }
+
+        this.seriesRegistry = seriesRegistry;
+        this.samplesPerBlock = samplesPerBlock;
+        this.maxBlocksPerSeries = maxBlocksPerSeries;
+    }
+
+    @Override
+    public SeriesRegistry getSeriesRegistry() {
+        return seriesRegistry;
+    }
+
+    public int getSamplesPerBlock() {
+        return samplesPerBlock;
+    }
+
+    public int getMaxBlocksPerSeries() {
+        return maxBlocksPerSeries;
+    }
+
+    @Override
+    public boolean append(int seriesId, long timestamp, double value) {
+        CompressedSeries oneSeries = this.getSeries(seriesId, true);
+        if (oneSeries == null) {
+            return false;
+        }
+
+        synchronized (oneSeries) {
+            // Checked here as well as by the encoder, since the encoder forgets the last timestamp when sealed.
+            if ((timestamp < oneSeries.lastTimestamp) || (!oneSeries.open.append(timestamp, value))) {
+                return false;
+            }
+
+            oneSeries.lastTimestamp = timestamp;
+
+            if (oneSeries.open.getSampleCount() >= this.samplesPerBlock) {
+                this.seal(oneSeries);
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int getSampleCount(int seriesId) {
+        CompressedSeries oneSeries = this.getSeries(seriesId, false);
+        if (oneSeries == null) {
+            return 0;
+        }
+
+        synchronized (oneSeries) {
+            return oneSeries.sealedSampleCount + oneSeries.open.getSampleCount();
+        }
+    }
+
+    @Override
+    public int scan(int seriesId, long fromTime, long toTime, SampleVisitor visitor) {
+        CompressedSeries oneSeries = this.getSeries(seriesId, false);
+        if (oneSeries == null) {
+            return 0;
+        }
+
+        int result = 0;
+
+        synchronized (oneSeries) {
+            GorillaBlockDecoder decoder = oneSeries.decoder;
+
+            for (GorillaBlock oneBlock : oneSeries.sealed) {
+                if ((oneBlock.getLastTimestamp() >= fromTime) && (oneBlock.getFirstTimestamp() <= toTime)) {
+                    decoder.reset(oneBlock);
+                    result += decoder.decodeInto(fromTime, toTime, visitor);
+                }
+            }
+
+            GorillaBlockEncoder open = oneSeries.open;
+            if ((open.getSampleCount() > 0) && (open.getLastTimestamp() >= fromTime) &&
+                    (open.getFirstTimestamp() <= toTime)) {
+
+                decoder.reset(open.getWords(), open.getSampleCount());
+                result += decoder.decodeInto(fromTime, toTime, visitor);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Visit the sealed blocks of a series that overlap the given time range, oldest first, such as to stream the
+     * compressed data without decoding it.
+     *
+     * @return number of blocks visited.
+     */
+    public int scanBlocks(int seriesId, long fromTime, long toTime, BlockVisitor visitor) {
+        CompressedSeries oneSeries = this.getSeries(seriesId, false);
+        if (oneSeries == null) {
+            return 0;
+        }
+
+        int result = 0;
+
+        synchronized (oneSeries) {
+            for (GorillaBlock oneBlock : oneSeries.sealed) {
+                if ((oneBlock.getLastTimestamp() >= fromTime) && (oneBlock.getFirstTimestamp() <= toTime)) {
+                    visitor.onBlock(oneBlock);
+                    result++;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return approximate number of bytes used by the compressed samples of all series.
+     */
+    public long getCompressedBytes() {
+        long result = 0;
+
+        for (CompressedSeries oneSeries : this.series) {
+            if (oneSeries != null) {
+                synchronized (oneSeries) {
+                    result += oneSeries.sealedBytes + (oneSeries.open.getWords().length * 8L);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Visitor of compressed blocks.
+     */
+    public interface BlockVisitor {
+        void onBlock(GorillaBlock block);
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    protected void seal(CompressedSeries oneSeries) {
+        GorillaBlock block = oneSeries.open.toBlock();
+        oneSeries.open.reset();
+
+        oneSeries.sealed.addLast(block);
+        oneSeries.sealedSampleCount += block.getSampleCount();
+        oneSeries.sealedBytes += block.getByteSize();
+
+        while (oneSeries.sealed.size() > this.maxBlocksPerSeries) {
+            GorillaBlock dropped = oneSeries.sealed.removeFirst();
+            oneSeries.sealedSampleCount -= dropped.getSampleCount();
+            oneSeries.sealedBytes -= dropped.getByteSize();
+        }
+    }
+
+    protected CompressedSeries getSeries(int seriesId, boolean create) {
+        if (seriesId < 0) {
+            return null;
+        }
+
+        CompressedSeries[] current = this.series;
+        if ((seriesId < current.length) && (current[seriesId] != null)) {
+            return current[seriesId];
+        }
+
+        if (!create) {
+            return null;
+        }
+
+        synchronized (this) {
+            current = this.series;
+            if (seriesId >= current.length) {
+                current = Arrays.copyOf(current, Math.max(seriesId + 1, current.length * 2));
+            }
+
+            if (current[seriesId] == null) {
+                current[seriesId] = new CompressedSeries();
+            }
+
+            this.series = current;
+
+            return current[seriesId];
+        }
+    }
+
+    /**
+     * Blocks of one series.
+     */
+    protected static class CompressedSeries {
+        private final ArrayDeque<GorillaBlock> sealed = new ArrayDeque<>();
+        private final GorillaBlockEncoder open = new GorillaBlockEncoder();
+        private final GorillaBlockDecoder decoder = new GorillaBlockDecoder();
+
+        private int sealedSampleCount;
+        private long sealedBytes;
+        private long lastTimestamp = Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import com.amlinv.jmxutil.polling.CounterRateCalculator;
+
+/**
+ * Sink that converts the samples of monotonic counters into per-second rates and appends the rates, under the same
+ * series IDs, to another sink, such as a store dedicated to rates.  The first sample of each series yields no rate,
+ * and counter resets are handled as described by the CounterRateCalculator.
+ */
+public class CounterRateSampleSink implements SampleSink {
+    private final SampleSink rateSink;
+    private final CounterRateCalculator calculator = new CounterRateCalculator();
+
+    public CounterRateSampleSink(SampleSink rateSink) {
+        this.rateSink = rateSink;
+    }
+
+    public SampleSink getRateSink() {
+        return rateSink;
+    }
+
+    /**
+     * @return true => if a rate was computed and accepted by the rate sink; false => otherwise.
+     */
+    @Override
+    public synchronized boolean append(int seriesId, long timestamp, double value) {
+        double rate = this.calculator.update(seriesId, timestamp, value);
+        if (Double.isNaN(rate)) {
+            return false;
+        }
+
+        return this.rateSink.append(seriesId, timestamp, rate);
+    }
+
+    /**
+     * Forget the previous sample of a series, such as when it is no longer polled.
+     */
+    public synchronized void reset(int seriesId) {
+        this.calculator.reset(seriesId);
+    }
+}
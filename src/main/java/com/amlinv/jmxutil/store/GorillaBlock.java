@@ -0,0 +1,65 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+/**
+ * Immutable block of samples compressed by a GorillaBlockEncoder.
+ */
+public class GorillaBlock {
+    private final long[] words;
+    private final int bitLength;
+    private final int sampleCount;
+    private final long firstTimestamp;
+    private final long lastTimestamp;
+
+    public GorillaBlock(long[] words, int bitLength, int sampleCount, long firstTimestamp, long lastTimestamp) {
+        this.words = words;
+        this.bitLength = bitLength;
+        this.sampleCount = sampleCount;
+        this.firstTimestamp = firstTimestamp;
+        this.lastTimestamp = lastTimestamp;
+    }
+
+    /**
+     * @return the encoded bits; not to be modified.
+     */
+    public long[] getWords() {
+        return words;
+    }
+
+    public int getBitLength() {
+        return bitLength;
+    }
+
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    public long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    /**
+     * @return size of the encoded samples, in bytes.
+     */
+    public int getByteSize() {
+        return this.words.length * 8;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+/**
+ * Decoder of the samples encoded by a GorillaBlockEncoder.  A decoder is reused across blocks and iterates without
+ * allocating:
+ * <pre>
+ *     decoder.reset(block);
+ *     while (decoder.next()) {
+ *         process(decoder.getTimestamp(), decoder.getValue());
+ *     }
+ * </pre>
+ */
+public class GorillaBlockDecoder {
+    private long[] words;
+    private int remaining;
+    private int position;
+    private boolean first;
+
+    private long timestamp;
+    private long delta;
+    private long valueBits;
+    private int leadingZeros;
+    private int trailingZeros;
+
+    public void reset(GorillaBlock block) {
+        this.reset(block.getWords(), block.getSampleCount());
+    }
+
+    /**
+     * Start decoding the given encoded bits.
+     *
+     * @param words the encoded bits.
+     * @param sampleCount number of samples encoded.
+     */
+    public void reset(long[] words, int sampleCount) {
+        this.words = words;
+        this.remaining = sampleCount;
+        this.position = 0;
+        this.first = true;
+    }
+
+    /**
+     * Advance to the next sample.
+     *
+     * @return true => if a sample was decoded; false => if all samples were decoded.
+     */
+    public boolean next() {
+        if (this.remaining <= 0) {
+            return false;
+        }
+
+        if (this.first) {
+            this.timestamp = this.readBits(64);
+            this.valueBits = this.readBits(64);
+            this.delta = 0;
+            this.first = false;
+        } else {
+            this.delta += this.readDeltaOfDelta();
+            this.timestamp += this.delta;
+            this.readValue();
+        }
+
+        this.remaining--;
+
+        return true;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public double getValue() {
+        return Double.longBitsToDouble(this.valueBits);
+    }
+
+    /**
+     * Decode the remaining samples, within the given time range, into a visitor.
+     *
+     * @return number of samples visited.
+     */
+    public int decodeInto(long fromTime, long toTime, SampleVisitor visitor) {
+        int result = 0;
+
+        while (this.next()) {
+            if (this.timestamp > toTime) {
+                break;
+            }
+
+            if (this.timestamp >= fromTime) {
+                visitor.onSample(this.timestamp, this.getValue());
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    protected long readDeltaOfDelta() {
+        if (this.readBits(1) == 0) {
+            return 0;
+        }
+        if (this.readBits(1) == 0) {
+            return this.readBits(7) - 63;
+        }
+        if (this.readBits(1) == 0) {
+            return this.readBits(9) - 255;
+        }
+        if (this.readBits(1) == 0) {
+            return this.readBits(12) - 2047;
+        }
+        if (this.readBits(1) == 0) {
+            return (int) this.readBits(32);
+        }
+
+        return this.readBits(64);
+    }
+
+    protected void readValue() {
+        if (this.readBits(1) == 0) {
+            return;
+        }
+
+        if (this.readBits(1) != 0) {
+            this.leadingZeros = (int) this.readBits(5);
+
+            int meaningfulBits = (int) this.readBits(6);
+            if (meaningfulBits == 0) {
+                meaningfulBits = 64;
+            }
+
+            this.trailingZeros = 64 - this.leadingZeros - meaningfulBits;
+        }
+
+        long xor = this.readBits(64 - this.leadingZeros - this.trailingZeros) << this.trailingZeros;
+        this.valueBits ^= xor;
+    }
+
+    /**
+     * Read the given number of bits, from 1 to 64, most significant first.
+     */
+    protected long readBits(int numBits) {
+        int wordIndex = this.position >>> 6;
+        int bitOffset = this.position & 63;
+        int available = 64 - bitOffset;
+
+        long result;
+        if (numBits <= available) {
+            result = (this.words[wordIndex] << bitOffset) >>> (64 - numBits);
+        } else {
+            int overflow = numBits - available;
+            result = (((this.words[wordIndex] << bitOffset) >>> bitOffset) << overflow) |
+                    (this.words[wordIndex + 1] >>> (64 - overflow));
+        }
+
+        this.position += numBits;
+
+        return result;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import java.util.Arrays;
+
+/**
+ * Encoder of samples into a compressed bit stream following the Gorilla scheme: timestamps are stored as the
+ * delta of their deltas, and values as the XOR with the previous value, so that samples taken at a fixed interval
+ * with slowly changing values need only a few bits each.
+ * <p/>
+ * Layout: the first sample is stored raw (64-bit timestamp, 64-bit value).  For each later sample, the delta of
+ * delta of the timestamp is stored with the prefix 0 (zero), 10 (7 bits), 110 (9 bits), 1110 (12 bits), 11110
+ * (32 bits) or 11111 (64 bits).  The value is stored as 0 when equal to the previous value; otherwise as 1 followed
+ * by 0 and the meaningful bits of the XOR when they fit within the previous window of leading and trailing zeros,
+ * or by 1, 5 bits of leading zeros, 6 bits of meaningful bit count (0 meaning 64) and the meaningful bits.
+ */
+public class GorillaBlockEncoder {
+    private static final int INITIAL_WORDS = 16;
+
+    private long[] words = new long[INITIAL_WORDS];
+    private int bitLength;
+    private int sampleCount;
+
+    private long firstTimestamp;
+    private long previousTimestamp;
+    private long previousDelta;
+    private long previousValueBits;
+    private int previousLeadingZeros;
+    private int previousTrailingZeros;
+
+    /**
+     * Append a sample.
+     *
+     * @return true => if the sample was appended; false => if it is older than the previous sample.
+     */
+    public boolean append(long timestamp, double value) {
+        long valueBits = Double.doubleToRawLongBits(value);
+
+        if (this.sampleCount == 0) {
+            this.writeBits(timestamp, 64);
+            this.writeBits(valueBits, 64);
+
+            this.firstTimestamp = timestamp;
+            this.previousDelta = 0;
+            this.previousLeadingZeros = -1;
+        } else {
+            if (timestamp < this.previousTimestamp) {
+                return false;
+            }
+
+            long delta = timestamp - this.previousTimestamp;
+            this.writeDeltaOfDelta(delta - this.previousDelta);
+            this.writeValue(valueBits);
+
+            this.previousDelta = delta;
+        }
+
+        this.previousTimestamp = timestamp;
+        this.previousValueBits = valueBits;
+        this.sampleCount++;
+
+        return true;
+    }
+
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    public int getBitLength() {
+        return bitLength;
+    }
+
+    public long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    public long getLastTimestamp() {
+        return previousTimestamp;
+    }
+
+    /**
+     * @return the bits encoded so far; valid until the next append or reset.
+     */
+    public long[] getWords() {
+        return words;
+    }
+
+    /**
+     * @return an immutable block holding a copy of the samples encoded so far.
+     */
+    public GorillaBlock toBlock() {
+        long[] blockWords = Arrays.copyOf(this.words, (this.bitLength + 63) >>> 6);
+
+        return new GorillaBlock(blockWords, this.bitLength, this.sampleCount, this.firstTimestamp,
+                this.previousTimestamp);
+    }
+
+    /**
+     * Discard the samples encoded so far, keeping the buffer for the next block.
+     */
+    public void reset() {
+        Arrays.fill(this.words, 0, (this.bitLength + 63) >>> 6, 0L);
+        this.bitLength = 0;
+        this.sampleCount = 0;
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    protected void writeDeltaOfDelta(long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            this.writeBits(0, 1);
+        } else if ((deltaOfDelta >= -63) && (deltaOfDelta <= 64)) {
+            this.writeBits(0b10, 2);
+            this.writeBits(deltaOfDelta + 63, 7);
+        } else if ((deltaOfDelta >= -255) && (deltaOfDelta <= 256)) {
+            this.writeBits(0b110, 3);
+            this.writeBits(deltaOfDelta + 255, 9);
+        } else if ((deltaOfDelta >= -2047) && (deltaOfDelta <= 2048)) {
+            this.writeBits(0b1110, 4);
+            this.writeBits(deltaOfDelta + 2047, 12);
+        } else if ((deltaOfDelta >= Integer.MIN_VALUE) && (deltaOfDelta <= Integer.MAX_VALUE)) {
+            this.writeBits(0b11110, 5);
+            this.writeBits(deltaOfDelta, 32);
+        } else {
+            this.writeBits(0b11111, 5);
+            this.writeBits(deltaOfDelta, 64);
+        }
+    }
+
+    protected void writeValue(long valueBits) {
+        long xor = valueBits ^ this.previousValueBits;
+
+        if (xor == 0) {
+            this.writeBits(0, 1);
+            return;
+        }
+
+        this.writeBits(1, 1);
+
+        int leadingZeros = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailingZeros = Long.numberOfTrailingZeros(xor);
+
+        if ((this.previousLeadingZeros != -1) && (leadingZeros >= this.previousLeadingZeros) &&
+                (trailingZeros >= this.previousTrailingZeros)) {
+
+            // Reuse the previous window of meaningful bits.
+            this.writeBits(0, 1);
+            this.writeBits(xor >>> this.previousTrailingZeros,
+                    64 - this.previousLeadingZeros - this.previousTrailingZeros);
+        } else {
+            int meaningfulBits = 64 - leadingZeros - trailingZeros;
+
+            this.writeBits(1, 1);
+            this.writeBits(leadingZeros, 5);
+            this.writeBits(meaningfulBits & 63, 6);
+            this.writeBits(xor >>> trailingZeros, meaningfulBits);
+
+            this.previousLeadingZeros = leadingZeros;
+            this.previousTrailingZeros = trailingZeros;
+        }
+    }
+
+    /**
+     * Write the low-order bits of the given value, most significant first.
+     *
+     * @param value value containing the bits.
+     * @param numBits number of bits to write, from 1 to 64.
+     */
+    protected void writeBits(long value, int numBits) {
+        int needed = (this.bitLength + numBits + 63) >>> 6;
+        if (needed > this.words.length) {
+            this.words = Arrays.copyOf(this.words, Math.max(needed, this.words.length * 2));
+        }
+
+        if (numBits < 64) {
+            value &= (1L << numBits) - 1;
+        }
+
+        int wordIndex = this.bitLength >>> 6;
+        int free = 64 - (this.bitLength & 63);
+
+        if (numBits <= free) {
+            this.words[wordIndex] |= value << (free - numBits);
+        } else {
+            int overflow = numBits - free;
+            this.words[wordIndex] |= value >>> overflow;
+            this.words[wordIndex + 1] |= value << (64 - overflow);
+        }
+
+        this.bitLength += numBits;
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only log of samples in memory-mapped segment files, so that the samples collected survive a restart of the
+ * collector.  Add it as a sink of a PollResultSampleRecorder to persist polled values as they are dispatched.
+ * <p/>
+ * Samples are appended to the active segment, which is rolled when it fills up or once it spans the roll interval.
+ * Each segment defines the series it uses, so any segment can be read, compacted or deleted on its own.  On open,
+ * the existing segments are scanned to restore the series to the registry and, optionally, replay the samples; the
+ * last segment is recovered up to its last complete record and appending continues there.
+ * <p/>
+ * Writes land in the page cache as they are appended and survive a crash of the process; call flush() to force them
+ * to the device as well.
+ */
+public class MappedSampleLog implements SampleSink {
+    private static final Logger DEFAULT_LOGGER = LoggerFactory.getLogger(MappedSampleLog.class);
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final int MIN_SEGMENT_SIZE = 1024;
+    public static final long DEFAULT_ROLL_INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+    private final File directory;
+    private final SeriesRegistry seriesRegistry;
+    private final int segmentSize;
+    private final long rollInterval;
+
+    private final List<SampleLogSegment> sealedSegments = new ArrayList<>();
+    private final BitSet rejectedSeries = new BitSet();
+    private SampleLogSegment activeSegment;
+    private long nextSegmentNumber = 0;
+
+    private Logger log = DEFAULT_LOGGER;
+
+    public MappedSampleLog(File directory, SeriesRegistry seriesRegistry) {
+        this(directory, seriesRegistry, DEFAULT_SEGMENT_SIZE, DEFAULT_ROLL_INTERVAL);
+    }
+
+    /**
+     * @param directory directory holding the segment files.
+     * @param seriesRegistry registry of the series logged.
+     * @param segmentSize size of each segment file, in bytes, at least MIN_SEGMENT_SIZE.
+     * @param rollInterval maximum time span of the samples in a segment, in milliseconds.
+     */
+    public MappedSampleLog(File directory, SeriesRegistry seriesRegistry, int segmentSize, long rollInterval) {
+        if (segmentSize < MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("segmentSize too small: " + segmentSize + " < " + MIN_SEGMENT_SIZE);
+        }
+        if (rollInterval <= 0) {
+            throw new IllegalArgumentException("rollInterval must be positive: " + rollInterval);
+        }
+
+        this.directory = directory;
+        this.seriesRegistry = seriesRegistry;
+        this.segmentSize = segmentSize;
+        this.rollInterval = rollInterval;
+    }
+
+    public Logger getLog() {
+        return log;
+    }
+
+    public void setLog(Logger log) {
+        this.log = log;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public SeriesRegistry getSeriesRegistry() {
+        return seriesRegistry;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public long getRollInterval() {
+        return rollInterval;
+    }
+
+    /**
+     * Open the log, recovering the existing segments.
+     *
+     * @param replaySink sink into which the recovered samples are replayed, such as an in-memory store; may be null.
+     * @throws IOException if the directory cannot be used.
+     */
+    public synchronized void open(SampleSink replaySink) throws IOException {
+        if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+            throw new IOException("failed to create sample log directory: " + this.directory);
+        }
+
+        RecoveryVisitor visitor = new RecoveryVisitor(replaySink);
+
+        for (File oneFile : listSegmentFiles(this.directory)) {
+            // Never reuse the number of a file, even one that cannot be read.
+            long fileNumber = SampleLogSegment.parseNumber(oneFile.getName());
+            this.nextSegmentNumber = Math.max(this.nextSegmentNumber, fileNumber + 1);
+
+            try {
+                SampleLogSegment segment = SampleLogSegment.open(oneFile, visitor);
+
+                if (this.activeSegment != null) {
+                    this.sealedSegments.add(this.activeSegment);
+                }
+                this.activeSegment = segment;
+            } catch (IOException ioExc) {
+                this.log.warn("skipping unreadable sample log segment {}", oneFile, ioExc);
+            }
+        }
+
+        this.log.info("recovered sample log: directory={}; segmentCount={}; sampleCount={}", this.directory,
+                this.sealedSegments.size() + ((this.activeSegment != null) ? 1 : 0), visitor.sampleCount);
+    }
+
+    /**
+     * Append a sample, rolling to a new segment as needed.  A series whose definition record does not fit in an empty
+     * segment is rejected, and its samples are dropped from then on, rather than rolling a new segment for each one.
+     */
+    @Override
+    public synchronized boolean append(int seriesId, long timestamp, double value) {
+        if ((seriesId >= 0) && (this.rejectedSeries.get(seriesId))) {
+            return false;
+        }
+
+        try {
+            if ((this.activeSegment == null) || (this.isRollDue(timestamp))) {
+                this.roll(timestamp);
+            }
+
+            if (!this.appendToActive(seriesId, timestamp, value)) {
+                // The active segment is full, unless it is empty and the series record can never fit.
+                if (!this.isActiveEmpty()) {
+                    this.roll(timestamp);
+                }
+
+                if (!this.appendToActive(seriesId, timestamp, value)) {
+                    this.rejectedSeries.set(seriesId);
+                    this.log.warn("series record does not fit in an empty segment; dropping its samples: " +
+                            "seriesId={}; segmentSize={}", seriesId, this.segmentSize);
+                    return false;
+                }
+            }
+
+            return true;
+        } catch (IOException ioExc) {
+            this.log.warn("failed to append to sample log: seriesId={}", seriesId, ioExc);
+            return false;
+        }
+    }
+
+    /**
+     * Seal the active segment, if any, and start a new one.
+     */
+    public synchronized void roll() throws IOException {
+        this.roll(System.currentTimeMillis());
+    }
+
+    /**
+     * Force the active segment to the storage device.
+     */
+    public synchronized void flush() {
+        if (this.activeSegment != null) {
+            this.activeSegment.force();
+        }
+    }
+
+    /**
+     * @return the sealed segments, oldest first; they are no longer written and may be compacted or deleted.
+     */
+    public synchronized List<SampleLogSegment> getSealedSegments() {
+        return Collections.unmodifiableList(new ArrayList<>(this.sealedSegments));
+    }
+
+    public synchronized SampleLogSegment getActiveSegment() {
+        return activeSegment;
+    }
+
+    /**
+     * Replace sealed segments with the given ones, such as after compaction.  The replacements are listed in order
+     * with the remaining sealed segments by segment number.
+     *
+     * @param removed sealed segments to remove from the log; their files are not touched.
+     * @param added segments to add as sealed segments.
+     */
+    public synchronized void replaceSealedSegments(List<SampleLogSegment> removed, List<SampleLogSegment> added) {
+        this.sealedSegments.removeAll(removed);
+        this.sealedSegments.addAll(added);
+
+        Collections.sort(this.sealedSegments, new Comparator<SampleLogSegment>() {
+            @Override
+            public int compare(SampleLogSegment first, SampleLogSegment second) {
+                return Long.compare(first.getNumber(), second.getNumber());
+            }
+        });
+    }
+
+    /**
+     * Flush and close all of the segments.
+     */
+    public synchronized void close() throws IOException {
+        if (this.activeSegment != null) {
+            this.activeSegment.force();
+            this.sealedSegments.add(this.activeSegment);
+            this.activeSegment = null;
+        }
+
+        for (SampleLogSegment oneSegment : this.sealedSegments) {
+            oneSegment.close();
+        }
+
+        this.sealedSegments.clear();
+    }
+
+    /**
+     * List the segment files in the given directory, in order of segment number.
+     */
+    public static List<File> listSegmentFiles(File directory) {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return SampleLogSegment.parseNumber(name) >= 0;
+            }
+        });
+
+        if (files == null) {
+            return Collections.emptyList();
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File first, File second) {
+                return Long.compare(SampleLogSegment.parseNumber(first.getName()),
+                        SampleLogSegment.parseNumber(second.getName()));
+            }
+        });
+
+        return Arrays.asList(files);
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    protected boolean isRollDue(long timestamp) {
+        long first = this.activeSegment.getFirstTimestamp();
+
+        return (first != Long.MAX_VALUE) && (timestamp - first >= this.rollInterval);
+    }
+
+    protected void roll(long creationTime) throws IOException {
+        SampleLogSegment segment =
+                SampleLogSegment.create(this.directory, this.nextSegmentNumber, this.segmentSize, creationTime);
+        this.nextSegmentNumber++;
+
+        if (this.activeSegment != null) {
+            this.activeSegment.force();
+            this.sealedSegments.add(this.activeSegment);
+        }
+
+        this.activeSegment = segment;
+    }
+
+    protected boolean isActiveEmpty() {
+        return this.activeSegment.getUsedSize() == SampleLogSegment.HEADER_SIZE;
+    }
+
+    protected boolean appendToActive(int seriesId, long timestamp, double value) {
+        if (!this.activeSegment.isSeriesDefined(seriesId)) {
+            SeriesKey key = this.seriesRegistry.getKey(seriesId);
+            if (key == null) {
+                throw new IllegalArgumentException("unknown series id " + seriesId);
+            }
+
+            if (!this.activeSegment.appendSeries(seriesId, key)) {
+                return false;
+            }
+        }
+
+        return this.activeSegment.appendSample(seriesId, timestamp, value);
+    }
+
+    /**
+     * Visitor restoring the series and replaying the samples of the segments on open.
+     */
+    protected class RecoveryVisitor implements SampleLogRecordVisitor {
+        private final SampleSink replaySink;
+        private long sampleCount = 0;
+
+        public RecoveryVisitor(SampleSink replaySink) {
+            this.replaySink = replaySink;
+        }
+
+        @Override
+        public void onSeries(int seriesId, SeriesKey key) {
+            try {
+                seriesRegistry.register(key, seriesId);
+            } catch (IllegalStateException isExc) {
+                log.warn("conflicting series definition in sample log: seriesId={}; key={}", seriesId, key, isExc);
+            }
+        }
+
+        @Override
+        public void onSample(int seriesId, long timestamp, double value) {
+            this.sampleCount++;
+
+            if (this.replaySink != null) {
+                this.replaySink.append(seriesId, timestamp, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Store of the last N samples of each series in off-heap ring buffers of primitive (timestamp, value) pairs, so that
+ * the history of a large number of series does not occupy the java heap as boxed objects.
+ * <p/>
+ * The ring of each series occupies a fixed slot indexed by series ID: an 8-byte count of the samples ever appended,
+ * followed by N 16-byte samples.  Slots are allocated in direct buffers of up to 64 MB as series IDs are first used.
+ * Appends for one series are expected from a single thread; scans may run concurrently and see a consistent ring.
+ */
+public class OffHeapSampleStore implements SampleStore {
+    public static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    private static final int HEADER_SIZE = 8;
+    private static final int SAMPLE_SIZE = 16;
+    private static final int LOCK_STRIPES = 64;
+
+    private final SeriesRegistry seriesRegistry;
+    private final int maxSeries;
+    private final int samplesPerSeries;
+
+    private final int slotSize;
+    private final int seriesPerChunk;
+    private final AtomicReferenceArray<ByteBuffer> chunks;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /**
+     * @param seriesRegistry registry of the series held.
+     * @param maxSeries maximum number of series; samples of series with higher IDs are rejected.
+     * @param samplesPerSeries number of samples kept per series.
+     */
+    public OffHeapSampleStore(SeriesRegistry seriesRegistry, int maxSeries, int samplesPerSeries) {
+        if (maxSeries < 1) {
+            throw new IllegalArgumentException("maxSeries must be positive: " + maxSeries);
+        }
+        if ((samplesPerSeries < 1) || (samplesPerSeries > (MAX_CHUNK_SIZE - HEADER_SIZE) / SAMPLE_SIZE)) {
+            throw new IllegalArgumentException("invalid samplesPerSeries: " + samplesPerSeries);
+        }
+
+        this.seriesRegistry = seriesRegistry;
+        this.maxSeries = maxSeries;
+        this.samplesPerSeries = samplesPerSeries;
+
+        this.slotSize = HEADER_SIZE + (samplesPerSeries * SAMPLE_SIZE);
+        this.seriesPerChunk = Math.min(maxSeries, MAX_CHUNK_SIZE / this.slotSize);
+        this.chunks = new AtomicReferenceArray<>((maxSeries + this.seriesPerChunk - 1) / this.seriesPerChunk);
+
+        for (int cur = 0; cur < LOCK_STRIPES; cur++) {
+            this.locks[cur] = new Object();
+        }
+    }
+
+    @Override
+    public SeriesRegistry getSeriesRegistry() {
+        return seriesRegistry;
+    }
+
+    public int getMaxSeries() {
+        return maxSeries;
+    }
+
+    public int getSamplesPerSeries() {
+        return samplesPerSeries;
+    }
+
+    /**
+     * @return number of bytes of off-heap memory allocated so far.
+     */
+    public long getAllocatedBytes() {
+        long result = 0;
+        for (int cur = 0; cur < this.chunks.length(); cur++) {
+            ByteBuffer chunk = this.chunks.get(cur);
+            if (chunk != null) {
+                result += chunk.capacity();
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean append(int seriesId, long timestamp, double value) {
+        if ((seriesId < 0) || (seriesId >= this.maxSeries)) {
+            return false;
+        }
+
+        ByteBuffer chunk = this.getChunk(seriesId, true);
+        int slot = this.getSlotOffset(seriesId);
+
+        synchronized (this.getLock(seriesId)) {
+            long count = chunk.getLong(slot);
+
+            // Reject samples older than the latest one to keep the ring in timestamp order.
+            if ((count > 0) && (timestamp < chunk.getLong(this.getSampleOffset(slot, count - 1)))) {
+                return false;
+            }
+
+            int offset = this.getSampleOffset(slot, count);
+            chunk.putLong(offset, timestamp);
+            chunk.putDouble(offset + 8, value);
+            chunk.putLong(slot, count + 1);
+        }
+
+        return true;
+    }
+
+    @Override
+    public int getSampleCount(int seriesId) {
+        ByteBuffer chunk = this.getChunk(seriesId, false);
+        if (chunk == null) {
+            return 0;
+        }
+
+        synchronized (this.getLock(seriesId)) {
+            return (int) Math.min(chunk.getLong(this.getSlotOffset(seriesId)), this.samplesPerSeries);
+        }
+    }
+
+    @Override
+    public int scan(int seriesId, long fromTime, long toTime, SampleVisitor visitor) {
+        ByteBuffer chunk = this.getChunk(seriesId, false);
+        if (chunk == null) {
+            return 0;
+        }
+
+        int slot = this.getSlotOffset(seriesId);
+        int result = 0;
+
+        synchronized (this.getLock(seriesId)) {
+            long count = chunk.getLong(slot);
+            long first = Math.max(0, count - this.samplesPerSeries);
+
+            for (long seq = first; seq < count; seq++) {
+                int offset = this.getSampleOffset(slot, seq);
+                long timestamp = chunk.getLong(offset);
+
+                if (timestamp > toTime) {
+                    break;
+                }
+
+                if (timestamp >= fromTime) {
+                    visitor.onSample(timestamp, chunk.getDouble(offset + 8));
+                    result++;
+                }
+            }
+        }
+
+        return result;
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    protected ByteBuffer getChunk(int seriesId, boolean create) {
+        if ((seriesId < 0) || (seriesId >= this.maxSeries)) {
+            return null;
+        }
+
+        int index = seriesId / this.seriesPerChunk;
+        ByteBuffer result = this.chunks.get(index);
+
+        if ((result == null) && (create)) {
+            synchronized (this.chunks) {
+                result = this.chunks.get(index);
+                if (result == null) {
+                    int chunkSeries = Math.min(this.seriesPerChunk, this.maxSeries - (index * this.seriesPerChunk));
+
+                    // Direct buffers start zeroed, so every ring starts out empty.
+                    result = ByteBuffer.allocateDirect(chunkSeries * this.slotSize).order(ByteOrder.nativeOrder());
+                    this.chunks.set(index, result);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    protected int getSlotOffset(int seriesId) {
+        return (seriesId % this.seriesPerChunk) * this.slotSize;
+    }
+
+    protected int getSampleOffset(int slotOffset, long sequence) {
+        return slotOffset + HEADER_SIZE + (int) (sequence % this.samplesPerSeries) * SAMPLE_SIZE;
+    }
+
+    protected Object getLock(int seriesId) {
+        return this.locks[seriesId & (LOCK_STRIPES - 1)];
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import com.amlinv.jmxutil.polling.PollResultEvent;
+import com.amlinv.jmxutil.polling.PollResultListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Listener for poll results that records the numeric values polled from one target as samples of the series in a
+ * registry, appending them to each of its sample sinks.  Register it with JmxAttributePoller.addPollResultListener()
+ * so that recording runs on the ring buffer's consumer thread; non-numeric values are ignored, and booleans are
+ * recorded as 1 or 0.
+ * <p/>
+ * Series IDs are cached by object name and attribute name so that recording a known series does not allocate.
+ */
+public class PollResultSampleRecorder implements PollResultListener {
+    private static final Logger DEFAULT_LOGGER = LoggerFactory.getLogger(PollResultSampleRecorder.class);
+
+    private final String target;
+    private final SeriesRegistry seriesRegistry;
+    private volatile SampleSink[] sinks = new SampleSink[0];
+
+    // Only accessed from the consumer thread.
+    private final Map<ObjectName, Map<String, Integer>> seriesIds = new HashMap<>();
+
+    private Logger log = DEFAULT_LOGGER;
+
+    /**
+     * @param target name of the polled target, used in the keys of the series.
+     * @param seriesRegistry registry of the series.
+     */
+    public PollResultSampleRecorder(String target, SeriesRegistry seriesRegistry) {
+        this.target = target;
+        this.seriesRegistry = seriesRegistry;
+    }
+
+    public Logger getLog() {
+        return log;
+    }
+
+    public void setLog(Logger log) {
+        this.log = log;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public SeriesRegistry getSeriesRegistry() {
+        return seriesRegistry;
+    }
+
+    public synchronized void addSink(SampleSink sink) {
+        SampleSink[] updated = Arrays.copyOf(this.sinks, this.sinks.length + 1);
+        updated[updated.length - 1] = sink;
+        this.sinks = updated;
+    }
+
+    public synchronized void removeSink(SampleSink sink) {
+        List<SampleSink> updated = new ArrayList<>(Arrays.asList(this.sinks));
+        updated.remove(sink);
+        this.sinks = updated.toArray(new SampleSink[updated.size()]);
+    }
+
+    public List<SampleSink> getSinks() {
+        return Arrays.asList(this.sinks.clone());
+    }
+
+    @Override
+    public void onPollResult(PollResultEvent event) {
+        ObjectName objectName = event.getObjectName();
+        Object value = event.getValue();
+
+        if (objectName == null) {
+            return;
+        }
+
+        double sampleValue;
+        if (value instanceof Number) {
+            sampleValue = ((Number) value).doubleValue();
+        } else if (value instanceof Boolean) {
+            sampleValue = ((Boolean) value) ? 1.0 : 0.0;
+        } else {
+            return;
+        }
+
+        int seriesId = this.getSeriesId(objectName, event.getAttributeName());
+
+        for (SampleSink oneSink : this.sinks) {
+            if (!oneSink.append(seriesId, event.getTimestamp(), sampleValue)) {
+                this.log.debug("sample rejected by sink: sink={}; event={}", oneSink, event);
+            }
+        }
+    }
+
+    protected int getSeriesId(ObjectName objectName, String attributeName) {
+        Map<String, Integer> attributeIds = this.seriesIds.get(objectName);
+        if (attributeIds == null) {
+            attributeIds = new HashMap<>();
+            this.seriesIds.put(objectName, attributeIds);
+        }
+
+        Integer result = attributeIds.get(attributeName);
+        if (result == null) {
+            result = this.seriesRegistry.getOrCreateId(new SeriesKey(this.target, objectName, attributeName));
+            attributeIds.put(attributeName, result);
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable sketch of the distribution of a stream of values, from which quantiles are estimated with a bounded
+ * relative error, after the DDSketch design.  Positive values are counted in logarithmically-spaced buckets: a value
+ * v falls in bucket ceil(log(v) / log(gamma)), where gamma = (1 + alpha) / (1 - alpha) for the relative accuracy
+ * alpha, and each bucket is represented by the value within alpha of every value in it.
+ * <p/>
+ * Memory is bounded by the maximum number of buckets: the bucket array grows as needed up to that limit, after which
+ * the lowest buckets are collapsed together, so that only the accuracy of the lowest quantiles suffers.  Values of
+ * zero or less, which are not expected of latencies, are counted together as zero.
+ * <p/>
+ * Only sketches with the same relative accuracy and maximum number of buckets merge.  The merged buckets are then
+ * identical to those of one sketch that received all of the values of both, collapsed or not, since collapsing only
+ * ever folds the lowest buckets into the lowest bucket within the maximum of the highest; only the sum may differ,
+ * by floating-point rounding.  Not thread-safe.
+ */
+public class QuantileSketch {
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.02;
+    public static final int DEFAULT_MAX_BUCKETS = 512;
+
+    private static final int INITIAL_BUCKETS = 32;
+
+    private final double relativeAccuracy;
+    private final int maxBuckets;
+    private final double gamma;
+    private final double logGamma;
+
+    // Counts of the buckets from index offset to offset + buckets.length - 1.
+    private long[] buckets = new long[0];
+    private int offset = 0;
+    private int minIndex = Integer.MAX_VALUE;
+    private int maxIndex = Integer.MIN_VALUE;
+
+    private long zeroCount = 0;
+    private long count = 0;
+    private double sum = 0.0;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY, DEFAULT_MAX_BUCKETS);
+    }
+
+    /**
+     * @param relativeAccuracy bound of the relative error of the quantiles, greater than 0 and less than 1.
+     * @param maxBuckets maximum number of buckets, and so of the memory used.
+     */
+    public QuantileSketch(double relativeAccuracy, int maxBuckets) {
+        if ((!(relativeAccuracy > 0.0)) || (relativeAccuracy >= 1.0)) {
+            throw new IllegalArgumentException("relative accuracy must be between 0 and 1: " + relativeAccuracy);
+        }
+        if (maxBuckets < 2) {
+            throw new IllegalArgumentException("max buckets must be at least 2: " + maxBuckets);
+        }
+
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxBuckets = maxBuckets;
+        this.gamma = (1.0 + relativeAccuracy) / (1.0 - relativeAccuracy);
+        this.logGamma = Math.log(this.gamma);
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    public int getMaxBuckets() {
+        return maxBuckets;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return this.count == 0;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * @return the smallest value added, or NaN if the sketch is empty.
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * @return the largest value added, or NaN if the sketch is empty.
+     */
+    public double getMax() {
+        return max;
+    }
+
+    public void add(double value) {
+        this.add(value, 1);
+    }
+
+    /**
+     * Add a value a number of times.  NaN and infinite values are ignored.
+     */
+    public void add(double value, long times) {
+        if (times < 0) {
+            throw new IllegalArgumentException("times must not be negative: " + times);
+        }
+
+        if ((times == 0) || Double.isNaN(value) || Double.isInfinite(value)) {
+            return;
+        }
+
+        this.count += times;
+        this.sum += value * times;
+        this.min = Double.isNaN(this.min) ? value : Math.min(this.min, value);
+        this.max = Double.isNaN(this.max) ? value : Math.max(this.max, value);
+
+        if (value <= 0.0) {
+            this.zeroCount += times;
+        } else {
+            this.addToBucket(this.getIndex(value), times);
+        }
+    }
+
+    /**
+     * Add all of the values of another sketch to this one.
+     *
+     * @throws IllegalArgumentException if the other sketch has a different relative accuracy or maximum number of
+     * buckets.
+     */
+    public void merge(QuantileSketch other) {
+        if (other.gamma != this.gamma) {
+            throw new IllegalArgumentException("cannot merge sketches of different relative accuracy: " +
+                    this.relativeAccuracy + " and " + other.relativeAccuracy);
+        }
+        if (other.maxBuckets != this.maxBuckets) {
+            throw new IllegalArgumentException("cannot merge sketches of different max buckets: " +
+                    this.maxBuckets + " and " + other.maxBuckets);
+        }
+
+        if (other.count == 0) {
+            return;
+        }
+
+        for (int index = other.minIndex; index <= other.maxIndex; index++) {
+            long bucketCount = other.buckets[index - other.offset];
+            if (bucketCount > 0) {
+                this.addToBucket(index, bucketCount);
+            }
+        }
+
+        this.zeroCount += other.zeroCount;
+        this.count += other.count;
+        this.sum += other.sum;
+        this.min = Double.isNaN(this.min) ? other.min : Math.min(this.min, other.min);
+        this.max = Double.isNaN(this.max) ? other.max : Math.max(this.max, other.max);
+    }
+
+    /**
+     * Estimate a quantile of the values added.
+     *
+     * @param quantile the quantile, from 0 to 1 (e.g. 0.99 for the 99th percentile).
+     * @return estimate of the quantile within the relative accuracy, exact for 0 and 1, or NaN if the sketch is empty.
+     */
+    public double getQuantile(double quantile) {
+        if ((!(quantile >= 0.0)) || (quantile > 1.0)) {
+            throw new IllegalArgumentException("quantile must be from 0 to 1: " + quantile);
+        }
+
+        if (this.count == 0) {
+            return Double.NaN;
+        }
+
+        // The extremes are known exactly.
+        if (quantile == 0.0) {
+            return this.min;
+        }
+        if (quantile == 1.0) {
+            return this.max;
+        }
+
+        double rank = quantile * (this.count - 1);
+
+        long cumulative = this.zeroCount;
+        if (rank < cumulative) {
+            return Math.min(0.0, this.max);
+        }
+
+        for (int index = this.minIndex; index <= this.maxIndex; index++) {
+            cumulative += this.buckets[index - this.offset];
+
+            if (rank < cumulative) {
+                return Math.max(this.min, Math.min(this.max, this.getBucketValue(index)));
+            }
+        }
+
+        return this.max;
+    }
+
+    /**
+     * @return number of buckets currently allocated.
+     */
+    public int getAllocatedBuckets() {
+        return this.buckets.length;
+    }
+
+    public void clear() {
+        Arrays.fill(this.buckets, 0L);
+        this.minIndex = Integer.MAX_VALUE;
+        this.maxIndex = Integer.MIN_VALUE;
+        this.zeroCount = 0;
+        this.count = 0;
+        this.sum = 0.0;
+        this.min = Double.NaN;
+        this.max = Double.NaN;
+    }
+
+    public QuantileSketch copy() {
+        QuantileSketch result = new QuantileSketch(this.relativeAccuracy, this.maxBuckets);
+        result.merge(this);
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "QuantileSketch{relativeAccuracy=" + relativeAccuracy + ", count=" + count + ", min=" + min +
+                ", max=" + max + "}";
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    protected int getIndex(double value) {
+        return (int) Math.ceil(Math.log(value) / this.logGamma);
+    }
+
+    protected double getBucketValue(int index) {
+        return 2.0 * Math.pow(this.gamma, index) / (this.gamma + 1.0);
+    }
+
+    protected void addToBucket(int index, long times) {
+        if (this.minIndex <= this.maxIndex) {
+            int high = Math.max(this.maxIndex, index);
+            int low = Math.min(this.minIndex, index);
+
+            if (high - low + 1 > this.maxBuckets) {
+                int collapseBelow = high - this.maxBuckets + 1;
+                this.collapseBelow(collapseBelow);
+                index = Math.max(index, collapseBelow);
+            }
+        }
+
+        this.place(index, times);
+    }
+
+    /**
+     * Move the counts of all of the buckets below the given index into the bucket of that index.
+     */
+    protected void collapseBelow(int newMinIndex) {
+        long collapsed = 0;
+        int end = Math.min(newMinIndex - 1, this.maxIndex);
+
+        for (int index = this.minIndex; index <= end; index++) {
+            collapsed += this.buckets[index - this.offset];
+            this.buckets[index - this.offset] = 0;
+        }
+
+        if (this.maxIndex < newMinIndex) {
+            this.minIndex = Integer.MAX_VALUE;
+            this.maxIndex = Integer.MIN_VALUE;
+        } else {
+            this.minIndex = newMinIndex;
+        }
+
+        if (collapsed > 0) {
+            this.place(newMinIndex, collapsed);
+        }
+    }
+
+    /**
+     * Add to the count of a bucket, growing or shifting the bucket array as needed; the range of the non-empty
+     * buckets, including the given one, must not exceed the maximum number of buckets.
+     */
+    protected void place(int index, long times) {
+        int low = index;
+        int high = index;
+        if (this.minIndex <= this.maxIndex) {
+            low = Math.min(this.minIndex, index);
+            high = Math.max(this.maxIndex, index);
+        }
+
+        int length = this.buckets.length;
+        if ((low < this.offset) || (high >= this.offset + length) || (length == 0)) {
+            int span = high - low + 1;
+            if (span > length) {
+                length = Math.min(this.maxBuckets, Math.max(Math.max(INITIAL_BUCKETS, length * 2), span));
+            }
+
+            // Center the range in the array, leaving room to grow in either direction.
+            int newOffset = low - ((length - span) / 2);
+            this.relayout(length, newOffset);
+        }
+
+        this.buckets[index - this.offset] += times;
+        this.minIndex = low;
+        this.maxIndex = high;
+    }
+
+    protected void relayout(int length, int newOffset) {
+        long[] target = (length == this.buckets.length) ? this.buckets : new long[length];
+
+        if (this.minIndex <= this.maxIndex) {
+            int span = this.maxIndex - this.minIndex + 1;
+            int source = this.minIndex - this.offset;
+            int destination = this.minIndex - newOffset;
+
+            System.arraycopy(this.buckets, source, target, destination, span);
+
+            Arrays.fill(target, 0, destination, 0L);
+            Arrays.fill(target, destination + span, length, 0L);
+        }
+
+        this.buckets = target;
+        this.offset = newOffset;
+    }
+}
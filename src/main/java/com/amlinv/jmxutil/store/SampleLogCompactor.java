@@ -0,0 +1,502 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background maintenance of the sealed segments of a MappedSampleLog, meant to be run periodically (e.g. from a
+ * ScheduledExecutorService):
+ * <ul>
+ *     <li>segments holding only samples older than the retention period are deleted;</li>
+ *     <li>segments holding only samples older than the rollup age are downsampled to the rollup interval, keeping the
+ *     average of each interval, timestamped at its start (the average of a counter remains monotonic, so rates can
+ *     still be computed from the rollups);</li>
+ *     <li>runs of adjacent small segments are merged into one segment of up to the merge target size.</li>
+ * </ul>
+ * Only sealed segments are touched, so the writer appending to the active segment is never blocked beyond the brief
+ * exchange of the segment list.  Each replacement segment is written to a temporary file, forced to the device and
+ * renamed into place before the segments it replaces are deleted, so a crash part-way leaves, at worst, duplicate
+ * samples, which are dropped by the next compaction.
+ */
+public class SampleLogCompactor implements Runnable {
+    private static final Logger DEFAULT_LOGGER = LoggerFactory.getLogger(SampleLogCompactor.class);
+
+    public static final long DEFAULT_RETENTION = TimeUnit.DAYS.toMillis(7);
+    public static final long DEFAULT_ROLLUP_AGE = TimeUnit.DAYS.toMillis(1);
+    public static final long DEFAULT_ROLLUP_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final MappedSampleLog sampleLog;
+
+    private long retention = DEFAULT_RETENTION;
+    private long rollupAge = DEFAULT_ROLLUP_AGE;
+    private long rollupInterval = DEFAULT_ROLLUP_INTERVAL;
+    private int mergeTargetSize;
+
+    private volatile long deletedSegmentCount = 0;
+    private volatile long rewrittenSegmentCount = 0;
+
+    private Logger log = DEFAULT_LOGGER;
+
+    public SampleLogCompactor(MappedSampleLog sampleLog) {
+        this.sampleLog = sampleLog;
+        this.mergeTargetSize = sampleLog.getSegmentSize();
+    }
+
+    public Logger getLog() {
+        return log;
+    }
+
+    public void setLog(Logger log) {
+        this.log = log;
+    }
+
+    public MappedSampleLog getSampleLog() {
+        return sampleLog;
+    }
+
+    public long getRetention() {
+        return retention;
+    }
+
+    /**
+     * @param retention age, in milliseconds, beyond which samples are deleted.
+     */
+    public void setRetention(long retention) {
+        if (retention <= 0) {
+            throw new IllegalArgumentException("retention must be positive: " + retention);
+        }
+
+        this.retention = retention;
+    }
+
+    public long getRollupAge() {
+        return rollupAge;
+    }
+
+    /**
+     * @param rollupAge age, in milliseconds, beyond which samples are downsampled.
+     */
+    public void setRollupAge(long rollupAge) {
+        if (rollupAge <= 0) {
+            throw new IllegalArgumentException("rollupAge must be positive: " + rollupAge);
+        }
+
+        this.rollupAge = rollupAge;
+    }
+
+    public long getRollupInterval() {
+        return rollupInterval;
+    }
+
+    /**
+     * @param rollupInterval interval, in milliseconds, to which old samples are downsampled.
+     */
+    public void setRollupInterval(long rollupInterval) {
+        if (rollupInterval <= 0) {
+            throw new IllegalArgumentException("rollupInterval must be positive: " + rollupInterval);
+        }
+
+        this.rollupInterval = rollupInterval;
+    }
+
+    public int getMergeTargetSize() {
+        return mergeTargetSize;
+    }
+
+    /**
+     * @param mergeTargetSize maximum combined size, in bytes, of the used space of segments merged into one.
+     */
+    public void setMergeTargetSize(int mergeTargetSize) {
+        if (mergeTargetSize <= SampleLogSegment.HEADER_SIZE) {
+            throw new IllegalArgumentException("mergeTargetSize too small: " + mergeTargetSize);
+        }
+
+        this.mergeTargetSize = mergeTargetSize;
+    }
+
+    public long getDeletedSegmentCount() {
+        return deletedSegmentCount;
+    }
+
+    /**
+     * @return number of segments replaced by merged or downsampled segments.
+     */
+    public long getRewrittenSegmentCount() {
+        return rewrittenSegmentCount;
+    }
+
+    @Override
+    public void run() {
+        try {
+            this.compact(System.currentTimeMillis());
+        } catch (Exception exc) {
+            this.log.warn("sample log compaction failed: directory={}", this.sampleLog.getDirectory(), exc);
+        }
+    }
+
+    /**
+     * Apply retention, downsampling and merging to the sealed segments of the log.
+     *
+     * @param now current time, in the same time base as the sample timestamps.
+     */
+    public synchronized void compact(long now) throws IOException {
+        this.deleteTempFiles();
+
+        List<SampleLogSegment> remaining = this.applyRetention(now - this.retention);
+
+        long rollupCutoff = now - this.rollupAge;
+        List<SampleLogSegment> run = new ArrayList<>();
+        boolean runRollup = false;
+        long runSize = 0;
+        long previousLast = Long.MIN_VALUE;
+
+        // Neighbouring timestamps are captured up-front, since completing a run replaces its segments.
+        long[] lastTimestamps = new long[remaining.size()];
+        for (int cur = 0; cur < lastTimestamps.length; cur++) {
+            lastTimestamps[cur] = remaining.get(cur).getLastTimestamp();
+        }
+
+        for (int cur = 0; cur < remaining.size(); cur++) {
+            SampleLogSegment oneSegment = remaining.get(cur);
+            boolean rollup = this.isRollupCandidate(oneSegment, rollupCutoff);
+            long used = oneSegment.getUsedSize() - SampleLogSegment.HEADER_SIZE;
+
+            if ((!run.isEmpty()) &&
+                    ((rollup != runRollup) || (runSize + used + SampleLogSegment.HEADER_SIZE > this.mergeTargetSize))) {
+
+                this.completeRun(run, runRollup, previousLast, oneSegment.getFirstTimestamp());
+                previousLast = lastTimestamps[cur - 1];
+                run.clear();
+                runSize = 0;
+            }
+
+            run.add(oneSegment);
+            runRollup = rollup;
+            runSize += used;
+        }
+
+        if (!run.isEmpty()) {
+            SampleLogSegment active = this.sampleLog.getActiveSegment();
+            long nextFirst = (active != null) ? active.getFirstTimestamp() : Long.MAX_VALUE;
+
+            this.completeRun(run, runRollup, previousLast, nextFirst);
+        }
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    /**
+     * Delete the sealed segments holding only samples older than the cutoff.
+     *
+     * @return the remaining sealed segments.
+     */
+    protected List<SampleLogSegment> applyRetention(long cutoff) {
+        List<SampleLogSegment> expired = new ArrayList<>();
+        List<SampleLogSegment> remaining = new ArrayList<>();
+
+        for (SampleLogSegment oneSegment : this.sampleLog.getSealedSegments()) {
+            long last = oneSegment.getLastTimestamp();
+
+            if ((last != Long.MIN_VALUE) && (last < cutoff)) {
+                expired.add(oneSegment);
+            } else {
+                remaining.add(oneSegment);
+            }
+        }
+
+        if (!expired.isEmpty()) {
+            this.sampleLog.replaceSealedSegments(expired, Collections.<SampleLogSegment>emptyList());
+            this.deleteSegments(expired);
+
+            this.deletedSegmentCount += expired.size();
+            this.log.debug("deleted expired sample log segments: count={}", expired.size());
+        }
+
+        return remaining;
+    }
+
+    protected boolean isRollupCandidate(SampleLogSegment segment, long cutoff) {
+        if (segment.getResolution() == this.rollupInterval) {
+            return true;
+        }
+
+        long last = segment.getLastTimestamp();
+
+        return (last != Long.MIN_VALUE) && (last < this.alignToInterval(cutoff));
+    }
+
+    /**
+     * Rewrite a run of adjacent segments, if doing so merges or downsamples any of them.  An interval that the
+     * neighbouring segments also hold samples for is not complete within the run, so its samples are copied as-is
+     * rather than averaged; they get rolled up once a later compaction merges the run with those neighbours.
+     *
+     * @param previousLast last timestamp of the segment before the run, or Long.MIN_VALUE if there is none.
+     * @param nextFirst first timestamp of the segment after the run, or Long.MAX_VALUE if there is none.
+     */
+    protected void completeRun(List<SampleLogSegment> run, boolean rollup, long previousLast, long nextFirst)
+            throws IOException {
+
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (SampleLogSegment oneSegment : run) {
+            first = Math.min(first, oneSegment.getFirstTimestamp());
+            last = Math.max(last, oneSegment.getLastTimestamp());
+        }
+
+        // Merge several segments, or drop a segment that holds no samples.
+        boolean needsRewrite = (run.size() > 1) || (last == Long.MIN_VALUE);
+
+        if ((!needsRewrite) && (rollup)) {
+            needsRewrite = (run.get(0).getResolution() != this.rollupInterval);
+        }
+
+        if (!needsRewrite) {
+            return;
+        }
+
+        if ((!rollup) || (last == Long.MIN_VALUE)) {
+            this.rewrite(run, 0L, Long.MIN_VALUE, Long.MAX_VALUE);
+            return;
+        }
+
+        long copyBefore = Long.MIN_VALUE;
+        long firstInterval = this.alignToInterval(first);
+        if (previousLast >= firstInterval) {
+            copyBefore = firstInterval + this.rollupInterval;
+        }
+
+        long copyFrom = Long.MAX_VALUE;
+        long lastInterval = this.alignToInterval(last);
+        if (nextFirst < lastInterval + this.rollupInterval) {
+            copyFrom = lastInterval;
+        }
+
+        this.rewrite(run, this.rollupInterval, copyBefore, copyFrom);
+    }
+
+    /**
+     * Rewrite the inputs into a single segment.
+     *
+     * @param resolution interval to downsample to, or 0 to copy all of the samples.
+     * @param copyBefore samples older than this timestamp are copied rather than downsampled.
+     * @param copyFrom samples at or after this timestamp are copied rather than downsampled.
+     */
+    protected void rewrite(List<SampleLogSegment> inputs, long resolution, long copyBefore, long copyFrom)
+            throws IOException {
+
+        SampleLogSegment lastInput = inputs.get(inputs.size() - 1);
+        long number = lastInput.getNumber();
+
+        long size = SampleLogSegment.HEADER_SIZE;
+        for (SampleLogSegment oneSegment : inputs) {
+            size += oneSegment.getUsedSize() - SampleLogSegment.HEADER_SIZE;
+        }
+
+        File tempFile = new File(this.sampleLog.getDirectory(), SampleLogSegment.getFileName(number) + TEMP_SUFFIX);
+        SampleLogSegment output =
+                SampleLogSegment.create(tempFile, number, (int) size, lastInput.getCreationTime(), resolution);
+
+        RewriteVisitor visitor = new RewriteVisitor(output, resolution, copyBefore, copyFrom);
+        try {
+            for (SampleLogSegment oneSegment : inputs) {
+                oneSegment.scan(visitor);
+            }
+            visitor.flushAll();
+
+            output.force();
+        } finally {
+            output.close();
+        }
+
+        List<SampleLogSegment> replacements = new ArrayList<>();
+        List<SampleLogSegment> obsolete = new ArrayList<>(inputs);
+
+        if (visitor.writtenCount > 0) {
+            // The replacement takes the place of the last input, so that segment files remain in order.
+            Files.move(tempFile.toPath(), lastInput.getFile().toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            replacements.add(SampleLogSegment.open(lastInput.getFile(), null));
+
+            obsolete.remove(lastInput);
+            lastInput.close();
+        } else if (!tempFile.delete()) {
+            this.log.warn("failed to delete temporary sample log file {}", tempFile);
+        }
+
+        this.sampleLog.replaceSealedSegments(inputs, replacements);
+        this.deleteSegments(obsolete);
+
+        this.rewrittenSegmentCount += inputs.size();
+        this.log.debug("rewrote sample log segments: number={}; resolution={}; sampleCount={}", number, resolution,
+                visitor.writtenCount);
+    }
+
+    protected void deleteSegments(List<SampleLogSegment> segments) {
+        for (SampleLogSegment oneSegment : segments) {
+            try {
+                oneSegment.close();
+            } catch (IOException ioExc) {
+                this.log.debug("failed to close sample log segment {}", oneSegment.getFile(), ioExc);
+            }
+
+            if (!oneSegment.getFile().delete()) {
+                this.log.warn("failed to delete sample log segment {}", oneSegment.getFile());
+            }
+        }
+    }
+
+    /**
+     * Delete temporary files left behind by a compaction that was interrupted.
+     */
+    protected void deleteTempFiles() {
+        File[] files = this.sampleLog.getDirectory().listFiles();
+        if (files == null) {
+            return;
+        }
+
+        for (File oneFile : files) {
+            String name = oneFile.getName();
+
+            if ((name.endsWith(TEMP_SUFFIX)) &&
+                    (SampleLogSegment.isSegmentFileName(name.substring(0, name.length() - TEMP_SUFFIX.length())))) {
+
+                if (!oneFile.delete()) {
+                    this.log.warn("failed to delete temporary sample log file {}", oneFile);
+                }
+            }
+        }
+    }
+
+    protected long alignToInterval(long timestamp) {
+        return TimestampUtil.alignDown(timestamp, this.rollupInterval);
+    }
+
+    /**
+     * Visitor copying the records of the input segments into the output segment, downsampling when a resolution is
+     * given and dropping samples that are not newer than the last one written for the series.  Samples outside of
+     * [copyBefore, copyFrom) are copied as-is even when downsampling.
+     */
+    protected class RewriteVisitor implements SampleLogRecordVisitor {
+        private final SampleLogSegment output;
+        private final long resolution;
+        private final long copyBefore;
+        private final long copyFrom;
+        private final Map<Integer, SeriesKey> keys = new HashMap<>();
+        private final Map<Integer, SeriesState> states = new HashMap<>();
+        private long writtenCount = 0;
+
+        public RewriteVisitor(SampleLogSegment output, long resolution, long copyBefore, long copyFrom) {
+            this.output = output;
+            this.resolution = resolution;
+            this.copyBefore = copyBefore;
+            this.copyFrom = copyFrom;
+        }
+
+        @Override
+        public void onSeries(int seriesId, SeriesKey key) {
+            this.keys.put(seriesId, key);
+        }
+
+        @Override
+        public void onSample(int seriesId, long timestamp, double value) {
+            SeriesState state = this.states.get(seriesId);
+            if (state == null) {
+                state = new SeriesState();
+                this.states.put(seriesId, state);
+            }
+
+            if (timestamp <= state.lastInputTimestamp) {
+                return;
+            }
+            state.lastInputTimestamp = timestamp;
+
+            if ((this.resolution <= 0) || (timestamp < this.copyBefore) || (timestamp >= this.copyFrom)) {
+                if (state.count > 0) {
+                    this.flush(seriesId, state);
+                }
+
+                this.write(seriesId, timestamp, value);
+                return;
+            }
+
+            long bucket = alignToInterval(timestamp);
+            if ((state.count > 0) && (bucket != state.bucket)) {
+                this.flush(seriesId, state);
+            }
+
+            state.bucket = bucket;
+            state.sum += value;
+            state.count++;
+        }
+
+        public void flushAll() {
+            for (Map.Entry<Integer, SeriesState> oneEntry : this.states.entrySet()) {
+                if (oneEntry.getValue().count > 0) {
+                    this.flush(oneEntry.getKey(), oneEntry.getValue());
+                }
+            }
+        }
+
+        protected void flush(int seriesId, SeriesState state) {
+            this.write(seriesId, state.bucket, state.sum / state.count);
+
+            state.sum = 0;
+            state.count = 0;
+        }
+
+        protected void write(int seriesId, long timestamp, double value) {
+            if (!this.output.isSeriesDefined(seriesId)) {
+                SeriesKey key = this.keys.get(seriesId);
+                if ((key == null) || (!this.output.appendSeries(seriesId, key))) {
+                    throw new IllegalStateException("cannot define series " + seriesId + " in compacted segment");
+                }
+            }
+
+            // The output is sized for all of the input records, so it cannot fill up.
+            if (!this.output.appendSample(seriesId, timestamp, value)) {
+                throw new IllegalStateException("compacted segment is full");
+            }
+
+            this.writtenCount++;
+        }
+    }
+
+    protected static class SeriesState {
+        private long lastInputTimestamp = Long.MIN_VALUE;
+        private long bucket;
+        private double sum;
+        private long count;
+    }
+}
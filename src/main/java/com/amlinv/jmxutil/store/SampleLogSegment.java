@@ -0,0 +1,477 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.BitSet;
+
+/**
+ * One segment file of a sample log, written through a memory mapping.
+ * <p/>
+ * Format (big-endian): a 32-byte header (magic, version, segment number, creation time, resolution) followed by
+ * records, each starting with a type byte and ending with a 4-byte checksum of the preceding bytes of the record:
+ * <ul>
+ *     <li>series (1): series ID, then the target, object name and attribute name, each as a 2-byte length (-1 for
+ *     null) and UTF-8 bytes;</li>
+ *     <li>sample (2): series ID, 8-byte timestamp, 8-byte double value - 25 bytes in total.</li>
+ * </ul>
+ * The unused remainder of the file is zero, which reads as the end of the records.  A record that was only partly
+ * written when the process died fails its checksum, so the records that precede it are recovered.
+ */
+public class SampleLogSegment {
+    public static final int MAGIC = 0x4A4D5853;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+
+    public static final byte RECORD_END = 0;
+    public static final byte RECORD_SERIES = 1;
+    public static final byte RECORD_SAMPLE = 2;
+
+    public static final int SAMPLE_RECORD_SIZE = 25;
+
+    private static final String FILE_PREFIX = "samples-";
+    private static final String FILE_SUFFIX = ".seg";
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File file;
+    private final long number;
+    private final RandomAccessFile randomAccessFile;
+    private final MappedByteBuffer buffer;
+
+    private int writePosition;
+    private long firstTimestamp = Long.MAX_VALUE;
+    private long lastTimestamp = Long.MIN_VALUE;
+    private final BitSet definedSeries = new BitSet();
+
+    protected SampleLogSegment(File file, long number, RandomAccessFile randomAccessFile, MappedByteBuffer buffer) {
+        this.file = file;
+        this.number = number;
+        this.randomAccessFile = randomAccessFile;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Create a new, empty segment in the given directory.
+     *
+     * @param directory directory of the log.
+     * @param number sequence number of the segment.
+     * @param size size of the segment file, in bytes.
+     * @param creationTime time at which the segment is created.
+     * @return the new segment.
+     */
+    public static SampleLogSegment create(File directory, long number, int size, long creationTime)
+            throws IOException {
+
+        return create(new File(directory, getFileName(number)), number, size, creationTime, 0L);
+    }
+
+    /**
+     * Create a new, empty segment in the given file.
+     *
+     * @param file the segment file, which must not exist.
+     * @param number sequence number of the segment.
+     * @param size size of the segment file, in bytes.
+     * @param creationTime time at which the segment is created.
+     * @param resolution interval, in milliseconds, to which the samples of the segment are downsampled; 0 for raw
+     *                   samples.
+     * @return the new segment.
+     */
+    public static SampleLogSegment create(File file, long number, int size, long creationTime, long resolution)
+            throws IOException {
+
+        if (file.exists()) {
+            throw new IOException("segment already exists: " + file);
+        }
+
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(8, number);
+            buffer.putLong(16, creationTime);
+            buffer.putLong(24, resolution);
+
+            SampleLogSegment result = new SampleLogSegment(file, number, randomAccessFile, buffer);
+            result.writePosition = HEADER_SIZE;
+
+            return result;
+        } catch (IOException | RuntimeException exc) {
+            randomAccessFile.close();
+            throw exc;
+        }
+    }
+
+    /**
+     * Open an existing segment, recovering its valid records.  Any partly-written record at the end is cleared so
+     * that appends continue after the last valid record.
+     *
+     * @param file the segment file.
+     * @param visitor visitor of the valid records; may be null.
+     * @return the segment.
+     * @throws IOException if the file cannot be read or is not a segment.
+     */
+    public static SampleLogSegment open(File file, SampleLogRecordVisitor visitor) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            long length = randomAccessFile.length();
+            if ((length < HEADER_SIZE) || (length > Integer.MAX_VALUE)) {
+                throw new IOException("invalid segment size " + length + ": " + file);
+            }
+
+            MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+
+            if ((buffer.getInt(0) != MAGIC) || (buffer.getInt(4) != VERSION)) {
+                throw new IOException("invalid segment header: " + file);
+            }
+
+            SampleLogSegment result = new SampleLogSegment(file, buffer.getLong(8), randomAccessFile, buffer);
+            result.writePosition = result.scanRecords(HEADER_SIZE, buffer.capacity(), visitor, true);
+            result.clearTail();
+
+            return result;
+        } catch (IOException | RuntimeException exc) {
+            randomAccessFile.close();
+            throw exc;
+        }
+    }
+
+    public static String getFileName(long number) {
+        return String.format("%s%016d%s", FILE_PREFIX, number, FILE_SUFFIX);
+    }
+
+    public static boolean isSegmentFileName(String name) {
+        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX) &&
+                (name.length() == FILE_PREFIX.length() + 16 + FILE_SUFFIX.length());
+    }
+
+    /**
+     * @return the sequence number in the name of a segment file, or -1 if the name is not that of a segment.
+     */
+    public static long parseNumber(String name) {
+        if (!isSegmentFileName(name)) {
+            return -1;
+        }
+
+        try {
+            return Long.parseLong(name.substring(FILE_PREFIX.length(), FILE_PREFIX.length() + 16));
+        } catch (NumberFormatException nfExc) {
+            return -1;
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getNumber() {
+        return number;
+    }
+
+    public long getCreationTime() {
+        return this.buffer.getLong(16);
+    }
+
+    /**
+     * @return interval, in milliseconds, to which the samples of the segment are downsampled; 0 for raw samples.
+     */
+    public long getResolution() {
+        return this.buffer.getLong(24);
+    }
+
+    /**
+     * @return number of bytes used by the header and records.
+     */
+    public int getUsedSize() {
+        return writePosition;
+    }
+
+    public int getCapacity() {
+        return this.buffer.capacity();
+    }
+
+    /**
+     * @return timestamp of the oldest sample in the segment, or Long.MAX_VALUE if it has none.
+     */
+    public long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    /**
+     * @return timestamp of the newest sample in the segment, or Long.MIN_VALUE if it has none.
+     */
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public boolean isSeriesDefined(int seriesId) {
+        return this.definedSeries.get(seriesId);
+    }
+
+    /**
+     * Append the definition of a series.
+     *
+     * @return true => if appended; false => if the segment does not have room for it.
+     */
+    public boolean appendSeries(int seriesId, SeriesKey key) {
+        byte[] target = (key.getTarget() != null) ? key.getTarget().getBytes(UTF8) : null;
+        byte[] objectName = key.getObjectName().getCanonicalName().getBytes(UTF8);
+        byte[] attributeName = key.getAttributeName().getBytes(UTF8);
+
+        int size = 1 + 4 + stringSize(target) + stringSize(objectName) + stringSize(attributeName) + 4;
+        if (this.writePosition + size > this.buffer.capacity()) {
+            return false;
+        }
+
+        int start = this.writePosition;
+        int pos = start + 1;
+
+        this.buffer.putInt(pos, seriesId);
+        pos = this.putString(pos + 4, target);
+        pos = this.putString(pos, objectName);
+        pos = this.putString(pos, attributeName);
+
+        this.buffer.putInt(pos, checksum(this.buffer, start, pos, RECORD_SERIES));
+
+        // Write the type last so that a torn record never appears complete.
+        this.buffer.put(start, RECORD_SERIES);
+
+        this.writePosition = pos + 4;
+        this.definedSeries.set(seriesId);
+
+        return true;
+    }
+
+    /**
+     * Append a sample.
+     *
+     * @return true => if appended; false => if the segment does not have room for it.
+     */
+    public boolean appendSample(int seriesId, long timestamp, double value) {
+        if (this.writePosition + SAMPLE_RECORD_SIZE > this.buffer.capacity()) {
+            return false;
+        }
+
+        int start = this.writePosition;
+
+        this.buffer.putInt(start + 1, seriesId);
+        this.buffer.putLong(start + 5, timestamp);
+        this.buffer.putDouble(start + 13, value);
+        this.buffer.putInt(start + 21, checksum(this.buffer, start, start + 21, RECORD_SAMPLE));
+        this.buffer.put(start, RECORD_SAMPLE);
+
+        this.writePosition = start + SAMPLE_RECORD_SIZE;
+        this.trackTimestamp(timestamp);
+
+        return true;
+    }
+
+    /**
+     * Visit the records of the segment.
+     */
+    public void scan(SampleLogRecordVisitor visitor) {
+        this.scanRecords(HEADER_SIZE, this.writePosition, visitor, false);
+    }
+
+    /**
+     * Write the mapped contents to the storage device.
+     */
+    public void force() {
+        this.buffer.force();
+    }
+
+    /**
+     * Close the segment file.  The mapping remains valid until it is garbage collected.
+     */
+    public void close() throws IOException {
+        this.randomAccessFile.close();
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    /**
+     * Scan the records from the given position until the end marker, the limit, or an invalid record.
+     *
+     * @return position following the last valid record.
+     */
+    protected int scanRecords(int start, int limit, SampleLogRecordVisitor visitor, boolean track) {
+        int pos = start;
+
+        while (pos < limit) {
+            byte type = this.buffer.get(pos);
+
+            if (type == RECORD_SAMPLE) {
+                if (pos + SAMPLE_RECORD_SIZE > limit) {
+                    break;
+                }
+                if (this.buffer.getInt(pos + 21) != checksum(this.buffer, pos, pos + 21, RECORD_SAMPLE)) {
+                    break;
+                }
+
+                int seriesId = this.buffer.getInt(pos + 1);
+                long timestamp = this.buffer.getLong(pos + 5);
+
+                if (track) {
+                    this.trackTimestamp(timestamp);
+                }
+                if (visitor != null) {
+                    visitor.onSample(seriesId, timestamp, this.buffer.getDouble(pos + 13));
+                }
+
+                pos += SAMPLE_RECORD_SIZE;
+            } else if (type == RECORD_SERIES) {
+                int end = this.readSeries(pos, limit, visitor, track);
+                if (end < 0) {
+                    break;
+                }
+
+                pos = end;
+            } else {
+                break;
+            }
+        }
+
+        return pos;
+    }
+
+    /**
+     * @return the position following the series record, or -1 if it is invalid.
+     */
+    protected int readSeries(int start, int limit, SampleLogRecordVisitor visitor, boolean track) {
+        int pos = start + 1;
+        if (pos + 4 > limit) {
+            return -1;
+        }
+
+        int seriesId = this.buffer.getInt(pos);
+        pos += 4;
+
+        String[] strings = new String[3];
+        for (int cur = 0; cur < 3; cur++) {
+            if (pos + 2 > limit) {
+                return -1;
+            }
+
+            int length = this.buffer.getShort(pos);
+            pos += 2;
+
+            if (length >= 0) {
+                if (pos + length > limit) {
+                    return -1;
+                }
+
+                byte[] bytes = new byte[length];
+                for (int index = 0; index < length; index++) {
+                    bytes[index] = this.buffer.get(pos + index);
+                }
+
+                strings[cur] = new String(bytes, UTF8);
+                pos += length;
+            }
+        }
+
+        if ((pos + 4 > limit) || (this.buffer.getInt(pos) != checksum(this.buffer, start, pos, RECORD_SERIES))) {
+            return -1;
+        }
+
+        try {
+            SeriesKey key = new SeriesKey(strings[0], new ObjectName(strings[1]), strings[2]);
+
+            if (track) {
+                this.definedSeries.set(seriesId);
+            }
+            if (visitor != null) {
+                visitor.onSeries(seriesId, key);
+            }
+        } catch (MalformedObjectNameException | RuntimeException exc) {
+            return -1;
+        }
+
+        return pos + 4;
+    }
+
+    protected void clearTail() {
+        for (int pos = this.writePosition; pos < this.buffer.capacity(); pos++) {
+            if (this.buffer.get(pos) != 0) {
+                this.buffer.put(pos, (byte) 0);
+            }
+        }
+    }
+
+    protected int putString(int pos, byte[] bytes) {
+        if (bytes == null) {
+            this.buffer.putShort(pos, (short) -1);
+            return pos + 2;
+        }
+
+        this.buffer.putShort(pos, (short) bytes.length);
+        for (int index = 0; index < bytes.length; index++) {
+            this.buffer.put(pos + 2 + index, bytes[index]);
+        }
+
+        return pos + 2 + bytes.length;
+    }
+
+    private void trackTimestamp(long timestamp) {
+        if (timestamp < this.firstTimestamp) {
+            this.firstTimestamp = timestamp;
+        }
+        if (timestamp > this.lastTimestamp) {
+            this.lastTimestamp = timestamp;
+        }
+    }
+
+    private static int stringSize(byte[] bytes) {
+        if (bytes == null) {
+            return 2;
+        }
+
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("series name too long: " + bytes.length + " bytes");
+        }
+
+        return 2 + bytes.length;
+    }
+
+    /**
+     * FNV-1a hash of the record's bytes, using the given type in place of the type byte, which is written last.
+     */
+    private static int checksum(MappedByteBuffer buffer, int start, int end, byte type) {
+        int hash = 0x811C9DC5;
+
+        hash = (hash ^ (type & 0xFF)) * 0x01000193;
+        for (int pos = start + 1; pos < end; pos++) {
+            hash = (hash ^ (buffer.get(pos) & 0xFF)) * 0x01000193;
+        }
+
+        return hash;
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+/**
+ * Destination for the samples of time series identified by the IDs of a SeriesRegistry.
+ */
+public interface SampleSink {
+    /**
+     * Append a sample to a series.  Samples of one series are appended in timestamp order.
+     *
+     * @param seriesId ID of the series.
+     * @param timestamp time of the sample, in milliseconds since the epoch.
+     * @param value value of the sample.
+     * @return true => if the sample was stored; false => if it was rejected (e.g. out of capacity or out of order).
+     */
+    boolean append(int seriesId, long timestamp, double value);
+}
@@ -0,0 +1,42 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+/**
+ * Readable store of time series samples.
+ */
+public interface SampleStore extends SampleSink {
+    /**
+     * @return registry of the series held by this store.
+     */
+    SeriesRegistry getSeriesRegistry();
+
+    /**
+     * @return number of samples currently held for the series.
+     */
+    int getSampleCount(int seriesId);
+
+    /**
+     * Visit the samples of a series within a time range, oldest first, without allocating per sample.
+     *
+     * @param seriesId ID of the series.
+     * @param fromTime start of the range, inclusive.
+     * @param toTime end of the range, inclusive.
+     * @param visitor visitor of the samples.
+     * @return number of samples visited.
+     */
+    int scan(int seriesId, long fromTime, long toTime, SampleVisitor visitor);
+}
@@ -0,0 +1,29 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+/**
+ * Visitor of the samples of a series, called in timestamp order.
+ */
+public interface SampleVisitor {
+    /**
+     * Visit one sample.
+     *
+     * @param timestamp time of the sample, in milliseconds since the epoch.
+     * @param value value of the sample.
+     */
+    void onSample(long timestamp, double value);
+}
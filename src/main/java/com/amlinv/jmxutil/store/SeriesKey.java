@@ -0,0 +1,84 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import javax.management.ObjectName;
+
+/**
+ * Immutable identity of a time series: one attribute of one mbean on one monitored target.
+ */
+public class SeriesKey {
+    private final String target;
+    private final ObjectName objectName;
+    private final String attributeName;
+
+    /**
+     * @param target name of the monitored target (e.g. the JVM or broker polled); null if there is only one target.
+     * @param objectName object name of the mbean.
+     * @param attributeName name of the attribute.
+     */
+    public SeriesKey(String target, ObjectName objectName, String attributeName) {
+        if ((objectName == null) || (attributeName == null)) {
+            throw new IllegalArgumentException("objectName and attributeName are required");
+        }
+
+        this.target = target;
+        this.objectName = objectName;
+        this.attributeName = attributeName;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    public String getAttributeName() {
+        return attributeName;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof SeriesKey)) {
+            return false;
+        }
+
+        SeriesKey that = (SeriesKey) other;
+
+        return ((this.target != null) ? this.target.equals(that.target) : (that.target == null)) &&
+                this.objectName.equals(that.objectName) &&
+                this.attributeName.equals(that.attributeName);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (target != null) ? target.hashCode() : 0;
+        result = 31 * result + objectName.hashCode();
+        result = 31 * result + attributeName.hashCode();
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "SeriesKey{target=" + target + ", objectName=" + objectName + ", attributeName=" + attributeName + "}";
+    }
+}
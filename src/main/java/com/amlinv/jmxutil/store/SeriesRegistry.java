@@ -0,0 +1,128 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry assigning dense integer IDs, starting at 0, to time series so that stores can index series by ID instead
+ * of by key.
+ */
+public class SeriesRegistry {
+    private final ConcurrentHashMap<SeriesKey, Integer> idsByKey = new ConcurrentHashMap<>();
+    private final List<SeriesKey> keysById = new ArrayList<>();
+
+    /**
+     * Get the ID of the given series, assigning the next ID if the series is new.
+     *
+     * @param key key of the series.
+     * @return ID of the series.
+     */
+    public int getOrCreateId(SeriesKey key) {
+        Integer result = this.idsByKey.get(key);
+
+        if (result == null) {
+            synchronized (this.keysById) {
+                result = this.idsByKey.get(key);
+                if (result == null) {
+                    result = this.keysById.size();
+                    this.keysById.add(key);
+                    this.idsByKey.put(key, result);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Register a series with a specific ID, such as when restoring persisted series.
+     *
+     * @throws IllegalStateException if the key or ID is already registered differently.
+     */
+    public void register(SeriesKey key, int id) {
+        synchronized (this.keysById) {
+            Integer existing = this.idsByKey.get(key);
+            if (existing != null) {
+                if (existing != id) {
+                    throw new IllegalStateException("series already registered with id " + existing + ": " + key);
+                }
+                return;
+            }
+
+            while (this.keysById.size() <= id) {
+                this.keysById.add(null);
+            }
+
+            if (this.keysById.get(id) != null) {
+                throw new IllegalStateException("series id " + id + " already registered to " +
+                        this.keysById.get(id));
+            }
+
+            this.keysById.set(id, key);
+            this.idsByKey.put(key, id);
+        }
+    }
+
+    /**
+     * @return ID of the given series, or -1 if it is not registered.
+     */
+    public int getId(SeriesKey key) {
+        Integer result = this.idsByKey.get(key);
+
+        return (result != null) ? result : -1;
+    }
+
+    /**
+     * @return key of the series with the given ID, or null if the ID is not assigned.
+     */
+    public SeriesKey getKey(int id) {
+        synchronized (this.keysById) {
+            if ((id < 0) || (id >= this.keysById.size())) {
+                return null;
+            }
+
+            return this.keysById.get(id);
+        }
+    }
+
+    /**
+     * Copy the keys of the series from the given ID on, all at once rather than one lock acquisition per ID.
+     *
+     * @param fromId first ID to copy.
+     * @return keys indexed by ID minus fromId; unassigned IDs are null.
+     */
+    public List<SeriesKey> getKeys(int fromId) {
+        synchronized (this.keysById) {
+            if (fromId >= this.keysById.size()) {
+                return new ArrayList<>();
+            }
+
+            return new ArrayList<>(this.keysById.subList(Math.max(fromId, 0), this.keysById.size()));
+        }
+    }
+
+    /**
+     * @return one more than the highest ID assigned.
+     */
+    public int getSeriesCount() {
+        synchronized (this.keysById) {
+            return this.keysById.size();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sink that accumulates the samples of each series, such as polled latency gauges, into quantile sketches over fixed
+ * windows of time instead of retaining the samples.  A ring of sketches, one per window, is kept for each series; the
+ * sketch of a window is reused once the window falls out of the ring.  Memory is therefore bounded by the number of
+ * series, windows and sketch buckets, regardless of the polling rate.
+ * <p/>
+ * The sketches of the recent windows of a series, or of all of the series of one attribute across targets, are merged
+ * on demand to estimate percentiles over the series or the fleet.
+ */
+public class SketchSampleSink implements SampleSink {
+    public static final long DEFAULT_WINDOW_SIZE = 60000L;
+    public static final int DEFAULT_WINDOW_COUNT = 5;
+
+    private final SeriesRegistry seriesRegistry;
+    private final long windowSize;
+    private final int windowCount;
+    private final double relativeAccuracy;
+    private final int maxBuckets;
+
+    private final List<SeriesWindows> seriesWindows = new ArrayList<>();
+
+    public SketchSampleSink(SeriesRegistry seriesRegistry) {
+        this(seriesRegistry, DEFAULT_WINDOW_SIZE, DEFAULT_WINDOW_COUNT, QuantileSketch.DEFAULT_RELATIVE_ACCURACY,
+                QuantileSketch.DEFAULT_MAX_BUCKETS);
+    }
+
+    /**
+     * @param seriesRegistry registry of the series, used to select the series merged across targets.
+     * @param windowSize length of each window, in milliseconds.
+     * @param windowCount number of windows retained for each series.
+     * @param relativeAccuracy relative accuracy of the sketches.
+     * @param maxBuckets maximum number of buckets of each sketch.
+     */
+    public SketchSampleSink(SeriesRegistry seriesRegistry, long windowSize, int windowCount, double relativeAccuracy,
+                            int maxBuckets) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("window size must be positive: " + windowSize);
+        }
+        if (windowCount <= 0) {
+            throw new IllegalArgumentException("window count must be positive: " + windowCount);
+        }
+
+        // Validate the sketch settings up front rather than on the first sample.
+        new QuantileSketch(relativeAccuracy, maxBuckets);
+
+        this.seriesRegistry = seriesRegistry;
+        this.windowSize = windowSize;
+        this.windowCount = windowCount;
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxBuckets = maxBuckets;
+    }
+
+    public SeriesRegistry getSeriesRegistry() {
+        return seriesRegistry;
+    }
+
+    public long getWindowSize() {
+        return windowSize;
+    }
+
+    public int getWindowCount() {
+        return windowCount;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    public int getMaxBuckets() {
+        return maxBuckets;
+    }
+
+    /**
+     * @return true => if the sample was added to the sketch of its window; false => if the value is NaN, or the
+     * window of the sample was already replaced by a later one.
+     */
+    @Override
+    public synchronized boolean append(int seriesId, long timestamp, double value) {
+        if (seriesId < 0) {
+            throw new IllegalArgumentException("invalid series id " + seriesId);
+        }
+
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return false;
+        }
+
+        while (this.seriesWindows.size() <= seriesId) {
+            this.seriesWindows.add(null);
+        }
+
+        SeriesWindows windows = this.seriesWindows.get(seriesId);
+        if (windows == null) {
+            windows = new SeriesWindows(this.windowCount);
+            this.seriesWindows.set(seriesId, windows);
+        }
+
+        long windowStart = TimestampUtil.alignDown(timestamp, this.windowSize);
+        int slot = this.getSlot(windowStart);
+
+        QuantileSketch sketch = windows.sketches[slot];
+        if (sketch == null) {
+            sketch = new QuantileSketch(this.relativeAccuracy, this.maxBuckets);
+            windows.sketches[slot] = sketch;
+        } else if (windows.windowStarts[slot] != windowStart) {
+            if (windows.windowStarts[slot] > windowStart) {
+                return false;
+            }
+
+            sketch.clear();
+        }
+
+        windows.windowStarts[slot] = windowStart;
+        sketch.add(value);
+
+        return true;
+    }
+
+    /**
+     * Get the merged sketch of the retained windows of a series that cover the given time or precede it.
+     *
+     * @param seriesId ID of the series.
+     * @param now the current time, in milliseconds since the epoch.
+     * @return a new sketch; empty if the series has no samples in those windows.
+     */
+    public synchronized QuantileSketch getSketch(int seriesId, long now) {
+        QuantileSketch result = new QuantileSketch(this.relativeAccuracy, this.maxBuckets);
+        this.mergeInto(result, seriesId, now);
+
+        return result;
+    }
+
+    /**
+     * Get the merged sketch of the retained windows of all of the series of one attribute, across all targets, such
+     * as for the fleet-wide percentiles of a latency.
+     *
+     * @param objectNamePattern pattern of the ObjectNames of the series.
+     * @param attributeName name of the attribute.
+     * @param now the current time, in milliseconds since the epoch.
+     * @return a new sketch; empty if no matching series has samples in the retained windows.
+     */
+    public synchronized QuantileSketch getMergedSketch(ObjectName objectNamePattern, String attributeName, long now) {
+        QuantileSketch result = new QuantileSketch(this.relativeAccuracy, this.maxBuckets);
+
+        int count = Math.min(this.seriesWindows.size(), this.seriesRegistry.getSeriesCount());
+        for (int seriesId = 0; seriesId < count; seriesId++) {
+            SeriesKey key = this.seriesRegistry.getKey(seriesId);
+
+            if ((key != null) && attributeName.equals(key.getAttributeName()) &&
+                    objectNamePattern.apply(key.getObjectName())) {
+                this.mergeInto(result, seriesId, now);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Merge the retained windows of a series that cover the given time or precede it into the given sketch, such as
+     * to combine the sketches of the sinks of several collectors.
+     */
+    public synchronized void mergeInto(QuantileSketch target, int seriesId, long now) {
+        if ((seriesId < 0) || (seriesId >= this.seriesWindows.size())) {
+            return;
+        }
+
+        SeriesWindows windows = this.seriesWindows.get(seriesId);
+        if (windows == null) {
+            return;
+        }
+
+        long newestStart = TimestampUtil.alignDown(now, this.windowSize);
+        long oldestStart = newestStart - (this.windowCount - 1) * this.windowSize;
+
+        for (int slot = 0; slot < this.windowCount; slot++) {
+            QuantileSketch sketch = windows.sketches[slot];
+            long windowStart = windows.windowStarts[slot];
+
+            if ((sketch != null) && (windowStart >= oldestStart) && (windowStart <= newestStart)) {
+                target.merge(sketch);
+            }
+        }
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    protected int getSlot(long windowStart) {
+        long windowNumber = windowStart / this.windowSize;
+        int slot = (int) (windowNumber % this.windowCount);
+
+        return (slot < 0) ? slot + this.windowCount : slot;
+    }
+
+    /**
+     * Ring of the window sketches of one series.
+     */
+    protected static class SeriesWindows {
+        protected final long[] windowStarts;
+        protected final QuantileSketch[] sketches;
+
+        protected SeriesWindows(int windowCount) {
+            this.windowStarts = new long[windowCount];
+            this.sketches = new QuantileSketch[windowCount];
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+/**
+ * Utilities for timestamps, such as aligning them to the windows, buckets and steps into which samples are grouped.
+ */
+public class TimestampUtil {
+    /**
+     * @return the greatest multiple of the interval that is not greater than the timestamp, also for negative
+     * timestamps.
+     */
+    public static long alignDown(long timestamp, long interval) {
+        long remainder = timestamp % interval;
+        if (remainder < 0) {
+            remainder += interval;
+        }
+
+        return timestamp - remainder;
+    }
+}
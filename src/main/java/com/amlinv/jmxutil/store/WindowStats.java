@@ -0,0 +1,79 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+/**
+ * Immutable statistics of the samples of one series over a window of time.
+ */
+public class WindowStats {
+    private final long windowSize;
+    private final long count;
+    private final double mean;
+    private final double min;
+    private final double max;
+    private final double variance;
+
+    /**
+     * @param windowSize length of the window, in milliseconds.
+     * @param count number of samples in the window.
+     * @param mean mean of the samples; NaN if there are none.
+     * @param min minimum of the samples; NaN if there are none.
+     * @param max maximum of the samples; NaN if there are none.
+     * @param variance population variance of the samples; NaN if there are none.
+     */
+    public WindowStats(long windowSize, long count, double mean, double min, double max, double variance) {
+        this.windowSize = windowSize;
+        this.count = count;
+        this.mean = mean;
+        this.min = min;
+        this.max = max;
+        this.variance = variance;
+    }
+
+    public long getWindowSize() {
+        return windowSize;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getVariance() {
+        return variance;
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(this.variance);
+    }
+
+    @Override
+    public String toString() {
+        return "WindowStats{windowSize=" + windowSize + ", count=" + count + ", mean=" + mean + ", min=" + min +
+                ", max=" + max + ", stddev=" + this.getStandardDeviation() + "}";
+    }
+}
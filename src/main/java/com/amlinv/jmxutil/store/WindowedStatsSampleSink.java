@@ -0,0 +1,258 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import java.util.Arrays;
+
+/**
+ * Sink that maintains sliding-window statistics (count, mean, minimum, maximum and standard deviation) of each series
+ * over several windows, such as the last 1, 5 and 15 minutes, for load-average-style smoothing without retaining the
+ * samples.
+ * <p/>
+ * Each series has a ring of fixed-size time buckets covering the longest window, held in primitive arrays indexed by
+ * series ID and bucket.  Each sample updates the count, mean, sum of squared deviations (by Welford's method),
+ * minimum and maximum of its bucket in constant time; the statistics of a window combine only the buckets it covers.
+ * A window ends with the bucket of the current time, which is still filling, so it spans between one bucket less
+ * than its size and its full size.
+ */
+public class WindowedStatsSampleSink implements SampleSink {
+    public static final long DEFAULT_BUCKET_SIZE = 5000L;
+    public static final long[] DEFAULT_WINDOW_SIZES = { 60000L, 300000L, 900000L };
+
+    private static final int INITIAL_SERIES_CAPACITY = 16;
+
+    private final long bucketSize;
+    private final long[] windowSizes;
+    private final int bucketCount;
+
+    // Indexed by (seriesId * bucketCount) + slot.
+    private long[] bucketStarts;
+    private long[] counts;
+    private double[] means;
+    private double[] squaredDeviations;
+    private double[] mins;
+    private double[] maxs;
+    private int seriesCapacity = 0;
+
+    public WindowedStatsSampleSink() {
+        this(DEFAULT_BUCKET_SIZE, DEFAULT_WINDOW_SIZES);
+    }
+
+    /**
+     * @param bucketSize length of each bucket, in milliseconds; the resolution at which windows slide.
+     * @param windowSizes lengths of the windows, in milliseconds; each a positive multiple of the bucket size.
+     */
+    public WindowedStatsSampleSink(long bucketSize, long... windowSizes) {
+        if (bucketSize <= 0) {
+            throw new IllegalArgumentException("bucket size must be positive: " + bucketSize);
+        }
+        if (windowSizes.length == 0) {
+            throw new IllegalArgumentException("at least one window size is required");
+        }
+
+        long longest = 0;
+        for (long oneWindowSize : windowSizes) {
+            if ((oneWindowSize <= 0) || ((oneWindowSize % bucketSize) != 0)) {
+                throw new IllegalArgumentException("window size must be a positive multiple of the bucket size " +
+                        bucketSize + ": " + oneWindowSize);
+            }
+
+            longest = Math.max(longest, oneWindowSize);
+        }
+
+        this.bucketSize = bucketSize;
+        this.windowSizes = windowSizes.clone();
+        this.bucketCount = (int) (longest / bucketSize);
+
+        this.allocate(INITIAL_SERIES_CAPACITY);
+    }
+
+    public long getBucketSize() {
+        return bucketSize;
+    }
+
+    public long[] getWindowSizes() {
+        return windowSizes.clone();
+    }
+
+    /**
+     * @return true => if the sample was added to its bucket; false => if the value is NaN, or the bucket of the
+     * sample was already replaced by a later one.
+     */
+    @Override
+    public synchronized boolean append(int seriesId, long timestamp, double value) {
+        if (seriesId < 0) {
+            throw new IllegalArgumentException("invalid series id " + seriesId);
+        }
+
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return false;
+        }
+
+        if (seriesId >= this.seriesCapacity) {
+            this.allocate(Math.max(this.seriesCapacity * 2, seriesId + 1));
+        }
+
+        long bucketStart = TimestampUtil.alignDown(timestamp, this.bucketSize);
+        int pos = (seriesId * this.bucketCount) + this.getSlot(bucketStart);
+
+        if (this.bucketStarts[pos] != bucketStart) {
+            if ((this.counts[pos] > 0) && (this.bucketStarts[pos] > bucketStart)) {
+                return false;
+            }
+
+            this.bucketStarts[pos] = bucketStart;
+            this.counts[pos] = 0;
+        }
+
+        long count = ++this.counts[pos];
+        if (count == 1) {
+            this.means[pos] = value;
+            this.squaredDeviations[pos] = 0.0;
+            this.mins[pos] = value;
+            this.maxs[pos] = value;
+        } else {
+            double delta = value - this.means[pos];
+            this.means[pos] += delta / count;
+            this.squaredDeviations[pos] += delta * (value - this.means[pos]);
+            this.mins[pos] = Math.min(this.mins[pos], value);
+            this.maxs[pos] = Math.max(this.maxs[pos], value);
+        }
+
+        return true;
+    }
+
+    /**
+     * Compute the statistics of a series over a window ending with the bucket of the given time.
+     *
+     * @param seriesId ID of the series.
+     * @param windowSize length of the window, in milliseconds; a positive multiple of the bucket size, no longer than
+     *                   the longest configured window.
+     * @param now the current time, in milliseconds since the epoch.
+     * @return the statistics; with a count of 0, and NaN values, if the series has no samples in the window.
+     */
+    public synchronized WindowStats getStats(int seriesId, long windowSize, long now) {
+        if ((windowSize <= 0) || ((windowSize % this.bucketSize) != 0) ||
+                (windowSize > this.bucketCount * this.bucketSize)) {
+            throw new IllegalArgumentException("window size must be a positive multiple of the bucket size " +
+                    this.bucketSize + " up to " + (this.bucketCount * this.bucketSize) + ": " + windowSize);
+        }
+
+        long totalCount = 0;
+        double mean = Double.NaN;
+        double squaredDeviation = Double.NaN;
+        double min = Double.NaN;
+        double max = Double.NaN;
+
+        if ((seriesId >= 0) && (seriesId < this.seriesCapacity)) {
+            long newestStart = TimestampUtil.alignDown(now, this.bucketSize);
+            long oldestStart = newestStart - windowSize + this.bucketSize;
+            int base = seriesId * this.bucketCount;
+
+            for (int slot = 0; slot < this.bucketCount; slot++) {
+                int pos = base + slot;
+                long count = this.counts[pos];
+                long bucketStart = this.bucketStarts[pos];
+
+                if ((count == 0) || (bucketStart < oldestStart) || (bucketStart > newestStart)) {
+                    continue;
+                }
+
+                if (totalCount == 0) {
+                    mean = this.means[pos];
+                    squaredDeviation = this.squaredDeviations[pos];
+                    min = this.mins[pos];
+                    max = this.maxs[pos];
+                } else {
+                    // Combine the buckets by the parallel variance algorithm of Chan et al.
+                    long combinedCount = totalCount + count;
+                    double delta = this.means[pos] - mean;
+
+                    mean += delta * count / combinedCount;
+                    squaredDeviation += this.squaredDeviations[pos] +
+                            delta * delta * ((double) totalCount * count / combinedCount);
+                    min = Math.min(min, this.mins[pos]);
+                    max = Math.max(max, this.maxs[pos]);
+                }
+
+                totalCount += count;
+            }
+        }
+
+        double variance = (totalCount > 0) ? squaredDeviation / totalCount : Double.NaN;
+
+        return new WindowStats(windowSize, totalCount, mean, min, max, variance);
+    }
+
+    /**
+     * Compute the statistics of a series over each of the configured windows.
+     *
+     * @return the statistics, in the order of the configured window sizes.
+     */
+    public synchronized WindowStats[] getStats(int seriesId, long now) {
+        WindowStats[] result = new WindowStats[this.windowSizes.length];
+
+        for (int cur = 0; cur < this.windowSizes.length; cur++) {
+            result[cur] = this.getStats(seriesId, this.windowSizes[cur], now);
+        }
+
+        return result;
+    }
+
+    /**
+     * Forget the samples of a series, such as when it is no longer polled.
+     */
+    public synchronized void reset(int seriesId) {
+        if ((seriesId >= 0) && (seriesId < this.seriesCapacity)) {
+            int base = seriesId * this.bucketCount;
+            Arrays.fill(this.counts, base, base + this.bucketCount, 0L);
+        }
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    protected void allocate(int capacity) {
+        int length = capacity * this.bucketCount;
+
+        if (this.seriesCapacity == 0) {
+            this.bucketStarts = new long[length];
+            this.counts = new long[length];
+            this.means = new double[length];
+            this.squaredDeviations = new double[length];
+            this.mins = new double[length];
+            this.maxs = new double[length];
+        } else {
+            this.bucketStarts = Arrays.copyOf(this.bucketStarts, length);
+            this.counts = Arrays.copyOf(this.counts, length);
+            this.means = Arrays.copyOf(this.means, length);
+            this.squaredDeviations = Arrays.copyOf(this.squaredDeviations, length);
+            this.mins = Arrays.copyOf(this.mins, length);
+            this.maxs = Arrays.copyOf(this.maxs, length);
+        }
+
+        this.seriesCapacity = capacity;
+    }
+
+    protected int getSlot(long bucketStart) {
+        int slot = (int) ((bucketStart / this.bucketSize) % this.bucketCount);
+
+        return (slot < 0) ? slot + this.bucketCount : slot;
+    }
+}
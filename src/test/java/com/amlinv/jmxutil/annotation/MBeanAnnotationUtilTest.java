@@ -19,6 +19,7 @@ package com.amlinv.jmxutil.annotation;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.Map;
 
@@ -50,13 +51,37 @@ public class MBeanAnnotationUtilTest {
   public void testGetAttributes() throws Exception {
     Map<String, Method> atts = MBeanAnnotationUtil.getAttributes(this.testAnnotation1);
 
-    assertEquals(2, atts.size());
+    assertEquals(3, atts.size());
     assertEquals("setAttribute1", atts.get("x-att1-name-x").getName());
     assertEquals("setAttribute2", atts.get("x-att2-name-x").getName());
+    assertEquals("setAttribute3", atts.get("x-att3-name-x/x-path-x").getName());
 
     assertEquals(0, MBeanAnnotationUtil.getAttributes(this.withoutAnnotation).size());
   }
 
+  @Test
+  public void testGetRateAttributes() throws Exception {
+    Map<String, Method> rates = MBeanAnnotationUtil.getRateAttributes(this.testAnnotation1);
+
+    assertEquals(1, rates.size());
+    assertEquals("setAttribute2Rate", rates.get("x-att2-name-x").getName());
+
+    assertEquals(0, MBeanAnnotationUtil.getRateAttributes(this.withoutAnnotation).size());
+  }
+
+  @Test
+  public void testGetAttributeFields() throws Exception {
+    Map<String, Field> fields = MBeanAnnotationUtil.getAttributeFields(new TestFieldAnnotation2());
+
+    assertEquals(3, fields.size());
+    assertEquals(TestFieldAnnotation2.class.getDeclaredField("hiding"), fields.get("x-hidden-name-x"));
+    assertEquals(TestFieldAnnotation1.class.getDeclaredField("field1"), fields.get("x-field1-name-x"));
+    assertEquals(TestFieldAnnotation1.class.getDeclaredField("field2"), fields.get("x-field2-name-x/x-path-x"));
+    assertTrue(fields.get("x-field1-name-x").isAccessible());
+
+    assertEquals(0, MBeanAnnotationUtil.getAttributeFields(this.testAnnotation1).size());
+  }
+
   // Test the constructor for completeness (code coverage).
   @Test
   public void testConstructor() throws Exception {
@@ -77,5 +102,35 @@ public class MBeanAnnotationUtilTest {
     public void setAttribute2 (String value) {
       this.attribute2 = value;
     }
+
+    @MBeanAttribute(name = "x-att3-name-x", type = Long.class, path = "x-path-x")
+    public void setAttribute3 (Long value) {
+    }
+
+    @MBeanAttribute(name = "x-att2-name-x", type = Long.class, rate = true)
+    public void setAttribute2Rate (double value) {
+    }
+  }
+
+  protected static class TestFieldAnnotation1 {
+    @MBeanAttribute(name = "x-field1-name-x", type = Long.class)
+    private long field1;
+
+    @MBeanAttribute(name = "x-field2-name-x", type = Long.class, path = "x-path-x", access = FieldAccessMode.ORDERED)
+    private volatile Long field2;
+
+    @MBeanAttribute(name = "x-hidden-name-x", type = String.class)
+    private String hidden;
+
+    @MBeanAttribute(name = "x-static-name-x", type = String.class)
+    private static String staticField;
+
+    @MBeanAttribute(name = "x-final-name-x", type = String.class)
+    private final String finalField = "x-final-x";
+  }
+
+  protected static class TestFieldAnnotation2 extends TestFieldAnnotation1 {
+    @MBeanAttribute(name = "x-hidden-name-x", type = String.class)
+    private String hiding;
   }
 }
@@ -0,0 +1,105 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.amlinv.jmxutil.connection;
+
+import org.junit.Test;
+
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the AttributePathUtil.
+ */
+public class AttributePathUtilTest {
+
+    @Test
+    public void testQualify() throws Exception {
+        assertEquals("x-att-x", AttributePathUtil.qualify("x-att-x", null));
+        assertEquals("x-att-x", AttributePathUtil.qualify("x-att-x", ""));
+        assertEquals("x-att-x/x-path-x", AttributePathUtil.qualify("x-att-x", "x-path-x"));
+    }
+
+    @Test
+    public void testParseReference() throws Exception {
+        assertFalse(AttributePathUtil.hasPath("x-att-x"));
+        assertEquals("x-att-x", AttributePathUtil.getAttributeName("x-att-x"));
+        assertNull(AttributePathUtil.getPath("x-att-x"));
+
+        assertTrue(AttributePathUtil.hasPath("x-att-x/a/b"));
+        assertEquals("x-att-x", AttributePathUtil.getAttributeName("x-att-x/a/b"));
+        assertEquals("a/b", AttributePathUtil.getPath("x-att-x/a/b"));
+    }
+
+    @Test
+    public void testEscapedNames() throws Exception {
+        assertEquals("x-a!/b-x", AttributePathUtil.qualify("x-a/b-x", null));
+        assertEquals("x-a!/b!!-x/x-path-x", AttributePathUtil.qualify("x-a/b!-x", "x-path-x"));
+
+        assertFalse(AttributePathUtil.hasPath("x-a!/b-x"));
+        assertFalse(AttributePathUtil.isPlainName("x-a!/b-x"));
+        assertTrue(AttributePathUtil.isPlainName("x-att-x"));
+        assertEquals("x-a/b-x", AttributePathUtil.getAttributeName("x-a!/b-x"));
+        assertNull(AttributePathUtil.getPath("x-a!/b-x"));
+
+        String reference = AttributePathUtil.qualify("x-a/b!-x", "x-c!/d-x/e");
+        assertTrue(AttributePathUtil.hasPath(reference));
+        assertEquals("x-a/b!-x", AttributePathUtil.getAttributeName(reference));
+        assertEquals("x-c!/d-x/e", AttributePathUtil.getPath(reference));
+
+        // A trailing escape character is literal.
+        assertEquals("x-att-x!", AttributePathUtil.getAttributeName("x-att-x!"));
+        assertEquals("x-att-x", AttributePathUtil.escape("x-att-x"));
+        assertEquals("x-att-x", AttributePathUtil.unescape("x-att-x"));
+    }
+
+    @Test
+    public void testResolvePath() throws Exception {
+        CompositeType compositeType = new CompositeType("x-type-x", "x-desc-x", new String[] { "used" },
+                new String[] { "used" }, new OpenType[] { SimpleType.LONG });
+        CompositeDataSupport composite =
+                new CompositeDataSupport(compositeType, new String[] { "used" }, new Object[] { 3L });
+
+        assertEquals(3L, AttributePathUtil.resolvePath(composite, "used"));
+        assertNull(AttributePathUtil.resolvePath(composite, "x-missing-x"));
+        assertSame(composite, AttributePathUtil.resolvePath(composite, null));
+
+        Object nested = Collections.singletonMap("x-key-x", Arrays.asList("a", "b"));
+        assertEquals("b", AttributePathUtil.resolvePath(nested, "x-key-x/1"));
+        assertNull(AttributePathUtil.resolvePath(nested, "x-key-x/2"));
+        assertNull(AttributePathUtil.resolvePath(nested, "x-key-x/x-not-index-x"));
+        assertNull(AttributePathUtil.resolvePath(nested, "x-missing-x/0"));
+
+        // Escaped separators are part of the key.
+        Object slashKey = Collections.singletonMap("x-a/b-x", Collections.singletonMap("c", 9));
+        assertEquals(9, AttributePathUtil.resolvePath(slashKey, "x-a!/b-x/c"));
+
+        assertEquals(7, AttributePathUtil.resolvePath(new int[] { 5, 7 }, "1"));
+        assertNull(AttributePathUtil.resolvePath("x-string-x", "x-field-x"));
+    }
+
+    // Test the constructor for completeness (code coverage).
+    @Test
+    public void testConstructor() throws Exception {
+        new AttributePathUtil();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.amlinv.jmxutil.connection.impl;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.util.EntityUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the GzipContentEncodingInterceptor.
+ */
+public class GzipContentEncodingInterceptorTest {
+    private GzipContentEncodingInterceptor interceptor;
+    private HttpResponse response;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.interceptor = new GzipContentEncodingInterceptor();
+        this.response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    }
+
+    @Test
+    public void testRequestAcceptsGzip() throws Exception {
+        HttpRequest request = new BasicHttpRequest("POST", "/jolokia");
+
+        this.interceptor.process(request, new BasicHttpContext());
+
+        assertEquals("gzip", request.getFirstHeader("Accept-Encoding").getValue());
+    }
+
+    @Test
+    public void testRequestKeepsExplicitAcceptEncoding() throws Exception {
+        HttpRequest request = new BasicHttpRequest("POST", "/jolokia");
+        request.addHeader("Accept-Encoding", "identity");
+
+        this.interceptor.process(request, new BasicHttpContext());
+
+        assertEquals(1, request.getHeaders("Accept-Encoding").length);
+        assertEquals("identity", request.getFirstHeader("Accept-Encoding").getValue());
+    }
+
+    @Test
+    public void testGzipResponseDecompressed() throws Exception {
+        ByteArrayEntity entity = new ByteArrayEntity(this.gzip("x-content-x"));
+        entity.setContentEncoding("gzip");
+        this.response.setEntity(entity);
+        this.response.addHeader("Content-Encoding", "gzip");
+
+        this.interceptor.process(this.response, new BasicHttpContext());
+
+        assertNull(this.response.getEntity().getContentEncoding());
+        assertFalse(this.response.containsHeader("Content-Encoding"));
+        assertEquals("x-content-x", EntityUtils.toString(this.response.getEntity(), "UTF-8"));
+    }
+
+    @Test
+    public void testIdentityResponseEncodingRemoved() throws Exception {
+        ByteArrayEntity entity = new ByteArrayEntity("x-content-x".getBytes("UTF-8"));
+        entity.setContentEncoding("identity");
+        this.response.setEntity(entity);
+
+        this.interceptor.process(this.response, new BasicHttpContext());
+
+        assertNull(this.response.getEntity().getContentEncoding());
+        assertEquals("x-content-x", EntityUtils.toString(this.response.getEntity(), "UTF-8"));
+    }
+
+    @Test
+    public void testUnencodedResponseUntouched() throws Exception {
+        ByteArrayEntity entity = new ByteArrayEntity("x-content-x".getBytes("UTF-8"));
+        this.response.setEntity(entity);
+
+        this.interceptor.process(this.response, new BasicHttpContext());
+
+        assertSame(entity, this.response.getEntity());
+    }
+
+    @Test
+    public void testNoEntity() throws Exception {
+        this.interceptor.process(this.response, new BasicHttpContext());
+
+        assertNull(this.response.getEntity());
+    }
+
+    @Test(expected = HttpException.class)
+    public void testUnsupportedEncoding() throws Exception {
+        ByteArrayEntity entity = new ByteArrayEntity("x-content-x".getBytes("UTF-8"));
+        entity.setContentEncoding("x-unknown-x");
+        this.response.setEntity(entity);
+
+        this.interceptor.process(this.response, new BasicHttpContext());
+    }
+
+    protected byte[] gzip(String content) throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        GZIPOutputStream gzipOutputStream = new GZIPOutputStream(buffer);
+        gzipOutputStream.write(content.getBytes("UTF-8"));
+        gzipOutputStream.close();
+
+        return buffer.toByteArray();
+    }
+}
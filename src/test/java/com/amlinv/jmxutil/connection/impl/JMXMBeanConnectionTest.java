@@ -17,12 +17,19 @@
 package com.amlinv.jmxutil.connection.impl;
 
 import org.junit.Before;
+import com.amlinv.jmxutil.connection.MBeanRegistrationListener;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import javax.management.*;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
 import javax.management.remote.JMXConnector;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
@@ -73,6 +80,91 @@ public class JMXMBeanConnectionTest {
         assertSame(this.testAttributeList, result);
     }
 
+    @Test
+    public void testGetAttributesWithPath() throws Exception {
+        CompositeType compositeType = new CompositeType("x-type-x", "x-desc-x", new String[] { "used", "max" },
+                new String[] { "used", "max" }, new OpenType[] { SimpleType.LONG, SimpleType.LONG });
+        CompositeDataSupport compositeValue = new CompositeDataSupport(compositeType, new String[] { "used", "max" },
+                new Object[] { 3L, 10L });
+
+        AttributeList serverResult = new AttributeList();
+        serverResult.add(new Attribute("HeapMemoryUsage", compositeValue));
+        serverResult.add(new Attribute("x-att-x", "x-value-x"));
+
+        Mockito.when(this.mockMBeanServerConnection.getAttributes(this.objectName,
+                new String[] { "HeapMemoryUsage", "x-att-x", "x-missing-x" })).thenReturn(serverResult);
+
+        List<Attribute> result = this.connection.getAttributes(this.objectName, "HeapMemoryUsage/used",
+                "HeapMemoryUsage/max", "x-att-x", "x-missing-x/x-path-x");
+
+        assertEquals(Arrays.asList(new Attribute("HeapMemoryUsage/used", 3L), new Attribute("HeapMemoryUsage/max", 10L),
+                new Attribute("x-att-x", "x-value-x")), result);
+    }
+
+    @Test
+    public void testGetAttributesWithEscapedName() throws Exception {
+        AttributeList serverResult = new AttributeList();
+        serverResult.add(new Attribute("x-a/b-x", "x-value-x"));
+
+        Mockito.when(this.mockMBeanServerConnection.getAttributes(this.objectName, new String[] { "x-a/b-x" }))
+                .thenReturn(serverResult);
+
+        // The server is asked for the attribute by its name; the result is named by the reference.
+        List<Attribute> result = this.connection.getAttributes(this.objectName, "x-a!/b-x");
+
+        assertEquals(Arrays.asList(new Attribute("x-a!/b-x", "x-value-x")), result);
+    }
+
+    @Test
+    public void testGetMBeanInfo() throws Exception {
+        MBeanInfo mBeanInfo = new MBeanInfo("x-class-x", "x-desc-x", null, null, null, null);
+        Mockito.when(this.mockMBeanServerConnection.getMBeanInfo(this.objectName)).thenReturn(mBeanInfo);
+
+        assertSame(mBeanInfo, this.connection.getMBeanInfo(this.objectName));
+    }
+
+    @Test
+    public void testGetMBeanInfoIntrospectionFailure() throws Exception {
+        IntrospectionException introspectionExc = new IntrospectionException("x-exc-x");
+        Mockito.when(this.mockMBeanServerConnection.getMBeanInfo(this.objectName)).thenThrow(introspectionExc);
+
+        try {
+            this.connection.getMBeanInfo(this.objectName);
+            fail("missing expected exception");
+        } catch (ReflectionException reflectionExc) {
+            assertSame(introspectionExc, reflectionExc.getTargetException());
+        }
+    }
+
+    @Test
+    public void testAddRegistrationListener() throws Exception {
+        MBeanRegistrationListener mockListener = Mockito.mock(MBeanRegistrationListener.class);
+
+        assertTrue(this.connection.addRegistrationListener(mockListener));
+
+        ArgumentCaptor<NotificationListener> captor = ArgumentCaptor.forClass(NotificationListener.class);
+        Mockito.verify(this.mockMBeanServerConnection).addNotificationListener(
+                Mockito.eq(MBeanServerDelegate.DELEGATE_NAME), captor.capture(), (NotificationFilter) Mockito.isNull(),
+                Mockito.isNull());
+
+        captor.getValue().handleNotification(new MBeanServerNotification(
+                MBeanServerNotification.UNREGISTRATION_NOTIFICATION, "x-source-x", 1, this.objectName), null);
+        captor.getValue().handleNotification(new Notification("x-type-x", "x-source-x", 2), null);
+
+        Mockito.verify(mockListener).onRegistrationChange(this.objectName);
+        Mockito.verifyNoMoreInteractions(mockListener);
+    }
+
+    @Test
+    public void testAddRegistrationListenerNoDelegate() throws Exception {
+        Mockito.doThrow(new InstanceNotFoundException("x-exc-x")).when(this.mockMBeanServerConnection)
+                .addNotificationListener(Mockito.eq(MBeanServerDelegate.DELEGATE_NAME),
+                        Mockito.any(NotificationListener.class), (NotificationFilter) Mockito.isNull(),
+                        Mockito.isNull());
+
+        assertFalse(this.connection.addRegistrationListener(Mockito.mock(MBeanRegistrationListener.class)));
+    }
+
     @Test
     public void testQueryNames() throws Exception {
         Set<ObjectName> result = this.connection.queryNames(this.objectName, this.mockQueryExp);
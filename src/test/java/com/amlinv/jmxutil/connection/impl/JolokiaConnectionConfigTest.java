@@ -0,0 +1,103 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.amlinv.jmxutil.connection.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the JolokiaConnectionConfig and its builder.
+ */
+public class JolokiaConnectionConfigTest {
+
+    @Test
+    public void testDefaults() throws Exception {
+        JolokiaConnectionConfig config = JolokiaConnectionConfig.builder().build();
+
+        assertEquals(5, config.getMaxTotalConnections());
+        assertEquals(2, config.getMaxConnectionsPerRoute());
+        assertEquals(30000, config.getConnectionPoolTimeout());
+        assertEquals(20000, config.getConnectTimeout());
+        assertEquals(0, config.getSocketTimeout());
+        assertTrue(config.isKeepAlive());
+        assertEquals(0L, config.getKeepAliveTimeout());
+        assertTrue(config.isResponseCompression());
+        assertSame(JolokiaProcessingOptions.NONE, config.getProcessingOptions());
+        assertEquals(1, config.getMaxTransientRetries());
+        assertEquals(5000L, config.getTransientRetryBudget());
+    }
+
+    @Test
+    public void testBuilder() throws Exception {
+        JolokiaConnectionConfig config = JolokiaConnectionConfig.builder()
+                .maxTotalConnections(50)
+                .maxConnectionsPerRoute(7)
+                .connectionPoolTimeout(1000)
+                .connectTimeout(2000)
+                .socketTimeout(3000)
+                .keepAlive(false)
+                .keepAliveTimeout(4000)
+                .responseCompression(false)
+                .processingOptions(JolokiaProcessingOptions.builder().maxDepth(2).build())
+                .maxTransientRetries(3)
+                .transientRetryBudget(500)
+                .build();
+
+        assertEquals(50, config.getMaxTotalConnections());
+        assertEquals(7, config.getMaxConnectionsPerRoute());
+        assertEquals(1000, config.getConnectionPoolTimeout());
+        assertEquals(2000, config.getConnectTimeout());
+        assertEquals(3000, config.getSocketTimeout());
+        assertFalse(config.isKeepAlive());
+        assertEquals(4000L, config.getKeepAliveTimeout());
+        assertFalse(config.isResponseCompression());
+        assertEquals(Integer.valueOf(2), config.getProcessingOptions().getMaxDepth());
+        assertEquals(3, config.getMaxTransientRetries());
+        assertEquals(500L, config.getTransientRetryBudget());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxTotalConnections() throws Exception {
+        JolokiaConnectionConfig.builder().maxTotalConnections(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxConnectionsPerRoute() throws Exception {
+        JolokiaConnectionConfig.builder().maxConnectionsPerRoute(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSocketTimeout() throws Exception {
+        JolokiaConnectionConfig.builder().socketTimeout(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullProcessingOptions() throws Exception {
+        JolokiaConnectionConfig.builder().processingOptions(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidKeepAliveTimeout() throws Exception {
+        JolokiaConnectionConfig.builder().keepAliveTimeout(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTransientRetryBudget() throws Exception {
+        JolokiaConnectionConfig.builder().transientRetryBudget(-1);
+    }
+}
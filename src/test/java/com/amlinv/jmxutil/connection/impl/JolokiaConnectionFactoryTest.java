@@ -16,9 +16,28 @@
 
 package com.amlinv.jmxutil.connection.impl;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.management.Attribute;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
 import static org.junit.Assert.*;
 
 /**
@@ -27,11 +46,21 @@ import static org.junit.Assert.*;
 public class JolokiaConnectionFactoryTest {
     private JolokiaConnectionFactory factory;
 
+    private HttpServer stubServer;
+    private StubJolokiaHandler stubHandler;
+
     @Before
     public void setupTest() throws Exception {
         this.factory = new JolokiaConnectionFactory("x-jolokia-url-x");
     }
 
+    @After
+    public void cleanupTest() throws Exception {
+        if (this.stubServer != null) {
+            this.stubServer.stop(0);
+        }
+    }
+
     /**
      * Verify the creation of the connection is successful.  There is little worth doing here as, sadly, the Jolokia
      * library builder pattern uses static methods.  The effort to validate isn't worth while.
@@ -43,6 +72,86 @@ public class JolokiaConnectionFactoryTest {
         assertNotNull(this.factory.createConnection());
     }
 
+    /**
+     * Verify creation of connections with non-default configuration settings.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCreateConnectionWithConfig() throws Exception {
+        JolokiaConnectionConfig config = JolokiaConnectionConfig.builder()
+                .maxTotalConnections(50)
+                .maxConnectionsPerRoute(10)
+                .socketTimeout(5000)
+                .keepAliveTimeout(15000)
+                .responseCompression(false)
+                .build();
+
+        this.factory = new JolokiaConnectionFactory("x-jolokia-url-x", config);
+
+        assertSame(config, this.factory.getConfig());
+        assertNotNull(this.factory.createConnection());
+
+        config = JolokiaConnectionConfig.builder().keepAlive(false).build();
+        this.factory = new JolokiaConnectionFactory("x-jolokia-url-x", config);
+
+        assertNotNull(this.factory.createConnection());
+    }
+
+    /**
+     * Verify the keep-alive strategy caps the server's keep-alive duration.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCappedKeepAliveStrategy() throws Exception {
+        JolokiaConnectionFactory.CappedKeepAliveStrategy strategy =
+                new JolokiaConnectionFactory.CappedKeepAliveStrategy(10000);
+
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        assertEquals(10000L, strategy.getKeepAliveDuration(response, new BasicHttpContext()));
+
+        response.setHeader("Keep-Alive", "timeout=5");
+        assertEquals(5000L, strategy.getKeepAliveDuration(response, new BasicHttpContext()));
+
+        response.setHeader("Keep-Alive", "timeout=60");
+        assertEquals(10000L, strategy.getKeepAliveDuration(response, new BasicHttpContext()));
+    }
+
+    /**
+     * Verify a batch query through a stub Jolokia server that gzip-compresses its responses.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGzipResponseFromServer() throws Exception {
+        this.startStubServer(true);
+
+        Map<ObjectName, List<Attribute>> result = this.executeStubBatchQuery(
+                JolokiaConnectionConfig.builder().build());
+
+        assertEquals("gzip", this.stubHandler.acceptEncoding);
+        assertEquals(Arrays.asList(new Attribute("x-att-x", "x-value-x")),
+                result.get(new ObjectName("x-domain-x:x-key-x=x-value-x")));
+    }
+
+    /**
+     * Verify compression is not requested when disabled in the configuration.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testServerResponseCompressionDisabled() throws Exception {
+        this.startStubServer(false);
+
+        Map<ObjectName, List<Attribute>> result = this.executeStubBatchQuery(
+                JolokiaConnectionConfig.builder().responseCompression(false).build());
+
+        assertNull(this.stubHandler.acceptEncoding);
+        assertEquals(Arrays.asList(new Attribute("x-att-x", "x-value-x")),
+                result.get(new ObjectName("x-domain-x:x-key-x=x-value-x")));
+    }
+
     /**
      * Verify the target description for the factory.
      *
@@ -52,4 +161,59 @@ public class JolokiaConnectionFactoryTest {
     public void testGetTargetDescription() throws Exception {
         assertEquals("jolokia:url=x-jolokia-url-x", this.factory.getTargetDescription());
     }
-}
\ No newline at end of file
+
+    protected void startStubServer(boolean gzipInd) throws IOException {
+        this.stubHandler = new StubJolokiaHandler(gzipInd);
+
+        this.stubServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.stubServer.createContext("/jolokia", this.stubHandler);
+        this.stubServer.start();
+    }
+
+    protected Map<ObjectName, List<Attribute>> executeStubBatchQuery(JolokiaConnectionConfig config) throws Exception {
+        String url = "http://127.0.0.1:" + this.stubServer.getAddress().getPort() + "/jolokia";
+        this.factory = new JolokiaConnectionFactory(url, config);
+
+        JolokiaConnection connection = (JolokiaConnection) this.factory.createConnection();
+
+        return connection.batchQueryAttributes(Collections.singletonMap(
+                new ObjectName("x-domain-x:x-key-x=x-value-x"), Arrays.asList("x-att-x")));
+    }
+
+    /**
+     * Stub Jolokia endpoint answering every request with the same bulk read response.
+     */
+    protected static class StubJolokiaHandler implements HttpHandler {
+        private final boolean gzipInd;
+        private volatile String acceptEncoding;
+
+        public StubJolokiaHandler(boolean gzipInd) {
+            this.gzipInd = gzipInd;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            this.acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+
+            byte[] body = ("[{\"request\":{\"mbean\":\"x-domain-x:x-key-x=x-value-x\",\"attribute\":\"x-att-x\"," +
+                    "\"type\":\"read\"},\"value\":\"x-value-x\",\"timestamp\":1,\"status\":200}]")
+                    .getBytes("UTF-8");
+
+            exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=utf-8");
+            if (this.gzipInd) {
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                exchange.sendResponseHeaders(200, 0);
+
+                GZIPOutputStream gzipOutputStream = new GZIPOutputStream(exchange.getResponseBody());
+                gzipOutputStream.write(body);
+                gzipOutputStream.close();
+            } else {
+                exchange.sendResponseHeaders(200, body.length);
+
+                OutputStream outputStream = exchange.getResponseBody();
+                outputStream.write(body);
+                outputStream.close();
+            }
+        }
+    }
+}
@@ -20,6 +20,8 @@ import org.jolokia.client.J4pClient;
 import org.jolokia.client.exception.J4pBulkRemoteException;
 import org.jolokia.client.exception.J4pException;
 import org.jolokia.client.exception.J4pRemoteException;
+import org.jolokia.client.request.J4pListRequest;
+import org.jolokia.client.request.J4pListResponse;
 import org.jolokia.client.request.J4pReadRequest;
 import org.jolokia.client.request.J4pReadResponse;
 import org.jolokia.client.request.J4pSearchRequest;
@@ -35,6 +37,9 @@ import org.powermock.modules.junit4.PowerMockRunner;
 import org.slf4j.Logger;
 
 import javax.management.Attribute;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanInfo;
+import javax.management.ReflectionException;
 import javax.management.ObjectName;
 import javax.management.QueryExp;
 import java.io.IOException;
@@ -50,7 +55,7 @@ import static org.junit.Assert.*;
  * Created by art on 8/19/15.
  */
 @RunWith(PowerMockRunner.class)
-@PrepareForTest({JolokiaConnection.class, J4pReadResponse.class, J4pSearchResponse.class})
+@PrepareForTest({JolokiaConnection.class, J4pReadResponse.class, J4pSearchResponse.class, J4pListResponse.class})
 public class JolokiaConnectionTest {
 
     private JolokiaConnection jolokiaConnection;
@@ -116,6 +121,10 @@ public class JolokiaConnectionTest {
         Mockito.when(this.mockJ4pReadResponse1.getValue(this.objectName1, this.att1)).thenReturn(this.value1);
         Mockito.when(this.mockJ4pReadResponse1.getValue(this.objectName1, this.att2)).thenReturn(this.value2);
         Mockito.when(this.mockJ4pReadResponse2.getObjectNames()).thenReturn(Arrays.asList(this.objectName2));
+        Mockito.when(this.mockJ4pReadResponse1.getRequest())
+                .thenReturn(new J4pReadRequest(this.objectName1, this.att1, this.att2));
+        Mockito.when(this.mockJ4pReadResponse2.getRequest())
+                .thenReturn(new J4pReadRequest(this.objectName2, this.att1, this.att3, this.att4));
         Mockito.when(this.mockJ4pReadResponse2.getValue(this.objectName2, this.att1)).thenReturn(this.value1);
         Mockito.when(this.mockJ4pReadResponse2.getValue(this.objectName2, this.att3)).thenReturn(this.value3);
         Mockito.when(this.mockJ4pReadResponse2.getValue(this.objectName2, this.att4)).thenReturn(this.value4);
@@ -204,6 +213,210 @@ public class JolokiaConnectionTest {
                 new Attribute(this.att3, this.value3), new Attribute(this.att4, this.value4));
     }
 
+    /**
+     * Verify attributes with paths are read with their own requests within the same bulk request.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBatchQueryAttributesWithPath() throws Exception {
+        //
+        // SETUP TEST DATA AND INTERACTIONS
+        //
+        Map<ObjectName, List<String>> requestParameters = new HashMap<>();
+        requestParameters.put(this.objectName1, Arrays.asList(this.att1, this.att2, "x-composite-x/x-field-x"));
+
+        J4pReadRequest pathRequest = new J4pReadRequest(this.objectName1, "x-composite-x");
+        pathRequest.setPath("x-field-x");
+
+        J4pReadResponse mockPathResponse = PowerMockito.mock(J4pReadResponse.class);
+        Mockito.when(mockPathResponse.getRequest()).thenReturn(pathRequest);
+        Mockito.when(mockPathResponse.getValue()).thenReturn(13L);
+
+        Mockito.when(this.mockJ4pClient.execute(Mockito.argThat(new ArgumentMatcher<List<J4pReadRequest>>() {
+            @Override
+            public boolean matches(Object other) {
+                List<J4pReadRequest> requests = (List<J4pReadRequest>) other;
+
+                return (requests.size() == 2) &&
+                        (requests.get(0).getPath() == null) &&
+                        (requests.get(0).getAttributes().size() == 2) &&
+                        ("x-composite-x".equals(requests.get(1).getAttribute())) &&
+                        ("x-field-x".equals(requests.get(1).getPath()));
+            }
+        }))).thenReturn((List) Arrays.asList(this.mockJ4pReadResponse1, mockPathResponse));
+
+
+        //
+        // EXECUTE
+        //
+        Map<ObjectName, List<Attribute>> result = this.jolokiaConnection.batchQueryAttributes(requestParameters);
+
+
+        //
+        // VALIDATE
+        //
+        assertEquals(1, result.size());
+        assertAttributesMatch(result.get(this.objectName1), new Attribute(this.att1, this.value1),
+                new Attribute(this.att2, this.value2), new Attribute("x-composite-x/x-field-x", 13L));
+    }
+
+    /**
+     * Verify getAttributes() handling of attributes with paths.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetAttributesWithPath() throws Exception {
+        J4pReadRequest pathRequest = new J4pReadRequest(this.objectName1, "x-composite-x");
+        pathRequest.setPath("x-field-x");
+
+        J4pReadResponse mockPathResponse = PowerMockito.mock(J4pReadResponse.class);
+        Mockito.when(mockPathResponse.getRequest()).thenReturn(pathRequest);
+        Mockito.when(mockPathResponse.getValue()).thenReturn(13L);
+
+        Mockito.when(this.mockJ4pClient.execute(Mockito.anyList())).thenReturn((List) Arrays.asList(mockPathResponse));
+
+        List<Attribute> result = this.jolokiaConnection.getAttributes(this.objectName1, "x-composite-x/x-field-x");
+
+        assertEquals(Arrays.asList(new Attribute("x-composite-x/x-field-x", 13L)), result);
+    }
+
+    /**
+     * Verify connection-wide processing options are sent with batch queries.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBatchQueryWithProcessingOptions() throws Exception {
+        //
+        // SETUP TEST DATA AND INTERACTIONS
+        //
+        JolokiaProcessingOptions options = JolokiaProcessingOptions.builder().maxDepth(2).ignoreErrors(true).build();
+        this.jolokiaConnection.setProcessingOptions(options);
+        assertSame(options, this.jolokiaConnection.getProcessingOptions());
+
+        Map<ObjectName, List<String>> requestParameters = new HashMap<>();
+        requestParameters.put(this.objectName1, Arrays.asList(this.att1, this.att2));
+
+        Mockito.when(this.mockJ4pClient.execute(
+                this.matchReadRequestList(this.createJ4pReadRequestMatcher(this.objectName1, this.att1, this.att2)),
+                Mockito.eq(options.toQueryParameters())))
+                .thenReturn((List) Arrays.asList(this.mockJ4pReadResponse1));
+
+
+        //
+        // EXECUTE
+        //
+        Map<ObjectName, List<Attribute>> result = this.jolokiaConnection.batchQueryAttributes(requestParameters);
+
+
+        //
+        // VALIDATE
+        //
+        assertEquals(1, result.size());
+        assertAttributesMatch(result.get(this.objectName1), new Attribute(this.att1, this.value1),
+                new Attribute(this.att2, this.value2));
+    }
+
+    /**
+     * Verify the error values Jolokia substitutes for failed attributes are skipped when ignoring errors, and kept
+     * otherwise.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBatchQueryIgnoredErrorValues() throws Exception {
+        //
+        // SETUP TEST DATA AND INTERACTIONS
+        //
+        String errorValue = "ERROR: x-message-x (class java.lang.IllegalStateException)";
+        Mockito.when(this.mockJ4pReadResponse1.getValue(this.objectName1, this.att2)).thenReturn(errorValue);
+
+        Map<ObjectName, List<String>> requestParameters = new HashMap<>();
+        requestParameters.put(this.objectName1, Arrays.asList(this.att1, this.att2));
+
+        JolokiaProcessingOptions options = JolokiaProcessingOptions.builder().ignoreErrors(true).build();
+        Mockito.when(this.mockJ4pClient.execute(Mockito.anyList(), Mockito.anyMap()))
+                .thenReturn((List) Arrays.asList(this.mockJ4pReadResponse1));
+        Mockito.when(this.mockJ4pClient.execute(Mockito.anyList()))
+                .thenReturn((List) Arrays.asList(this.mockJ4pReadResponse1));
+
+        this.jolokiaConnection.setLog(this.mockLogger);
+
+
+        //
+        // EXECUTE
+        //
+        this.jolokiaConnection.setProcessingOptions(options);
+        Map<ObjectName, List<Attribute>> ignoringResult =
+                this.jolokiaConnection.batchQueryAttributes(requestParameters);
+
+        this.jolokiaConnection.setProcessingOptions(JolokiaProcessingOptions.NONE);
+        Map<ObjectName, List<Attribute>> plainResult = this.jolokiaConnection.batchQueryAttributes(requestParameters);
+
+
+        //
+        // VALIDATE
+        //
+        assertAttributesMatch(ignoringResult.get(this.objectName1), new Attribute(this.att1, this.value1));
+        assertAttributesMatch(plainResult.get(this.objectName1), new Attribute(this.att1, this.value1),
+                new Attribute(this.att2, errorValue));
+    }
+
+    /**
+     * Verify attributes with their own processing options are queried in a separate bulk request.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBatchQueryWithAttributeProcessingOptions() throws Exception {
+        //
+        // SETUP TEST DATA AND INTERACTIONS
+        //
+        JolokiaProcessingOptions defaultOptions = JolokiaProcessingOptions.builder().ignoreErrors(true).build();
+        JolokiaProcessingOptions att2Options = JolokiaProcessingOptions.builder().maxCollectionSize(10).build();
+
+        this.jolokiaConnection.setProcessingOptions(defaultOptions);
+        this.jolokiaConnection.setAttributeProcessingOptions(this.att2, att2Options);
+        assertSame(att2Options, this.jolokiaConnection.getAttributeProcessingOptions(this.att2));
+
+        Map<ObjectName, List<String>> requestParameters = new HashMap<>();
+        requestParameters.put(this.objectName1, Arrays.asList(this.att1, this.att2));
+
+        J4pReadResponse mockAtt2Response = PowerMockito.mock(J4pReadResponse.class);
+        Mockito.when(mockAtt2Response.getRequest()).thenReturn(new J4pReadRequest(this.objectName1, this.att2));
+        Mockito.when(mockAtt2Response.getObjectNames()).thenReturn(Arrays.asList(this.objectName1));
+        Mockito.when(mockAtt2Response.getValue(this.objectName1, this.att2)).thenReturn(this.value2);
+
+        Mockito.when(this.mockJ4pClient.execute(
+                this.matchReadRequestList(this.createJ4pReadRequestMatcher(this.objectName1, this.att1)),
+                Mockito.eq(defaultOptions.toQueryParameters())))
+                .thenReturn((List) Arrays.asList(this.mockJ4pReadResponse1));
+        Mockito.when(this.mockJ4pClient.execute(
+                this.matchReadRequestList(this.createJ4pReadRequestMatcher(this.objectName1, this.att2)),
+                Mockito.eq(att2Options.withDefaults(defaultOptions).toQueryParameters())))
+                .thenReturn((List) Arrays.asList(mockAtt2Response));
+
+
+        //
+        // EXECUTE
+        //
+        Map<ObjectName, List<Attribute>> result = this.jolokiaConnection.batchQueryAttributes(requestParameters);
+
+
+        //
+        // VALIDATE
+        //
+        assertEquals(1, result.size());
+        assertAttributesMatch(result.get(this.objectName1), new Attribute(this.att1, this.value1),
+                new Attribute(this.att2, this.value2));
+
+        // Removing the attribute's options returns to a single bulk request.
+        this.jolokiaConnection.setAttributeProcessingOptions(this.att2, null);
+        assertNull(this.jolokiaConnection.getAttributeProcessingOptions(this.att2));
+    }
+
     /**
      * Verify handling of a queryNames() operation.
      * @throws Exception
@@ -240,6 +453,86 @@ public class JolokiaConnectionTest {
         assertTrue(result.contains(testName2));
     }
 
+    /**
+     * Verify the mbean description is built from a list request.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetMBeanInfo() throws Exception {
+        //
+        // SETUP TEST DATA AND INTERACTIONS
+        //
+        Map<String, Object> attDetails = new HashMap<>();
+        attDetails.put("type", "long");
+        attDetails.put("rw", Boolean.TRUE);
+        attDetails.put("desc", "x-att-desc-x");
+
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(this.att1, attDetails);
+
+        Map<String, Object> description = new HashMap<>();
+        description.put("attr", attributes);
+        description.put("desc", "x-desc-x");
+
+        J4pListResponse mockListResponse = PowerMockito.mock(J4pListResponse.class);
+        Mockito.when(mockListResponse.getValue()).thenReturn(description);
+        Mockito.when(this.mockJ4pClient.execute(Mockito.any(J4pListRequest.class))).thenReturn(mockListResponse);
+
+
+        //
+        // EXECUTE
+        //
+        MBeanInfo result = this.jolokiaConnection.getMBeanInfo(this.objectName1);
+
+
+        //
+        // VALIDATE
+        //
+        assertEquals("x-desc-x", result.getDescription());
+        assertEquals(1, result.getAttributes().length);
+        assertEquals(this.att1, result.getAttributes()[0].getName());
+        assertEquals("long", result.getAttributes()[0].getType());
+        assertTrue(result.getAttributes()[0].isReadable());
+        assertTrue(result.getAttributes()[0].isWritable());
+        assertFalse(this.jolokiaConnection.addRegistrationListener(null));
+    }
+
+    /**
+     * Verify the mapping of failures to describe an mbean.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetMBeanInfoFailures() throws Exception {
+        Mockito.when(this.mockJ4pClient.execute(Mockito.any(J4pListRequest.class)))
+                .thenThrow(new J4pRemoteException(null, "x-exc-x", "javax.management.InstanceNotFoundException", 404,
+                        null, null))
+                .thenThrow(new J4pRemoteException(null, "x-exc-x", "java.lang.RuntimeException", 500, null, null))
+                .thenThrow(new J4pException("x-exc-x"));
+
+        try {
+            this.jolokiaConnection.getMBeanInfo(this.objectName1);
+            fail("missing expected exception");
+        } catch (InstanceNotFoundException infExc) {
+            assertEquals(this.objectName1.toString(), infExc.getMessage());
+        }
+
+        try {
+            this.jolokiaConnection.getMBeanInfo(this.objectName1);
+            fail("missing expected exception");
+        } catch (ReflectionException reflectionExc) {
+            assertTrue(reflectionExc.getTargetException() instanceof J4pRemoteException);
+        }
+
+        try {
+            this.jolokiaConnection.getMBeanInfo(this.objectName1);
+            fail("missing expected exception");
+        } catch (IOException ioExc) {
+            assertEquals("jolokia request failure", ioExc.getMessage());
+        }
+    }
+
     /**
      * Verify handling of the close() method.
      *
@@ -347,6 +640,149 @@ public class JolokiaConnectionTest {
         Mockito.verify(this.mockLogger).info("error on element of a bulk query", response2Exc);
     }
 
+    /**
+     * Verify that only the transiently failed element of a bulk query is re-issued and its result merged.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRetryTransientElementOfBatch() throws Exception {
+        //
+        // SETUP TEST DATA AND INTERACTIONS
+        //
+        J4pRemoteException response2Exc =
+                new J4pRemoteException(new J4pReadRequest(this.objectName2, this.att1, this.att3, this.att4), "x-exc-x",
+                        "java.lang.RuntimeException", 500, null, null);
+        List responseList = Arrays.asList(this.mockJ4pReadResponse1, response2Exc);
+
+        Map<ObjectName, List<String>> requestParameters = new HashMap<>();
+
+        requestParameters.put(this.objectName1, Arrays.asList(this.att1, this.att2));
+        requestParameters.put(this.objectName2, Arrays.asList(this.att1, this.att3, this.att4));
+
+        Mockito.when(this.mockJ4pClient.execute(this.matchReadRequestList(
+                this.createJ4pReadRequestMatcher(this.objectName1, this.att1, this.att2),
+                this.createJ4pReadRequestMatcher(this.objectName2, this.att1, this.att3, this.att4))))
+                .thenThrow(new J4pBulkRemoteException(responseList));
+        Mockito.when(this.mockJ4pClient.execute(this.matchReadRequestList(
+                this.createJ4pReadRequestMatcher(this.objectName2, this.att1, this.att3, this.att4))))
+                .thenReturn((List) Arrays.asList(this.mockJ4pReadResponse2));
+
+
+        //
+        // EXECUTE
+        //
+        Map<ObjectName, List<Attribute>> result = this.jolokiaConnection.batchQueryAttributes(requestParameters);
+
+
+        //
+        // VALIDATE
+        //
+        assertEquals(2, result.size());
+        assertAttributesMatch(result.get(this.objectName1), new Attribute(this.att1, this.value1),
+                new Attribute(this.att2, this.value2));
+        assertAttributesMatch(result.get(this.objectName2), new Attribute(this.att1, this.value1),
+                new Attribute(this.att3, this.value3), new Attribute(this.att4, this.value4));
+    }
+
+    /**
+     * Verify that missing mbeans are not retried, and that transient failures are not retried once retries are
+     * exhausted.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testNoRetryOfBatchElement() throws Exception {
+        //
+        // SETUP TEST DATA AND INTERACTIONS
+        //
+        J4pRemoteException response1Exc =
+                new J4pRemoteException(new J4pReadRequest(this.objectName1, this.att1), "x-exc-x",
+                        "javax.management.InstanceNotFoundException", 404, null, null);
+        J4pRemoteException response2Exc =
+                new J4pRemoteException(new J4pReadRequest(this.objectName2, this.att1), "x-exc-x",
+                        "java.lang.RuntimeException", 500, null, null);
+        List responseList = Arrays.asList(response1Exc, response2Exc);
+
+        Map<ObjectName, List<String>> requestParameters = new LinkedHashMap<>();
+
+        requestParameters.put(this.objectName1, Arrays.asList(this.att1));
+        requestParameters.put(this.objectName2, Arrays.asList(this.att1));
+
+        Mockito.when(this.mockJ4pClient.execute(Mockito.anyList())).thenThrow(new J4pBulkRemoteException(responseList));
+
+        this.jolokiaConnection.setMaxTransientRetries(0);
+        this.jolokiaConnection.setLog(this.mockLogger);
+
+
+        //
+        // EXECUTE
+        //
+        Map<ObjectName, List<Attribute>> result = this.jolokiaConnection.batchQueryAttributes(requestParameters);
+
+
+        //
+        // VALIDATE
+        //
+        assertEquals(0, this.jolokiaConnection.getMaxTransientRetries());
+        assertTrue(result.isEmpty());
+        Mockito.verify(this.mockJ4pClient, Mockito.times(1)).execute(Mockito.anyList());
+        Mockito.verify(this.mockLogger).info("error on element of a bulk query", response2Exc);
+        Mockito.verify(this.mockLogger, Mockito.never()).info("error on element of a bulk query", response1Exc);
+        Mockito.verify(this.mockLogger)
+                .info("dropping {} transiently failed elements of a bulk query after {} retries", 1, 0);
+    }
+
+    /**
+     * Verify the transient retries are shared by all of the processing option groups of a single batch query.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRetryBudgetSharedAcrossOptionGroups() throws Exception {
+        //
+        // SETUP TEST DATA AND INTERACTIONS
+        //
+        JolokiaProcessingOptions att2Options = JolokiaProcessingOptions.builder().maxCollectionSize(10).build();
+        this.jolokiaConnection.setAttributeProcessingOptions(this.att2, att2Options);
+
+        J4pRemoteException att1Exc =
+                new J4pRemoteException(new J4pReadRequest(this.objectName1, this.att1), "x-exc-x",
+                        "java.lang.RuntimeException", 500, null, null);
+        J4pRemoteException att2Exc =
+                new J4pRemoteException(new J4pReadRequest(this.objectName1, this.att2), "x-exc-x",
+                        "java.lang.RuntimeException", 500, null, null);
+
+        Map<ObjectName, List<String>> requestParameters = new LinkedHashMap<>();
+        requestParameters.put(this.objectName1, Arrays.asList(this.att1, this.att2));
+
+        Mockito.when(this.mockJ4pClient.execute(Mockito.anyList()))
+                .thenThrow(new J4pBulkRemoteException((List) Arrays.asList(att1Exc)));
+        Mockito.when(this.mockJ4pClient.execute(Mockito.anyList(), Mockito.anyMap()))
+                .thenThrow(new J4pBulkRemoteException((List) Arrays.asList(att2Exc)));
+
+        this.jolokiaConnection.setMaxTransientRetries(1);
+        this.jolokiaConnection.setLog(this.mockLogger);
+
+
+        //
+        // EXECUTE
+        //
+        Map<ObjectName, List<Attribute>> result = this.jolokiaConnection.batchQueryAttributes(requestParameters);
+
+
+        //
+        // VALIDATE
+        //
+        assertTrue(result.isEmpty());
+
+        // One initial request per group, and a single retry for the whole query; the second group is never retried.
+        Mockito.verify(this.mockJ4pClient, Mockito.times(2)).execute(Mockito.anyList());
+        Mockito.verify(this.mockJ4pClient, Mockito.times(1)).execute(Mockito.anyList(), Mockito.anyMap());
+        Mockito.verify(this.mockLogger)
+                .info("dropping {} transiently failed elements of a bulk query after {} retries", 2, 1);
+    }
+
     /**
      * Validate handling of an invalid value type in the response data from a RemoteException.  Only J4pResponse and
      * Exception objects are expected.
@@ -0,0 +1,58 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.amlinv.jmxutil.connection.impl;
+
+import org.jolokia.client.exception.J4pRemoteException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify classification of the failures of bulk request elements.
+ */
+public class JolokiaElementFailureTypeTest {
+
+    @Test
+    public void testClassifyByErrorType() throws Exception {
+        assertEquals(JolokiaElementFailureType.MISSING_MBEAN,
+                classify("javax.management.InstanceNotFoundException", 500));
+        assertEquals(JolokiaElementFailureType.MISSING_ATTRIBUTE,
+                classify("javax.management.AttributeNotFoundException", 500));
+    }
+
+    @Test
+    public void testClassifyByStatus() throws Exception {
+        assertEquals(JolokiaElementFailureType.MISSING_MBEAN, classify(null, 404));
+        assertEquals(JolokiaElementFailureType.PERMANENT, classify(null, 400));
+        assertEquals(JolokiaElementFailureType.PERMANENT, classify("java.lang.SecurityException", 403));
+        assertEquals(JolokiaElementFailureType.TRANSIENT, classify("java.lang.RuntimeException", 500));
+        assertEquals(JolokiaElementFailureType.TRANSIENT, classify(null, 0));
+    }
+
+    @Test
+    public void testIsRetryable() throws Exception {
+        assertTrue(JolokiaElementFailureType.TRANSIENT.isRetryable());
+        assertFalse(JolokiaElementFailureType.MISSING_MBEAN.isRetryable());
+        assertFalse(JolokiaElementFailureType.MISSING_ATTRIBUTE.isRetryable());
+        assertFalse(JolokiaElementFailureType.PERMANENT.isRetryable());
+    }
+
+    private JolokiaElementFailureType classify(String errorType, int status) {
+        return JolokiaElementFailureType.classify(new J4pRemoteException(null, "x-exc-x", errorType, status, null,
+                null));
+    }
+}
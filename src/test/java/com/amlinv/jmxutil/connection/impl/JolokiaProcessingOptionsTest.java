@@ -0,0 +1,89 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.amlinv.jmxutil.connection.impl;
+
+import org.jolokia.client.request.J4pQueryParameter;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the JolokiaProcessingOptions.
+ */
+public class JolokiaProcessingOptionsTest {
+
+    @Test
+    public void testNone() throws Exception {
+        assertTrue(JolokiaProcessingOptions.NONE.isEmpty());
+        assertTrue(JolokiaProcessingOptions.NONE.toQueryParameters().isEmpty());
+        assertEquals(JolokiaProcessingOptions.NONE, JolokiaProcessingOptions.builder().build());
+    }
+
+    @Test
+    public void testToQueryParameters() throws Exception {
+        JolokiaProcessingOptions options = JolokiaProcessingOptions.builder()
+                .maxDepth(3)
+                .maxCollectionSize(100)
+                .maxObjects(1000)
+                .ignoreErrors(true)
+                .build();
+
+        assertFalse(options.isEmpty());
+
+        Map<J4pQueryParameter, String> params = options.toQueryParameters();
+        assertEquals(4, params.size());
+        assertEquals("3", params.get(J4pQueryParameter.MAX_DEPTH));
+        assertEquals("100", params.get(J4pQueryParameter.MAX_COLLECTION_SIZE));
+        assertEquals("1000", params.get(J4pQueryParameter.MAX_OBJECTS));
+        assertEquals("true", params.get(J4pQueryParameter.IGNORE_ERRORS));
+    }
+
+    @Test
+    public void testWithDefaults() throws Exception {
+        JolokiaProcessingOptions defaults = JolokiaProcessingOptions.builder().maxDepth(3).ignoreErrors(true).build();
+        JolokiaProcessingOptions specific = JolokiaProcessingOptions.builder().maxDepth(1).maxObjects(10).build();
+
+        JolokiaProcessingOptions combined = specific.withDefaults(defaults);
+
+        assertEquals(Integer.valueOf(1), combined.getMaxDepth());
+        assertNull(combined.getMaxCollectionSize());
+        assertEquals(Integer.valueOf(10), combined.getMaxObjects());
+        assertEquals(Boolean.TRUE, combined.getIgnoreErrors());
+    }
+
+    @Test
+    public void testEqualsAndHashCode() throws Exception {
+        JolokiaProcessingOptions options1 = JolokiaProcessingOptions.builder().maxDepth(3).build();
+        JolokiaProcessingOptions options2 = JolokiaProcessingOptions.builder().maxDepth(3).build();
+        JolokiaProcessingOptions options3 = JolokiaProcessingOptions.builder().maxDepth(4).build();
+
+        assertEquals(options1, options1);
+        assertEquals(options1, options2);
+        assertEquals(options1.hashCode(), options2.hashCode());
+        assertFalse(options1.equals(options3));
+        assertFalse(options1.equals(JolokiaProcessingOptions.NONE));
+        assertFalse(options1.equals("x-not-options-x"));
+        assertTrue(options1.toString().contains("maxDepth=3"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxDepth() throws Exception {
+        JolokiaProcessingOptions.builder().maxDepth(-1);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+import com.amlinv.jmxutil.derived.AggregateExpression.AggregateFunction;
+import com.amlinv.jmxutil.polling.AttributeSnapshot;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the AggregateExpression.
+ */
+public class AggregateExpressionTest {
+    private EvaluationContext context;
+    private AttributeExpression attribute;
+    private ObjectName queuePattern;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.context = new EvaluationContext();
+        this.attribute = new AttributeExpression("x-att-x");
+        this.queuePattern = new ObjectName("x-domain-x:type=x-queue-x,*");
+
+        List<AttributeSnapshot> snapshots = Arrays.asList(
+                this.createSnapshot("x-domain-x:type=x-queue-x,name=a", 1),
+                this.createSnapshot("x-domain-x:type=x-queue-x,name=b", 5),
+                this.createSnapshot("x-domain-x:type=x-topic-x,name=c", 100),
+                new AttributeSnapshot(new ObjectName("x-domain-x:type=x-queue-x,name=d"), 1L,
+                        Collections.<String, Object>singletonMap("x-att-x", "x-not-number-x")));
+
+        this.context.reset(snapshots);
+    }
+
+    @Test
+    public void testFunctions() throws Exception {
+        assertEquals(6.0, this.evaluate(AggregateFunction.SUM, this.queuePattern), 0.0);
+        assertEquals(1.0, this.evaluate(AggregateFunction.MIN, this.queuePattern), 0.0);
+        assertEquals(5.0, this.evaluate(AggregateFunction.MAX, this.queuePattern), 0.0);
+        assertEquals(3.0, this.evaluate(AggregateFunction.AVG, this.queuePattern), 0.0);
+        assertEquals(2.0, this.evaluate(AggregateFunction.COUNT, this.queuePattern), 0.0);
+
+        assertEquals(106.0, this.evaluate(AggregateFunction.SUM, null), 0.0);
+        assertEquals(3.0, this.evaluate(AggregateFunction.COUNT, null), 0.0);
+    }
+
+    @Test
+    public void testNoValues() throws Exception {
+        ObjectName nonePattern = new ObjectName("x-other-domain-x:*");
+
+        assertEquals(0.0, this.evaluate(AggregateFunction.SUM, nonePattern), 0.0);
+        assertEquals(0.0, this.evaluate(AggregateFunction.COUNT, nonePattern), 0.0);
+        assertTrue(Double.isNaN(this.evaluate(AggregateFunction.MIN, nonePattern)));
+        assertTrue(Double.isNaN(this.evaluate(AggregateFunction.MAX, nonePattern)));
+        assertTrue(Double.isNaN(this.evaluate(AggregateFunction.AVG, nonePattern)));
+    }
+
+    @Test
+    public void testCachedPerGeneration() throws Exception {
+        AggregateExpression expression = new AggregateExpression(AggregateFunction.SUM, this.attribute, null);
+        assertEquals(106.0, expression.evaluate(this.context), 0.0);
+
+        this.context.getSnapshots().set(0, this.createSnapshot("x-domain-x:type=x-queue-x,name=a", 11));
+        assertEquals(106.0, expression.evaluate(this.context), 0.0);
+
+        this.context.reset(this.context.getSnapshots());
+        assertEquals(116.0, expression.evaluate(this.context), 0.0);
+    }
+
+    @Test
+    public void testRestoresCurrentSnapshot() throws Exception {
+        AttributeSnapshot current = this.context.getSnapshots().get(2);
+        this.context.setCurrent(current);
+
+        new AggregateExpression(AggregateFunction.SUM, this.attribute, null).evaluate(this.context);
+
+        assertSame(current, this.context.getCurrent());
+    }
+
+    @Test
+    public void testGettersAndToString() throws Exception {
+        AggregateExpression expression =
+                new AggregateExpression(AggregateFunction.AVG, this.attribute, this.queuePattern);
+
+        assertSame(AggregateFunction.AVG, expression.getFunction());
+        assertSame(this.queuePattern, expression.getPattern());
+        assertTrue(expression.isCycleConstant());
+        assertEquals("avg([x-att-x], \"x-domain-x:type=x-queue-x,*\")", expression.toString());
+        assertEquals("sum([x-att-x])",
+                new AggregateExpression(AggregateFunction.SUM, this.attribute, null).toString());
+    }
+
+    @Test
+    public void testForName() throws Exception {
+        assertSame(AggregateFunction.SUM, AggregateFunction.forName("sum"));
+        assertSame(AggregateFunction.MAX, AggregateFunction.forName("MAX"));
+        assertNull(AggregateFunction.forName("x-unknown-x"));
+    }
+
+    protected double evaluate(AggregateFunction function, ObjectName pattern) {
+        return new AggregateExpression(function, this.attribute, pattern).evaluate(this.context);
+    }
+
+    protected AttributeSnapshot createSnapshot(String objectName, long value) throws Exception {
+        return new AttributeSnapshot(new ObjectName(objectName), 1L,
+                Collections.<String, Object>singletonMap("x-att-x", value));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the BinaryExpression and its operators.
+ */
+public class BinaryExpressionTest {
+    private final ConstantExpression seven = new ConstantExpression(7.0);
+    private final ConstantExpression two = new ConstantExpression(2.0);
+    private final ConstantExpression zero = new ConstantExpression(0.0);
+
+    @Test
+    public void testOperators() throws Exception {
+        assertEquals(9.0, BinaryExpression.create('+', seven, two).evaluate(null), 0.0);
+        assertEquals(5.0, BinaryExpression.create('-', seven, two).evaluate(null), 0.0);
+        assertEquals(14.0, BinaryExpression.create('*', seven, two).evaluate(null), 0.0);
+        assertEquals(3.5, BinaryExpression.create('/', seven, two).evaluate(null), 0.0);
+        assertEquals(1.0, BinaryExpression.create('%', seven, two).evaluate(null), 0.0);
+
+        assertEquals('+', BinaryExpression.create('+', seven, two).getOperator());
+        assertEquals('-', BinaryExpression.create('-', seven, two).getOperator());
+        assertEquals('*', BinaryExpression.create('*', seven, two).getOperator());
+        assertEquals('/', BinaryExpression.create('/', seven, two).getOperator());
+        assertEquals('%', BinaryExpression.create('%', seven, two).getOperator());
+    }
+
+    @Test
+    public void testDivideByZero() throws Exception {
+        assertTrue(Double.isNaN(BinaryExpression.create('/', seven, zero).evaluate(null)));
+    }
+
+    @Test
+    public void testNaNPropagates() throws Exception {
+        ConstantExpression nan = new ConstantExpression(Double.NaN);
+
+        assertTrue(Double.isNaN(BinaryExpression.create('+', seven, nan).evaluate(null)));
+        assertTrue(Double.isNaN(BinaryExpression.create('*', nan, two).evaluate(null)));
+    }
+
+    @Test
+    public void testIsCycleConstant() throws Exception {
+        AttributeExpression attribute = new AttributeExpression("x-att-x");
+
+        assertTrue(BinaryExpression.create('+', seven, two).isCycleConstant());
+        assertFalse(BinaryExpression.create('+', seven, attribute).isCycleConstant());
+        assertFalse(BinaryExpression.create('+', attribute, two).isCycleConstant());
+    }
+
+    @Test
+    public void testToString() throws Exception {
+        assertEquals("(7.0 / [x-att-x])",
+                BinaryExpression.create('/', seven, new AttributeExpression("x-att-x")).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownOperator() throws Exception {
+        BinaryExpression.create('^', seven, two);
+    }
+}
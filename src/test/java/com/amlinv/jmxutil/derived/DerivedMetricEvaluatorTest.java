@@ -0,0 +1,167 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+import com.amlinv.jmxutil.polling.AttributeSnapshot;
+import com.amlinv.jmxutil.polling.PollCycleResult;
+import com.amlinv.jmxutil.polling.PollCycleSubscription;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+
+import javax.management.ObjectName;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the DerivedMetricEvaluator.
+ */
+public class DerivedMetricEvaluatorTest {
+    private DerivedMetricEvaluator evaluator;
+    private DerivedMetricListener mockListener;
+    private Logger mockLogger;
+
+    private ObjectName queueA;
+    private ObjectName queueB;
+    private ObjectName topic;
+    private PollCycleResult result;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.evaluator = new DerivedMetricEvaluator();
+        this.mockListener = Mockito.mock(DerivedMetricListener.class);
+        this.mockLogger = Mockito.mock(Logger.class);
+
+        this.queueA = new ObjectName("x-domain-x:type=Queue,name=a");
+        this.queueB = new ObjectName("x-domain-x:type=Queue,name=b");
+        this.topic = new ObjectName("x-domain-x:type=Topic,name=c");
+
+        this.result = new PollCycleResult("x-source-x", 1L, 1000L, Arrays.asList(
+                this.createSnapshot(this.queueA, 10L, 200L),
+                this.createSnapshot(this.queueB, 30L, 0L),
+                this.createSnapshot(this.topic, 5L, 100L)));
+
+        this.evaluator.setLog(this.mockLogger);
+        this.evaluator.addListener(this.mockListener);
+    }
+
+    @Test
+    public void testGetters() throws Exception {
+        assertSame(this.mockLogger, this.evaluator.getLog());
+        assertTrue(this.evaluator.getMetrics().isEmpty());
+    }
+
+    @Test
+    public void testPerSnapshotMetric() throws Exception {
+        DerivedMetric metric =
+                new DerivedMetric("x-percent-x", new ObjectName("x-domain-x:type=Queue,*"), "QueueSize / Limit * 100");
+        this.evaluator.addMetric(metric);
+
+        this.evaluator.evaluate(this.result);
+
+        Mockito.verify(this.mockListener).onDerivedValue(metric, this.queueA, 1001L, 5.0);
+        // Queue b has a limit of 0, yielding NaN, which is not reported.
+        Mockito.verifyNoMoreInteractions(this.mockListener);
+    }
+
+    @Test
+    public void testCycleLevelMetric() throws Exception {
+        DerivedMetric metric = new DerivedMetric("x-total-x", null, "sum(QueueSize, \"x-domain-x:type=Queue,*\")");
+        this.evaluator.addMetric(metric);
+
+        this.evaluator.evaluate(this.result);
+
+        Mockito.verify(this.mockListener).onDerivedValue(metric, null, 1000L, 40.0);
+        Mockito.verifyNoMoreInteractions(this.mockListener);
+    }
+
+    @Test
+    public void testMixedMetric() throws Exception {
+        DerivedMetric metric = new DerivedMetric("x-share-x", null, "QueueSize / sum(QueueSize) * 100");
+        this.evaluator.addMetric(metric);
+
+        this.evaluator.evaluate(this.result);
+
+        Mockito.verify(this.mockListener).onDerivedValue(metric, this.queueA, 1001L, 10 / 45.0 * 100);
+        Mockito.verify(this.mockListener).onDerivedValue(metric, this.queueB, 1001L, 30 / 45.0 * 100);
+        Mockito.verify(this.mockListener).onDerivedValue(metric, this.topic, 1001L, 5 / 45.0 * 100);
+        Mockito.verifyNoMoreInteractions(this.mockListener);
+    }
+
+    @Test
+    public void testRemoveMetricAndListener() throws Exception {
+        DerivedMetric metric = new DerivedMetric("x-total-x", null, "sum(QueueSize)");
+        this.evaluator.addMetric(metric);
+        this.evaluator.removeMetric(metric);
+        this.evaluator.evaluate(this.result);
+
+        this.evaluator.addMetric(metric);
+        this.evaluator.removeListener(this.mockListener);
+        this.evaluator.evaluate(this.result);
+
+        Mockito.verifyZeroInteractions(this.mockListener);
+    }
+
+    @Test
+    public void testListenerException() throws Exception {
+        DerivedMetric metric = new DerivedMetric("x-total-x", null, "sum(QueueSize)");
+        DerivedMetricListener secondListener = Mockito.mock(DerivedMetricListener.class);
+        RuntimeException rtExc = new RuntimeException("x-rt-exc-x");
+
+        Mockito.doThrow(rtExc).when(this.mockListener)
+                .onDerivedValue(Mockito.any(DerivedMetric.class), Mockito.any(ObjectName.class), Mockito.anyLong(),
+                        Mockito.anyDouble());
+
+        this.evaluator.addMetric(metric);
+        this.evaluator.addListener(secondListener);
+        this.evaluator.evaluate(this.result);
+
+        Mockito.verify(this.mockLogger).warn("derived metric listener failed: metric={}", "x-total-x", rtExc);
+        Mockito.verify(secondListener).onDerivedValue(metric, null, 1000L, 45.0);
+    }
+
+    @Test
+    public void testSubscriber() throws Exception {
+        PollCycleSubscription mockSubscription = Mockito.mock(PollCycleSubscription.class);
+        DerivedMetric metric = new DerivedMetric("x-total-x", null, "sum(QueueSize)");
+        this.evaluator.addMetric(metric);
+
+        this.evaluator.onSubscribe(mockSubscription);
+        this.evaluator.onNext(this.result);
+        this.evaluator.onComplete();
+
+        Mockito.verify(mockSubscription).request(Long.MAX_VALUE);
+        Mockito.verify(this.mockListener).onDerivedValue(metric, null, 1000L, 45.0);
+
+        RuntimeException rtExc = new RuntimeException("x-rt-exc-x");
+        this.evaluator.onError(rtExc);
+
+        Mockito.verify(this.mockLogger)
+                .warn("poll cycle publisher failed; derived metrics are no longer evaluated", rtExc);
+    }
+
+    protected AttributeSnapshot createSnapshot(ObjectName objectName, long queueSize, long limit) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("QueueSize", queueSize);
+        values.put("Limit", limit);
+
+        return new AttributeSnapshot(objectName, 1001L, values);
+    }
+}
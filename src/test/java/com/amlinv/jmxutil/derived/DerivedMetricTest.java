@@ -0,0 +1,69 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.text.ParseException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the DerivedMetric.
+ */
+public class DerivedMetricTest {
+
+    @Test
+    public void testGetters() throws Exception {
+        ObjectName pattern = new ObjectName("x-domain-x:type=Queue,*");
+        DerivedMetric metric = new DerivedMetric("x-name-x", pattern, "QueueSize / MemoryLimit * 100");
+
+        assertEquals("x-name-x", metric.getName());
+        assertSame(pattern, metric.getObjectNamePattern());
+        assertEquals("QueueSize / MemoryLimit * 100", metric.getExpressionText());
+        assertEquals("(([QueueSize] / [MemoryLimit]) * 100.0)", metric.getExpression().toString());
+        assertFalse(metric.isCycleLevel());
+        assertTrue(metric.toString().contains("x-name-x"));
+    }
+
+    @Test
+    public void testCycleLevel() throws Exception {
+        assertTrue(new DerivedMetric("x-name-x", null, "sum(EnqueueCount)").isCycleLevel());
+        assertTrue(new DerivedMetric("x-name-x", null, "42").isCycleLevel());
+    }
+
+    @Test
+    public void testMatches() throws Exception {
+        DerivedMetric metric = new DerivedMetric("x-name-x", new ObjectName("x-domain-x:type=Queue,*"), "QueueSize");
+
+        assertTrue(metric.matches(new ObjectName("x-domain-x:type=Queue,name=a")));
+        assertFalse(metric.matches(new ObjectName("x-domain-x:type=Topic,name=a")));
+        assertFalse(metric.matches(null));
+
+        assertTrue(new DerivedMetric("x-name-x", null, "QueueSize").matches(null));
+    }
+
+    @Test(expected = ParseException.class)
+    public void testInvalidExpression() throws Exception {
+        new DerivedMetric("x-name-x", null, "QueueSize +");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingName() throws Exception {
+        new DerivedMetric(null, null, "QueueSize");
+    }
+}
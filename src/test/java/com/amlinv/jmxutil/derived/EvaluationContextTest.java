@@ -0,0 +1,85 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+import com.amlinv.jmxutil.polling.AttributeSnapshot;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the EvaluationContext.
+ */
+public class EvaluationContextTest {
+
+    @Test
+    public void testResetAndGetters() throws Exception {
+        EvaluationContext context = new EvaluationContext();
+        assertTrue(context.getSnapshots().isEmpty());
+        assertNull(context.getCurrent());
+        assertEquals(0L, context.getGeneration());
+
+        AttributeSnapshot snapshot = new AttributeSnapshot(new ObjectName("x-domain-x:x-key-x=x-value-x"), 1L,
+                Collections.<String, Object>emptyMap());
+        List<AttributeSnapshot> snapshots = Collections.singletonList(snapshot);
+
+        context.reset(snapshots);
+        context.setCurrent(snapshot);
+        assertSame(snapshots, context.getSnapshots());
+        assertSame(snapshot, context.getCurrent());
+        assertEquals(1L, context.getGeneration());
+
+        context.reset(snapshots);
+        assertNull(context.getCurrent());
+        assertEquals(2L, context.getGeneration());
+    }
+
+    @Test
+    public void testGetValue() throws Exception {
+        Map<String, Object> values = new HashMap<>();
+        values.put("x-int-x", 3);
+        values.put("x-double-x", 2.5);
+        values.put("x-true-x", Boolean.TRUE);
+        values.put("x-false-x", Boolean.FALSE);
+        values.put("x-string-x", "x-value-x");
+
+        EvaluationContext context = new EvaluationContext();
+        assertTrue(Double.isNaN(context.getValue("x-int-x")));
+
+        context.setCurrent(new AttributeSnapshot(new ObjectName("x-domain-x:x-key-x=x-value-x"), 1L, values));
+
+        assertEquals(3.0, context.getValue("x-int-x"), 0.0);
+        assertEquals(2.5, context.getValue("x-double-x"), 0.0);
+        assertEquals(1.0, context.getValue("x-true-x"), 0.0);
+        assertEquals(0.0, context.getValue("x-false-x"), 0.0);
+        assertTrue(Double.isNaN(context.getValue("x-string-x")));
+        assertTrue(Double.isNaN(context.getValue("x-missing-x")));
+    }
+
+    @Test
+    public void testToDouble() throws Exception {
+        assertEquals(4.0, EvaluationContext.toDouble(4L), 0.0);
+        assertEquals(1.0, EvaluationContext.toDouble(Boolean.TRUE), 0.0);
+        assertTrue(Double.isNaN(EvaluationContext.toDouble(null)));
+        assertTrue(Double.isNaN(EvaluationContext.toDouble("x-string-x")));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+import com.amlinv.jmxutil.polling.AttributeSnapshot;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the ExpressionParser.
+ */
+public class ExpressionParserTest {
+    private EvaluationContext context;
+
+    @Before
+    public void setupTest() throws Exception {
+        Map<String, Object> values1 = new HashMap<>();
+        values1.put("QueueSize", 25L);
+        values1.put("MemoryLimit", 200L);
+        values1.put("HeapMemoryUsage/used", 7);
+        values1.put("x.dotted_name", 3);
+
+        Map<String, Object> values2 = new HashMap<>();
+        values2.put("QueueSize", 15L);
+
+        AttributeSnapshot snapshot1 =
+                new AttributeSnapshot(new ObjectName("x-domain-x:type=Queue,name=a"), 1L, values1);
+        AttributeSnapshot snapshot2 =
+                new AttributeSnapshot(new ObjectName("x-domain-x:type=Topic,name=b"), 1L, values2);
+
+        this.context = new EvaluationContext();
+        this.context.reset(Arrays.asList(snapshot1, snapshot2));
+        this.context.setCurrent(snapshot1);
+    }
+
+    @Test
+    public void testArithmetic() throws Exception {
+        assertEquals(7.0, this.evaluate("1 + 2 * 3"), 0.0);
+        assertEquals(9.0, this.evaluate("(1 + 2) * 3"), 0.0);
+        assertEquals(1.0, this.evaluate("10 - 6 - 3"), 0.0);
+        assertEquals(2.0, this.evaluate("12 / 3 / 2"), 0.0);
+        assertEquals(2.0, this.evaluate("17 % 5"), 0.0);
+        assertEquals(-4.0, this.evaluate("-(1 + 3)"), 0.0);
+        assertEquals(4.0, this.evaluate("--4"), 0.0);
+        assertEquals(0.5, this.evaluate(".5"), 0.0);
+        assertEquals(1500.0, this.evaluate("1.5e3"), 0.0);
+        assertEquals(0.015, this.evaluate("1.5E-2"), 0.0);
+    }
+
+    @Test
+    public void testAttributes() throws Exception {
+        assertEquals(12.5, this.evaluate("QueueSize / MemoryLimit * 100"), 0.0);
+        assertEquals(7.0, this.evaluate("[HeapMemoryUsage/used]"), 0.0);
+        assertEquals(3.0, this.evaluate("x.dotted_name"), 0.0);
+        assertEquals(-25.0, this.evaluate("-QueueSize"), 0.0);
+        assertTrue(Double.isNaN(this.evaluate("x_missing_x + 1")));
+    }
+
+    @Test
+    public void testAggregates() throws Exception {
+        assertEquals(40.0, this.evaluate("sum(QueueSize)"), 0.0);
+        assertEquals(25.0, this.evaluate("SUM(QueueSize, \"x-domain-x:type=Queue,*\")"), 0.0);
+        assertEquals(20.0, this.evaluate("avg(QueueSize)"), 0.0);
+        assertEquals(62.5, this.evaluate("QueueSize / sum(QueueSize) * 100"), 0.0);
+        assertEquals(1.0, this.evaluate("count(MemoryLimit)"), 0.0);
+    }
+
+    @Test
+    public void testConstantFolding() throws Exception {
+        DerivedExpression expression = ExpressionParser.parse("(1 + 2) * -3");
+
+        assertTrue(expression instanceof ConstantExpression);
+        assertEquals(-9.0, ((ConstantExpression) expression).getValue(), 0.0);
+        assertEquals("-9.0", expression.toString());
+
+        assertEquals("([QueueSize] * 100.0)", ExpressionParser.parse("QueueSize * (50 + 50)").toString());
+        assertEquals("(-[QueueSize])", ExpressionParser.parse("-QueueSize").toString());
+    }
+
+    @Test
+    public void testCycleConstant() throws Exception {
+        assertTrue(ExpressionParser.parse("sum(QueueSize) / 2").isCycleConstant());
+        assertFalse(ExpressionParser.parse("QueueSize / sum(QueueSize)").isCycleConstant());
+        assertFalse(ExpressionParser.parse("-QueueSize").isCycleConstant());
+    }
+
+    @Test
+    public void testParseErrors() throws Exception {
+        this.assertParseError(null, 0);
+        this.assertParseError("", 0);
+        this.assertParseError("1 +", 3);
+        this.assertParseError("1 2", 2);
+        this.assertParseError("(1 + 2", 6);
+        this.assertParseError("(1 + 2]", 6);
+        this.assertParseError("[QueueSize", 0);
+        this.assertParseError("[]", 0);
+        this.assertParseError("1 + #", 4);
+        this.assertParseError("median(QueueSize)", 0);
+        this.assertParseError("sum(QueueSize, x)", 15);
+        this.assertParseError("sum(QueueSize, \"x-domain-x:*)", 15);
+        this.assertParseError("sum(QueueSize, \"x-invalid-x\")", 15);
+        this.assertParseError("1.2.3", 0);
+    }
+
+    protected double evaluate(String text) throws ParseException {
+        return ExpressionParser.parse(text).evaluate(this.context);
+    }
+
+    protected void assertParseError(String text, int offset) {
+        try {
+            ExpressionParser.parse(text);
+            fail("missing expected exception");
+        } catch (ParseException parseExc) {
+            assertEquals(offset, parseExc.getErrorOffset());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+import com.amlinv.jmxutil.derived.AggregateExpression.AggregateFunction;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the FleetAggregation.
+ */
+public class FleetAggregationTest {
+
+    @Test
+    public void testGetters() throws Exception {
+        ObjectName pattern = new ObjectName("x-domain-x:type=Queue,*");
+        FleetAggregation aggregation = new FleetAggregation("x-name-x", pattern, "x-att-x", AggregateFunction.MAX);
+
+        assertEquals("x-name-x", aggregation.getName());
+        assertSame(pattern, aggregation.getObjectNamePattern());
+        assertEquals("x-att-x", aggregation.getAttributeName());
+        assertSame(AggregateFunction.MAX, aggregation.getTargetFunction());
+        assertTrue(aggregation.toString().contains("x-name-x"));
+
+        assertSame(AggregateFunction.SUM, new FleetAggregation("x-name-x", null, "x-att-x").getTargetFunction());
+    }
+
+    @Test
+    public void testMatches() throws Exception {
+        FleetAggregation aggregation =
+                new FleetAggregation("x-name-x", new ObjectName("x-domain-x:type=Queue,*"), "x-att-x");
+
+        assertTrue(aggregation.matches(new ObjectName("x-domain-x:type=Queue,name=a")));
+        assertFalse(aggregation.matches(new ObjectName("x-domain-x:type=Topic,name=a")));
+        assertFalse(aggregation.matches(null));
+        assertTrue(new FleetAggregation("x-name-x", null, "x-att-x").matches(null));
+    }
+
+    @Test
+    public void testInvalidArguments() throws Exception {
+        try {
+            new FleetAggregation(null, null, "x-att-x");
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("fleet aggregation name is required", iaExc.getMessage());
+        }
+
+        try {
+            new FleetAggregation("x-name-x", null, null);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("fleet aggregation attribute name is required", iaExc.getMessage());
+        }
+
+        try {
+            new FleetAggregation("x-name-x", null, "x-att-x", null);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("fleet aggregation target function is required", iaExc.getMessage());
+        }
+    }
+}
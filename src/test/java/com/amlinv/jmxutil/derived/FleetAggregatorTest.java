@@ -0,0 +1,227 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+import com.amlinv.jmxutil.derived.AggregateExpression.AggregateFunction;
+import com.amlinv.jmxutil.polling.AttributeSnapshot;
+import com.amlinv.jmxutil.polling.PollCycleResult;
+import com.amlinv.jmxutil.polling.PollCycleSubscription;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the FleetAggregator.
+ */
+public class FleetAggregatorTest {
+    private FleetAggregator aggregator;
+    private FleetAggregation depth;
+    private Logger mockLogger;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.aggregator = new FleetAggregator();
+        this.depth = new FleetAggregation("x-depth-x", new ObjectName("x-domain-x:type=Queue,*"), "QueueSize");
+        this.mockLogger = Mockito.mock(Logger.class);
+
+        this.aggregator.setLog(this.mockLogger);
+        this.aggregator.addAggregation(this.depth);
+    }
+
+    @Test
+    public void testGetters() throws Exception {
+        assertSame(this.mockLogger, this.aggregator.getLog());
+        assertEquals(Collections.singletonList(this.depth), this.aggregator.getAggregations());
+        assertEquals(0, this.aggregator.getTargetCount());
+        assertEquals(-1, this.aggregator.getTargetId("x-source-x"));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        assertEquals(0, this.aggregator.getCount(this.depth));
+        assertEquals(0.0, this.aggregator.getSum(this.depth), 0.0);
+        assertTrue(Double.isNaN(this.aggregator.getAverage(this.depth)));
+        assertTrue(Double.isNaN(this.aggregator.getMin(this.depth)));
+        assertTrue(Double.isNaN(this.aggregator.getMax(this.depth)));
+        assertTrue(Double.isNaN(this.aggregator.getPercentile(this.depth, 50)));
+        assertTrue(Double.isNaN(this.aggregator.getTargetValue(this.depth, "x-source-x")));
+    }
+
+    @Test
+    public void testAggregateAcrossTargets() throws Exception {
+        this.aggregator.update(this.createResult("x-broker1-x", 10, 20));
+        this.aggregator.update(this.createResult("x-broker2-x", 5));
+        this.aggregator.update(this.createResult("x-broker3-x", 50, 50));
+
+        assertEquals(0, this.aggregator.getTargetId("x-broker1-x"));
+        assertEquals(2, this.aggregator.getTargetId("x-broker3-x"));
+        assertEquals(3, this.aggregator.getTargetCount());
+
+        assertEquals(30.0, this.aggregator.getTargetValue(this.depth, "x-broker1-x"), 0.0);
+        assertEquals(3, this.aggregator.getCount(this.depth));
+        assertEquals(135.0, this.aggregator.getSum(this.depth), 0.0);
+        assertEquals(45.0, this.aggregator.getAverage(this.depth), 0.0);
+        assertEquals(5.0, this.aggregator.getMin(this.depth), 0.0);
+        assertEquals(100.0, this.aggregator.getMax(this.depth), 0.0);
+        assertEquals(5.0, this.aggregator.getPercentile(this.depth, 0), 0.0);
+        assertEquals(30.0, this.aggregator.getPercentile(this.depth, 50), 0.0);
+        assertEquals(100.0, this.aggregator.getPercentile(this.depth, 99), 0.0);
+    }
+
+    @Test
+    public void testIncrementalUpdate() throws Exception {
+        this.aggregator.update(this.createResult("x-broker1-x", 10));
+        this.aggregator.update(this.createResult("x-broker2-x", 40));
+        assertEquals(40.0, this.aggregator.getMax(this.depth), 0.0);
+
+        // The maximum moves down, requiring a rescan.
+        this.aggregator.update(this.createResult("x-broker2-x", 3));
+        assertEquals(13.0, this.aggregator.getSum(this.depth), 0.0);
+        assertEquals(10.0, this.aggregator.getMax(this.depth), 0.0);
+        assertEquals(3.0, this.aggregator.getMin(this.depth), 0.0);
+
+        // A new maximum does not.
+        this.aggregator.update(this.createResult("x-broker1-x", 70));
+        assertEquals(73.0, this.aggregator.getSum(this.depth), 0.0);
+        assertEquals(70.0, this.aggregator.getMax(this.depth), 0.0);
+        assertEquals(3.0, this.aggregator.getMin(this.depth), 0.0);
+        assertEquals(2, this.aggregator.getCount(this.depth));
+    }
+
+    @Test
+    public void testRemoveTarget() throws Exception {
+        this.aggregator.update(this.createResult("x-broker1-x", 10));
+        this.aggregator.update(this.createResult("x-broker2-x", 40));
+
+        this.aggregator.removeTarget("x-broker2-x");
+        this.aggregator.removeTarget("x-unknown-x");
+
+        assertEquals(1, this.aggregator.getCount(this.depth));
+        assertEquals(10.0, this.aggregator.getSum(this.depth), 0.0);
+        assertEquals(10.0, this.aggregator.getMax(this.depth), 0.0);
+        assertEquals(1, this.aggregator.getTargetId("x-broker2-x"));
+
+        this.aggregator.removeTarget("x-broker1-x");
+        assertEquals(0, this.aggregator.getCount(this.depth));
+        assertEquals(0.0, this.aggregator.getSum(this.depth), 0.0);
+        assertTrue(Double.isNaN(this.aggregator.getMin(this.depth)));
+    }
+
+    @Test
+    public void testTargetFunctionAndFiltering() throws Exception {
+        FleetAggregation maxDepth = new FleetAggregation("x-max-depth-x", new ObjectName("x-domain-x:type=Queue,*"),
+                "QueueSize", AggregateFunction.MAX);
+        this.aggregator.addAggregation(maxDepth);
+
+        List<AttributeSnapshot> snapshots = new ArrayList<>();
+        snapshots.add(this.createSnapshot("x-domain-x:type=Queue,name=a", 7L));
+        snapshots.add(this.createSnapshot("x-domain-x:type=Queue,name=b", 9L));
+        snapshots.add(this.createSnapshot("x-domain-x:type=Topic,name=c", 1000L));
+        snapshots.add(this.createSnapshot("x-domain-x:type=Queue,name=d", "x-not-number-x"));
+
+        this.aggregator.update(new PollCycleResult("x-broker1-x", 1L, 1000L, snapshots));
+
+        assertEquals(16.0, this.aggregator.getTargetValue(this.depth, "x-broker1-x"), 0.0);
+        assertEquals(9.0, this.aggregator.getTargetValue(maxDepth, "x-broker1-x"), 0.0);
+
+        // A target without matching mbeans contributes nothing to the maximum, but 0 to the sum.
+        this.aggregator.update(new PollCycleResult("x-broker2-x", 1L, 1000L,
+                Collections.singletonList(this.createSnapshot("x-domain-x:type=Topic,name=c", 5L))));
+
+        assertEquals(2, this.aggregator.getCount(this.depth));
+        assertEquals(1, this.aggregator.getCount(maxDepth));
+
+        this.aggregator.removeAggregation(maxDepth);
+        assertEquals(Collections.singletonList(this.depth), this.aggregator.getAggregations());
+    }
+
+    @Test
+    public void testManyTargets() throws Exception {
+        for (int cur = 0; cur < 400; cur++) {
+            this.aggregator.update(this.createResult("x-broker-" + cur + "-x", cur + 1));
+        }
+
+        // An aggregation added later covers the existing targets once they report again.
+        FleetAggregation late = new FleetAggregation("x-late-x", null, "QueueSize");
+        this.aggregator.addAggregation(late);
+        this.aggregator.update(this.createResult("x-broker-399-x", 400));
+
+        assertEquals(400, this.aggregator.getTargetCount());
+        assertEquals(400, this.aggregator.getCount(this.depth));
+        assertEquals(80200.0, this.aggregator.getSum(this.depth), 0.0);
+        assertEquals(1.0, this.aggregator.getMin(this.depth), 0.0);
+        assertEquals(400.0, this.aggregator.getMax(this.depth), 0.0);
+        assertEquals(200.0, this.aggregator.getPercentile(this.depth, 50), 0.0);
+        assertEquals(396.0, this.aggregator.getPercentile(this.depth, 99), 0.0);
+        assertEquals(1, this.aggregator.getCount(late));
+    }
+
+    @Test
+    public void testInvalidPercentile() throws Exception {
+        try {
+            this.aggregator.getPercentile(this.depth, 101);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("percentile must be from 0 to 100: 101.0", iaExc.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownAggregation() throws Exception {
+        this.aggregator.getSum(new FleetAggregation("x-name-x", null, "x-att-x"));
+    }
+
+    @Test
+    public void testSubscriber() throws Exception {
+        PollCycleSubscription mockSubscription = Mockito.mock(PollCycleSubscription.class);
+
+        this.aggregator.onSubscribe(mockSubscription);
+        this.aggregator.onNext(this.createResult("x-broker1-x", 10));
+        this.aggregator.onComplete();
+
+        Mockito.verify(mockSubscription).request(Long.MAX_VALUE);
+        assertEquals(10.0, this.aggregator.getSum(this.depth), 0.0);
+
+        RuntimeException rtExc = new RuntimeException("x-rt-exc-x");
+        this.aggregator.onError(rtExc);
+
+        Mockito.verify(this.mockLogger)
+                .warn("poll cycle publisher failed; fleet aggregates are no longer updated", rtExc);
+    }
+
+    protected PollCycleResult createResult(Object source, long... queueSizes) throws Exception {
+        List<AttributeSnapshot> snapshots = new ArrayList<>();
+
+        for (int cur = 0; cur < queueSizes.length; cur++) {
+            snapshots.add(this.createSnapshot("x-domain-x:type=Queue,name=q" + cur, queueSizes[cur]));
+        }
+
+        return new PollCycleResult(source, 1L, 1000L, snapshots);
+    }
+
+    protected AttributeSnapshot createSnapshot(String objectName, Object queueSize) throws Exception {
+        return new AttributeSnapshot(new ObjectName(objectName), 1000L,
+                Collections.singletonMap("QueueSize", queueSize));
+    }
+}
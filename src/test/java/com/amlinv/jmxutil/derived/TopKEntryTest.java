@@ -0,0 +1,38 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+import org.junit.Test;
+
+import javax.management.ObjectName;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the TopKEntry.
+ */
+public class TopKEntryTest {
+
+    @Test
+    public void testGetters() throws Exception {
+        ObjectName objectName = new ObjectName("x-domain-x:x-key-x=x-value-x");
+        TopKEntry entry = new TopKEntry(objectName, 3.5);
+
+        assertSame(objectName, entry.getObjectName());
+        assertEquals(3.5, entry.getValue(), 0.0);
+        assertEquals("TopKEntry{objectName=x-domain-x:x-key-x=x-value-x, value=3.5}", entry.toString());
+    }
+}
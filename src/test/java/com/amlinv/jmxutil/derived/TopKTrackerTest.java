@@ -0,0 +1,229 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.derived;
+
+import com.amlinv.jmxutil.polling.PollResultEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import javax.management.ObjectName;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the TopKTracker.
+ */
+public class TopKTrackerTest {
+    private TopKTracker tracker;
+    private ObjectName pattern;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.pattern = new ObjectName("x-domain-x:type=Queue,*");
+        this.tracker = new TopKTracker("QueueSize", this.pattern, 3);
+    }
+
+    @Test
+    public void testGetters() throws Exception {
+        assertEquals("QueueSize", this.tracker.getAttributeName());
+        assertSame(this.pattern, this.tracker.getObjectNamePattern());
+        assertEquals(3, this.tracker.getK());
+        assertEquals(0, this.tracker.getTrackedCount());
+        assertEquals(0L, this.tracker.getRebuildCount());
+        assertTrue(this.tracker.getTopK().isEmpty());
+    }
+
+    @Test
+    public void testOnPollResult() throws Exception {
+        this.tracker.onPollResult(this.createEvent("x-domain-x:type=Queue,name=a", "QueueSize", 5L));
+        this.tracker.onPollResult(this.createEvent("x-domain-x:type=Queue,name=b", "QueueSize", 9));
+        this.tracker.onPollResult(this.createEvent("x-domain-x:type=Queue,name=c", "QueueSize", "x-not-number-x"));
+        this.tracker.onPollResult(this.createEvent("x-domain-x:type=Queue,name=d", "x-other-att-x", 100L));
+        this.tracker.onPollResult(this.createEvent("x-domain-x:type=Topic,name=e", "QueueSize", 100L));
+        this.tracker.onPollResult(this.createEvent(null, "QueueSize", 100L));
+
+        assertEquals(2, this.tracker.getTrackedCount());
+        this.assertTopK("b=9.0", "a=5.0");
+
+        TopKTracker allTracker = new TopKTracker("QueueSize", null, 3);
+        allTracker.onPollResult(this.createEvent("x-domain-x:type=Topic,name=e", "QueueSize", 100L));
+        assertEquals(1, allTracker.getTrackedCount());
+    }
+
+    @Test
+    public void testIncrementalUpdates() throws Exception {
+        this.update("a", 1);
+        this.update("b", 2);
+        this.update("c", 3);
+        this.update("d", 4);
+        this.update("e", 0);
+        this.assertTopK("d=4.0", "c=3.0", "b=2.0");
+
+        // Members moving up, and a member moving down while still above every outside value.
+        this.update("b", 10);
+        this.update("c", 2.5);
+        this.assertTopK("b=10.0", "d=4.0", "c=2.5");
+
+        // An outside mbean moving into the top K.
+        this.update("e", 20);
+        this.assertTopK("e=20.0", "b=10.0", "d=4.0");
+
+        assertEquals(5, this.tracker.getTrackedCount());
+        assertEquals(0L, this.tracker.getRebuildCount());
+    }
+
+    @Test
+    public void testMemberDropsBelowOutsideValue() throws Exception {
+        this.update("a", 1);
+        this.update("b", 2);
+        this.update("c", 3);
+        this.update("d", 4);
+
+        this.update("d", 0);
+
+        this.assertTopK("c=3.0", "b=2.0", "a=1.0");
+        assertEquals(1L, this.tracker.getRebuildCount());
+
+        // Once rebuilt, updates are incremental again.
+        this.update("d", 5);
+        this.assertTopK("d=5.0", "c=3.0", "b=2.0");
+        assertEquals(1L, this.tracker.getRebuildCount());
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        this.update("a", 1);
+        this.update("b", 2);
+        this.tracker.remove(this.createName("b"));
+        this.tracker.remove(this.createName("x-unknown-x"));
+        this.tracker.remove(this.createName("b"));
+
+        this.assertTopK("a=1.0");
+        assertEquals(1, this.tracker.getTrackedCount());
+        assertEquals(0L, this.tracker.getRebuildCount());
+
+        this.update("b", 2);
+        this.update("c", 3);
+        this.update("d", 4);
+
+        // Removing an outside mbean does not affect the view.
+        this.tracker.remove(this.createName("a"));
+        this.assertTopK("d=4.0", "c=3.0", "b=2.0");
+
+        this.update("a", 1);
+        this.tracker.remove(this.createName("c"));
+        this.assertTopK("d=4.0", "b=2.0", "a=1.0");
+        assertEquals(1L, this.tracker.getRebuildCount());
+    }
+
+    @Test
+    public void testMatchesFullSort() throws Exception {
+        TopKTracker largeTracker = new TopKTracker("QueueSize", null, 20);
+        Random random = new Random(1234L);
+        double[] expected = new double[500];
+        Arrays.fill(expected, Double.NaN);
+
+        for (int cur = 0; cur < 20000; cur++) {
+            int queue = random.nextInt(expected.length);
+            ObjectName objectName = this.createName("q" + queue);
+
+            if (random.nextInt(50) == 0) {
+                largeTracker.remove(objectName);
+                expected[queue] = Double.NaN;
+            } else {
+                double value = random.nextInt(1000);
+                largeTracker.update(objectName, value);
+                expected[queue] = value;
+            }
+
+            if ((cur % 500) == 0) {
+                this.assertMatchesFullSort(largeTracker, expected);
+            }
+        }
+
+        this.assertMatchesFullSort(largeTracker, expected);
+    }
+
+    @Test
+    public void testInvalidArguments() throws Exception {
+        try {
+            new TopKTracker(null, null, 1);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("attribute name is required", iaExc.getMessage());
+        }
+
+        try {
+            new TopKTracker("QueueSize", null, 0);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("k must be positive: 0", iaExc.getMessage());
+        }
+    }
+
+    protected void assertMatchesFullSort(TopKTracker largeTracker, double[] expected) {
+        double[] sorted = expected.clone();
+        Arrays.sort(sorted);
+
+        int present = 0;
+        for (double oneValue : sorted) {
+            if (!Double.isNaN(oneValue)) {
+                present++;
+            }
+        }
+
+        List<TopKEntry> topK = largeTracker.getTopK();
+        assertEquals(Math.min(present, largeTracker.getK()), topK.size());
+        assertEquals(present, largeTracker.getTrackedCount());
+
+        // NaN sorts last, after the values present.
+        for (int cur = 0; cur < topK.size(); cur++) {
+            assertEquals(sorted[present - 1 - cur], topK.get(cur).getValue(), 0.0);
+        }
+    }
+
+    protected void update(String name, double value) throws Exception {
+        this.tracker.update(this.createName(name), value);
+    }
+
+    protected void assertTopK(String... expected) {
+        List<TopKEntry> topK = this.tracker.getTopK();
+        String[] actual = new String[topK.size()];
+
+        for (int cur = 0; cur < actual.length; cur++) {
+            actual[cur] = topK.get(cur).getObjectName().getKeyProperty("name") + "=" + topK.get(cur).getValue();
+        }
+
+        assertEquals(Arrays.asList(expected), Arrays.asList(actual));
+    }
+
+    protected ObjectName createName(String name) throws Exception {
+        return new ObjectName("x-domain-x:type=Queue,name=" + name);
+    }
+
+    protected PollResultEvent createEvent(String objectName, String attributeName, Object value) throws Exception {
+        PollResultEvent result = Mockito.mock(PollResultEvent.class);
+        Mockito.when(result.getObjectName()).thenReturn((objectName != null) ? new ObjectName(objectName) : null);
+        Mockito.when(result.getAttributeName()).thenReturn(attributeName);
+        Mockito.when(result.getValue()).thenReturn(value);
+
+        return result;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.export;
+
+import com.amlinv.jmxutil.store.SeriesKey;
+import com.amlinv.jmxutil.store.SeriesRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the PrometheusTextExporter.
+ */
+public class PrometheusTextExporterTest {
+    private static final String QUEUE_SIZE = "x_ns_x_org_apache_activemq_QueueSize";
+    private static final String HEAP_USED = "x_ns_x_java_lang_HeapMemoryUsage_used";
+    private SeriesRegistry registry;
+    private PrometheusTextExporter exporter;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.registry = new SeriesRegistry();
+        this.exporter = new PrometheusTextExporter(this.registry, "x_ns_x");
+    }
+
+    @Test
+    public void testGetters() throws Exception {
+        assertSame(this.registry, this.exporter.getSeriesRegistry());
+        assertEquals("x_ns_x", this.exporter.getNamespace());
+        assertFalse(this.exporter.isIncludeTimestamps());
+
+        this.exporter.setIncludeTimestamps(true);
+        assertTrue(this.exporter.isIncludeTimestamps());
+
+        assertNull(new PrometheusTextExporter(this.registry).getNamespace());
+    }
+
+    @Test
+    public void testRender() throws Exception {
+        int queueA = this.register("x-broker1-x", "org.apache.activemq:type=Broker,destinationName=a", "QueueSize");
+        int queueB = this.register("x-broker1-x", "org.apache.activemq:type=Broker,destinationName=b", "QueueSize");
+        int heap = this.register(null, "java.lang:type=Memory", "HeapMemoryUsage/used");
+        int unsampled = this.register(null, "java.lang:type=Memory", "x-unsampled-x");
+
+        this.exporter.prepare(unsampled);
+        assertTrue(this.exporter.append(queueA, 1000L, 12.0));
+        assertTrue(this.exporter.append(heap, 1000L, 1.5e9));
+        assertTrue(this.exporter.append(queueB, 1000L, 7.0));
+        assertTrue(this.exporter.append(queueA, 2000L, 13.0));
+
+        assertEquals(
+                "# TYPE " + QUEUE_SIZE + " untyped\n" +
+                QUEUE_SIZE + "{destinationName=\"a\",target=\"x-broker1-x\",type=\"Broker\"} 13\n" +
+                QUEUE_SIZE + "{destinationName=\"b\",target=\"x-broker1-x\",type=\"Broker\"} 7\n" +
+                "# TYPE " + HEAP_USED + " untyped\n" +
+                HEAP_USED + "{type=\"Memory\"} 1500000000\n",
+                this.exporter.renderToString());
+
+        this.exporter.setIncludeTimestamps(true);
+        this.exporter.remove(queueB);
+        this.exporter.remove(-1);
+
+        assertEquals(
+                "# TYPE " + QUEUE_SIZE + " untyped\n" +
+                QUEUE_SIZE + "{destinationName=\"a\",target=\"x-broker1-x\",type=\"Broker\"} 13 2000\n" +
+                "# TYPE " + HEAP_USED + " untyped\n" +
+                HEAP_USED + "{type=\"Memory\"} 1500000000 1000\n",
+                this.exporter.renderToString());
+    }
+
+    @Test
+    public void testWriteTo() throws Exception {
+        int seriesId = this.register(null, "x-domain-x:type=x-type-x", "x-att-x");
+        this.exporter.append(seriesId, 1000L, 3.0);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int written = this.exporter.writeTo(out);
+
+        String expected =
+                "# TYPE x_ns_x_x_domain_x_x_att_x untyped\nx_ns_x_x_domain_x_x_att_x{type=\"x-type-x\"} 3\n";
+        assertEquals(expected, new String(out.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(expected.length(), written);
+
+        assertEquals("", new PrometheusTextExporter(this.registry).renderToString());
+    }
+
+    @Test
+    public void testLabels() throws Exception {
+        PrometheusTextExporter plainExporter = new PrometheusTextExporter(this.registry);
+        ObjectName objectName =
+                new ObjectName("x-domain-x:target=x-other-x,9key=\"quoted \\\"value\\\\ \\n\",name=x-name-x");
+        int seriesId = this.registry.getOrCreateId(new SeriesKey("x-target-x", objectName, "2count"));
+
+        plainExporter.append(seriesId, 1000L, 1.0);
+
+        String text = plainExporter.renderToString();
+        assertTrue(text, text.contains("x_domain_x_2count{_9key=\"quoted \\\"value\\\\ \\n\",name=\"x-name-x\"," +
+                "target=\"x-target-x\"} 1\n"));
+
+        assertEquals("_1a_b:c", PrometheusTextExporter.sanitizeName("1a.b:c", true));
+        assertEquals("_1a_b_c", PrometheusTextExporter.sanitizeName("1a.b:c", false));
+        assertEquals("_", PrometheusTextExporter.sanitizeName("", false));
+    }
+
+    @Test
+    public void testFormatValues() throws Exception {
+        assertEquals("0", this.format(0.0));
+        assertEquals("0", this.format(-0.0));
+        assertEquals("-42", this.format(-42.0));
+        assertEquals("NaN", this.format(Double.NaN));
+        assertEquals("+Inf", this.format(Double.POSITIVE_INFINITY));
+        assertEquals("-Inf", this.format(Double.NEGATIVE_INFINITY));
+        assertEquals("0.5", this.format(0.5));
+        assertEquals("-2.25", this.format(-2.25));
+        assertEquals("0.1", this.format(0.1));
+        assertEquals("0.0001234", this.format(0.0001234));
+        assertEquals("1.234e-5", this.format(0.00001234));
+        assertEquals("123456.789", this.format(123456.789));
+        assertEquals("3.14159265358979", this.format(Math.PI));
+        assertEquals("1e15", this.format(1.0e15));
+        assertEquals("1.5e20", this.format(1.5e20));
+        assertEquals("999999999999999", this.format(999999999999999.0));
+        assertEquals("4.94065645841247e-324", this.format(Double.MIN_VALUE));
+        assertEquals("1.79769313486232e308", this.format(Double.MAX_VALUE));
+        assertEquals("-9.22337203685478e18", this.format(-9.223372036854775808e18));
+    }
+
+    @Test
+    public void testFormatRoundTrip() throws Exception {
+        Random random = new Random(5L);
+
+        for (int cur = 0; cur < 10000; cur++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(40) - 20);
+            double parsed = Double.parseDouble(this.format(value));
+
+            assertEquals(value, parsed, Math.abs(value) * 1e-14);
+        }
+    }
+
+    @Test
+    public void testFormatAtEndOfBuffer() throws Exception {
+        // Not integral, but rounds to a single significant digit that is written as 11 digits.
+        double value = 20000000000.000004;
+
+        // Names of every length over a range, so that the value is written at each offset near the end of the buffer.
+        for (int cur = 4070; cur < 4100; cur++) {
+            SeriesRegistry formatRegistry = new SeriesRegistry();
+            PrometheusTextExporter formatter = new PrometheusTextExporter(formatRegistry);
+            String attributeName = new String(new char[cur]).replace('\0', 'a');
+            formatter.append(formatRegistry.getOrCreateId(new SeriesKey(null, new ObjectName("x:k=v"), attributeName)),
+                    1000L, value);
+
+            String text = formatter.renderToString();
+            assertTrue(text.endsWith("{k=\"v\"} 20000000000\n"));
+        }
+    }
+
+    @Test
+    public void testUnknownSeries() throws Exception {
+        try {
+            this.exporter.prepare(5);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("unknown series id 5", iaExc.getMessage());
+        }
+    }
+
+    @Test
+    public void testManySeries() throws Exception {
+        for (int cur = 0; cur < 1000; cur++) {
+            int seriesId = this.register(null, "x-domain-x:type=Queue,name=q" + cur, "QueueSize");
+            this.exporter.append(seriesId, 1000L, cur);
+        }
+
+        String text = this.exporter.renderToString();
+        assertTrue(text.startsWith("# TYPE x_ns_x_x_domain_x_QueueSize untyped\n"));
+        assertTrue(text.endsWith("x_ns_x_x_domain_x_QueueSize{name=\"q999\",type=\"Queue\"} 999\n"));
+        assertEquals(1001, text.split("\n").length);
+    }
+
+    protected int register(String target, String objectName, String attributeName) throws Exception {
+        return this.registry.getOrCreateId(new SeriesKey(target, new ObjectName(objectName), attributeName));
+    }
+
+    protected String format(double value) throws Exception {
+        SeriesRegistry formatRegistry = new SeriesRegistry();
+        PrometheusTextExporter formatter = new PrometheusTextExporter(formatRegistry);
+        formatter.append(formatRegistry.getOrCreateId(new SeriesKey(null, new ObjectName("x:k=v"), "v")), 1000L, value);
+
+        String text = formatter.renderToString();
+        String prefix = "# TYPE x_v untyped\nx_v{k=\"v\"} ";
+        assertTrue(text, text.startsWith(prefix) && text.endsWith("\n"));
+
+        return text.substring(prefix.length(), text.length() - 1);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the AttributeChangeTracker.
+ */
+public class AttributeChangeTrackerTest {
+    private AttributeChangeTracker tracker;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.tracker = new AttributeChangeTracker();
+    }
+
+    @Test
+    public void testIsChanged() throws Exception {
+        AttributeChangeTracker.LastValues lastValues = this.tracker.getLastValues(new Object());
+
+        assertTrue(lastValues.isChanged("x-att-x", 7));
+        assertTrue(lastValues.isChanged("x-att-x", null));
+
+        lastValues.record("x-att-x", 7);
+        assertFalse(lastValues.isChanged("x-att-x", 7));
+        assertTrue(lastValues.isChanged("x-att-x", 8));
+        assertTrue(lastValues.isChanged("x-att-x", null));
+
+        lastValues.record("x-att-x", null);
+        assertFalse(lastValues.isChanged("x-att-x", null));
+        assertTrue(lastValues.isChanged("x-att-x", 7));
+
+        lastValues.record("x-str-x", new String("x-value-x"));
+        assertFalse(lastValues.isChanged("x-str-x", "x-value-x"));
+    }
+
+    @Test
+    public void testTargetsTrackedByIdentity() throws Exception {
+        List<String> target1 = new ArrayList<>();
+        List<String> target2 = new ArrayList<>();
+
+        AttributeChangeTracker.LastValues lastValues1 = this.tracker.getLastValues(target1);
+
+        assertSame(lastValues1, this.tracker.getLastValues(target1));
+        assertNotSame(lastValues1, this.tracker.getLastValues(target2));
+        assertEquals(2, this.tracker.getTrackedCount());
+
+        this.tracker.clear();
+        assertEquals(0, this.tracker.getTrackedCount());
+        assertNotSame(lastValues1, this.tracker.getLastValues(target1));
+    }
+
+    @Test
+    public void testIdentityKey() throws Exception {
+        Object target = new Object();
+        AttributeChangeTracker.IdentityKey key = new AttributeChangeTracker.IdentityKey(target, null);
+
+        assertEquals(key, key);
+        assertEquals(key, new AttributeChangeTracker.IdentityKey(target, null));
+        assertEquals(System.identityHashCode(target), key.hashCode());
+        assertFalse(key.equals(new AttributeChangeTracker.IdentityKey(new Object(), null)));
+        assertFalse(key.equals("x-not-key-x"));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import com.amlinv.jmxutil.annotation.FieldAccessMode;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the AttributeFieldBinding.
+ */
+public class AttributeFieldBindingTest {
+
+    @Test
+    public void testPlainStore() throws Exception {
+        AttributeFieldBinding binding = this.createBinding("plainLong", FieldAccessMode.PLAIN);
+        TestTarget target = new TestTarget();
+
+        binding.inject(target, 3L);
+
+        assertEquals(3L, target.plainLong);
+        assertEquals(long.class, binding.getParameterType());
+        assertEquals(FieldAccessMode.PLAIN, binding.getAccessMode());
+        assertEquals(TestTarget.class.getDeclaredField("plainLong"), binding.getField());
+    }
+
+    @Test
+    public void testOrderedStores() throws Exception {
+        TestTarget target = new TestTarget();
+
+        AttributeFieldBinding longBinding = this.createBinding("orderedLong", FieldAccessMode.ORDERED);
+        AttributeFieldBinding intBinding = this.createBinding("orderedInt", FieldAccessMode.ORDERED);
+        AttributeFieldBinding refBinding = this.createBinding("orderedString", FieldAccessMode.ORDERED);
+
+        longBinding.inject(target, 5L);
+        intBinding.inject(target, 6);
+        refBinding.inject(target, "x-value-x");
+
+        assertEquals(5L, target.orderedLong);
+        assertEquals(6, target.orderedInt);
+        assertEquals("x-value-x", target.orderedString);
+
+        assertEquals(FieldAccessMode.ORDERED, longBinding.getAccessMode());
+        assertEquals(FieldAccessMode.ORDERED, intBinding.getAccessMode());
+        assertEquals(FieldAccessMode.ORDERED, refBinding.getAccessMode());
+    }
+
+    @Test
+    public void testOrderedFallsBackToVolatile() throws Exception {
+        TestTarget target = new TestTarget();
+
+        // No updater for doubles.
+        AttributeFieldBinding doubleBinding = this.createBinding("orderedDouble", FieldAccessMode.ORDERED);
+        // Updaters cannot access private fields of other classes.
+        AttributeFieldBinding privateBinding = this.createBinding("privateLong", FieldAccessMode.ORDERED);
+
+        doubleBinding.inject(target, 1.5);
+        privateBinding.inject(target, 7L);
+
+        assertEquals(1.5, target.orderedDouble, 0.0);
+        assertEquals(7L, target.privateLong);
+        assertEquals(FieldAccessMode.VOLATILE, doubleBinding.getAccessMode());
+        assertEquals(FieldAccessMode.VOLATILE, privateBinding.getAccessMode());
+    }
+
+    @Test
+    public void testNonVolatileFallsBackToPlain() throws Exception {
+        AttributeFieldBinding binding = this.createBinding("plainLong", FieldAccessMode.VOLATILE);
+
+        assertEquals(FieldAccessMode.PLAIN, binding.getAccessMode());
+    }
+
+    @Test
+    public void testVolatileStore() throws Exception {
+        AttributeFieldBinding binding = this.createBinding("orderedLong", FieldAccessMode.VOLATILE);
+        TestTarget target = new TestTarget();
+
+        binding.inject(target, 9L);
+
+        assertEquals(9L, target.orderedLong);
+        assertEquals(FieldAccessMode.VOLATILE, binding.getAccessMode());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullIntoPrimitive() throws Exception {
+        this.createBinding("orderedLong", FieldAccessMode.ORDERED).inject(new TestTarget(), null);
+    }
+
+    private AttributeFieldBinding createBinding(String fieldName, FieldAccessMode accessMode) throws Exception {
+        return new AttributeFieldBinding(TestTarget.class.getDeclaredField(fieldName), accessMode);
+    }
+
+    public static class TestTarget {
+        public long plainLong;
+        public volatile long orderedLong;
+        public volatile int orderedInt;
+        public volatile String orderedString;
+        public volatile double orderedDouble;
+        private volatile long privateLong;
+    }
+}
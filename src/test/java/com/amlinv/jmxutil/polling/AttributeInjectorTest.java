@@ -17,15 +17,23 @@
 package com.amlinv.jmxutil.polling;
 
 import com.sun.jdi.InvocationException;
+import com.amlinv.jmxutil.annotation.FieldAccessMode;
+import com.amlinv.jmxutil.annotation.MBeanAttribute;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.slf4j.Logger;
 
 import javax.management.Attribute;
 import javax.management.ObjectName;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -105,6 +113,24 @@ public class AttributeInjectorTest {
         assertEquals(Integer.valueOf(22), this.target.integerValue);
     }
 
+    @Test
+    public void testCopyOutWithDeclaredLongTypes() throws Exception {
+        this.attributeList.clear();
+
+        this.attributeList.add(new Attribute("x-att-int-name-x", 17L));
+        this.attributeList.add(new Attribute("x-att-Integer-name-x", 22));
+
+        Map<String, Class<?>> attributeTypes = new HashMap<>();
+        attributeTypes.put("x-att-int-name-x", long.class);
+        attributeTypes.put("x-att-Integer-name-x", Long.class);
+
+        this.injector.copyOutAttributes(this.target, this.attributeList, this.attributeSetters, attributeTypes,
+                this.objectName);
+
+        assertEquals(17, this.target.intValue);
+        assertEquals(Integer.valueOf(22), this.target.integerValue);
+    }
+
     @Test
     public void testInvocationExceptionOnSetter() throws Exception {
         this.attributeList.clear();
@@ -121,16 +147,249 @@ public class AttributeInjectorTest {
     @Test
     public void testIllegalArgumentOnSetter() throws Exception {
         this.attributeList.clear();
-        this.attributeList.add(new Attribute("x-att-str-name-x", 0));
+        this.attributeList.add(new Attribute("x-att-int-name-x", "x-not-a-number-x"));
 
         this.injector.copyOutAttributes(this.target, this.attributeList, this.attributeSetters, this.objectName);
 
         Mockito.verify(this.mockLogger)
                 .info(Mockito.eq("illegal argument exception storing mbean results: {}={}; attributeName={}"),
-                        Mockito.eq("oname"), Mockito.eq(objectName), Mockito.eq("x-att-str-name-x"),
+                        Mockito.eq("oname"), Mockito.eq(objectName), Mockito.eq("x-att-int-name-x"),
                         Mockito.any(IllegalArgumentException.class));
     }
 
+    @Test
+    public void testNoConversionAvailable() throws Exception {
+        this.attributeList.clear();
+        this.attributeList.add(new Attribute("x-att-str-name-x", 0));
+
+        this.injector.copyOutAttributes(this.target, this.attributeList, this.attributeSetters, this.objectName);
+
+        assertNull(this.target.stringValue);
+        Mockito.verify(this.mockLogger, Mockito.never())
+                .info(Mockito.eq("illegal argument exception storing mbean results: {}={}; attributeName={}"),
+                        Mockito.anyObject(), Mockito.anyObject(), Mockito.anyObject(), Mockito.anyObject());
+    }
+
+    @Test
+    public void testCopyOutWithConversions() throws Exception {
+        this.attributeSetters.put("x-att-long-name-x", TestTarget.class.getMethod("setLongValue", long.class));
+        this.attributeSetters.put("x-att-float-name-x", TestTarget.class.getMethod("setFloatValue", float.class));
+
+        this.attributeList.clear();
+        this.attributeList.add(new Attribute("x-att-long-name-x", 3));
+        this.attributeList.add(new Attribute("x-att-float-name-x", 1.5));
+        this.attributeList.add(new Attribute("x-att-Integer-name-x", "42"));
+
+        this.injector.copyOutAttributes(this.target, this.attributeList, this.attributeSetters, this.objectName);
+
+        assertEquals(3L, this.target.longValue);
+        assertEquals(1.5f, this.target.floatValue, 0.0f);
+        assertEquals(Integer.valueOf(42), this.target.integerValue);
+
+        // Value types change between polls.
+        this.attributeList.clear();
+        this.attributeList.add(new Attribute("x-att-long-name-x", "5"));
+
+        this.injector.copyOutAttributes(this.target, this.attributeList, this.attributeSetters, this.objectName);
+
+        assertEquals(5L, this.target.longValue);
+    }
+
+    @Test
+    public void testCopyOutToFields() throws Exception {
+        FieldTarget fieldTarget = new FieldTarget();
+
+        Map<String, Field> attributeFields = new HashMap<>();
+        attributeFields.put("x-att-int-name-x", FieldTarget.class.getDeclaredField("intValue"));
+        attributeFields.put("x-att-Integer-name-x", FieldTarget.class.getDeclaredField("longValue"));
+        attributeFields.put("x-att-str-name-x", FieldTarget.class.getDeclaredField("stringValue"));
+
+        ObjectQueryInfo queryInfo = new ObjectQueryInfo(fieldTarget, this.objectName,
+                Collections.<String, Method>emptyMap(), attributeFields, Collections.<String, Class<?>>emptyMap());
+
+        this.injector.copyOutAttributes(queryInfo, this.attributeList);
+
+        assertEquals(7, fieldTarget.intValue);
+        assertEquals(11L, fieldTarget.longValue);
+        assertEquals("x-att-str-value-x", fieldTarget.stringValue);
+    }
+
+    @Test
+    public void testCopyOutWithQueryInfo() throws Exception {
+        ObjectQueryInfo queryInfo = new ObjectQueryInfo(this.target, this.objectName, this.attributeSetters);
+
+        this.injector.copyOutAttributes(queryInfo, this.attributeList);
+
+        assertEquals("x-att-str-value-x", this.target.stringValue);
+        assertEquals(7, this.target.intValue);
+    }
+
+    @Test
+    public void testCopyOutToSnapshot() throws Exception {
+        SnapshotTarget snapshotTarget = new SnapshotTarget();
+
+        this.attributeList.clear();
+        this.attributeList.add(new Attribute("x-att-int-name-x", 17L));
+        this.attributeList.add(new Attribute("x-att-str-name-x", "x-att-str-value-x"));
+
+        Map<String, Method> setters = new HashMap<>();
+        setters.put("x-att-int-name-x", SnapshotTarget.class.getMethod("setIntValue", int.class));
+        setters.put("x-att-str-name-x", SnapshotTarget.class.getMethod("setStringValue", String.class));
+
+        long before = System.currentTimeMillis();
+        this.injector.copyOutAttributes(new ObjectQueryInfo(snapshotTarget, this.objectName, setters),
+                this.attributeList);
+
+        AttributeSnapshot snapshot = snapshotTarget.getSnapshot();
+
+        assertSame(this.objectName, snapshot.getObjectName());
+        assertTrue(snapshot.getTimestamp() >= before);
+        assertEquals(17, snapshot.getValue("x-att-int-name-x"));
+        assertEquals("x-att-str-value-x", snapshot.getValue("x-att-str-name-x"));
+
+        // Setters are not called in snapshot mode.
+        assertEquals(0, snapshotTarget.intValue);
+        assertNull(snapshotTarget.stringValue);
+    }
+
+    @Test
+    public void testChangeDetection() throws Exception {
+        AttributeChangeListener mockListener = Mockito.mock(AttributeChangeListener.class);
+
+        this.injector.setChangeDetection(true);
+        this.injector.addChangeListener(mockListener);
+
+        this.injector.copyOutAttributes(new ObjectQueryInfo(this.target, this.objectName, this.attributeSetters),
+                this.attributeList);
+
+        Mockito.verify(mockListener).onAttributesChanged(this.target, this.objectName, new HashSet<>(
+                Arrays.asList("x-att-str-name-x", "x-att-int-name-x", "x-att-Integer-name-x")));
+
+        //
+        // Unchanged values are not injected again; only the changed attribute is injected and reported.
+        //
+        this.target.stringValue = "x-overwritten-x";
+        this.target.intValue = 0;
+
+        this.attributeList.set(2, new Attribute("x-att-Integer-name-x", 13));
+        this.injector.copyOutAttributes(new ObjectQueryInfo(this.target, this.objectName, this.attributeSetters),
+                this.attributeList);
+
+        assertEquals("x-overwritten-x", this.target.stringValue);
+        assertEquals(0, this.target.intValue);
+        assertEquals(Integer.valueOf(13), this.target.integerValue);
+        Mockito.verify(mockListener).onAttributesChanged(this.target, this.objectName,
+                Collections.singleton("x-att-Integer-name-x"));
+
+        //
+        // Another target is tracked separately.
+        //
+        TestTarget otherTarget = new TestTarget();
+        this.injector.copyOutAttributes(new ObjectQueryInfo(otherTarget, this.objectName, this.attributeSetters),
+                this.attributeList);
+
+        assertEquals("x-att-str-value-x", otherTarget.stringValue);
+        assertEquals(7, otherTarget.intValue);
+
+        this.injector.removeChangeListener(mockListener);
+        this.injector.copyOutAttributes(new ObjectQueryInfo(this.target, this.objectName, this.attributeSetters),
+                this.attributeList);
+
+        Mockito.verify(mockListener, Mockito.times(3)).onAttributesChanged(Mockito.any(), Mockito.any(ObjectName.class),
+                Mockito.anySetOf(String.class));
+    }
+
+    @Test
+    public void testChangeDetectionRetriesFailedInjection() throws Exception {
+        this.injector.setChangeDetection(true);
+
+        this.attributeList.clear();
+        this.attributeList.add(new Attribute("x-throw-x", "x-value-x"));
+
+        AttributeChangeListener mockListener = Mockito.mock(AttributeChangeListener.class);
+        this.injector.addChangeListener(mockListener);
+
+        this.injector.copyOutAttributes(this.target, this.attributeList, this.attributeSetters, this.objectName);
+        this.injector.copyOutAttributes(this.target, this.attributeList, this.attributeSetters, this.objectName);
+
+        Mockito.verify(mockListener, Mockito.times(2)).onAttributesChanged(this.target, this.objectName,
+                Collections.<String>emptySet());
+    }
+
+    @Test
+    public void testPublishPollResults() throws Exception {
+        PollResultRingBuffer mockRingBuffer = Mockito.mock(PollResultRingBuffer.class);
+        Mockito.when(mockRingBuffer.hasListeners()).thenReturn(true);
+
+        this.injector.setPollResultRingBuffer(mockRingBuffer);
+        assertSame(mockRingBuffer, this.injector.getPollResultRingBuffer());
+
+        this.attributeList.add(new Attribute("x-throw-x", "x-value-x"));
+        this.injector.copyOutAttributes(this.target, this.attributeList, this.attributeSetters, this.objectName);
+
+        Mockito.verify(mockRingBuffer).publish(Mockito.same(this.target), Mockito.same(this.objectName),
+                Mockito.eq("x-att-str-name-x"), Mockito.eq("x-att-str-value-x"), Mockito.anyLong());
+        Mockito.verify(mockRingBuffer).publish(Mockito.same(this.target), Mockito.same(this.objectName),
+                Mockito.eq("x-att-int-name-x"), Mockito.eq(7), Mockito.anyLong());
+        Mockito.verify(mockRingBuffer).publish(Mockito.same(this.target), Mockito.same(this.objectName),
+                Mockito.eq("x-att-Integer-name-x"), Mockito.eq(11), Mockito.anyLong());
+
+        // Values that fail to store are not published.
+        Mockito.verify(mockRingBuffer, Mockito.never()).publish(Mockito.any(), Mockito.any(ObjectName.class),
+                Mockito.eq("x-throw-x"), Mockito.any(), Mockito.anyLong());
+    }
+
+    @Test
+    public void testNoPublishWithoutPollResultListeners() throws Exception {
+        PollResultRingBuffer mockRingBuffer = Mockito.mock(PollResultRingBuffer.class);
+
+        this.injector.setPollResultRingBuffer(mockRingBuffer);
+        this.injector.copyOutAttributes(this.target, this.attributeList, this.attributeSetters, this.objectName);
+
+        Mockito.verify(mockRingBuffer, Mockito.never()).publish(Mockito.any(), Mockito.any(ObjectName.class),
+                Mockito.anyString(), Mockito.any(), Mockito.anyLong());
+    }
+
+    @Test
+    public void testSnapshotListener() throws Exception {
+        AttributeSnapshotReceiver mockListener = Mockito.mock(AttributeSnapshotReceiver.class);
+
+        this.injector.addSnapshotListener(mockListener);
+        this.injector.copyOutAttributes(this.target, this.attributeList, this.attributeSetters, this.objectName);
+
+        // Values are still injected.
+        assertEquals(7, this.target.intValue);
+
+        ArgumentCaptor<AttributeSnapshot> snapshotCaptor = ArgumentCaptor.forClass(AttributeSnapshot.class);
+        Mockito.verify(mockListener).publishSnapshot(snapshotCaptor.capture());
+        assertSame(this.objectName, snapshotCaptor.getValue().getObjectName());
+        assertEquals(3, snapshotCaptor.getValue().getValues().size());
+        assertEquals(7, snapshotCaptor.getValue().getValue("x-att-int-name-x"));
+
+        this.injector.removeSnapshotListener(mockListener);
+        this.injector.copyOutAttributes(this.target, this.attributeList, this.attributeSetters, this.objectName);
+        Mockito.verifyNoMoreInteractions(mockListener);
+    }
+
+    @Test
+    public void testGetSetChangeTracker() throws Exception {
+        AttributeChangeTracker tracker = new AttributeChangeTracker();
+
+        assertFalse(this.injector.isChangeDetection());
+        assertNotNull(this.injector.getChangeTracker());
+        this.injector.setChangeTracker(tracker);
+        assertSame(tracker, this.injector.getChangeTracker());
+    }
+
+    @Test
+    public void testGetSetConverterRegistry() throws Exception {
+        ValueConverterRegistry registry = new ValueConverterRegistry();
+
+        assertNotNull(this.injector.getConverterRegistry());
+        this.injector.setConverterRegistry(registry);
+        assertSame(registry, this.injector.getConverterRegistry());
+    }
+
     @Test
     public void testIllegalAccessOnSetter() throws Exception {
         this.attributeList.clear();
@@ -144,10 +403,204 @@ public class AttributeInjectorTest {
                         Mockito.any(IllegalAccessException.class));
     }
 
+    @Test
+    public void testGetSetCounterRateTracker() throws Exception {
+        CounterRateTracker tracker = new CounterRateTracker();
+
+        assertNotNull(this.injector.getCounterRateTracker());
+        this.injector.setCounterRateTracker(tracker);
+        assertSame(tracker, this.injector.getCounterRateTracker());
+    }
+
+    @Test
+    public void testRateSetters() throws Exception {
+        CounterRateTracker mockTracker = Mockito.mock(CounterRateTracker.class);
+        CounterRateTracker.CounterStates mockStates = Mockito.mock(CounterRateTracker.CounterStates.class);
+
+        Mockito.when(mockTracker.getCounterStates(this.target)).thenReturn(mockStates);
+        Mockito.when(mockStates.update(Mockito.eq("x-att-int-name-x"), Mockito.anyLong(), Mockito.eq(7.0)))
+                .thenReturn(2.5);
+        Mockito.when(mockStates.update(Mockito.eq("x-counter-x"), Mockito.anyLong(), Mockito.eq(100.0)))
+                .thenReturn(Double.NaN);
+
+        this.injector.setCounterRateTracker(mockTracker);
+
+        // The rate accompanies the value of one attribute; the other attribute has only a rate setter.
+        Map<String, Method> rateSetters = new HashMap<>();
+        rateSetters.put("x-att-int-name-x", TestTarget.class.getMethod("setRateValue", double.class));
+        rateSetters.put("x-counter-x", TestTarget.class.getMethod("setFloatValue", float.class));
+
+        this.attributeList.add(new Attribute("x-counter-x", 100L));
+
+        ObjectQueryInfo queryInfo = new ObjectQueryInfo(this.target, this.objectName, this.attributeSetters,
+                Collections.<String, Field>emptyMap(), Collections.<String, Class<?>>emptyMap(), rateSetters);
+        this.injector.copyOutAttributes(queryInfo, this.attributeList);
+
+        assertEquals(7, this.target.intValue);
+        assertEquals(2.5, this.target.rateValue, 0.0);
+
+        // No rate is available for the counter yet.
+        assertEquals(0.0f, this.target.floatValue, 0.0f);
+    }
+
+    @Test
+    public void testRateFromSuccessiveCopyOuts() throws Exception {
+        Map<String, Method> rateSetters = new HashMap<>();
+        rateSetters.put("x-counter-x", TestTarget.class.getMethod("setRateValue", double.class));
+
+        ObjectQueryInfo queryInfo = new ObjectQueryInfo(this.target, this.objectName,
+                Collections.<String, Method>emptyMap(), Collections.<String, Field>emptyMap(),
+                Collections.<String, Class<?>>emptyMap(), rateSetters);
+
+        this.injector.copyOutAttributes(queryInfo,
+                Collections.singletonList(new Attribute("x-counter-x", 1000L)));
+        assertEquals(0.0, this.target.rateValue, 0.0);
+
+        Thread.sleep(5);
+
+        this.injector.copyOutAttributes(queryInfo,
+                Collections.singletonList(new Attribute("x-counter-x", 2000L)));
+        assertTrue(this.target.rateValue > 0.0);
+    }
+
+    @Test
+    public void testRateOfNonNumericValue() throws Exception {
+        CounterRateTracker mockTracker = Mockito.mock(CounterRateTracker.class);
+        this.injector.setCounterRateTracker(mockTracker);
+
+        Map<String, Method> rateSetters = new HashMap<>();
+        rateSetters.put("x-att-str-name-x", TestTarget.class.getMethod("setRateValue", double.class));
+
+        this.injector.copyOutAttributes(new ObjectQueryInfo(this.target, this.objectName, this.attributeSetters,
+                Collections.<String, Field>emptyMap(), Collections.<String, Class<?>>emptyMap(), rateSetters),
+                this.attributeList);
+
+        assertEquals("x-att-str-value-x", this.target.stringValue);
+        assertEquals(0.0, this.target.rateValue, 0.0);
+        Mockito.verifyZeroInteractions(mockTracker);
+    }
+
+    @Test
+    public void testRateSetterWithoutConversion() throws Exception {
+        this.injectRateInto(TestTarget.class.getMethod("setStringValue", String.class));
+
+        assertNull(this.target.stringValue);
+    }
+
+    @Test
+    public void testRateSetterException() throws Exception {
+        this.injectRateInto(TestTarget.class.getMethod("throwRateWhenCalled", double.class));
+
+        Mockito.verify(this.mockLogger).info(Mockito.eq("exception storing mbean rate: {}={}; attributeName={}"),
+                Mockito.eq("oname"), Mockito.eq(this.objectName), Mockito.eq("x-counter-x"),
+                Mockito.any(InvocationTargetException.class));
+    }
+
+    @Test
+    public void testRatesInSnapshot() throws Exception {
+        SnapshotTarget snapshotTarget = new SnapshotTarget();
+        CounterRateTracker mockTracker = Mockito.mock(CounterRateTracker.class);
+        CounterRateTracker.CounterStates mockStates = Mockito.mock(CounterRateTracker.CounterStates.class);
+
+        Mockito.when(mockTracker.getCounterStates(snapshotTarget)).thenReturn(mockStates);
+        Mockito.when(mockStates.update(Mockito.eq("x-counter-x"), Mockito.anyLong(), Mockito.eq(100.0)))
+                .thenReturn(2.5);
+        this.injector.setCounterRateTracker(mockTracker);
+
+        ObjectQueryInfo queryInfo = new ObjectQueryInfo(snapshotTarget, this.objectName,
+                Collections.<String, Method>emptyMap(), Collections.<String, Field>emptyMap(),
+                Collections.<String, Class<?>>emptyMap(),
+                Collections.singletonMap("x-counter-x", SnapshotTarget.class.getMethod("setRateValue", double.class)));
+
+        this.injector.copyOutAttributes(queryInfo, Collections.singletonList(new Attribute("x-counter-x", 100L)));
+
+        // The rate and the raw value are in the snapshot; the rate setter is not called.
+        AttributeSnapshot snapshot = snapshotTarget.getSnapshot();
+        assertEquals(2.5, snapshot.getValue("x-counter-x" + AttributeSnapshot.RATE_SUFFIX));
+        assertEquals(100L, snapshot.getValue("x-counter-x"));
+        assertEquals(0.0, snapshotTarget.rateValue, 0.0);
+    }
+
+    @Test
+    public void testRateOnlyAttributeReported() throws Exception {
+        AttributeChangeListener mockChangeListener = Mockito.mock(AttributeChangeListener.class);
+        AttributeSnapshotReceiver mockSnapshotListener = Mockito.mock(AttributeSnapshotReceiver.class);
+        PollResultRingBuffer mockRingBuffer = Mockito.mock(PollResultRingBuffer.class);
+        Mockito.when(mockRingBuffer.hasListeners()).thenReturn(true);
+
+        this.injector.setChangeDetection(true);
+        this.injector.addChangeListener(mockChangeListener);
+        this.injector.addSnapshotListener(mockSnapshotListener);
+        this.injector.setPollResultRingBuffer(mockRingBuffer);
+
+        ObjectQueryInfo queryInfo = new ObjectQueryInfo(this.target, this.objectName,
+                Collections.<String, Method>emptyMap(), Collections.<String, Field>emptyMap(),
+                Collections.<String, Class<?>>emptyMap(),
+                Collections.singletonMap("x-counter-x", TestTarget.class.getMethod("setRateValue", double.class)));
+
+        this.injector.copyOutAttributes(queryInfo, Collections.singletonList(new Attribute("x-counter-x", 100L)));
+
+        Mockito.verify(mockChangeListener).onAttributesChanged(this.target, this.objectName,
+                Collections.singleton("x-counter-x"));
+        Mockito.verify(mockRingBuffer).publish(Mockito.same(this.target), Mockito.same(this.objectName),
+                Mockito.eq("x-counter-x"), Mockito.eq(100L), Mockito.anyLong());
+
+        ArgumentCaptor<AttributeSnapshot> snapshotCaptor = ArgumentCaptor.forClass(AttributeSnapshot.class);
+        Mockito.verify(mockSnapshotListener).publishSnapshot(snapshotCaptor.capture());
+        assertEquals(100L, snapshotCaptor.getValue().getValue("x-counter-x"));
+    }
+
+    private void injectRateInto(Method rateSetter) throws Exception {
+        CounterRateTracker mockTracker = Mockito.mock(CounterRateTracker.class);
+        CounterRateTracker.CounterStates mockStates = Mockito.mock(CounterRateTracker.CounterStates.class);
+
+        Mockito.when(mockTracker.getCounterStates(this.target)).thenReturn(mockStates);
+        Mockito.when(mockStates.update(Mockito.eq("x-counter-x"), Mockito.anyLong(), Mockito.anyDouble()))
+                .thenReturn(1.0);
+        this.injector.setCounterRateTracker(mockTracker);
+
+        ObjectQueryInfo queryInfo = new ObjectQueryInfo(this.target, this.objectName,
+                Collections.<String, Method>emptyMap(), Collections.<String, Field>emptyMap(),
+                Collections.<String, Class<?>>emptyMap(), Collections.singletonMap("x-counter-x", rateSetter));
+
+        this.injector.copyOutAttributes(queryInfo, Collections.singletonList(new Attribute("x-counter-x", 5L)));
+    }
+
+    protected static class SnapshotTarget extends AttributeSnapshotHolder {
+        private int intValue;
+        private String stringValue;
+        private double rateValue;
+
+        public void setIntValue(int value) {
+            this.intValue = value;
+        }
+
+        public void setStringValue(String value) {
+            this.stringValue = value;
+        }
+
+        public void setRateValue(double value) {
+            this.rateValue = value;
+        }
+    }
+
+    protected static class FieldTarget {
+        private int intValue;
+
+        @MBeanAttribute(name = "x-att-Integer-name-x", type = Long.class, access = FieldAccessMode.ORDERED)
+        public volatile long longValue;
+
+        @MBeanAttribute(name = "x-att-str-name-x", type = String.class, access = FieldAccessMode.VOLATILE)
+        private volatile String stringValue;
+    }
+
     protected static class TestTarget {
         public String stringValue;
         public int intValue;
         public Integer integerValue;
+        public long longValue;
+        public float floatValue;
+        public double rateValue;
 
         public void setStringValue(String value) {
             this.stringValue = value;
@@ -161,10 +614,26 @@ public class AttributeInjectorTest {
             this.integerValue = value;
         }
 
+        public void setLongValue(long value) {
+            this.longValue = value;
+        }
+
+        public void setFloatValue(float value) {
+            this.floatValue = value;
+        }
+
         public void throwWhenCalled(String ignored) {
             throw new RuntimeException("x-rt-exc-x");
         }
 
+        public void setRateValue(double value) {
+            this.rateValue = value;
+        }
+
+        public void throwRateWhenCalled(double ignored) {
+            throw new RuntimeException("x-rt-exc-x");
+        }
+
         private void inaccessible(String ignored) {
         }
     }
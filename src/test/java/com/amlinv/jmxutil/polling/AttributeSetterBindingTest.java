@@ -0,0 +1,85 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the AttributeSetterBinding.
+ */
+public class AttributeSetterBindingTest {
+
+    private AttributeSetterBinding binding;
+    private ValueConverterRegistry spyRegistry;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.binding = new AttributeSetterBinding(TestTarget.class.getMethod("setValue", int.class));
+        this.spyRegistry = Mockito.spy(new ValueConverterRegistry());
+    }
+
+    @Test
+    public void testGetters() throws Exception {
+        assertEquals(TestTarget.class.getMethod("setValue", int.class), this.binding.getSetter());
+        assertEquals(int.class, this.binding.getParameterType());
+        assertFalse(this.binding.isResolved());
+    }
+
+    @Test
+    public void testConverterResolvedOncePerType() throws Exception {
+        ValueConverter converter1 = this.binding.getConverter(Long.class, this.spyRegistry);
+        ValueConverter converter2 = this.binding.getConverter(Long.class, this.spyRegistry);
+
+        assertTrue(this.binding.isResolved());
+        assertSame(converter1, converter2);
+        Mockito.verify(this.spyRegistry, Mockito.times(1)).lookup(Long.class, int.class);
+
+        this.binding.getConverter(String.class, this.spyRegistry);
+        Mockito.verify(this.spyRegistry, Mockito.times(1)).lookup(String.class, int.class);
+    }
+
+    @Test
+    public void testPreselect() throws Exception {
+        this.binding.preselect(long.class, this.spyRegistry);
+
+        assertTrue(this.binding.isResolved());
+        Mockito.verify(this.spyRegistry).lookup(Long.class, int.class);
+
+        assertEquals(5, this.binding.getConverter(Long.class, this.spyRegistry).convert(5L));
+        Mockito.verify(this.spyRegistry, Mockito.times(1)).lookup(Long.class, int.class);
+    }
+
+    @Test
+    public void testInject() throws Exception {
+        TestTarget target = new TestTarget();
+
+        this.binding.inject(target, 13);
+
+        assertEquals(13, target.value);
+    }
+
+    public static class TestTarget {
+        private int value;
+
+        public void setValue(int value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the AttributeSnapshot and the AttributeSnapshotHolder.
+ */
+public class AttributeSnapshotTest {
+
+    @Test
+    public void testImmutableSnapshot() throws Exception {
+        ObjectName objectName = new ObjectName("x-domain-x:x-key-x=x-value-x");
+
+        Map<String, Object> values = new HashMap<>();
+        values.put("x-att1-x", 1L);
+        values.put("x-att2-x", null);
+
+        AttributeSnapshot snapshot = new AttributeSnapshot(objectName, 123L, values);
+        values.put("x-att3-x", "x-later-value-x");
+
+        assertSame(objectName, snapshot.getObjectName());
+        assertEquals(123L, snapshot.getTimestamp());
+        assertEquals(2, snapshot.getValues().size());
+        assertEquals(1L, snapshot.getValue("x-att1-x"));
+        assertTrue(snapshot.hasValue("x-att2-x"));
+        assertNull(snapshot.getValue("x-att2-x"));
+        assertFalse(snapshot.hasValue("x-att3-x"));
+        assertTrue(snapshot.toString().contains("timestamp=123"));
+
+        try {
+            snapshot.getValues().put("x-att3-x", 3L);
+            fail("missing expected exception");
+        } catch (UnsupportedOperationException uoExc) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testHolder() throws Exception {
+        AttributeSnapshotHolder holder = new AttributeSnapshotHolder() {
+        };
+
+        assertNull(holder.getSnapshot());
+
+        AttributeSnapshot snapshot = new AttributeSnapshot(null, 1L, new HashMap<String, Object>());
+        holder.publishSnapshot(snapshot);
+
+        assertSame(snapshot, holder.getSnapshot());
+    }
+}
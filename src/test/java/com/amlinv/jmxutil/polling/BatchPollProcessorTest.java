@@ -167,10 +167,8 @@ public class BatchPollProcessorTest {
         // VALIDATE
         //
         Mockito.verify(this.mockAttributeInjector).copyOutAttributes(
-                this.polled001,
-                Arrays.asList(new Attribute("x-att1-x", "x-string-value-x"), new Attribute("x-att2-x", 11)),
-                this.attributeSetters001,
-                this.objectName001
+                this.mockObjectQueryInfo001,
+                Arrays.asList(new Attribute("x-att1-x", "x-string-value-x"), new Attribute("x-att2-x", 11))
         );
     }
 
@@ -184,6 +182,38 @@ public class BatchPollProcessorTest {
         this.processor.shutdown();
     }
 
+    /**
+     * Verify registration of poll result listeners, which share a ring buffer with the attribute injector.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAddRemovePollResultListener() throws Exception {
+        PollResultListener mockListener = Mockito.mock(PollResultListener.class);
+
+        assertNull(this.processor.getPollResultRingBuffer());
+        assertFalse(this.processor.removePollResultListener(mockListener));
+
+        this.processor.addPollResultListener(mockListener);
+
+        PollResultRingBuffer ringBuffer = this.processor.getPollResultRingBuffer();
+        assertNotNull(ringBuffer);
+        assertTrue(ringBuffer.hasListeners());
+        assertSame(ringBuffer, this.processor.getAttributeInjector().getPollResultRingBuffer());
+
+        this.processor.setAttributeInjector(this.mockAttributeInjector);
+        Mockito.verify(this.mockAttributeInjector).setPollResultRingBuffer(ringBuffer);
+
+        assertTrue(this.processor.removePollResultListener(mockListener));
+        assertFalse(ringBuffer.hasListeners());
+
+        this.processor.addPollResultListener(mockListener);
+        this.processor.shutdown();
+
+        assertFalse(ringBuffer.hasListeners());
+        assertTrue(ringBuffer.awaitShutdown(3000L));
+    }
+
     /**
      * Verify an attempt to poll after shutdown.
      *
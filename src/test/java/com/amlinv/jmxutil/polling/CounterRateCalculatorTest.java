@@ -0,0 +1,89 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the CounterRateCalculator.
+ */
+public class CounterRateCalculatorTest {
+    private CounterRateCalculator calculator;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.calculator = new CounterRateCalculator();
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        assertTrue(Double.isNaN(this.calculator.update(3, 1000L, 100.0)));
+        assertEquals(50.0, this.calculator.update(3, 3000L, 200.0), 0.0);
+        assertEquals(0.0, this.calculator.update(3, 4000L, 200.0), 0.0);
+
+        // Series are independent.
+        assertTrue(Double.isNaN(this.calculator.update(4, 4000L, 7.0)));
+        assertEquals(1.0, this.calculator.update(4, 5000L, 8.0), 0.0);
+    }
+
+    @Test
+    public void testCounterReset() throws Exception {
+        this.calculator.update(0, 1000L, 5000.0);
+
+        // The JVM restarted and the counter counted 30 since.
+        assertEquals(15.0, this.calculator.update(0, 3000L, 30.0), 0.0);
+        assertEquals(5.0, this.calculator.update(0, 4000L, 35.0), 0.0);
+    }
+
+    @Test
+    public void testStaleSampleIgnored() throws Exception {
+        this.calculator.update(0, 2000L, 10.0);
+
+        assertTrue(Double.isNaN(this.calculator.update(0, 2000L, 20.0)));
+        assertTrue(Double.isNaN(this.calculator.update(0, 1000L, 20.0)));
+
+        // The previous sample is unchanged.
+        assertEquals(10.0, this.calculator.update(0, 3000L, 20.0), 0.0);
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        this.calculator.update(1, 1000L, 10.0);
+        this.calculator.reset(1);
+        this.calculator.reset(1000);
+
+        assertTrue(Double.isNaN(this.calculator.update(1, 2000L, 20.0)));
+    }
+
+    @Test
+    public void testGrow() throws Exception {
+        assertTrue(Double.isNaN(this.calculator.update(1000, 1000L, 10.0)));
+        assertEquals(10.0, this.calculator.update(1000, 2000L, 20.0), 0.0);
+        assertTrue(Double.isNaN(this.calculator.update(999, 2000L, 20.0)));
+        assertTrue(Double.isNaN(this.calculator.update(5000, 2000L, 20.0)));
+    }
+
+    @Test
+    public void testComputeRate() throws Exception {
+        assertTrue(Double.isNaN(CounterRateCalculator.computeRate(Long.MIN_VALUE, 0.0, 1000L, 1.0)));
+        assertTrue(Double.isNaN(CounterRateCalculator.computeRate(1000L, 0.0, 1000L, 1.0)));
+        assertEquals(2.0, CounterRateCalculator.computeRate(0L, 1.0, 500L, 2.0), 0.0);
+        assertEquals(4.0, CounterRateCalculator.computeRate(0L, 10.0, 500L, 2.0), 0.0);
+    }
+}
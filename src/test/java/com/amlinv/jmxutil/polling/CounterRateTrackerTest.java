@@ -0,0 +1,70 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the CounterRateTracker.
+ */
+public class CounterRateTrackerTest {
+    private CounterRateTracker tracker;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.tracker = new CounterRateTracker();
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        Object target = new Object();
+        CounterRateTracker.CounterStates states = this.tracker.getCounterStates(target);
+
+        assertSame(states, this.tracker.getCounterStates(target));
+        assertEquals(1, this.tracker.getTrackedCount());
+
+        assertTrue(Double.isNaN(states.update("x-att1-x", 1000L, 10.0)));
+        assertTrue(Double.isNaN(states.update("x-att2-x", 1000L, 50.0)));
+        assertEquals(5.0, states.update("x-att1-x", 3000L, 20.0), 0.0);
+        assertTrue(Double.isNaN(states.update("x-att1-x", 3000L, 30.0)));
+
+        // Counter reset.
+        assertEquals(1.0, states.update("x-att2-x", 2000L, 1.0), 0.0);
+    }
+
+    @Test
+    public void testTargetsByIdentity() throws Exception {
+        String target1 = new String("x-target-x");
+        String target2 = new String("x-target-x");
+
+        assertNotSame(this.tracker.getCounterStates(target1), this.tracker.getCounterStates(target2));
+        assertEquals(2, this.tracker.getTrackedCount());
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        Object target = new Object();
+        CounterRateTracker.CounterStates states = this.tracker.getCounterStates(target);
+
+        this.tracker.clear();
+
+        assertEquals(0, this.tracker.getTrackedCount());
+        assertNotSame(states, this.tracker.getCounterStates(target));
+    }
+}
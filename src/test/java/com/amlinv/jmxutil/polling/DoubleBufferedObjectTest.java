@@ -0,0 +1,62 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the DoubleBufferedObject.
+ */
+public class DoubleBufferedObjectTest {
+
+    @Test
+    public void testFlip() throws Exception {
+        Object first = new Object();
+        Object second = new Object();
+
+        DoubleBufferedObject<Object> buffered = new DoubleBufferedObject<>(first, second);
+
+        assertSame(first, buffered.getFront());
+        assertSame(second, buffered.getBack());
+        assertEquals(0L, buffered.getGeneration());
+
+        buffered.flip();
+
+        assertSame(second, buffered.getFront());
+        assertSame(first, buffered.getBack());
+        assertEquals(1L, buffered.getGeneration());
+
+        buffered.flip();
+
+        assertSame(first, buffered.getFront());
+        assertSame(second, buffered.getBack());
+        assertEquals(2L, buffered.getGeneration());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSameInstance() throws Exception {
+        Object instance = new Object();
+
+        new DoubleBufferedObject<>(instance, instance);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullInstance() throws Exception {
+        new DoubleBufferedObject<>(new Object(), null);
+    }
+}
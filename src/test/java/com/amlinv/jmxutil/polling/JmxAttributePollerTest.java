@@ -26,6 +26,7 @@ import com.amlinv.jmxutil.connection.MBeanAccessConnectionFactory;
 import com.amlinv.jmxutil.connection.impl.MBeanBatchCapableAccessConnection;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -192,6 +193,116 @@ public class JmxAttributePollerTest {
                 .pollBatch(this.mockBatchCapableAccessConnection, this.polledObjects);
     }
 
+    @Test
+    public void testPollFlipsDoubleBuffers() throws Exception {
+        DoubleBufferedObject<TestDataClass001> buffered =
+                new DoubleBufferedObject<>(new TestDataClass001(), new TestDataClass001());
+        this.polledObjects.add(buffered);
+
+        this.setupPoller(true);
+
+        this.poller.poll();
+
+        assertEquals(1L, buffered.getGeneration());
+    }
+
+    @Test
+    public void testPollPublishesCycles() throws Exception {
+        this.setupPoller(true);
+        Mockito.when(this.mockBatchPollProcessor.getAttributeInjector()).thenReturn(this.mockAttributeInjector);
+
+        PollCyclePublisher publisher = this.poller.getCyclePublisher();
+        assertSame(publisher, this.poller.getCyclePublisher(CycleOverflowPolicy.SKIP));
+
+        ArgumentCaptor<AttributeSnapshotReceiver> collectorCaptor =
+                ArgumentCaptor.forClass(AttributeSnapshotReceiver.class);
+        Mockito.verify(this.mockAttributeInjector).addSnapshotListener(collectorCaptor.capture());
+        final AttributeSnapshotReceiver collector = collectorCaptor.getValue();
+
+        final AttributeSnapshot snapshot = new AttributeSnapshot(this.testObjectName001, 1000L,
+                Collections.<String, Object>singletonMap("x-name-x", "x-value-x"));
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocationOnMock) throws Throwable {
+                collector.publishSnapshot(snapshot);
+                return null;
+            }
+        }).when(this.mockBatchPollProcessor).pollBatch(this.mockBatchCapableAccessConnection, this.polledObjects);
+
+        PollCycleSubscriber mockSubscriber = Mockito.mock(PollCycleSubscriber.class);
+        publisher.subscribe(mockSubscriber);
+
+        ArgumentCaptor<PollCycleSubscription> subscriptionCaptor =
+                ArgumentCaptor.forClass(PollCycleSubscription.class);
+        Mockito.verify(mockSubscriber).onSubscribe(subscriptionCaptor.capture());
+        subscriptionCaptor.getValue().request(1);
+
+        this.poller.poll();
+        this.poller.poll();
+
+        ArgumentCaptor<PollCycleResult> resultCaptor = ArgumentCaptor.forClass(PollCycleResult.class);
+        Mockito.verify(mockSubscriber).onNext(resultCaptor.capture());
+        assertSame(this.poller, resultCaptor.getValue().getSource());
+        assertEquals(1L, resultCaptor.getValue().getCycle());
+        assertEquals(Collections.singletonList(snapshot), resultCaptor.getValue().getSnapshots());
+
+        //
+        // The second cycle is delivered upon request, and completion follows shutdown.
+        //
+        subscriptionCaptor.getValue().request(1);
+        Mockito.verify(mockSubscriber, Mockito.times(2)).onNext(resultCaptor.capture());
+        assertEquals(2L, resultCaptor.getValue().getCycle());
+
+        this.poller.shutdown();
+        Mockito.verify(mockSubscriber).onComplete();
+    }
+
+    @Test
+    public void testNoCyclePublishedOnShutdownDuringPoll() throws Exception {
+        Answer<Void> shutdownAnswer = new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocationOnMock) throws Throwable {
+                poller.shutdown();
+                return null;
+            }
+        };
+
+        this.setupPoller(true);
+        Mockito.doAnswer(shutdownAnswer).when(this.mockBatchPollProcessor)
+                .pollBatch(this.mockBatchCapableAccessConnection, this.polledObjects);
+
+        PollCycleSubscriber mockSubscriber = Mockito.mock(PollCycleSubscriber.class);
+        this.poller.getCyclePublisher().subscribe(mockSubscriber);
+
+        this.poller.poll();
+
+        Mockito.verify(mockSubscriber, Mockito.never()).onNext(Mockito.any(PollCycleResult.class));
+        Mockito.verify(mockSubscriber).onComplete();
+    }
+
+    @Test
+    public void testNoFlipOnShutdownDuringPoll() throws Exception {
+        DoubleBufferedObject<TestDataClass001> buffered =
+                new DoubleBufferedObject<>(new TestDataClass001(), new TestDataClass001());
+        this.polledObjects.add(buffered);
+
+        Answer<Void> shutdownAnswer = new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocationOnMock) throws Throwable {
+                poller.shutdown();
+                return null;
+            }
+        };
+
+        this.setupPoller(true);
+        Mockito.doAnswer(shutdownAnswer).when(this.mockBatchPollProcessor)
+                .pollBatch(this.mockBatchCapableAccessConnection, this.polledObjects);
+
+        this.poller.poll();
+
+        assertEquals(0L, buffered.getGeneration());
+    }
+
     @Test
     public void testShutdown() throws Exception {
         this.poller.setBatchPollProcessor(this.mockBatchPollProcessor);
@@ -200,6 +311,36 @@ public class JmxAttributePollerTest {
         Mockito.verify(this.mockBatchPollProcessor).shutdown();
     }
 
+    @Test
+    public void testAddRemovePollResultListener() throws Exception {
+        PollResultListener mockListener = Mockito.mock(PollResultListener.class);
+
+        assertNull(this.poller.getPollResultRingBuffer());
+        assertFalse(this.poller.removePollResultListener(mockListener));
+
+        this.poller.addPollResultListener(mockListener);
+
+        PollResultRingBuffer ringBuffer = this.poller.getPollResultRingBuffer();
+        assertNotNull(ringBuffer);
+        assertTrue(ringBuffer.hasListeners());
+        assertSame(ringBuffer, this.poller.getAttributeInjector().getPollResultRingBuffer());
+        assertSame(ringBuffer, this.poller.getBatchPollProcessor().getPollResultRingBuffer());
+
+        this.poller.setAttributeInjector(this.mockAttributeInjector);
+        this.poller.setBatchPollProcessor(this.mockBatchPollProcessor);
+        Mockito.verify(this.mockAttributeInjector).setPollResultRingBuffer(ringBuffer);
+        Mockito.verify(this.mockBatchPollProcessor).setPollResultRingBuffer(ringBuffer);
+
+        assertTrue(this.poller.removePollResultListener(mockListener));
+        assertFalse(ringBuffer.hasListeners());
+
+        this.poller.addPollResultListener(mockListener);
+        this.poller.shutdown();
+
+        assertFalse(ringBuffer.hasListeners());
+        assertTrue(ringBuffer.awaitShutdown(3000L));
+    }
+
     @Test(timeout = 3000L)
     public void testWaitUntilShutdown() throws Exception {
         //
@@ -0,0 +1,254 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import com.amlinv.jmxutil.connection.MBeanAccessConnection;
+import com.amlinv.jmxutil.connection.MBeanRegistrationListener;
+import com.amlinv.jmxutil.connection.impl.MBeanInfoCapableAccessConnection;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the MBeanInfoCache.
+ */
+public class MBeanInfoCacheTest {
+
+    private MBeanInfoCache cache;
+
+    private MBeanInfoCapableAccessConnection mockConnection;
+    private Logger mockLogger;
+
+    private ObjectName objectName;
+    private Object target;
+    private Map<String, Method> setters;
+    private ObjectQueryInfo queryInfo;
+    private MBeanInfo mBeanInfo;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.cache = new MBeanInfoCache();
+
+        this.mockConnection = Mockito.mock(MBeanInfoCapableAccessConnection.class);
+        this.mockLogger = Mockito.mock(Logger.class);
+
+        this.objectName = new ObjectName("x-domain-x:x-key-x=x-value-x");
+        this.target = new Object();
+
+        this.setters = new LinkedHashMap<>();
+        this.setters.put("x-long-att-x", Object.class.getMethod("toString"));
+        this.setters.put("x-unknown-type-att-x", Object.class.getMethod("toString"));
+        this.setters.put("x-composite-att-x/used", Object.class.getMethod("toString"));
+        this.setters.put("x-missing-att-x", Object.class.getMethod("toString"));
+
+        this.queryInfo = new ObjectQueryInfo(this.target, this.objectName, this.setters);
+
+        this.mBeanInfo = new MBeanInfo("x-class-x", "x-desc-x", new MBeanAttributeInfo[] {
+                new MBeanAttributeInfo("x-long-att-x", "long", "x-desc-x", true, false, false),
+                new MBeanAttributeInfo("x-unknown-type-att-x", "x.unknown.Type", "x-desc-x", true, false, false),
+                new MBeanAttributeInfo("x-composite-att-x", "javax.management.openmbean.CompositeData", "x-desc-x",
+                        true, false, false),
+                new MBeanAttributeInfo("x-write-only-att-x", "int", "x-desc-x", false, true, false)
+        }, null, null, null);
+
+        Mockito.when(this.mockConnection.getMBeanInfo(this.objectName)).thenReturn(this.mBeanInfo);
+
+        this.cache.setLog(this.mockLogger);
+    }
+
+    @Test
+    public void testGetSetters() throws Exception {
+        this.cache = new MBeanInfoCache();
+
+        assertNotNull(this.cache.getLog());
+        this.cache.setLog(this.mockLogger);
+        assertSame(this.mockLogger, this.cache.getLog());
+
+        assertEquals(MBeanInfoCache.DEFAULT_MAX_AGE, this.cache.getMaxAge());
+        this.cache.setMaxAge(1000);
+        assertEquals(1000L, this.cache.getMaxAge());
+    }
+
+    @Test
+    public void testValidateQuery() throws Exception {
+        ObjectQueryInfo result = this.cache.validateQuery(this.mockConnection, this.queryInfo);
+
+        assertSame(this.target, result.getTarget());
+        assertSame(this.objectName, result.getObjectName());
+        assertEquals(3, result.getAttributeSetters().size());
+        assertTrue(result.getAttributeSetters().containsKey("x-long-att-x"));
+        assertTrue(result.getAttributeSetters().containsKey("x-unknown-type-att-x"));
+        assertTrue(result.getAttributeSetters().containsKey("x-composite-att-x/used"));
+
+        assertEquals(1, result.getAttributeTypes().size());
+        assertEquals(long.class, result.getAttributeTypes().get("x-long-att-x"));
+    }
+
+    @Test
+    public void testValidateQueryWithFields() throws Exception {
+        Map<String, Field> fields = new LinkedHashMap<>();
+        fields.put("x-long-att-x", FieldTarget.class.getDeclaredField("longValue"));
+        fields.put("x-missing-att-x", FieldTarget.class.getDeclaredField("missingValue"));
+
+        ObjectQueryInfo fieldQueryInfo = new ObjectQueryInfo(this.target, this.objectName,
+                Collections.<String, Method>emptyMap(), fields, Collections.<String, Class<?>>emptyMap());
+
+        ObjectQueryInfo result = this.cache.validateQuery(this.mockConnection, fieldQueryInfo);
+
+        assertTrue(result.getAttributeSetters().isEmpty());
+        assertEquals(Collections.singleton("x-long-att-x"), result.getAttributeFields().keySet());
+        assertEquals(long.class, result.getAttributeTypes().get("x-long-att-x"));
+    }
+
+    @Test
+    public void testValidateQueryWithRateSetters() throws Exception {
+        Map<String, Method> rateSetters = new LinkedHashMap<>();
+        rateSetters.put("x-long-att-x", Object.class.getMethod("hashCode"));
+        rateSetters.put("x-missing-att-x", Object.class.getMethod("hashCode"));
+
+        ObjectQueryInfo rateQueryInfo = new ObjectQueryInfo(this.target, this.objectName,
+                Collections.<String, Method>emptyMap(), Collections.<String, Field>emptyMap(),
+                Collections.<String, Class<?>>emptyMap(), rateSetters);
+
+        ObjectQueryInfo result = this.cache.validateQuery(this.mockConnection, rateQueryInfo);
+
+        assertTrue(result.getAttributeSetters().isEmpty());
+        assertTrue(result.getAttributeFields().isEmpty());
+        assertEquals(Collections.singleton("x-long-att-x"), result.getAttributeRateSetters().keySet());
+        assertEquals(long.class, result.getAttributeTypes().get("x-long-att-x"));
+    }
+
+    @Test
+    public void testDescriptionFetchedOnce() throws Exception {
+        this.cache.validateQuery(this.mockConnection, this.queryInfo);
+        this.cache.validateQuery(this.mockConnection, this.queryInfo);
+
+        Mockito.verify(this.mockConnection, Mockito.times(1)).getMBeanInfo(this.objectName);
+    }
+
+    @Test
+    public void testRefreshOnMaxAge() throws Exception {
+        this.cache.setMaxAge(0);
+
+        this.cache.validateQuery(this.mockConnection, this.queryInfo);
+        this.cache.validateQuery(this.mockConnection, this.queryInfo);
+
+        Mockito.verify(this.mockConnection, Mockito.times(2)).getMBeanInfo(this.objectName);
+    }
+
+    @Test
+    public void testRefreshOnRegistrationChange() throws Exception {
+        Mockito.when(this.mockConnection.addRegistrationListener(Mockito.any(MBeanRegistrationListener.class)))
+                .thenReturn(true);
+        this.cache.setMaxAge(0);
+
+        this.cache.validateQuery(this.mockConnection, this.queryInfo);
+        this.cache.validateQuery(this.mockConnection, this.queryInfo);
+
+        // Registration changes are tracked, so the maximum age does not apply.
+        Mockito.verify(this.mockConnection, Mockito.times(1)).getMBeanInfo(this.objectName);
+
+        ArgumentCaptor<MBeanRegistrationListener> captor = ArgumentCaptor.forClass(MBeanRegistrationListener.class);
+        Mockito.verify(this.mockConnection).addRegistrationListener(captor.capture());
+        captor.getValue().onRegistrationChange(this.objectName);
+
+        this.cache.validateQuery(this.mockConnection, this.queryInfo);
+
+        Mockito.verify(this.mockConnection, Mockito.times(2)).getMBeanInfo(this.objectName);
+    }
+
+    @Test
+    public void testNewConnectionClearsCache() throws Exception {
+        MBeanInfoCapableAccessConnection mockConnection2 = Mockito.mock(MBeanInfoCapableAccessConnection.class);
+        Mockito.when(mockConnection2.getMBeanInfo(this.objectName)).thenReturn(this.mBeanInfo);
+
+        this.cache.validateQuery(this.mockConnection, this.queryInfo);
+        this.cache.validateQuery(mockConnection2, this.queryInfo);
+
+        Mockito.verify(mockConnection2).getMBeanInfo(this.objectName);
+    }
+
+    @Test
+    public void testMissingMBean() throws Exception {
+        Mockito.when(this.mockConnection.getMBeanInfo(this.objectName))
+                .thenThrow(new InstanceNotFoundException("x-exc-x"));
+
+        assertNull(this.cache.validateQuery(this.mockConnection, this.queryInfo));
+        assertNull(this.cache.validateQuery(this.mockConnection, this.queryInfo));
+
+        Mockito.verify(this.mockConnection, Mockito.times(1)).getMBeanInfo(this.objectName);
+
+        this.cache.invalidate(this.objectName);
+        this.cache.validateQuery(this.mockConnection, this.queryInfo);
+
+        Mockito.verify(this.mockConnection, Mockito.times(2)).getMBeanInfo(this.objectName);
+    }
+
+    @Test
+    public void testNoAttributesProvided() throws Exception {
+        Mockito.when(this.mockConnection.getMBeanInfo(this.objectName))
+                .thenReturn(new MBeanInfo("x-class-x", "x-desc-x", null, null, null, null));
+
+        assertNull(this.cache.validateQuery(this.mockConnection, this.queryInfo));
+    }
+
+    @Test
+    public void testDescribeFailure() throws Exception {
+        ReflectionException reflectionExc = new ReflectionException(new Exception("x-exc-x"));
+        Mockito.when(this.mockConnection.getMBeanInfo(this.objectName)).thenThrow(reflectionExc);
+
+        assertSame(this.queryInfo, this.cache.validateQuery(this.mockConnection, this.queryInfo));
+
+        Mockito.verify(this.mockLogger).info("failed to describe mbean; skipping validation: oname={}",
+                this.objectName, reflectionExc);
+    }
+
+    @Test
+    public void testConnectionWithoutMBeanInfo() throws Exception {
+        MBeanAccessConnection mockPlainConnection = Mockito.mock(MBeanAccessConnection.class);
+
+        assertSame(this.queryInfo, this.cache.validateQuery(mockPlainConnection, this.queryInfo));
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        this.cache.validateQuery(this.mockConnection, this.queryInfo);
+        this.cache.clear();
+        this.cache.validateQuery(this.mockConnection, this.queryInfo);
+
+        Mockito.verify(this.mockConnection, Mockito.times(2)).getMBeanInfo(this.objectName);
+    }
+
+    protected static class FieldTarget {
+        private long longValue;
+        private long missingValue;
+    }
+}
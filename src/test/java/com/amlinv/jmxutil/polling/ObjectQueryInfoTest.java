@@ -19,8 +19,12 @@ package com.amlinv.jmxutil.polling;
 import org.junit.Test;
 
 import javax.management.ObjectName;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 
 import static org.junit.Assert.*;
@@ -48,5 +52,55 @@ public class ObjectQueryInfoTest {
         assertSame(oname, objectQueryInfo.getObjectName());
         assertSame(setters, objectQueryInfo.getAttributeSetters());
         assertEquals(setters.keySet(), objectQueryInfo.getAttributeNames());
+        assertTrue(objectQueryInfo.getAttributeTypes().isEmpty());
+    }
+
+    @Test
+    public void testQueryInfoWithTypes() throws Exception {
+        Map<String, Method> setters = new HashMap<>();
+        setters.put("x-att1-x", null);
+
+        Map<String, Class<?>> types = new HashMap<>();
+        types.put("x-att1-x", long.class);
+
+        ObjectQueryInfo objectQueryInfo =
+                new ObjectQueryInfo(new Object(), new ObjectName("x-domain-x:x-key-x=x-value-x"), setters, types);
+
+        assertSame(types, objectQueryInfo.getAttributeTypes());
+        assertTrue(objectQueryInfo.getAttributeFields().isEmpty());
+    }
+
+    @Test
+    public void testQueryInfoWithFields() throws Exception {
+        Map<String, Method> setters = new HashMap<>();
+        setters.put("x-att1-x", null);
+
+        Map<String, Field> fields = new HashMap<>();
+        fields.put("x-att2-x", null);
+
+        ObjectQueryInfo objectQueryInfo = new ObjectQueryInfo(new Object(),
+                new ObjectName("x-domain-x:x-key-x=x-value-x"), setters, fields,
+                Collections.<String, Class<?>>emptyMap());
+
+        assertSame(fields, objectQueryInfo.getAttributeFields());
+        assertEquals(new HashSet<>(Arrays.asList("x-att1-x", "x-att2-x")), objectQueryInfo.getAttributeNames());
+        assertTrue(objectQueryInfo.getAttributeRateSetters().isEmpty());
+    }
+
+    @Test
+    public void testQueryInfoWithRateSetters() throws Exception {
+        Map<String, Method> setters = new HashMap<>();
+        setters.put("x-att1-x", null);
+
+        Map<String, Method> rateSetters = new HashMap<>();
+        rateSetters.put("x-att1-x", null);
+        rateSetters.put("x-counter-x", null);
+
+        ObjectQueryInfo objectQueryInfo = new ObjectQueryInfo(new Object(),
+                new ObjectName("x-domain-x:x-key-x=x-value-x"), setters, Collections.<String, Field>emptyMap(),
+                Collections.<String, Class<?>>emptyMap(), rateSetters);
+
+        assertSame(rateSetters, objectQueryInfo.getAttributeRateSetters());
+        assertEquals(new HashSet<>(Arrays.asList("x-att1-x", "x-counter-x")), objectQueryInfo.getAttributeNames());
     }
 }
\ No newline at end of file
@@ -27,6 +27,7 @@ import org.slf4j.Logger;
 
 import javax.management.ObjectName;
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.Map;
 
 import static org.junit.Assert.*;
@@ -143,6 +144,60 @@ public class ObjectQueryPreparerTest {
         assertEquals(TestClass002.class.getMethod("setAttribute2", String.class), setters.get(TEST_ATT_NAME002));
     }
 
+    /**
+     * Test preparation of an object with annotated fields instead of setters.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testPrepareObjectQueryWithFields() throws Exception {
+        this.initPreparer();
+
+        ObjectQueryInfo result = this.preparer.prepareObjectQuery(new TestClass004());
+
+        assertEquals(0, result.getAttributeSetters().size());
+        assertEquals(1, result.getAttributeFields().size());
+        assertEquals(TestClass004.class.getDeclaredField("attribute1"),
+                result.getAttributeFields().get(TEST_ATT_NAME001));
+        assertEquals(Collections.singleton(TEST_ATT_NAME001), result.getAttributeNames());
+    }
+
+    /**
+     * Test preparation of an object with only a rate setter.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testPrepareObjectQueryWithRateSetter() throws Exception {
+        this.initPreparer();
+
+        ObjectQueryInfo result = this.preparer.prepareObjectQuery(new TestClass005());
+
+        assertEquals(0, result.getAttributeSetters().size());
+        assertEquals(0, result.getAttributeFields().size());
+        assertEquals(TestClass005.class.getMethod("setAttribute1Rate", double.class),
+                result.getAttributeRateSetters().get(TEST_ATT_NAME001));
+        assertEquals(Collections.singleton(TEST_ATT_NAME001), result.getAttributeNames());
+    }
+
+    /**
+     * Test preparation of a double-buffered object, which is prepared using its back buffer.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testPrepareDoubleBufferedObject() throws Exception {
+        this.initPreparer();
+
+        TestClass001 back = new TestClass001();
+        DoubleBufferedObject<TestClass001> buffered = new DoubleBufferedObject<>(this.testTarget001, back);
+
+        ObjectQueryInfo result = this.preparer.prepareObjectQuery(buffered);
+
+        assertSame(back, result.getTarget());
+        assertEquals(2, result.getAttributeSetters().size());
+    }
+
     /**
      * Test preparation of an object which has no mbean location defined.
      *
@@ -237,4 +292,23 @@ public class ObjectQueryPreparerTest {
     @MBeanLocation(onamePattern =  TEST_ONAME_STR003)
     protected static class TestClass003 {
     }
+
+    /**
+     * Test class with an annotated field.
+     */
+    @MBeanLocation(onamePattern = TEST_ONAME_STR001)
+    protected static class TestClass004 {
+        @MBeanAttribute(name = TEST_ATT_NAME001, type = String.class)
+        private String attribute1;
+    }
+
+    /**
+     * Test class with a rate setter only.
+     */
+    @MBeanLocation(onamePattern = TEST_ONAME_STR001)
+    protected static class TestClass005 {
+        @MBeanAttribute(name = TEST_ATT_NAME001, type = Long.class, rate = true)
+        public void setAttribute1Rate (double value) {
+        }
+    }
 }
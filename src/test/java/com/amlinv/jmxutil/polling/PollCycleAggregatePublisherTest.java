@@ -0,0 +1,142 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the PollCycleAggregatePublisher.
+ */
+public class PollCycleAggregatePublisherTest {
+    private PollCycleAggregatePublisher aggregate;
+    private PollCycleResultPublisher source1;
+    private PollCycleResultPublisher source2;
+    private PollCycleResultPublisherTest.RecordingSubscriber subscriber;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.aggregate = new PollCycleAggregatePublisher();
+        this.source1 = new PollCycleResultPublisher();
+        this.source2 = new PollCycleResultPublisher();
+        this.subscriber = new PollCycleResultPublisherTest.RecordingSubscriber();
+
+        this.aggregate.setLog(Mockito.mock(Logger.class));
+        this.aggregate.addSource(this.source1);
+        this.aggregate.addSource(this.source2);
+        this.aggregate.subscribe(this.subscriber);
+    }
+
+    @Test
+    public void testAggregateSources() throws Exception {
+        assertEquals(2, this.aggregate.getActiveSourceCount());
+
+        this.source1.publish(this.createResult("x-source1-x", 1));
+        this.source2.publish(this.createResult("x-source2-x", 1));
+        this.source1.publish(this.createResult("x-source1-x", 2));
+
+        // Sources are never held back by the aggregate's subscribers.
+        assertTrue(this.subscriber.results.isEmpty());
+
+        this.subscriber.subscription.request(10);
+
+        assertEquals(2, this.subscriber.results.size());
+        assertEquals("x-source1-x", this.subscriber.results.get(0).getSource());
+        assertEquals(2, this.subscriber.results.get(0).getCycleCount());
+        assertEquals("x-source2-x", this.subscriber.results.get(1).getSource());
+    }
+
+    @Test
+    public void testCompleteWhenAllSourcesDone() throws Exception {
+        assertFalse(this.aggregate.isClosed());
+        this.aggregate.close();
+        assertTrue(this.aggregate.isClosed());
+
+        this.source1.complete();
+        assertFalse(this.subscriber.completed);
+        assertEquals(1, this.aggregate.getActiveSourceCount());
+
+        this.source2.fail(new RuntimeException("x-rt-exc-x"));
+        assertTrue(this.subscriber.completed);
+        assertEquals(0, this.aggregate.getActiveSourceCount());
+    }
+
+    @Test
+    public void testNotCompleteUntilClosed() throws Exception {
+        this.source1.complete();
+        this.source2.complete();
+        assertFalse(this.subscriber.completed);
+
+        this.aggregate.close();
+        assertTrue(this.subscriber.completed);
+
+        // Closing again has no effect.
+        this.aggregate.close();
+    }
+
+    @Test
+    public void testFirstSourceAlreadyCompleted() throws Exception {
+        PollCycleAggregatePublisher lateAggregate = new PollCycleAggregatePublisher();
+        PollCycleResultPublisherTest.RecordingSubscriber lateSubscriber =
+                new PollCycleResultPublisherTest.RecordingSubscriber();
+        lateAggregate.subscribe(lateSubscriber);
+
+        PollCycleResultPublisher completedSource = new PollCycleResultPublisher();
+        completedSource.complete();
+
+        // The completed source does not complete the aggregate before the other source is added.
+        lateAggregate.addSource(completedSource);
+        lateAggregate.addSource(this.source1);
+        lateAggregate.close();
+        assertFalse(lateSubscriber.completed);
+
+        lateSubscriber.subscription.request(10);
+        this.source1.publish(this.createResult("x-source1-x", 1));
+        assertEquals(1, lateSubscriber.results.size());
+
+        this.source1.complete();
+        assertTrue(lateSubscriber.completed);
+    }
+
+    @Test
+    public void testAddSourceAfterClose() throws Exception {
+        this.aggregate.close();
+
+        try {
+            this.aggregate.addSource(new PollCycleResultPublisher());
+            fail("missing expected exception");
+        } catch (IllegalStateException isExc) {
+            assertTrue(isExc.getMessage().contains("closed"));
+        }
+    }
+
+    @Test
+    public void testSkipPolicy() throws Exception {
+        PollCycleAggregatePublisher skipAggregate = new PollCycleAggregatePublisher(CycleOverflowPolicy.SKIP);
+
+        assertEquals(CycleOverflowPolicy.SKIP, skipAggregate.getOverflowPolicy());
+    }
+
+    protected PollCycleResult createResult(Object source, long cycle) {
+        return new PollCycleResult(source, cycle, cycle, Collections.<AttributeSnapshot>emptyList());
+    }
+}
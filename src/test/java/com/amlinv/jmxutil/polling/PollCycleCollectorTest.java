@@ -0,0 +1,57 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the PollCycleCollector.
+ */
+public class PollCycleCollectorTest {
+
+    @Test
+    public void testCompleteCycle() throws Exception {
+        PollCycleCollector collector = new PollCycleCollector();
+        AttributeSnapshot snapshot = new AttributeSnapshot(new ObjectName("x-domain-x:x-key-x=x-value-x"), 1000L,
+                Collections.<String, Object>singletonMap("x-att-x", 1));
+
+        collector.publishSnapshot(snapshot);
+
+        PollCycleResult result = collector.completeCycle("x-source-x", 7L, 2000L);
+        assertEquals("x-source-x", result.getSource());
+        assertEquals(7L, result.getCycle());
+        assertEquals(2000L, result.getTimestamp());
+        assertEquals(Collections.singletonList(snapshot), result.getSnapshots());
+
+        // The next cycle starts empty.
+        assertTrue(collector.completeCycle("x-source-x", 8L, 3000L).getSnapshots().isEmpty());
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        PollCycleCollector collector = new PollCycleCollector();
+        collector.publishSnapshot(new AttributeSnapshot(null, 1000L, Collections.<String, Object>emptyMap()));
+
+        collector.reset();
+
+        assertTrue(collector.completeCycle("x-source-x", 1L, 2000L).getSnapshots().isEmpty());
+    }
+}
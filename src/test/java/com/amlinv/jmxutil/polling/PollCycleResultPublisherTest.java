@@ -0,0 +1,242 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the PollCycleResultPublisher.
+ */
+public class PollCycleResultPublisherTest {
+    private PollCycleResultPublisher publisher;
+    private RecordingSubscriber subscriber;
+    private Logger mockLogger;
+    private ObjectName objectName;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.publisher = new PollCycleResultPublisher();
+        this.subscriber = new RecordingSubscriber();
+        this.mockLogger = Mockito.mock(Logger.class);
+        this.objectName = new ObjectName("x-domain-x:x-key-x=x-value-x");
+
+        this.publisher.setLog(this.mockLogger);
+    }
+
+    @Test
+    public void testGetters() throws Exception {
+        assertSame(this.mockLogger, this.publisher.getLog());
+        assertEquals(CycleOverflowPolicy.COALESCE, this.publisher.getOverflowPolicy());
+        assertEquals(CycleOverflowPolicy.SKIP, new PollCycleResultPublisher(CycleOverflowPolicy.SKIP)
+                .getOverflowPolicy());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testSubscribeNull() throws Exception {
+        this.publisher.subscribe(null);
+    }
+
+    @Test
+    public void testDeliverOnDemand() throws Exception {
+        this.publisher.subscribe(this.subscriber);
+        assertNotNull(this.subscriber.subscription);
+        assertEquals(1, this.publisher.getSubscriberCount());
+
+        this.subscriber.subscription.request(2);
+
+        this.publisher.publish(this.createResult("x-source-x", 1));
+        this.publisher.publish(this.createResult("x-source-x", 2));
+        this.publisher.publish(this.createResult("x-source-x", 3));
+
+        assertEquals(2, this.subscriber.results.size());
+        assertEquals(1L, this.subscriber.results.get(0).getCycle());
+        assertEquals(2L, this.subscriber.results.get(1).getCycle());
+
+        this.subscriber.subscription.request(1);
+
+        assertEquals(3, this.subscriber.results.size());
+        assertEquals(3L, this.subscriber.results.get(2).getCycle());
+        assertEquals(1, this.subscriber.results.get(2).getCycleCount());
+    }
+
+    @Test
+    public void testCoalesceWithoutDemand() throws Exception {
+        this.publisher.subscribe(this.subscriber);
+
+        this.publisher.publish(this.createResult("x-source1-x", 1));
+        this.publisher.publish(this.createResult("x-source2-x", 1));
+        this.publisher.publish(this.createResult("x-source1-x", 2));
+        this.publisher.publish(this.createResult("x-source1-x", 3));
+
+        assertTrue(this.subscriber.results.isEmpty());
+
+        this.subscriber.subscription.request(Long.MAX_VALUE);
+
+        // One result per source, in order of first arrival.
+        assertEquals(2, this.subscriber.results.size());
+        assertEquals("x-source1-x", this.subscriber.results.get(0).getSource());
+        assertEquals(3L, this.subscriber.results.get(0).getCycle());
+        assertEquals(3, this.subscriber.results.get(0).getCycleCount());
+        assertEquals("x-source2-x", this.subscriber.results.get(1).getSource());
+        assertEquals(1, this.subscriber.results.get(1).getCycleCount());
+
+        // Unbounded demand delivers immediately.
+        this.publisher.publish(this.createResult("x-source1-x", 4));
+        assertEquals(3, this.subscriber.results.size());
+    }
+
+    @Test
+    public void testSkipWithoutDemand() throws Exception {
+        this.publisher = new PollCycleResultPublisher(CycleOverflowPolicy.SKIP);
+        this.publisher.subscribe(this.subscriber);
+
+        this.publisher.publish(this.createResult("x-source-x", 1));
+        this.publisher.publish(this.createResult("x-source-x", 2));
+
+        this.subscriber.subscription.request(1);
+        assertTrue(this.subscriber.results.isEmpty());
+
+        this.publisher.publish(this.createResult("x-source-x", 3));
+        this.publisher.publish(this.createResult("x-source-x", 4));
+
+        this.subscriber.subscription.request(1);
+        this.publisher.publish(this.createResult("x-source-x", 5));
+
+        assertEquals(2, this.subscriber.results.size());
+        assertEquals(3L, this.subscriber.results.get(0).getCycle());
+        assertEquals(2L, this.subscriber.results.get(0).getSkippedCycles());
+        assertEquals(5L, this.subscriber.results.get(1).getCycle());
+        assertEquals(1L, this.subscriber.results.get(1).getSkippedCycles());
+    }
+
+    @Test
+    public void testCompleteAfterPending() throws Exception {
+        this.publisher.subscribe(this.subscriber);
+        this.publisher.publish(this.createResult("x-source-x", 1));
+
+        this.publisher.complete();
+        assertFalse(this.subscriber.completed);
+
+        this.subscriber.subscription.request(1);
+        assertEquals(1, this.subscriber.results.size());
+        assertTrue(this.subscriber.completed);
+        assertEquals(0, this.publisher.getSubscriberCount());
+
+        // Nothing is published after completion.
+        this.publisher.publish(this.createResult("x-source-x", 2));
+        assertEquals(1, this.subscriber.results.size());
+    }
+
+    @Test
+    public void testSubscribeAfterTermination() throws Exception {
+        RuntimeException failure = new RuntimeException("x-rt-exc-x");
+        this.publisher.fail(failure);
+        this.publisher.complete();
+
+        this.publisher.subscribe(this.subscriber);
+
+        assertNotNull(this.subscriber.subscription);
+        assertSame(failure, this.subscriber.error);
+        assertFalse(this.subscriber.completed);
+    }
+
+    @Test
+    public void testInvalidRequest() throws Exception {
+        this.publisher.subscribe(this.subscriber);
+
+        this.subscriber.subscription.request(0);
+
+        assertTrue(this.subscriber.error instanceof IllegalArgumentException);
+        assertEquals(0, this.publisher.getSubscriberCount());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        this.publisher.subscribe(this.subscriber);
+        this.publisher.publish(this.createResult("x-source-x", 1));
+
+        this.subscriber.subscription.cancel();
+        this.subscriber.subscription.request(1);
+        this.publisher.complete();
+
+        assertTrue(this.subscriber.results.isEmpty());
+        assertFalse(this.subscriber.completed);
+        assertEquals(0, this.publisher.getSubscriberCount());
+    }
+
+    @Test
+    public void testSubscriberFailureCancels() throws Exception {
+        RecordingSubscriber failingSubscriber = new RecordingSubscriber() {
+            @Override
+            public void onNext(PollCycleResult result) {
+                throw new RuntimeException("x-rt-exc-x");
+            }
+        };
+
+        this.publisher.subscribe(failingSubscriber);
+        failingSubscriber.subscription.request(5);
+        this.publisher.publish(this.createResult("x-source-x", 1));
+
+        assertEquals(0, this.publisher.getSubscriberCount());
+    }
+
+    protected PollCycleResult createResult(Object source, long cycle) {
+        AttributeSnapshot snapshot = new AttributeSnapshot(this.objectName, cycle,
+                Collections.<String, Object>singletonMap("x-att-x", cycle));
+
+        return new PollCycleResult(source, cycle, cycle, Collections.singletonList(snapshot));
+    }
+
+    /**
+     * Subscriber recording the signals it receives.
+     */
+    protected static class RecordingSubscriber implements PollCycleSubscriber {
+        protected PollCycleSubscription subscription;
+        protected final List<PollCycleResult> results = new ArrayList<>();
+        protected Throwable error;
+        protected boolean completed;
+
+        @Override
+        public void onSubscribe(PollCycleSubscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(PollCycleResult result) {
+            this.results.add(result);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the PollCycleResult.
+ */
+public class PollCycleResultTest {
+    private ObjectName objectName1;
+    private ObjectName objectName2;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.objectName1 = new ObjectName("x-domain-x:x-key-x=x-value1-x");
+        this.objectName2 = new ObjectName("x-domain-x:x-key-x=x-value2-x");
+    }
+
+    @Test
+    public void testGetters() throws Exception {
+        AttributeSnapshot snapshot = this.createSnapshot(this.objectName1, 1);
+        PollCycleResult result = new PollCycleResult("x-source-x", 3L, 1000L, Collections.singletonList(snapshot));
+
+        assertEquals("x-source-x", result.getSource());
+        assertEquals(3L, result.getCycle());
+        assertEquals(1000L, result.getTimestamp());
+        assertEquals(Collections.singletonList(snapshot), result.getSnapshots());
+        assertEquals(1, result.getCycleCount());
+        assertEquals(0L, result.getSkippedCycles());
+        assertTrue(result.toString().contains("cycle=3"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSnapshotsUnmodifiable() throws Exception {
+        new PollCycleResult("x-source-x", 1L, 1000L, Collections.<AttributeSnapshot>emptyList()).getSnapshots()
+                .add(this.createSnapshot(this.objectName1, 1));
+    }
+
+    @Test
+    public void testCoalesce() throws Exception {
+        AttributeSnapshot first1 = this.createSnapshot(this.objectName1, 1);
+        AttributeSnapshot first2 = this.createSnapshot(this.objectName2, 2);
+        AttributeSnapshot second1 = this.createSnapshot(this.objectName1, 3);
+
+        PollCycleResult first = new PollCycleResult("x-source-x", 1L, 1000L, Arrays.asList(first1, first2), 1, 2L);
+        PollCycleResult second = new PollCycleResult("x-source-x", 2L, 2000L, Collections.singletonList(second1));
+
+        PollCycleResult combined = first.coalesce(second);
+
+        assertEquals(2L, combined.getCycle());
+        assertEquals(2000L, combined.getTimestamp());
+        assertEquals(2, combined.getCycleCount());
+        assertEquals(2L, combined.getSkippedCycles());
+        assertEquals(Arrays.asList(second1, first2), combined.getSnapshots());
+    }
+
+    @Test
+    public void testWithSkippedCycles() throws Exception {
+        PollCycleResult result = new PollCycleResult("x-source-x", 1L, 1000L,
+                Collections.<AttributeSnapshot>emptyList());
+
+        assertSame(result, result.withSkippedCycles(0));
+        assertEquals(4L, result.withSkippedCycles(4).getSkippedCycles());
+        assertEquals(1L, result.withSkippedCycles(4).getCycle());
+    }
+
+    protected AttributeSnapshot createSnapshot(ObjectName objectName, int value) {
+        return new AttributeSnapshot(objectName, 1000L, Collections.<String, Object>singletonMap("x-att-x", value));
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the PollResultRingBuffer.
+ */
+public class PollResultRingBufferTest {
+    private PollResultRingBuffer ringBuffer;
+    private ObjectName objectName;
+    private Object target;
+    private Logger mockLogger;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.ringBuffer = new PollResultRingBuffer(4);
+        this.objectName = new ObjectName("x-domain-x:x-key-x=x-value-x");
+        this.target = new Object();
+        this.mockLogger = Mockito.mock(Logger.class);
+
+        this.ringBuffer.setLog(this.mockLogger);
+    }
+
+    @After
+    public void cleanupTest() throws Exception {
+        this.ringBuffer.shutdown();
+        assertTrue(this.ringBuffer.awaitShutdown(3000L));
+    }
+
+    @Test
+    public void testCapacity() throws Exception {
+        assertEquals(4, this.ringBuffer.getCapacity());
+        assertEquals(8, new PollResultRingBuffer(5).getCapacity());
+        assertEquals(1, new PollResultRingBuffer(1).getCapacity());
+        assertEquals(PollResultRingBuffer.DEFAULT_CAPACITY, new PollResultRingBuffer().getCapacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() throws Exception {
+        new PollResultRingBuffer(0);
+    }
+
+    @Test
+    public void testGetSetLog() throws Exception {
+        assertSame(this.mockLogger, this.ringBuffer.getLog());
+    }
+
+    @Test
+    public void testPublishWithoutListeners() throws Exception {
+        assertFalse(this.ringBuffer.hasListeners());
+        assertFalse(this.ringBuffer.publish(this.target, this.objectName, "x-att-x", 1, 1000L));
+        assertEquals(0L, this.ringBuffer.getDroppedCount());
+    }
+
+    @Test(timeout = 5000L)
+    public void testPublishToAllListeners() throws Exception {
+        CollectingListener listener1 = new CollectingListener(10);
+        CollectingListener listener2 = new CollectingListener(10);
+
+        this.ringBuffer.addListener(listener1);
+        this.ringBuffer.addListener(listener2);
+        assertTrue(this.ringBuffer.hasListeners());
+
+        //
+        // Publish more events than the capacity, waiting for the consumers to catch up as needed.
+        //
+        for (int cur = 0; cur < 10; cur++) {
+            while (!this.ringBuffer.publish(this.target, this.objectName, "x-att-x", cur, 1000L + cur)) {
+                Thread.sleep(1);
+            }
+        }
+
+        listener1.await();
+        listener2.await();
+
+        List<String> expected = new ArrayList<>();
+        for (int cur = 0; cur < 10; cur++) {
+            expected.add("x-att-x=" + cur + "@" + (1000L + cur));
+        }
+
+        assertEquals(expected, listener1.received);
+        assertEquals(expected, listener2.received);
+    }
+
+    @Test(timeout = 5000L)
+    public void testDropWhenFull() throws Exception {
+        final CountDownLatch blockLatch = new CountDownLatch(1);
+        final CountDownLatch startedLatch = new CountDownLatch(1);
+
+        this.ringBuffer.addListener(new PollResultListener() {
+            @Override
+            public void onPollResult(PollResultEvent event) {
+                startedLatch.countDown();
+                try {
+                    blockLatch.await();
+                } catch (InterruptedException intExc) {
+                    throw new RuntimeException(intExc);
+                }
+            }
+        });
+
+        try {
+            // Wait for the consumer to block on the first event; its slot is not released until it completes.
+            assertTrue(this.ringBuffer.publish(this.target, this.objectName, "x-att-x", 0, 1000L));
+            startedLatch.await();
+
+            for (int cur = 1; cur < 4; cur++) {
+                assertTrue(this.ringBuffer.publish(this.target, this.objectName, "x-att-x", cur, 1000L));
+            }
+
+            assertFalse(this.ringBuffer.publish(this.target, this.objectName, "x-att-x", 4, 1000L));
+            assertEquals(1L, this.ringBuffer.getDroppedCount());
+        } finally {
+            blockLatch.countDown();
+        }
+    }
+
+    @Test(timeout = 5000L)
+    public void testListenerFailure() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+
+        this.ringBuffer.addListener(new PollResultListener() {
+            @Override
+            public void onPollResult(PollResultEvent event) {
+                latch.countDown();
+                throw new RuntimeException("x-rt-exc-x");
+            }
+        });
+
+        this.ringBuffer.publish(this.target, this.objectName, "x-att-x", 1, 1000L);
+        this.ringBuffer.publish(this.target, this.objectName, "x-att-x", 2, 1000L);
+
+        latch.await();
+    }
+
+    @Test(timeout = 5000L)
+    public void testRemoveListener() throws Exception {
+        CollectingListener listener = new CollectingListener(1);
+
+        assertFalse(this.ringBuffer.removeListener(listener));
+
+        this.ringBuffer.addListener(listener);
+        this.ringBuffer.publish(this.target, this.objectName, "x-att-x", 1, 1000L);
+
+        assertTrue(this.ringBuffer.removeListener(listener));
+        assertFalse(this.ringBuffer.hasListeners());
+        assertTrue(this.ringBuffer.awaitShutdown(3000L));
+
+        // Events published before removal are still delivered.
+        assertEquals(Collections.singletonList("x-att-x=1@1000"), listener.received);
+        assertFalse(this.ringBuffer.publish(this.target, this.objectName, "x-att-x", 2, 1000L));
+    }
+
+    @Test(timeout = 5000L)
+    public void testRemovedListenerStillGatesUntilDrained() throws Exception {
+        final CountDownLatch blockLatch = new CountDownLatch(1);
+        final CountDownLatch startedLatch = new CountDownLatch(1);
+        final CollectingListener blockedListener = new CollectingListener(2) {
+            @Override
+            public void onPollResult(PollResultEvent event) {
+                startedLatch.countDown();
+                try {
+                    blockLatch.await();
+                } catch (InterruptedException intExc) {
+                    throw new RuntimeException(intExc);
+                }
+                super.onPollResult(event);
+            }
+        };
+
+        CollectingListener otherListener = new CollectingListener(4);
+        this.ringBuffer.addListener(blockedListener);
+        this.ringBuffer.addListener(otherListener);
+
+        try {
+            assertTrue(this.ringBuffer.publish(this.target, this.objectName, "x-att-x", 0, 1000L));
+            startedLatch.await();
+            assertTrue(this.ringBuffer.publish(this.target, this.objectName, "x-att-x", 1, 1001L));
+
+            assertTrue(this.ringBuffer.removeListener(blockedListener));
+
+            // The removed consumer has not drained its events yet, so their slots cannot be reused.
+            for (int cur = 2; cur < 4; cur++) {
+                assertTrue(this.ringBuffer.publish(this.target, this.objectName, "x-att-x", cur, 1000L + cur));
+            }
+            assertFalse(this.ringBuffer.publish(this.target, this.objectName, "x-att-x", 4, 1004L));
+        } finally {
+            blockLatch.countDown();
+        }
+
+        // Only the events published before removal are delivered, and their contents are intact.
+        blockedListener.await();
+        assertTrue(this.ringBuffer.awaitShutdown(3000L));
+        assertEquals(Arrays.asList("x-att-x=0@1000", "x-att-x=1@1001"), blockedListener.received);
+
+        // Once drained, the removed consumer no longer holds back the producer.
+        otherListener.await();
+        for (int cur = 5; cur < 9; cur++) {
+            while (!this.ringBuffer.publish(this.target, this.objectName, "x-att-x", cur, 1000L + cur)) {
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    @Test(timeout = 5000L)
+    public void testParkedConsumerIsSignaled() throws Exception {
+        CollectingListener listener = new CollectingListener(1);
+        this.ringBuffer.addListener(listener);
+
+        // Give the consumer time to go idle and park.
+        Thread.sleep(50);
+
+        this.ringBuffer.publish(this.target, this.objectName, "x-att-x", 1, 1000L);
+        listener.await();
+    }
+
+    @Test
+    public void testEventToString() throws Exception {
+        PollResultEvent event = new PollResultEvent();
+        event.set(this.target, this.objectName, "x-att-x", 7, 1000L);
+
+        assertSame(this.target, event.getTarget());
+        assertSame(this.objectName, event.getObjectName());
+        assertTrue(event.toString().contains("attributeName=x-att-x"));
+        assertTrue(event.toString().contains("value=7"));
+    }
+
+    /**
+     * Listener that copies the events it receives.
+     */
+    protected static class CollectingListener implements PollResultListener {
+        private final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+        private final CountDownLatch latch;
+
+        public CollectingListener(int expectedCount) {
+            this.latch = new CountDownLatch(expectedCount);
+        }
+
+        @Override
+        public void onPollResult(PollResultEvent event) {
+            this.received.add(event.getAttributeName() + "=" + event.getValue() + "@" + event.getTimestamp());
+            this.latch.countDown();
+        }
+
+        public void await() throws InterruptedException {
+            assertTrue(this.latch.await(3000L, TimeUnit.MILLISECONDS));
+        }
+    }
+}
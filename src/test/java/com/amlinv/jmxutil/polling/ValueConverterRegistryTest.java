@@ -0,0 +1,153 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.polling;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the ValueConverterRegistry.
+ */
+public class ValueConverterRegistryTest {
+
+    private ValueConverterRegistry registry;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.registry = new ValueConverterRegistry();
+    }
+
+    @Test
+    public void testIdentity() throws Exception {
+        assertSame(ValueConverterRegistry.IDENTITY, this.registry.lookup(String.class, String.class));
+        assertSame(ValueConverterRegistry.IDENTITY, this.registry.lookup(Integer.class, int.class));
+        assertSame(ValueConverterRegistry.IDENTITY, this.registry.lookup(Integer.class, Number.class));
+    }
+
+    @Test
+    public void testNumberConversions() throws Exception {
+        assertEquals(7, this.registry.lookup(Long.class, int.class).convert(7L));
+        assertEquals(7L, this.registry.lookup(Integer.class, long.class).convert(7));
+        assertEquals(1.5f, this.registry.lookup(Double.class, Float.class).convert(1.5));
+        assertEquals(2.0, this.registry.lookup(Integer.class, double.class).convert(2));
+        assertEquals((short) 3, this.registry.lookup(Long.class, short.class).convert(3L));
+        assertEquals((byte) 4, this.registry.lookup(Long.class, Byte.class).convert(4L));
+        assertNull(this.registry.lookup(Long.class, String.class));
+    }
+
+    @Test
+    public void testStringConversions() throws Exception {
+        assertEquals(9223372036854775807L,
+                this.registry.lookup(String.class, long.class).convert("9223372036854775807"));
+        assertEquals(2, this.registry.lookup(String.class, int.class).convert(" 2.7 "));
+        assertEquals(2.5, this.registry.lookup(String.class, Double.class).convert("2.5"));
+        assertEquals(Boolean.TRUE, this.registry.lookup(String.class, boolean.class).convert("true"));
+        assertNull(this.registry.lookup(String.class, char.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnparsableString() throws Exception {
+        this.registry.lookup(String.class, long.class).convert("x-not-a-number-x");
+    }
+
+    @Test
+    public void testConverterCached() throws Exception {
+        assertSame(this.registry.lookup(Long.class, int.class), this.registry.lookup(Long.class, int.class));
+        assertNull(this.registry.lookup(Boolean.class, int.class));
+        assertNull(this.registry.lookup(Boolean.class, int.class));
+    }
+
+    @Test
+    public void testRegister() throws Exception {
+        ValueConverter converter = new ValueConverter() {
+            @Override
+            public Object convert(Object value) {
+                return value.toString();
+            }
+        };
+
+        this.registry.register(Long.class, String.class, converter);
+
+        assertSame(converter, this.registry.lookup(Long.class, String.class));
+    }
+
+    @Test
+    public void testCompositeDataToBean() throws Exception {
+        CompositeType compositeType = new CompositeType("x-type-x", "x-desc-x", new String[] { "used", "max" },
+                new String[] { "used", "max" }, new OpenType[] { SimpleType.LONG, SimpleType.LONG });
+        CompositeDataSupport composite =
+                new CompositeDataSupport(compositeType, new String[] { "used", "max" }, new Object[] { 3L, 10L });
+
+        TestBean result =
+                (TestBean) this.registry.lookup(CompositeDataSupport.class, TestBean.class).convert(composite);
+
+        assertEquals(3, result.used);
+        assertEquals(10L, result.max);
+        assertNull(result.name);
+    }
+
+    @Test
+    public void testMapToBean() throws Exception {
+        Map<String, Object> value = new HashMap<>();
+        value.put("used", "5");
+        value.put("name", "x-name-x");
+        value.put("x-unknown-x", 1);
+
+        TestBean result = (TestBean) this.registry.lookup(HashMap.class, TestBean.class).convert(value);
+
+        assertEquals(5, result.used);
+        assertEquals("x-name-x", result.name);
+    }
+
+    @Test
+    public void testNoBeanConversion() throws Exception {
+        assertNull(this.registry.lookup(HashMap.class, Runnable.class));
+        assertNull(this.registry.lookup(HashMap.class, NoDefaultConstructor.class));
+        assertNull(this.registry.lookup(HashMap.class, Integer.class));
+    }
+
+    public static class TestBean {
+        private int used;
+        private long max;
+        private String name;
+
+        public void setUsed(int used) {
+            this.used = used;
+        }
+
+        public void setMax(long max) {
+            this.max = max;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class NoDefaultConstructor {
+        public NoDefaultConstructor(String ignored) {
+        }
+    }
+}
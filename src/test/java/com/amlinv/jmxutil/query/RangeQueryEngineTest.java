@@ -0,0 +1,181 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.query;
+
+import com.amlinv.jmxutil.store.CompressedSampleStore;
+import com.amlinv.jmxutil.store.SampleStore;
+import com.amlinv.jmxutil.store.SeriesKey;
+import com.amlinv.jmxutil.store.SeriesRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the RangeQueryEngine.
+ */
+public class RangeQueryEngineTest {
+    private SeriesRegistry registry;
+    private CompressedSampleStore store;
+    private RangeQueryEngine engine;
+    private SeriesKey queue1Key;
+    private SeriesKey queue2Key;
+    private SeriesKey topicKey;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.registry = new SeriesRegistry();
+        this.store = new CompressedSampleStore(this.registry, 4, 10);
+        this.engine = new RangeQueryEngine(this.store);
+
+        this.queue1Key = new SeriesKey("x-target-x", new ObjectName("x-domain-x:type=Queue,name=q1"), "QueueSize");
+        this.queue2Key = new SeriesKey("x-target-x", new ObjectName("x-domain-x:type=Queue,name=q2"), "QueueSize");
+        this.topicKey = new SeriesKey("x-target-x", new ObjectName("x-domain-x:type=Topic,name=t1"), "QueueSize");
+
+        int queue1Id = this.registry.getOrCreateId(this.queue1Key);
+        int queue2Id = this.registry.getOrCreateId(this.queue2Key);
+        int topicId = this.registry.getOrCreateId(this.topicKey);
+
+        for (int cur = 0; cur < 10; cur++) {
+            this.store.append(queue1Id, cur * 1000L, cur);
+            this.store.append(topicId, cur * 1000L, 100 + cur);
+        }
+
+        this.store.append(queue2Id, 20000L, 5.0);
+    }
+
+    @Test
+    public void testGetSampleStore() throws Exception {
+        assertSame(this.store, this.engine.getSampleStore());
+    }
+
+    @Test
+    public void testExecute() throws Exception {
+        List<RangeSeries> result = this.engine.execute(this.buildQuery(Aggregation.AVG, 1000L, 9000L));
+
+        // The second queue has no samples in the range.
+        assertEquals(1, result.size());
+
+        RangeSeries series = result.get(0);
+        assertEquals(this.queue1Key, series.getKey());
+        assertEquals(0L, series.getStartTime());
+        assertEquals(3000L, series.getStep());
+        assertEquals(3, series.getStepCount());
+        assertEquals(3000L, series.getTimestamp(1));
+
+        // The first step is aligned down to 0 and aggregates all of its samples.
+        assertTrue(Arrays.equals(new double[] { 1.0, 4.0, 7.0 }, series.getValues()));
+        assertTrue(series.hasValue(0));
+        assertEquals(1.0, series.getValue(0), 0.0);
+        assertTrue(series.toString().contains("QueueSize"));
+    }
+
+    @Test
+    public void testExecuteAggregations() throws Exception {
+        assertTrue(Arrays.equals(new double[] { 0.0, 3.0, 6.0 },
+                this.execute(Aggregation.MIN, 1000L, 9000L)));
+        assertTrue(Arrays.equals(new double[] { 2.0, 5.0, 8.0 },
+                this.execute(Aggregation.MAX, 1000L, 9000L)));
+        assertTrue(Arrays.equals(new double[] { 3.0, 12.0, 21.0 },
+                this.execute(Aggregation.SUM, 1000L, 9000L)));
+        assertTrue(Arrays.equals(new double[] { 2.0, 5.0, 8.0 },
+                this.execute(Aggregation.LAST, 1000L, 9000L)));
+    }
+
+    @Test
+    public void testExecuteRate() throws Exception {
+        // The sample at 2000 preceding the range serves as the baseline of the first step.
+        assertTrue(Arrays.equals(new double[] { 1.0, 1.0 }, this.execute(Aggregation.RATE, 3000L, 9000L)));
+
+        // Without an earlier sample, the first step's rate is computed from its own samples.
+        assertTrue(Arrays.equals(new double[] { 1.0, 1.0 }, this.execute(Aggregation.RATE, 0L, 6000L)));
+    }
+
+    @Test
+    public void testExecuteRateLookbackOnly() throws Exception {
+        RangeQuery query = RangeQuery.builder()
+                .objectNamePattern(new ObjectName("x-domain-x:type=Queue,*"))
+                .timeRange(12000L, 15000L)
+                .step(3000L)
+                .aggregation(Aggregation.RATE)
+                .build();
+
+        assertTrue(this.engine.execute(query).isEmpty());
+    }
+
+    @Test
+    public void testSelectSeries() throws Exception {
+        RangeQuery query = this.buildQuery(Aggregation.AVG, 0L, 1000L);
+        assertEquals(Arrays.asList(0, 1), this.engine.selectSeries(query));
+
+        query = RangeQuery.builder()
+                .objectNamePattern(new ObjectName("x-domain-x:*"))
+                .attributeName("x-missing-x")
+                .timeRange(0L, 1000L)
+                .step(1000L)
+                .build();
+        assertTrue(this.engine.selectSeries(query).isEmpty());
+    }
+
+    @Test
+    public void testSelectSeriesAfterNewSeries() throws Exception {
+        RangeQuery query = this.buildQuery(Aggregation.AVG, 0L, 1000L);
+        assertEquals(Arrays.asList(0, 1), this.engine.selectSeries(query));
+
+        // Series registered after the selection was cached, including one restored into a skipped ID.
+        SeriesKey queue3Key = new SeriesKey("x-target-x", new ObjectName("x-domain-x:type=Queue,name=q3"), "QueueSize");
+        SeriesKey queue4Key = new SeriesKey("x-target-x", new ObjectName("x-domain-x:type=Queue,name=q4"), "QueueSize");
+        this.registry.register(queue3Key, 5);
+        assertEquals(Arrays.asList(0, 1, 5), this.engine.selectSeries(query));
+
+        this.registry.register(queue4Key, 3);
+        assertEquals(Arrays.asList(0, 1, 3, 5), this.engine.selectSeries(query));
+    }
+
+    @Test
+    public void testExecuteEmptyStore() throws Exception {
+        SampleStore emptyStore = new CompressedSampleStore(new SeriesRegistry());
+
+        assertTrue(new RangeQueryEngine(emptyStore).execute(this.buildQuery(Aggregation.AVG, 0L, 1000L)).isEmpty());
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    private RangeQuery buildQuery(Aggregation aggregation, long startTime, long endTime) throws Exception {
+        return RangeQuery.builder()
+                .objectNamePattern(new ObjectName("x-domain-x:type=Queue,*"))
+                .attributeName("QueueSize")
+                .timeRange(startTime, endTime)
+                .step(3000L)
+                .aggregation(aggregation)
+                .build();
+    }
+
+    private double[] execute(Aggregation aggregation, long startTime, long endTime) throws Exception {
+        List<RangeSeries> result = this.engine.execute(this.buildQuery(aggregation, startTime, endTime));
+        assertEquals(1, result.size());
+
+        return result.get(0).getValues();
+    }
+}
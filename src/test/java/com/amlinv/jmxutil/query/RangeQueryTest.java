@@ -0,0 +1,164 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.query;
+
+import com.amlinv.jmxutil.store.SeriesKey;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the RangeQuery and its builder.
+ */
+public class RangeQueryTest {
+
+    @Test
+    public void testBuilder() throws Exception {
+        ObjectName pattern = new ObjectName("x-domain-x:type=Queue,*");
+        RangeQuery query = RangeQuery.builder()
+                .objectNamePattern(pattern)
+                .attributeName("x-att-x")
+                .target("x-target-x")
+                .timeRange(1500L, 5000L)
+                .step(1000L)
+                .aggregation(Aggregation.MAX)
+                .build();
+
+        assertSame(pattern, query.getObjectNamePattern());
+        assertEquals("x-att-x", query.getAttributeName());
+        assertEquals("x-target-x", query.getTarget());
+        assertEquals(1500L, query.getStartTime());
+        assertEquals(5000L, query.getEndTime());
+        assertEquals(1000L, query.getStep());
+        assertEquals(Aggregation.MAX, query.getAggregation());
+        assertTrue(query.toString().contains("aggregation=MAX"));
+    }
+
+    @Test
+    public void testStepAlignment() throws Exception {
+        RangeQuery query = this.buildQuery(1500L, 5000L, 1000L);
+        assertEquals(1000L, query.getAlignedStartTime());
+        assertEquals(4, query.getStepCount());
+
+        query = this.buildQuery(1000L, 5001L, 1000L);
+        assertEquals(1000L, query.getAlignedStartTime());
+        assertEquals(5, query.getStepCount());
+
+        query = this.buildQuery(-1500L, 0L, 1000L);
+        assertEquals(-2000L, query.getAlignedStartTime());
+        assertEquals(2, query.getStepCount());
+    }
+
+    @Test
+    public void testMatches() throws Exception {
+        RangeQuery query = RangeQuery.builder()
+                .objectNamePattern(new ObjectName("x-domain-x:type=Queue,*"))
+                .attributeName("x-att-x")
+                .timeRange(0L, 1000L)
+                .step(1000L)
+                .build();
+
+        assertEquals(Aggregation.AVG, query.getAggregation());
+        assertNull(query.getTarget());
+
+        assertTrue(query.matches(this.key("x-target-x", "x-domain-x:type=Queue,name=q1", "x-att-x")));
+        assertTrue(query.matches(this.key(null, "x-domain-x:type=Queue,name=q2", "x-att-x")));
+        assertFalse(query.matches(this.key("x-target-x", "x-domain-x:type=Topic,name=t1", "x-att-x")));
+        assertFalse(query.matches(this.key("x-target-x", "x-domain-x:type=Queue,name=q1", "x-other-att-x")));
+
+        RangeQuery targetQuery = RangeQuery.builder()
+                .objectNamePattern(new ObjectName("*:*"))
+                .target("x-target-x")
+                .timeRange(0L, 1000L)
+                .step(1000L)
+                .build();
+
+        assertTrue(targetQuery.matches(this.key("x-target-x", "x-domain-x:type=Queue,name=q1", "x-any-att-x")));
+        assertFalse(targetQuery.matches(this.key("x-other-x", "x-domain-x:type=Queue,name=q1", "x-any-att-x")));
+        assertFalse(targetQuery.matches(this.key(null, "x-domain-x:type=Queue,name=q1", "x-any-att-x")));
+    }
+
+    @Test
+    public void testInvalidArguments() throws Exception {
+        try {
+            RangeQuery.builder().timeRange(1000L, 1000L);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertTrue(iaExc.getMessage().contains("endTime"));
+        }
+
+        try {
+            RangeQuery.builder().step(0L);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertTrue(iaExc.getMessage().contains("step"));
+        }
+
+        try {
+            RangeQuery.builder().aggregation(null);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertTrue(iaExc.getMessage().contains("aggregation"));
+        }
+    }
+
+    @Test
+    public void testBuildIncomplete() throws Exception {
+        try {
+            RangeQuery.builder().timeRange(0L, 1000L).step(1000L).build();
+            fail("missing expected exception");
+        } catch (IllegalStateException isExc) {
+            assertEquals("objectNamePattern is required", isExc.getMessage());
+        }
+
+        try {
+            RangeQuery.builder().objectNamePattern(new ObjectName("*:*")).step(1000L).build();
+            fail("missing expected exception");
+        } catch (IllegalStateException isExc) {
+            assertEquals("timeRange and step are required", isExc.getMessage());
+        }
+
+        try {
+            this.buildQuery(0L, (RangeQuery.MAX_STEP_COUNT + 1) * 1000L, 1000L);
+            fail("missing expected exception");
+        } catch (IllegalStateException isExc) {
+            assertTrue(isExc.getMessage().contains("exceeds"));
+        }
+
+        assertEquals(RangeQuery.MAX_STEP_COUNT,
+                this.buildQuery(0L, RangeQuery.MAX_STEP_COUNT * 1000L, 1000L).getStepCount());
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    private RangeQuery buildQuery(long startTime, long endTime, long step) throws Exception {
+        return RangeQuery.builder()
+                .objectNamePattern(new ObjectName("*:*"))
+                .timeRange(startTime, endTime)
+                .step(step)
+                .build();
+    }
+
+    private SeriesKey key(String target, String objectName, String attributeName) throws Exception {
+        return new SeriesKey(target, new ObjectName(objectName), attributeName);
+    }
+}
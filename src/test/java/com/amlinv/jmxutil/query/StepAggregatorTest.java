@@ -0,0 +1,126 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.query;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the StepAggregator.
+ */
+public class StepAggregatorTest {
+    private StepAggregator aggregator;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.aggregator = new StepAggregator();
+        this.aggregator.reset(1000L, 1000L, 3);
+
+        this.aggregator.onSample(999L, 100.0);
+        this.aggregator.onSample(1000L, 4.0);
+        this.aggregator.onSample(1500L, 2.0);
+        this.aggregator.onSample(1999L, 6.0);
+        this.aggregator.onSample(3000L, 10.0);
+        this.aggregator.onSample(3500L, 14.0);
+        this.aggregator.onSample(4000L, 100.0);
+    }
+
+    @Test
+    public void testGetters() throws Exception {
+        assertEquals(1000L, this.aggregator.getStartTime());
+        assertEquals(1000L, this.aggregator.getStep());
+        assertEquals(3, this.aggregator.getStepCount());
+        assertEquals(3999L, this.aggregator.getEndTime());
+
+        assertEquals(3, this.aggregator.getCount(0));
+        assertEquals(0, this.aggregator.getCount(1));
+        assertEquals(2, this.aggregator.getCount(2));
+    }
+
+    @Test
+    public void testAggregations() throws Exception {
+        this.assertValues(Aggregation.MIN, 2.0, Double.NaN, 10.0);
+        this.assertValues(Aggregation.MAX, 6.0, Double.NaN, 14.0);
+        this.assertValues(Aggregation.AVG, 4.0, Double.NaN, 12.0);
+        this.assertValues(Aggregation.SUM, 12.0, Double.NaN, 24.0);
+        this.assertValues(Aggregation.LAST, 6.0, Double.NaN, 14.0);
+
+        // First step from its first sample, across a counter reset from 4 to 2; last step from the last sample of
+        // the first step.
+        this.assertValues(Aggregation.RATE, 6.0 * 1000.0 / 999.0, Double.NaN, 8.0 * 1000.0 / 1501.0);
+    }
+
+    @Test
+    public void testRateWithResetWithinStep() throws Exception {
+        this.aggregator.reset(0L, 1000L, 2);
+        this.aggregator.onSample(0L, 100.0);
+        this.aggregator.onSample(500L, 200.0);
+        this.aggregator.onSample(900L, 50.0);
+        this.aggregator.onSample(1500L, 150.0);
+
+        // The counter restarted from zero before reaching 50.
+        this.assertValues(Aggregation.RATE, 150.0 * 1000.0 / 900.0, 100.0 * 1000.0 / 600.0);
+    }
+
+    @Test
+    public void testFirstStep() throws Exception {
+        assertTrue(Arrays.equals(new double[] { Double.NaN, 14.0 }, this.aggregator.getValues(Aggregation.LAST, 1)));
+        assertTrue(this.aggregator.hasSamples(1));
+        assertTrue(this.aggregator.hasSamples(2));
+    }
+
+    @Test
+    public void testRateSingleSample() throws Exception {
+        this.aggregator.reset(0L, 1000L, 2);
+        this.aggregator.onSample(1500L, 5.0);
+
+        assertTrue(Arrays.equals(new double[] { Double.NaN, Double.NaN },
+                this.aggregator.getValues(Aggregation.RATE, 0)));
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        this.aggregator.reset(0L, 500L, 2);
+
+        assertEquals(0, this.aggregator.getCount(0));
+        assertEquals(0, this.aggregator.getCount(1));
+        assertFalse(this.aggregator.hasSamples(0));
+
+        this.aggregator.onSample(600L, 3.0);
+        assertTrue(Arrays.equals(new double[] { Double.NaN, 3.0 }, this.aggregator.getValues(Aggregation.SUM, 0)));
+
+        // Grow beyond the original capacity.
+        this.aggregator.reset(0L, 500L, 10);
+        this.aggregator.onSample(4900L, 7.0);
+        assertEquals(1, this.aggregator.getCount(9));
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    private void assertValues(Aggregation aggregation, double... expected) {
+        double[] actual = this.aggregator.getValues(aggregation, 0);
+
+        assertTrue(aggregation + ": " + Arrays.toString(actual), Arrays.equals(expected, actual));
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the CompressedSampleStore.
+ */
+public class CompressedSampleStoreTest {
+    private SeriesRegistry registry;
+    private CompressedSampleStore store;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.registry = new SeriesRegistry();
+        this.store = new CompressedSampleStore(this.registry, 3, 2);
+    }
+
+    @Test
+    public void testGetters() throws Exception {
+        assertSame(this.registry, this.store.getSeriesRegistry());
+        assertEquals(3, this.store.getSamplesPerBlock());
+        assertEquals(2, this.store.getMaxBlocksPerSeries());
+
+        CompressedSampleStore defaultStore = new CompressedSampleStore(this.registry);
+        assertEquals(CompressedSampleStore.DEFAULT_SAMPLES_PER_BLOCK, defaultStore.getSamplesPerBlock());
+        assertEquals(CompressedSampleStore.DEFAULT_MAX_BLOCKS_PER_SERIES, defaultStore.getMaxBlocksPerSeries());
+    }
+
+    @Test
+    public void testAppendAndScanAcrossBlocks() throws Exception {
+        for (int cur = 0; cur < 5; cur++) {
+            assertTrue(this.store.append(4, 1000L * cur, cur * 1.5));
+        }
+
+        assertEquals(5, this.store.getSampleCount(4));
+        assertEquals(0, this.store.getSampleCount(3));
+        assertEquals(0, this.store.getSampleCount(9));
+
+        OffHeapSampleStoreTest.CollectingVisitor visitor = new OffHeapSampleStoreTest.CollectingVisitor();
+        assertEquals(5, this.store.scan(4, 0L, Long.MAX_VALUE, visitor));
+        assertEquals(Arrays.asList("0=0.0", "1000=1.5", "2000=3.0", "3000=4.5", "4000=6.0"), visitor.samples);
+
+        visitor = new OffHeapSampleStoreTest.CollectingVisitor();
+        assertEquals(2, this.store.scan(4, 1500L, 3000L, visitor));
+        assertEquals(Arrays.asList("2000=3.0", "3000=4.5"), visitor.samples);
+
+        assertEquals(0, this.store.scan(9, 0L, Long.MAX_VALUE, visitor));
+        assertTrue(this.store.getCompressedBytes() > 0);
+    }
+
+    @Test
+    public void testRetention() throws Exception {
+        for (int cur = 0; cur < 10; cur++) {
+            this.store.append(0, 1000L * cur, cur);
+        }
+
+        // Two sealed blocks of three samples, plus one sample in the open block.
+        assertEquals(7, this.store.getSampleCount(0));
+
+        OffHeapSampleStoreTest.CollectingVisitor visitor = new OffHeapSampleStoreTest.CollectingVisitor();
+        this.store.scan(0, 0L, Long.MAX_VALUE, visitor);
+        assertEquals("3000=3.0", visitor.samples.get(0));
+        assertEquals("9000=9.0", visitor.samples.get(6));
+    }
+
+    @Test
+    public void testScanBlocks() throws Exception {
+        for (int cur = 0; cur < 7; cur++) {
+            this.store.append(0, 1000L * cur, cur);
+        }
+
+        final List<GorillaBlock> blocks = new ArrayList<>();
+        CompressedSampleStore.BlockVisitor visitor = new CompressedSampleStore.BlockVisitor() {
+            @Override
+            public void onBlock(GorillaBlock block) {
+                blocks.add(block);
+            }
+        };
+
+        assertEquals(1, this.store.scanBlocks(0, 2500L, 3500L, visitor));
+        assertEquals(3000L, blocks.get(0).getFirstTimestamp());
+        assertEquals(0, this.store.scanBlocks(5, 0L, Long.MAX_VALUE, visitor));
+    }
+
+    @Test
+    public void testRejects() throws Exception {
+        assertFalse(this.store.append(-1, 1000L, 1.0));
+
+        assertTrue(this.store.append(0, 2000L, 1.0));
+        assertFalse(this.store.append(0, 1000L, 1.0));
+        assertEquals(1, this.store.getSampleCount(0));
+    }
+
+    @Test
+    public void testRejectsOutOfOrderAfterSeal() throws Exception {
+        // Fills, and seals, the first block.
+        for (int cur = 1; cur <= 3; cur++) {
+            assertTrue(this.store.append(0, 1000L * cur, cur));
+        }
+
+        assertFalse(this.store.append(0, 500L, 9.0));
+        assertTrue(this.store.append(0, 3000L, 3.5));
+        assertEquals(4, this.store.getSampleCount(0));
+
+        OffHeapSampleStoreTest.CollectingVisitor visitor = new OffHeapSampleStoreTest.CollectingVisitor();
+        this.store.scan(0, 0L, Long.MAX_VALUE, visitor);
+        assertEquals(Arrays.asList("1000=1.0", "2000=2.0", "3000=3.0", "3000=3.5"), visitor.samples);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSamplesPerBlock() throws Exception {
+        new CompressedSampleStore(this.registry, 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxBlocks() throws Exception {
+        new CompressedSampleStore(this.registry, 1, -1);
+    }
+}
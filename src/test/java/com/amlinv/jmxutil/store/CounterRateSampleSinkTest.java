@@ -0,0 +1,72 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Verify operation of the CounterRateSampleSink.
+ */
+public class CounterRateSampleSinkTest {
+    private SampleSink mockRateSink;
+    private CounterRateSampleSink sink;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.mockRateSink = mock(SampleSink.class);
+        this.sink = new CounterRateSampleSink(this.mockRateSink);
+
+        when(this.mockRateSink.append(anyInt(), anyLong(), anyDouble())).thenReturn(true);
+    }
+
+    @Test
+    public void testGetRateSink() throws Exception {
+        assertSame(this.mockRateSink, this.sink.getRateSink());
+    }
+
+    @Test
+    public void testAppend() throws Exception {
+        assertFalse(this.sink.append(2, 1000L, 100.0));
+        assertTrue(this.sink.append(2, 2000L, 150.0));
+        assertTrue(this.sink.append(2, 3000L, 20.0));
+        assertFalse(this.sink.append(2, 3000L, 30.0));
+
+        verify(this.mockRateSink).append(2, 2000L, 50.0);
+        verify(this.mockRateSink).append(2, 3000L, 20.0);
+        verifyNoMoreInteractions(this.mockRateSink);
+    }
+
+    @Test
+    public void testRateSinkRejects() throws Exception {
+        when(this.mockRateSink.append(anyInt(), anyLong(), anyDouble())).thenReturn(false);
+
+        this.sink.append(0, 1000L, 1.0);
+        assertFalse(this.sink.append(0, 2000L, 2.0));
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        this.sink.append(1, 1000L, 1.0);
+        this.sink.reset(1);
+
+        assertFalse(this.sink.append(1, 2000L, 2.0));
+        verifyZeroInteractions(this.mockRateSink);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the GorillaBlockEncoder, and the GorillaBlockDecoder with it.
+ */
+public class GorillaBlockEncoderTest {
+    private GorillaBlockEncoder encoder;
+    private GorillaBlockDecoder decoder;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.encoder = new GorillaBlockEncoder();
+        this.decoder = new GorillaBlockDecoder();
+    }
+
+    @Test
+    public void testRoundTripEdgeValues() throws Exception {
+        long[] timestamps = { 1000L, 1000L, 1010L, 1020L, 1100L, 1400L, 3400L, 5000000L, 5000000000000L,
+                Long.MAX_VALUE / 2 };
+        double[] values = { 0.0, -0.0, 1.0, 1.0, Double.NaN, Double.MAX_VALUE, Double.MIN_VALUE,
+                Double.NEGATIVE_INFINITY, -123.456, 9.007199254740993E15 };
+
+        for (int cur = 0; cur < timestamps.length; cur++) {
+            assertTrue(this.encoder.append(timestamps[cur], values[cur]));
+        }
+
+        this.verifyDecoded(this.encoder.toBlock(), timestamps, values);
+    }
+
+    @Test
+    public void testRoundTripRandom() throws Exception {
+        Random random = new Random(17);
+        long[] timestamps = new long[1000];
+        double[] values = new double[1000];
+
+        long timestamp = 1440000000000L;
+        for (int cur = 0; cur < timestamps.length; cur++) {
+            timestamp += random.nextInt(3) == 0 ? random.nextInt(100000) : 10000;
+            timestamps[cur] = timestamp;
+            values[cur] = random.nextBoolean() ? random.nextGaussian() * 1000 : random.nextInt(5);
+
+            assertTrue(this.encoder.append(timestamps[cur], values[cur]));
+        }
+
+        this.verifyDecoded(this.encoder.toBlock(), timestamps, values);
+    }
+
+    @Test
+    public void testCompressesFixedIntervalCounters() throws Exception {
+        long counter = 1000000L;
+        for (int cur = 0; cur < 120; cur++) {
+            counter += 50 + (cur % 3);
+            this.encoder.append(1440000000000L + (cur * 10000L), counter);
+        }
+
+        GorillaBlock block = this.encoder.toBlock();
+
+        // Raw samples take 16 bytes each.
+        assertEquals(120, block.getSampleCount());
+        assertTrue("block size " + block.getByteSize(), block.getByteSize() * 4 < 120 * 16);
+    }
+
+    @Test
+    public void testRejectOutOfOrder() throws Exception {
+        assertTrue(this.encoder.append(2000L, 1.0));
+        assertFalse(this.encoder.append(1000L, 2.0));
+
+        assertEquals(1, this.encoder.getSampleCount());
+        assertEquals(2000L, this.encoder.getFirstTimestamp());
+        assertEquals(2000L, this.encoder.getLastTimestamp());
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        this.encoder.append(1000L, 1.0);
+        this.encoder.append(2000L, 2.0);
+        this.encoder.reset();
+
+        assertEquals(0, this.encoder.getSampleCount());
+        assertEquals(0, this.encoder.getBitLength());
+
+        this.encoder.append(500L, 3.0);
+        this.encoder.append(700L, 3.5);
+
+        this.verifyDecoded(this.encoder.toBlock(), new long[] { 500L, 700L }, new double[] { 3.0, 3.5 });
+    }
+
+    @Test
+    public void testDecodeIntoRange() throws Exception {
+        for (int cur = 0; cur < 10; cur++) {
+            this.encoder.append(cur * 100L, cur);
+        }
+
+        OffHeapSampleStoreTest.CollectingVisitor visitor = new OffHeapSampleStoreTest.CollectingVisitor();
+        this.decoder.reset(this.encoder.getWords(), this.encoder.getSampleCount());
+
+        assertEquals(3, this.decoder.decodeInto(250L, 500L, visitor));
+        assertEquals("300=3.0", visitor.samples.get(0));
+        assertEquals("500=5.0", visitor.samples.get(2));
+    }
+
+    protected void verifyDecoded(GorillaBlock block, long[] timestamps, double[] values) {
+        assertEquals(timestamps.length, block.getSampleCount());
+        assertEquals(timestamps[0], block.getFirstTimestamp());
+        assertEquals(timestamps[timestamps.length - 1], block.getLastTimestamp());
+
+        this.decoder.reset(block);
+        for (int cur = 0; cur < timestamps.length; cur++) {
+            assertTrue(this.decoder.next());
+            assertEquals(timestamps[cur], this.decoder.getTimestamp());
+            assertEquals(Double.doubleToRawLongBits(values[cur]),
+                    Double.doubleToRawLongBits(this.decoder.getValue()));
+        }
+
+        assertFalse(this.decoder.next());
+    }
+}
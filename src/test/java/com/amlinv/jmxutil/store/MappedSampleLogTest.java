@@ -0,0 +1,370 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Verify operation of the MappedSampleLog.
+ */
+public class MappedSampleLogTest {
+    private static final int SEGMENT_SIZE = 1024;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File directory;
+    private SeriesRegistry registry;
+    private MappedSampleLog sampleLog;
+    private SeriesKey key1;
+    private SeriesKey key2;
+    private int id1;
+    private int id2;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.directory = new File(this.temporaryFolder.getRoot(), "x-log-x");
+        this.registry = new SeriesRegistry();
+        this.sampleLog = new MappedSampleLog(this.directory, this.registry, SEGMENT_SIZE, 60000L);
+
+        this.key1 = new SeriesKey("x-target-x", new ObjectName("x-domain-x:type=x-type-x"), "x-att1-x");
+        this.key2 = new SeriesKey("x-target-x", new ObjectName("x-domain-x:type=x-type-x"), "x-att2-x");
+        this.id1 = this.registry.getOrCreateId(this.key1);
+        this.id2 = this.registry.getOrCreateId(this.key2);
+    }
+
+    @Test
+    public void testGetters() throws Exception {
+        assertSame(this.directory, this.sampleLog.getDirectory());
+        assertSame(this.registry, this.sampleLog.getSeriesRegistry());
+        assertEquals(SEGMENT_SIZE, this.sampleLog.getSegmentSize());
+        assertEquals(60000L, this.sampleLog.getRollInterval());
+
+        MappedSampleLog defaultLog = new MappedSampleLog(this.directory, this.registry);
+        assertEquals(MappedSampleLog.DEFAULT_SEGMENT_SIZE, defaultLog.getSegmentSize());
+        assertEquals(MappedSampleLog.DEFAULT_ROLL_INTERVAL, defaultLog.getRollInterval());
+    }
+
+    @Test
+    public void testGetSetLog() throws Exception {
+        Logger mockLog = mock(Logger.class);
+
+        assertNotNull(this.sampleLog.getLog());
+        this.sampleLog.setLog(mockLog);
+        assertSame(mockLog, this.sampleLog.getLog());
+    }
+
+    @Test
+    public void testInvalidArguments() throws Exception {
+        try {
+            new MappedSampleLog(this.directory, this.registry, MappedSampleLog.MIN_SEGMENT_SIZE - 1, 1000L);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertTrue(iaExc.getMessage().contains("segmentSize"));
+        }
+
+        try {
+            new MappedSampleLog(this.directory, this.registry, SEGMENT_SIZE, 0L);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertTrue(iaExc.getMessage().contains("rollInterval"));
+        }
+    }
+
+    @Test
+    public void testAppendAndReopen() throws Exception {
+        this.sampleLog.open(null);
+        assertNull(this.sampleLog.getActiveSegment());
+
+        assertTrue(this.sampleLog.append(this.id1, 1000L, 1.0));
+        assertTrue(this.sampleLog.append(this.id2, 1000L, 2.0));
+        assertTrue(this.sampleLog.append(this.id1, 2000L, 3.0));
+
+        assertNotNull(this.sampleLog.getActiveSegment());
+        assertTrue(this.sampleLog.getSealedSegments().isEmpty());
+
+        this.sampleLog.flush();
+        this.sampleLog.close();
+
+        // Recover into a fresh registry and store, as on restart.
+        SeriesRegistry recoveredRegistry = new SeriesRegistry();
+        CompressedSampleStore store = new CompressedSampleStore(recoveredRegistry);
+        MappedSampleLog reopened = new MappedSampleLog(this.directory, recoveredRegistry, SEGMENT_SIZE, 60000L);
+        reopened.open(store);
+
+        assertEquals(this.id1, recoveredRegistry.getId(this.key1));
+        assertEquals(this.id2, recoveredRegistry.getId(this.key2));
+        assertEquals(Arrays.asList("1000=1.0", "2000=3.0"), this.scan(store, this.id1));
+        assertEquals(Collections.singletonList("1000=2.0"), this.scan(store, this.id2));
+
+        // Appending continues in the recovered segment.
+        assertTrue(reopened.getSealedSegments().isEmpty());
+        assertEquals(0, reopened.getActiveSegment().getNumber());
+        assertTrue(reopened.append(this.id2, 3000L, 4.0));
+        reopened.close();
+
+        store = new CompressedSampleStore(recoveredRegistry);
+        reopened = new MappedSampleLog(this.directory, recoveredRegistry, SEGMENT_SIZE, 60000L);
+        reopened.open(store);
+
+        assertEquals(Arrays.asList("1000=2.0", "3000=4.0"), this.scan(store, this.id2));
+        reopened.close();
+    }
+
+    @Test
+    public void testRollWhenFull() throws Exception {
+        this.sampleLog.open(null);
+
+        for (int cur = 0; cur < 100; cur++) {
+            assertTrue(this.sampleLog.append(this.id1, 1000L + cur, cur));
+        }
+
+        List<SampleLogSegment> sealed = this.sampleLog.getSealedSegments();
+        assertEquals(2, sealed.size());
+        assertEquals(0, sealed.get(0).getNumber());
+        assertEquals(1, sealed.get(1).getNumber());
+        assertEquals(2, this.sampleLog.getActiveSegment().getNumber());
+
+        // Each segment defines its series so that it can be read on its own.
+        for (SampleLogSegment oneSegment : sealed) {
+            assertTrue(oneSegment.isSeriesDefined(this.id1));
+        }
+        assertTrue(this.sampleLog.getActiveSegment().isSeriesDefined(this.id1));
+        assertFalse(this.sampleLog.getActiveSegment().isSeriesDefined(this.id2));
+
+        this.sampleLog.close();
+
+        SeriesRegistry recoveredRegistry = new SeriesRegistry();
+        OffHeapSampleStore store = new OffHeapSampleStore(recoveredRegistry, 4, 200);
+        MappedSampleLog reopened = new MappedSampleLog(this.directory, recoveredRegistry, SEGMENT_SIZE, 60000L);
+        reopened.open(store);
+
+        assertEquals(100, store.getSampleCount(this.id1));
+        assertEquals(2, reopened.getSealedSegments().size());
+        assertEquals(2, reopened.getActiveSegment().getNumber());
+
+        reopened.close();
+    }
+
+    @Test
+    public void testRollByTime() throws Exception {
+        this.sampleLog.open(null);
+
+        assertTrue(this.sampleLog.append(this.id1, 1000L, 1.0));
+        assertTrue(this.sampleLog.append(this.id1, 60999L, 2.0));
+        assertTrue(this.sampleLog.getSealedSegments().isEmpty());
+
+        assertTrue(this.sampleLog.append(this.id1, 61000L, 3.0));
+
+        List<SampleLogSegment> sealed = this.sampleLog.getSealedSegments();
+        assertEquals(1, sealed.size());
+        assertEquals(60999L, sealed.get(0).getLastTimestamp());
+        assertEquals(61000L, this.sampleLog.getActiveSegment().getFirstTimestamp());
+        assertEquals(61000L, this.sampleLog.getActiveSegment().getCreationTime());
+
+        this.sampleLog.close();
+    }
+
+    @Test
+    public void testExplicitRoll() throws Exception {
+        this.sampleLog.open(null);
+        this.sampleLog.roll();
+        this.sampleLog.roll();
+
+        assertEquals(1, this.sampleLog.getSealedSegments().size());
+        assertEquals(1, this.sampleLog.getActiveSegment().getNumber());
+
+        this.sampleLog.close();
+    }
+
+    @Test
+    public void testOpenSkipsUnreadableSegment() throws Exception {
+        Logger mockLog = mock(Logger.class);
+
+        this.sampleLog.open(null);
+        assertTrue(this.sampleLog.append(this.id1, 1000L, 1.0));
+        this.sampleLog.close();
+
+        FileOutputStream outputStream =
+                new FileOutputStream(new File(this.directory, SampleLogSegment.getFileName(5)));
+        outputStream.write(new byte[100]);
+        outputStream.close();
+
+        new File(this.directory, "x-not-a-segment-x").createNewFile();
+
+        CompressedSampleStore store = new CompressedSampleStore(this.registry);
+        MappedSampleLog reopened = new MappedSampleLog(this.directory, this.registry, SEGMENT_SIZE, 60000L);
+        reopened.setLog(mockLog);
+        reopened.open(store);
+
+        verify(mockLog).warn(eq("skipping unreadable sample log segment {}"), any(File.class), any(IOException.class));
+        assertEquals(Collections.singletonList("1000=1.0"), this.scan(store, this.id1));
+
+        // New segments never reuse the number of the unreadable one.
+        reopened.roll();
+        assertEquals(6, reopened.getActiveSegment().getNumber());
+
+        reopened.close();
+    }
+
+    @Test
+    public void testOpenConflictingSeries() throws Exception {
+        Logger mockLog = mock(Logger.class);
+
+        this.sampleLog.open(null);
+        assertTrue(this.sampleLog.append(this.id1, 1000L, 1.0));
+        this.sampleLog.close();
+
+        // The id of the first series is already used by another series in this registry.
+        SeriesRegistry otherRegistry = new SeriesRegistry();
+        otherRegistry.register(this.key2, this.id1);
+
+        MappedSampleLog reopened = new MappedSampleLog(this.directory, otherRegistry, SEGMENT_SIZE, 60000L);
+        reopened.setLog(mockLog);
+        reopened.open(null);
+
+        verify(mockLog).warn(eq("conflicting series definition in sample log: seriesId={}; key={}"), eq(this.id1),
+                eq(this.key1), any(IllegalStateException.class));
+
+        reopened.close();
+    }
+
+    @Test
+    public void testAppendFailure() throws Exception {
+        Logger mockLog = mock(Logger.class);
+        this.sampleLog.setLog(mockLog);
+
+        // The directory does not exist because the log was not opened.
+        assertFalse(this.sampleLog.append(this.id1, 1000L, 1.0));
+        verify(mockLog).warn(eq("failed to append to sample log: seriesId={}"), eq(this.id1), any(IOException.class));
+    }
+
+    @Test
+    public void testAppendUnknownSeries() throws Exception {
+        this.sampleLog.open(null);
+
+        try {
+            this.sampleLog.append(99, 1000L, 1.0);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("unknown series id 99", iaExc.getMessage());
+        } finally {
+            this.sampleLog.close();
+        }
+    }
+
+    @Test
+    public void testSeriesTooLargeForSegment() throws Exception {
+        String longName = new String(new char[SEGMENT_SIZE]).replace('\0', 'a');
+        int bigId = this.registry.getOrCreateId(
+                new SeriesKey("x-target-x", new ObjectName("x-domain-x:type=x-type-x"), longName));
+        Logger mockLog = mock(Logger.class);
+        this.sampleLog.setLog(mockLog);
+        this.sampleLog.open(null);
+
+        try {
+            assertTrue(this.sampleLog.append(this.id1, 1000L, 1.0));
+
+            // The first attempt rolls away from the non-empty segment; the series is rejected on the empty one.
+            assertFalse(this.sampleLog.append(bigId, 1000L, 2.0));
+            assertFalse(this.sampleLog.append(bigId, 2000L, 3.0));
+            assertFalse(this.sampleLog.append(bigId, 3000L, 4.0));
+
+            assertEquals(2, MappedSampleLog.listSegmentFiles(this.directory).size());
+            verify(mockLog, times(1)).warn("series record does not fit in an empty segment; dropping its samples: " +
+                    "seriesId={}; segmentSize={}", bigId, SEGMENT_SIZE);
+
+            // Other series still use the empty segment.
+            assertTrue(this.sampleLog.append(this.id2, 3000L, 5.0));
+            assertEquals(2, MappedSampleLog.listSegmentFiles(this.directory).size());
+        } finally {
+            this.sampleLog.close();
+        }
+    }
+
+    @Test
+    public void testOpenCreateDirectoryFailure() throws Exception {
+        File file = this.temporaryFolder.newFile("x-file-x");
+        MappedSampleLog fileLog = new MappedSampleLog(new File(file, "x-sub-x"), this.registry);
+
+        try {
+            fileLog.open(null);
+            fail("missing expected exception");
+        } catch (IOException ioExc) {
+            assertTrue(ioExc.getMessage().contains("failed to create sample log directory"));
+        }
+    }
+
+    @Test
+    public void testListSegmentFiles() throws Exception {
+        assertTrue(MappedSampleLog.listSegmentFiles(this.directory).isEmpty());
+
+        assertTrue(this.directory.mkdirs());
+        new File(this.directory, SampleLogSegment.getFileName(10)).createNewFile();
+        new File(this.directory, SampleLogSegment.getFileName(2)).createNewFile();
+        new File(this.directory, "x-other-x").createNewFile();
+
+        assertEquals(Arrays.asList(new File(this.directory, SampleLogSegment.getFileName(2)),
+                        new File(this.directory, SampleLogSegment.getFileName(10))),
+                MappedSampleLog.listSegmentFiles(this.directory));
+    }
+
+    @Test
+    public void testReplaceSealedSegments() throws Exception {
+        this.sampleLog.open(null);
+        for (int cur = 0; cur < 4; cur++) {
+            this.sampleLog.roll();
+        }
+
+        List<SampleLogSegment> sealed = this.sampleLog.getSealedSegments();
+        assertEquals(3, sealed.size());
+
+        this.sampleLog.replaceSealedSegments(Arrays.asList(sealed.get(0), sealed.get(2)),
+                Collections.singletonList(sealed.get(0)));
+
+        assertEquals(Arrays.asList(sealed.get(0), sealed.get(1)), this.sampleLog.getSealedSegments());
+
+        this.sampleLog.close();
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    private List<String> scan(SampleStore store, int seriesId) {
+        OffHeapSampleStoreTest.CollectingVisitor visitor = new OffHeapSampleStoreTest.CollectingVisitor();
+        store.scan(seriesId, Long.MIN_VALUE, Long.MAX_VALUE, visitor);
+
+        return visitor.samples;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the OffHeapSampleStore.
+ */
+public class OffHeapSampleStoreTest {
+    private SeriesRegistry registry;
+    private OffHeapSampleStore store;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.registry = new SeriesRegistry();
+        this.store = new OffHeapSampleStore(this.registry, 10, 4);
+    }
+
+    @Test
+    public void testGetters() throws Exception {
+        assertSame(this.registry, this.store.getSeriesRegistry());
+        assertEquals(10, this.store.getMaxSeries());
+        assertEquals(4, this.store.getSamplesPerSeries());
+        assertEquals(0L, this.store.getAllocatedBytes());
+    }
+
+    @Test
+    public void testAppendAndScan() throws Exception {
+        assertTrue(this.store.append(3, 1000L, 1.5));
+        assertTrue(this.store.append(3, 2000L, 2.5));
+        assertTrue(this.store.append(3, 2000L, 3.5));
+
+        assertEquals(3, this.store.getSampleCount(3));
+        assertEquals(0, this.store.getSampleCount(4));
+        assertEquals(10 * (8 + 4 * 16), this.store.getAllocatedBytes());
+
+        CollectingVisitor visitor = new CollectingVisitor();
+        assertEquals(3, this.store.scan(3, 0L, Long.MAX_VALUE, visitor));
+        assertEquals(Arrays.asList("1000=1.5", "2000=2.5", "2000=3.5"), visitor.samples);
+
+        visitor = new CollectingVisitor();
+        assertEquals(2, this.store.scan(3, 1500L, 2000L, visitor));
+        assertEquals(Arrays.asList("2000=2.5", "2000=3.5"), visitor.samples);
+    }
+
+    @Test
+    public void testRingWraps() throws Exception {
+        for (int cur = 0; cur < 7; cur++) {
+            assertTrue(this.store.append(0, 1000L * cur, cur));
+        }
+
+        assertEquals(4, this.store.getSampleCount(0));
+
+        CollectingVisitor visitor = new CollectingVisitor();
+        this.store.scan(0, 0L, Long.MAX_VALUE, visitor);
+        assertEquals(Arrays.asList("3000=3.0", "4000=4.0", "5000=5.0", "6000=6.0"), visitor.samples);
+    }
+
+    @Test
+    public void testRejectOutOfOrder() throws Exception {
+        assertTrue(this.store.append(0, 2000L, 1.0));
+        assertFalse(this.store.append(0, 1000L, 2.0));
+
+        assertEquals(1, this.store.getSampleCount(0));
+    }
+
+    @Test
+    public void testRejectSeriesOutOfRange() throws Exception {
+        assertFalse(this.store.append(10, 1000L, 1.0));
+        assertFalse(this.store.append(-1, 1000L, 1.0));
+
+        assertEquals(0, this.store.getSampleCount(10));
+        assertEquals(0, this.store.scan(10, 0L, Long.MAX_VALUE, new CollectingVisitor()));
+    }
+
+    @Test
+    public void testMultipleChunks() throws Exception {
+        // Each slot is larger than half of a chunk, so every series has its own chunk.
+        int samplesPerSeries = (OffHeapSampleStore.MAX_CHUNK_SIZE / 16) / 2 + 1;
+        OffHeapSampleStore bigStore = new OffHeapSampleStore(this.registry, 3, samplesPerSeries);
+
+        assertTrue(bigStore.append(2, 1000L, 7.0));
+        assertEquals(8L + (16L * samplesPerSeries), bigStore.getAllocatedBytes());
+
+        CollectingVisitor visitor = new CollectingVisitor();
+        bigStore.scan(2, 0L, Long.MAX_VALUE, visitor);
+        assertEquals(Arrays.asList("1000=7.0"), visitor.samples);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxSeries() throws Exception {
+        new OffHeapSampleStore(this.registry, 0, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSamplesPerSeries() throws Exception {
+        new OffHeapSampleStore(this.registry, 1, 0);
+    }
+
+    /**
+     * Visitor that records the samples it visits.
+     */
+    protected static class CollectingVisitor implements SampleVisitor {
+        protected final List<String> samples = new ArrayList<>();
+
+        @Override
+        public void onSample(long timestamp, double value) {
+            this.samples.add(timestamp + "=" + value);
+        }
+    }
+}
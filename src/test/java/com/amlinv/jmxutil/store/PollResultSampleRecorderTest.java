@@ -0,0 +1,121 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import com.amlinv.jmxutil.polling.PollResultEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+
+import javax.management.ObjectName;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the PollResultSampleRecorder.
+ */
+public class PollResultSampleRecorderTest {
+    private PollResultSampleRecorder recorder;
+    private SeriesRegistry registry;
+    private SampleSink mockSink;
+    private Logger mockLogger;
+    private ObjectName objectName;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.registry = new SeriesRegistry();
+        this.recorder = new PollResultSampleRecorder("x-target-x", this.registry);
+        this.mockSink = Mockito.mock(SampleSink.class);
+        this.mockLogger = Mockito.mock(Logger.class);
+        this.objectName = new ObjectName("x-domain-x:x-key-x=x-value-x");
+
+        this.recorder.addSink(this.mockSink);
+        this.recorder.setLog(this.mockLogger);
+    }
+
+    @Test
+    public void testGetters() throws Exception {
+        assertEquals("x-target-x", this.recorder.getTarget());
+        assertSame(this.registry, this.recorder.getSeriesRegistry());
+        assertSame(this.mockLogger, this.recorder.getLog());
+        assertEquals(Collections.singletonList(this.mockSink), this.recorder.getSinks());
+    }
+
+    @Test
+    public void testRecordNumericValues() throws Exception {
+        this.recorder.onPollResult(this.createEvent("x-att1-x", 7L, 1000L));
+        this.recorder.onPollResult(this.createEvent("x-att2-x", 2.5f, 1000L));
+        this.recorder.onPollResult(this.createEvent("x-att1-x", 9, 2000L));
+        this.recorder.onPollResult(this.createEvent("x-att3-x", Boolean.TRUE, 2000L));
+
+        int id1 = this.registry.getId(new SeriesKey("x-target-x", this.objectName, "x-att1-x"));
+        int id2 = this.registry.getId(new SeriesKey("x-target-x", this.objectName, "x-att2-x"));
+        int id3 = this.registry.getId(new SeriesKey("x-target-x", this.objectName, "x-att3-x"));
+
+        Mockito.verify(this.mockSink).append(id1, 1000L, 7.0);
+        Mockito.verify(this.mockSink).append(id2, 1000L, 2.5);
+        Mockito.verify(this.mockSink).append(id1, 2000L, 9.0);
+        Mockito.verify(this.mockSink).append(id3, 2000L, 1.0);
+        assertEquals(3, this.registry.getSeriesCount());
+    }
+
+    @Test
+    public void testIgnoreNonNumericValues() throws Exception {
+        this.recorder.onPollResult(this.createEvent("x-att-x", "x-string-x", 1000L));
+        this.recorder.onPollResult(this.createEvent("x-att-x", null, 1000L));
+
+        PollResultEvent noObjectName = Mockito.mock(PollResultEvent.class);
+        Mockito.when(noObjectName.getValue()).thenReturn(1);
+        this.recorder.onPollResult(noObjectName);
+
+        Mockito.verifyZeroInteractions(this.mockSink);
+        assertEquals(0, this.registry.getSeriesCount());
+    }
+
+    @Test
+    public void testRemoveSink() throws Exception {
+        this.recorder.removeSink(this.mockSink);
+        this.recorder.onPollResult(this.createEvent("x-att-x", 1, 1000L));
+
+        Mockito.verifyZeroInteractions(this.mockSink);
+        assertTrue(this.recorder.getSinks().isEmpty());
+    }
+
+    @Test
+    public void testRecordIntoStore() throws Exception {
+        OffHeapSampleStore store = new OffHeapSampleStore(this.registry, 1, 10);
+        this.recorder.removeSink(this.mockSink);
+        this.recorder.addSink(store);
+
+        this.recorder.onPollResult(this.createEvent("x-att1-x", 1, 1000L));
+        this.recorder.onPollResult(this.createEvent("x-att2-x", 2, 1000L));
+
+        assertEquals(1, store.getSampleCount(0));
+        assertEquals(0, store.getSampleCount(1));
+    }
+
+    protected PollResultEvent createEvent(String attributeName, Object value, long timestamp) {
+        PollResultEvent result = Mockito.mock(PollResultEvent.class);
+        Mockito.when(result.getObjectName()).thenReturn(this.objectName);
+        Mockito.when(result.getAttributeName()).thenReturn(attributeName);
+        Mockito.when(result.getValue()).thenReturn(value);
+        Mockito.when(result.getTimestamp()).thenReturn(timestamp);
+
+        return result;
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the QuantileSketch.
+ */
+public class QuantileSketchTest {
+    private static final double[] QUANTILES = { 0.0, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 0.999, 1.0 };
+
+    @Test
+    public void testDefaults() throws Exception {
+        QuantileSketch sketch = new QuantileSketch();
+
+        assertEquals(QuantileSketch.DEFAULT_RELATIVE_ACCURACY, sketch.getRelativeAccuracy(), 0.0);
+        assertEquals(QuantileSketch.DEFAULT_MAX_BUCKETS, sketch.getMaxBuckets());
+        assertTrue(sketch.isEmpty());
+        assertEquals(0L, sketch.getCount());
+        assertEquals(0.0, sketch.getSum(), 0.0);
+        assertTrue(Double.isNaN(sketch.getMin()));
+        assertTrue(Double.isNaN(sketch.getMax()));
+        assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+        assertEquals(0, sketch.getAllocatedBuckets());
+        assertTrue(sketch.toString().contains("count=0"));
+    }
+
+    @Test
+    public void testAdd() throws Exception {
+        QuantileSketch sketch = new QuantileSketch(0.01, 128);
+        sketch.add(10.0);
+        sketch.add(20.0, 3);
+        sketch.add(Double.NaN);
+        sketch.add(Double.POSITIVE_INFINITY);
+        sketch.add(5.0, 0);
+
+        assertFalse(sketch.isEmpty());
+        assertEquals(4L, sketch.getCount());
+        assertEquals(70.0, sketch.getSum(), 0.0);
+        assertEquals(10.0, sketch.getMin(), 0.0);
+        assertEquals(20.0, sketch.getMax(), 0.0);
+
+        assertEquals(10.0, sketch.getQuantile(0.0), 0.0);
+        assertEquals(20.0, sketch.getQuantile(0.5), 20.0 * 0.01);
+        assertEquals(20.0, sketch.getQuantile(1.0), 0.0);
+    }
+
+    @Test
+    public void testZeroAndNegative() throws Exception {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(0.0, 2);
+        sketch.add(-1.0);
+        sketch.add(100.0);
+
+        assertEquals(4L, sketch.getCount());
+        assertEquals(-1.0, sketch.getMin(), 0.0);
+        assertEquals(0.0, sketch.getQuantile(0.5), 0.0);
+        assertEquals(100.0, sketch.getQuantile(1.0), 0.0);
+
+        QuantileSketch negative = new QuantileSketch();
+        negative.add(-5.0);
+        assertEquals(-5.0, negative.getQuantile(0.5), 0.0);
+    }
+
+    @Test
+    public void testRelativeAccuracy() throws Exception {
+        Random random = new Random(42L);
+        double[] values = new double[20000];
+        QuantileSketch sketch = new QuantileSketch(0.01, 2048);
+
+        for (int cur = 0; cur < values.length; cur++) {
+            // Log-normal, as latencies tend to be.
+            values[cur] = Math.exp(2.0 + random.nextGaussian() * 1.5);
+            sketch.add(values[cur]);
+        }
+
+        this.assertQuantiles(sketch, values, 0.01);
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        Random random = new Random(7L);
+        double[] values = new double[9000];
+        QuantileSketch[] parts = { new QuantileSketch(), new QuantileSketch(), new QuantileSketch() };
+        QuantileSketch whole = new QuantileSketch();
+
+        for (int cur = 0; cur < values.length; cur++) {
+            // Each part covers a different range, like the latencies of different targets.
+            int part = cur % parts.length;
+            values[cur] = (part + 1) * 100.0 * (1.0 + random.nextDouble());
+            parts[part].add(values[cur]);
+            whole.add(values[cur]);
+        }
+
+        QuantileSketch merged = new QuantileSketch();
+        for (QuantileSketch onePart : parts) {
+            merged.merge(onePart);
+        }
+        merged.merge(new QuantileSketch());
+
+        assertEquals(whole.getCount(), merged.getCount());
+        assertEquals(whole.getSum(), merged.getSum(), 1e-6);
+        assertEquals(whole.getMin(), merged.getMin(), 0.0);
+        assertEquals(whole.getMax(), merged.getMax(), 0.0);
+
+        for (double oneQuantile : QUANTILES) {
+            assertEquals(whole.getQuantile(oneQuantile), merged.getQuantile(oneQuantile), 0.0);
+        }
+
+        this.assertQuantiles(merged, values, QuantileSketch.DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    @Test
+    public void testBoundedBuckets() throws Exception {
+        QuantileSketch sketch = new QuantileSketch(0.01, 64);
+        double[] values = new double[2000];
+
+        // Values spanning many more buckets than allowed, added in both directions.
+        for (int cur = 0; cur < values.length; cur++) {
+            values[cur] = ((cur % 2) == 0) ? Math.pow(1.01, cur / 2) : Math.pow(1.01, -cur / 2);
+            sketch.add(values[cur]);
+        }
+
+        assertEquals(64, sketch.getAllocatedBuckets());
+        assertEquals(values.length, sketch.getCount());
+
+        // The highest quantiles stay accurate; the lowest are collapsed.
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double oneQuantile : new double[] { 0.99, 0.999, 1.0 }) {
+            double expected = sorted[(int) Math.floor(oneQuantile * (sorted.length - 1))];
+            assertEquals(expected, sketch.getQuantile(oneQuantile), expected * 0.01);
+        }
+        assertTrue(sketch.getQuantile(0.0) >= sorted[0]);
+    }
+
+    @Test
+    public void testMergeCollapses() throws Exception {
+        QuantileSketch low = new QuantileSketch(0.01, 32);
+        QuantileSketch high = new QuantileSketch(0.01, 32);
+        low.add(1.0);
+        high.add(1000.0);
+
+        low.merge(high);
+
+        assertEquals(2L, low.getCount());
+        assertEquals(32, low.getAllocatedBuckets());
+        assertEquals(1000.0, low.getQuantile(1.0), 0.0);
+        assertEquals(1.0, low.getQuantile(0.0), 0.0);
+
+        // The low value was collapsed into the lowest bucket retained, which is far above it.
+        assertTrue(low.getQuantile(0.4) > 100.0);
+    }
+
+    @Test
+    public void testMergeOfCollapsedSketchesIsExact() throws Exception {
+        QuantileSketch whole = new QuantileSketch(0.01, 32);
+        QuantileSketch[] parts = { new QuantileSketch(0.01, 32), new QuantileSketch(0.01, 32) };
+
+        // The part of the lower values collapses on its own, at a far lower bucket than the whole.
+        for (int cur = 0; cur < 1000; cur++) {
+            int exponent = (cur * 7) % 400;
+            double value = Math.pow(1.01, exponent);
+            whole.add(value);
+            parts[(exponent < 200) ? 0 : 1].add(value);
+        }
+
+        QuantileSketch merged = new QuantileSketch(0.01, 32);
+        merged.merge(parts[1]);
+        merged.merge(parts[0]);
+
+        assertEquals(whole.getCount(), merged.getCount());
+        for (double oneQuantile : new double[] { 0.0, 0.01, 0.1, 0.5, 0.9, 0.99, 1.0 }) {
+            assertEquals(whole.getQuantile(oneQuantile), merged.getQuantile(oneQuantile), 0.0);
+        }
+    }
+
+    @Test
+    public void testClearAndCopy() throws Exception {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(3.0);
+        sketch.add(0.0);
+
+        QuantileSketch copy = sketch.copy();
+        sketch.clear();
+
+        assertTrue(sketch.isEmpty());
+        assertTrue(Double.isNaN(sketch.getMax()));
+        assertTrue(Double.isNaN(sketch.getQuantile(1.0)));
+
+        assertEquals(2L, copy.getCount());
+        assertEquals(3.0, copy.getQuantile(1.0), 0.0);
+
+        sketch.add(7.0);
+        assertEquals(7.0, sketch.getQuantile(0.0), 0.0);
+    }
+
+    @Test
+    public void testInvalidArguments() throws Exception {
+        try {
+            new QuantileSketch(0.0, 10);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("relative accuracy must be between 0 and 1: 0.0", iaExc.getMessage());
+        }
+
+        try {
+            new QuantileSketch(0.01, 1);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("max buckets must be at least 2: 1", iaExc.getMessage());
+        }
+
+        QuantileSketch sketch = new QuantileSketch();
+        try {
+            sketch.add(1.0, -1);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("times must not be negative: -1", iaExc.getMessage());
+        }
+
+        try {
+            sketch.getQuantile(1.5);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("quantile must be from 0 to 1: 1.5", iaExc.getMessage());
+        }
+
+        try {
+            sketch.merge(new QuantileSketch(0.05, 10));
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("cannot merge sketches of different relative accuracy: 0.02 and 0.05", iaExc.getMessage());
+        }
+
+        try {
+            sketch.merge(new QuantileSketch(QuantileSketch.DEFAULT_RELATIVE_ACCURACY, 10));
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("cannot merge sketches of different max buckets: 512 and 10", iaExc.getMessage());
+        }
+    }
+
+    protected void assertQuantiles(QuantileSketch sketch, double[] values, double relativeAccuracy) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        for (double oneQuantile : QUANTILES) {
+            double expected = sorted[(int) Math.floor(oneQuantile * (sorted.length - 1))];
+            assertEquals("quantile " + oneQuantile, expected, sketch.getQuantile(oneQuantile),
+                    expected * relativeAccuracy * 1.0001);
+        }
+    }
+}
@@ -0,0 +1,391 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+
+import javax.management.ObjectName;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Verify operation of the SampleLogCompactor.
+ */
+public class SampleLogCompactorTest {
+    private static final int SEGMENT_SIZE = 4096;
+    private static final long HOUR = 3600000L;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File directory;
+    private SeriesRegistry registry;
+    private MappedSampleLog sampleLog;
+    private SampleLogCompactor compactor;
+    private SeriesKey key1;
+    private SeriesKey key2;
+    private int id1;
+    private int id2;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.directory = this.temporaryFolder.newFolder("x-log-x");
+        this.registry = new SeriesRegistry();
+        this.sampleLog = new MappedSampleLog(this.directory, this.registry, SEGMENT_SIZE, 1000 * HOUR);
+        this.sampleLog.open(null);
+
+        this.compactor = new SampleLogCompactor(this.sampleLog);
+        this.compactor.setRetention(100 * HOUR);
+        this.compactor.setRollupAge(10 * HOUR);
+        this.compactor.setRollupInterval(60000L);
+
+        this.key1 = new SeriesKey("x-target-x", new ObjectName("x-domain-x:type=x-type-x"), "x-att1-x");
+        this.key2 = new SeriesKey("x-target-x", new ObjectName("x-domain-x:type=x-type-x"), "x-att2-x");
+        this.id1 = this.registry.getOrCreateId(this.key1);
+        this.id2 = this.registry.getOrCreateId(this.key2);
+    }
+
+    @After
+    public void cleanupTest() throws Exception {
+        this.sampleLog.close();
+    }
+
+    @Test
+    public void testGetSetters() throws Exception {
+        Logger mockLog = mock(Logger.class);
+        SampleLogCompactor defaultCompactor = new SampleLogCompactor(this.sampleLog);
+
+        assertSame(this.sampleLog, defaultCompactor.getSampleLog());
+        assertEquals(SampleLogCompactor.DEFAULT_RETENTION, defaultCompactor.getRetention());
+        assertEquals(SampleLogCompactor.DEFAULT_ROLLUP_AGE, defaultCompactor.getRollupAge());
+        assertEquals(SampleLogCompactor.DEFAULT_ROLLUP_INTERVAL, defaultCompactor.getRollupInterval());
+        assertEquals(SEGMENT_SIZE, defaultCompactor.getMergeTargetSize());
+        assertEquals(0, defaultCompactor.getDeletedSegmentCount());
+        assertEquals(0, defaultCompactor.getRewrittenSegmentCount());
+
+        defaultCompactor.setRetention(1L);
+        defaultCompactor.setRollupAge(2L);
+        defaultCompactor.setRollupInterval(3L);
+        defaultCompactor.setMergeTargetSize(1000);
+
+        assertEquals(1L, defaultCompactor.getRetention());
+        assertEquals(2L, defaultCompactor.getRollupAge());
+        assertEquals(3L, defaultCompactor.getRollupInterval());
+        assertEquals(1000, defaultCompactor.getMergeTargetSize());
+
+        assertNotNull(defaultCompactor.getLog());
+        defaultCompactor.setLog(mockLog);
+        assertSame(mockLog, defaultCompactor.getLog());
+    }
+
+    @Test
+    public void testInvalidSettings() throws Exception {
+        try {
+            this.compactor.setRetention(0);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertTrue(iaExc.getMessage().contains("retention"));
+        }
+
+        try {
+            this.compactor.setRollupAge(-1);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertTrue(iaExc.getMessage().contains("rollupAge"));
+        }
+
+        try {
+            this.compactor.setRollupInterval(0);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertTrue(iaExc.getMessage().contains("rollupInterval"));
+        }
+
+        try {
+            this.compactor.setMergeTargetSize(SampleLogSegment.HEADER_SIZE);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertTrue(iaExc.getMessage().contains("mergeTargetSize"));
+        }
+    }
+
+    @Test
+    public void testMergeSmallSegments() throws Exception {
+        long start = 1000 * HOUR;
+
+        for (int cur = 0; cur < 4; cur++) {
+            assertTrue(this.sampleLog.append(this.id1, start + cur * 1000L, cur));
+            assertTrue(this.sampleLog.append(this.id2, start + cur * 1000L, -cur));
+            this.sampleLog.roll();
+        }
+
+        assertTrue(this.sampleLog.append(this.id1, start + 10000L, 10.0));
+        assertEquals(4, this.sampleLog.getSealedSegments().size());
+
+        this.compactor.compact(start + HOUR);
+
+        List<SampleLogSegment> sealed = this.sampleLog.getSealedSegments();
+        assertEquals(1, sealed.size());
+        assertEquals(3, sealed.get(0).getNumber());
+        assertEquals(0L, sealed.get(0).getResolution());
+        assertEquals(4, this.compactor.getRewrittenSegmentCount());
+        assertEquals(0, this.compactor.getDeletedSegmentCount());
+
+        // Only the merged segment and the active segment remain on disk.
+        assertEquals(Arrays.asList(new File(this.directory, SampleLogSegment.getFileName(3)),
+                        new File(this.directory, SampleLogSegment.getFileName(4))),
+                MappedSampleLog.listSegmentFiles(this.directory));
+
+        List<String> samples1 = this.recover(this.id1);
+        assertEquals(Arrays.asList(
+                (start) + "=0.0", (start + 1000L) + "=1.0", (start + 2000L) + "=2.0", (start + 3000L) + "=3.0",
+                (start + 10000L) + "=10.0"), samples1);
+        assertEquals(4, this.recover(this.id2).size());
+
+        // Nothing further to do.
+        this.compactor.compact(start + HOUR);
+        assertEquals(4, this.compactor.getRewrittenSegmentCount());
+    }
+
+    @Test
+    public void testMergeTargetSize() throws Exception {
+        this.compactor.setMergeTargetSize(SampleLogSegment.HEADER_SIZE + 300);
+
+        for (int cur = 0; cur < 4; cur++) {
+            for (int sample = 0; sample < 3; sample++) {
+                assertTrue(this.sampleLog.append(this.id1, 1000 * HOUR + cur * 10L + sample, sample));
+            }
+            this.sampleLog.roll();
+        }
+
+        this.compactor.compact(1001 * HOUR);
+
+        // Each segment holds about 130 bytes of records, so only pairs fit in the target size.
+        List<SampleLogSegment> sealed = this.sampleLog.getSealedSegments();
+        assertEquals(2, sealed.size());
+        assertEquals(1, sealed.get(0).getNumber());
+        assertEquals(3, sealed.get(1).getNumber());
+    }
+
+    @Test
+    public void testDownsample() throws Exception {
+        long start = 1000 * HOUR;
+
+        for (int cur = 0; cur < 90; cur++) {
+            assertTrue(this.sampleLog.append(this.id1, start + cur * 2000L, cur));
+        }
+        this.sampleLog.roll();
+
+        // Not old enough yet.
+        this.compactor.compact(start + 10 * HOUR);
+        assertEquals(0L, this.sampleLog.getSealedSegments().get(0).getResolution());
+        assertEquals(0, this.compactor.getRewrittenSegmentCount());
+
+        this.compactor.compact(start + 11 * HOUR);
+
+        List<SampleLogSegment> sealed = this.sampleLog.getSealedSegments();
+        assertEquals(1, sealed.size());
+        assertEquals(60000L, sealed.get(0).getResolution());
+        assertEquals(1, this.compactor.getRewrittenSegmentCount());
+
+        assertEquals(Arrays.asList(start + "=14.5", (start + 60000L) + "=44.5", (start + 120000L) + "=74.5"),
+                this.recover(this.id1));
+
+        // Downsampling is not repeated.
+        this.compactor.compact(start + 12 * HOUR);
+        assertEquals(1, this.compactor.getRewrittenSegmentCount());
+    }
+
+    @Test
+    public void testDownsampleIntervalSplitAcrossSegments() throws Exception {
+        long start = 1000 * HOUR;
+
+        // The interval starting at start + 60000 is split between the two segments.
+        for (int cur = 0; cur < 13; cur++) {
+            assertTrue(this.sampleLog.append(this.id1, start + cur * 10000L, cur));
+            if (cur == 7) {
+                this.sampleLog.roll();
+            }
+        }
+        this.sampleLog.roll();
+
+        // Too small to merge the segments, so each is downsampled on its own and the split interval is kept as-is.
+        this.compactor.setMergeTargetSize(SampleLogSegment.HEADER_SIZE + 1);
+        this.compactor.compact(start + 11 * HOUR);
+
+        List<SampleLogSegment> sealed = this.sampleLog.getSealedSegments();
+        assertEquals(2, sealed.size());
+        assertEquals(60000L, sealed.get(0).getResolution());
+        assertEquals(60000L, sealed.get(1).getResolution());
+
+        assertEquals(Arrays.asList(
+                start + "=2.5", (start + 60000L) + "=6.0", (start + 70000L) + "=7.0", (start + 80000L) + "=8.0",
+                (start + 90000L) + "=9.0", (start + 100000L) + "=10.0", (start + 110000L) + "=11.0",
+                (start + 120000L) + "=12.0"), this.recover(this.id1));
+
+        // Once merged, the split interval is averaged over all of its samples.
+        this.compactor.setMergeTargetSize(SEGMENT_SIZE);
+        this.compactor.compact(start + 12 * HOUR);
+
+        assertEquals(1, this.sampleLog.getSealedSegments().size());
+        assertEquals(Arrays.asList(start + "=2.5", (start + 60000L) + "=8.5", (start + 120000L) + "=12.0"),
+                this.recover(this.id1));
+    }
+
+    @Test
+    public void testRollupsNotMergedWithRawSegments() throws Exception {
+        long start = 1000 * HOUR;
+
+        assertTrue(this.sampleLog.append(this.id1, start, 1.0));
+        this.sampleLog.roll();
+        assertTrue(this.sampleLog.append(this.id1, start + 20 * HOUR, 2.0));
+        this.sampleLog.roll();
+
+        this.compactor.compact(start + 21 * HOUR);
+
+        List<SampleLogSegment> sealed = this.sampleLog.getSealedSegments();
+        assertEquals(2, sealed.size());
+        assertEquals(60000L, sealed.get(0).getResolution());
+        assertEquals(0L, sealed.get(1).getResolution());
+    }
+
+    @Test
+    public void testRetention() throws Exception {
+        long start = 1000 * HOUR;
+
+        assertTrue(this.sampleLog.append(this.id1, start, 1.0));
+        this.sampleLog.roll();
+        assertTrue(this.sampleLog.append(this.id1, start + 50 * HOUR, 2.0));
+        this.sampleLog.roll();
+
+        File expiredFile = this.sampleLog.getSealedSegments().get(0).getFile();
+
+        this.compactor.compact(start + 101 * HOUR);
+
+        assertFalse(expiredFile.exists());
+        assertEquals(1, this.compactor.getDeletedSegmentCount());
+        assertEquals(1, this.sampleLog.getSealedSegments().size());
+        assertEquals(Collections.singletonList((start + 50 * HOUR) + "=2.0"), this.recover(this.id1));
+    }
+
+    @Test
+    public void testDropDuplicateAndEmptySegments() throws Exception {
+        this.sampleLog.close();
+
+        // Segments as left by a crash between renaming a merged segment into place and deleting its inputs.
+        SampleLogSegment segment0 = SampleLogSegment.create(this.directory, 0, SEGMENT_SIZE, 0L);
+        segment0.appendSeries(this.id1, this.key1);
+        segment0.appendSample(this.id1, 1000L, 1.0);
+        segment0.close();
+
+        SampleLogSegment segment1 = SampleLogSegment.create(this.directory, 1, SEGMENT_SIZE, 0L);
+        segment1.appendSeries(this.id1, this.key1);
+        segment1.appendSample(this.id1, 1000L, 1.0);
+        segment1.appendSample(this.id1, 2000L, 2.0);
+        segment1.close();
+
+        SampleLogSegment.create(this.directory, 2, SEGMENT_SIZE, 0L).close();
+        SampleLogSegment.create(this.directory, 3, SEGMENT_SIZE, 0L).close();
+
+        File tempFile = new File(this.directory, SampleLogSegment.getFileName(1) + ".tmp");
+        assertTrue(tempFile.createNewFile());
+        File otherFile = new File(this.directory, "x-other-x.tmp");
+        assertTrue(otherFile.createNewFile());
+
+        this.sampleLog = new MappedSampleLog(this.directory, this.registry, SEGMENT_SIZE, 1000 * HOUR);
+        this.sampleLog.open(null);
+        this.sampleLog.roll();
+
+        this.compactor = new SampleLogCompactor(this.sampleLog);
+        this.compactor.setMergeTargetSize(SampleLogSegment.HEADER_SIZE + 300);
+        this.compactor.compact(HOUR);
+
+        assertFalse(tempFile.exists());
+        assertTrue(otherFile.exists());
+
+        List<SampleLogSegment> sealed = this.sampleLog.getSealedSegments();
+        assertEquals(1, sealed.size());
+        assertEquals(3, sealed.get(0).getNumber());
+        assertEquals(Arrays.asList("1000=1.0", "2000=2.0"), this.recover(this.id1));
+    }
+
+    @Test
+    public void testRunFailure() throws Exception {
+        Logger mockLog = mock(Logger.class);
+        MappedSampleLog mockSampleLog = mock(MappedSampleLog.class);
+        RuntimeException rtExc = new RuntimeException("x-rt-exc-x");
+
+        when(mockSampleLog.getDirectory()).thenReturn(this.directory);
+        when(mockSampleLog.getSealedSegments()).thenThrow(rtExc);
+
+        SampleLogCompactor failingCompactor = new SampleLogCompactor(mockSampleLog);
+        failingCompactor.setLog(mockLog);
+        failingCompactor.run();
+
+        verify(mockLog).warn("sample log compaction failed: directory={}", this.directory, rtExc);
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        assertTrue(this.sampleLog.append(this.id1, 1000L, 1.0));
+        this.sampleLog.roll();
+
+        // Using the current time, the sample is long past retention.
+        this.compactor.run();
+
+        assertTrue(this.sampleLog.getSealedSegments().isEmpty());
+        assertEquals(1, this.compactor.getDeletedSegmentCount());
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    /**
+     * Recover the samples of the series from the segment files, as on restart.
+     */
+    private List<String> recover(int seriesId) throws Exception {
+        SeriesRegistry recoveredRegistry = new SeriesRegistry();
+        CompressedSampleStore store = new CompressedSampleStore(recoveredRegistry);
+
+        File copyDirectory = this.temporaryFolder.newFolder();
+        for (File oneFile : MappedSampleLog.listSegmentFiles(this.directory)) {
+            Files.copy(oneFile.toPath(), new File(copyDirectory, oneFile.getName()).toPath());
+        }
+
+        MappedSampleLog recoveredLog = new MappedSampleLog(copyDirectory, recoveredRegistry, SEGMENT_SIZE, HOUR);
+        recoveredLog.open(store);
+        recoveredLog.close();
+
+        OffHeapSampleStoreTest.CollectingVisitor visitor = new OffHeapSampleStoreTest.CollectingVisitor();
+        store.scan(seriesId, Long.MIN_VALUE, Long.MAX_VALUE, visitor);
+
+        return visitor.samples;
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the SampleLogSegment.
+ */
+public class SampleLogSegmentTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File directory;
+    private SeriesKey key1;
+    private SeriesKey key2;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.directory = this.temporaryFolder.newFolder("x-log-x");
+        this.key1 = new SeriesKey("x-target-x", new ObjectName("x-domain-x:type=x-type-x"), "x-att1-x");
+        this.key2 = new SeriesKey(null, new ObjectName("x-domain-x:type=x-type-x"), "x-att2-x");
+    }
+
+    @Test
+    public void testCreateAppendAndScan() throws Exception {
+        SampleLogSegment segment = SampleLogSegment.create(this.directory, 7, 4096, 1234L);
+
+        assertEquals(7, segment.getNumber());
+        assertEquals(1234L, segment.getCreationTime());
+        assertEquals(4096, segment.getCapacity());
+        assertEquals(SampleLogSegment.HEADER_SIZE, segment.getUsedSize());
+        assertEquals(new File(this.directory, "samples-0000000000000007.seg"), segment.getFile());
+        assertEquals(Long.MAX_VALUE, segment.getFirstTimestamp());
+        assertEquals(Long.MIN_VALUE, segment.getLastTimestamp());
+
+        this.appendSamples(segment);
+
+        assertTrue(segment.isSeriesDefined(1));
+        assertTrue(segment.isSeriesDefined(2));
+        assertFalse(segment.isSeriesDefined(3));
+        assertEquals(1000L, segment.getFirstTimestamp());
+        assertEquals(3000L, segment.getLastTimestamp());
+
+        CollectingRecordVisitor visitor = new CollectingRecordVisitor();
+        segment.scan(visitor);
+
+        assertEquals(this.expectedRecords(), visitor.records);
+
+        segment.close();
+    }
+
+    @Test
+    public void testCreateWithResolution() throws Exception {
+        File file = new File(this.directory, "x-file-x");
+        SampleLogSegment segment = SampleLogSegment.create(file, 9, 4096, 1234L, 60000L);
+
+        SampleLogSegment rawSegment = SampleLogSegment.create(this.directory, 1, 4096, 0L);
+
+        assertEquals(0L, rawSegment.getResolution());
+        assertEquals(60000L, segment.getResolution());
+        rawSegment.close();
+        segment.close();
+
+        SampleLogSegment reopened = SampleLogSegment.open(file, null);
+        assertEquals(9, reopened.getNumber());
+        assertEquals(60000L, reopened.getResolution());
+        reopened.close();
+    }
+
+    @Test
+    public void testCreateExisting() throws Exception {
+        SampleLogSegment.create(this.directory, 1, 4096, 0L).close();
+
+        try {
+            SampleLogSegment.create(this.directory, 1, 4096, 0L);
+            fail("missing expected exception");
+        } catch (IOException ioExc) {
+            assertTrue(ioExc.getMessage().contains("already exists"));
+        }
+    }
+
+    @Test
+    public void testReopen() throws Exception {
+        SampleLogSegment segment = SampleLogSegment.create(this.directory, 3, 4096, 1234L);
+        this.appendSamples(segment);
+        int usedSize = segment.getUsedSize();
+        segment.close();
+
+        CollectingRecordVisitor visitor = new CollectingRecordVisitor();
+        SampleLogSegment reopened = SampleLogSegment.open(segment.getFile(), visitor);
+
+        assertEquals(this.expectedRecords(), visitor.records);
+        assertEquals(3, reopened.getNumber());
+        assertEquals(1234L, reopened.getCreationTime());
+        assertEquals(usedSize, reopened.getUsedSize());
+        assertTrue(reopened.isSeriesDefined(1));
+        assertTrue(reopened.isSeriesDefined(2));
+        assertEquals(1000L, reopened.getFirstTimestamp());
+        assertEquals(3000L, reopened.getLastTimestamp());
+
+        // Appends continue after the recovered records.
+        assertTrue(reopened.appendSample(1, 4000L, 4.0));
+        visitor = new CollectingRecordVisitor();
+        reopened.scan(visitor);
+        assertEquals("sample 1 4000=4.0", visitor.records.get(visitor.records.size() - 1));
+
+        reopened.close();
+    }
+
+    @Test
+    public void testRecoverTornRecord() throws Exception {
+        SampleLogSegment segment = SampleLogSegment.create(this.directory, 1, 4096, 0L);
+        this.appendSamples(segment);
+        int validSize = segment.getUsedSize();
+
+        assertTrue(segment.appendSample(2, 5000L, 5.0));
+        segment.close();
+
+        // Corrupt the value of the last record, as if the process died part way through writing it.
+        this.writeByte(segment.getFile(), validSize + 20, 0x55);
+
+        CollectingRecordVisitor visitor = new CollectingRecordVisitor();
+        SampleLogSegment reopened = SampleLogSegment.open(segment.getFile(), visitor);
+
+        assertEquals(this.expectedRecords(), visitor.records);
+        assertEquals(validSize, reopened.getUsedSize());
+        assertEquals(3000L, reopened.getLastTimestamp());
+
+        // The torn record is cleared and overwritten by the next append.
+        assertTrue(reopened.appendSample(2, 6000L, 6.0));
+        reopened.close();
+
+        visitor = new CollectingRecordVisitor();
+        SampleLogSegment.open(segment.getFile(), visitor).close();
+
+        List<String> expected = new ArrayList<>(this.expectedRecords());
+        expected.add("sample 2 6000=6.0");
+        assertEquals(expected, visitor.records);
+    }
+
+    @Test
+    public void testRecoverCorruptSeriesRecord() throws Exception {
+        SampleLogSegment segment = SampleLogSegment.create(this.directory, 1, 4096, 0L);
+        assertTrue(segment.appendSeries(1, this.key1));
+        assertTrue(segment.appendSample(1, 1000L, 1.0));
+        segment.close();
+
+        this.writeByte(segment.getFile(), SampleLogSegment.HEADER_SIZE + 10, 'Z');
+
+        CollectingRecordVisitor visitor = new CollectingRecordVisitor();
+        SampleLogSegment reopened = SampleLogSegment.open(segment.getFile(), visitor);
+
+        assertTrue(visitor.records.isEmpty());
+        assertEquals(SampleLogSegment.HEADER_SIZE, reopened.getUsedSize());
+        assertFalse(reopened.isSeriesDefined(1));
+
+        reopened.close();
+    }
+
+    @Test
+    public void testOpenInvalid() throws Exception {
+        File file = new File(this.directory, SampleLogSegment.getFileName(1));
+
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.setLength(10);
+        randomAccessFile.close();
+
+        try {
+            SampleLogSegment.open(file, null);
+            fail("missing expected exception");
+        } catch (IOException ioExc) {
+            assertTrue(ioExc.getMessage().contains("invalid segment size"));
+        }
+
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.setLength(100);
+        randomAccessFile.close();
+
+        try {
+            SampleLogSegment.open(file, null);
+            fail("missing expected exception");
+        } catch (IOException ioExc) {
+            assertTrue(ioExc.getMessage().contains("invalid segment header"));
+        }
+    }
+
+    @Test
+    public void testFull() throws Exception {
+        int size = SampleLogSegment.HEADER_SIZE + 2 * SampleLogSegment.SAMPLE_RECORD_SIZE;
+        SampleLogSegment segment = SampleLogSegment.create(this.directory, 1, size, 0L);
+
+        assertTrue(segment.appendSample(1, 1000L, 1.0));
+        assertTrue(segment.appendSample(1, 2000L, 2.0));
+        assertFalse(segment.appendSample(1, 3000L, 3.0));
+        assertFalse(segment.appendSeries(2, this.key2));
+        assertEquals(size, segment.getUsedSize());
+
+        segment.close();
+    }
+
+    @Test
+    public void testFileNames() throws Exception {
+        assertEquals("samples-0000000000000042.seg", SampleLogSegment.getFileName(42));
+        assertTrue(SampleLogSegment.isSegmentFileName("samples-0000000000000042.seg"));
+        assertFalse(SampleLogSegment.isSegmentFileName("samples-42.seg"));
+        assertFalse(SampleLogSegment.isSegmentFileName("x-other-x"));
+
+        assertEquals(42L, SampleLogSegment.parseNumber("samples-0000000000000042.seg"));
+        assertEquals(-1L, SampleLogSegment.parseNumber("samples-00000000000000xx.seg"));
+        assertEquals(-1L, SampleLogSegment.parseNumber("x-other-x"));
+    }
+
+
+
+                                        ////             ////
+                                        ////  INTERNALS  ////
+                                        ////             ////
+
+    private void appendSamples(SampleLogSegment segment) {
+        assertTrue(segment.appendSeries(1, this.key1));
+        assertTrue(segment.appendSample(1, 1000L, 1.5));
+        assertTrue(segment.appendSeries(2, this.key2));
+        assertTrue(segment.appendSample(2, 2000L, -2.5));
+        assertTrue(segment.appendSample(1, 3000L, 3.5));
+    }
+
+    private List<String> expectedRecords() {
+        return Arrays.asList(
+                "series 1 " + this.key1,
+                "sample 1 1000=1.5",
+                "series 2 " + this.key2,
+                "sample 2 2000=-2.5",
+                "sample 1 3000=3.5");
+    }
+
+    private void writeByte(File file, long position, int value) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.seek(position);
+            randomAccessFile.write(value);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    protected static class CollectingRecordVisitor implements SampleLogRecordVisitor {
+        protected final List<String> records = new ArrayList<>();
+
+        @Override
+        public void onSeries(int seriesId, SeriesKey key) {
+            this.records.add("series " + seriesId + " " + key);
+        }
+
+        @Override
+        public void onSample(int seriesId, long timestamp, double value) {
+            this.records.add("sample " + seriesId + " " + timestamp + "=" + value);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import org.junit.Test;
+
+import javax.management.ObjectName;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the SeriesKey.
+ */
+public class SeriesKeyTest {
+
+    @Test
+    public void testEqualsAndHashCode() throws Exception {
+        ObjectName objectName = new ObjectName("x-domain-x:x-key-x=x-value-x");
+
+        SeriesKey key1 = new SeriesKey("x-target-x", objectName, "x-att-x");
+        SeriesKey key2 = new SeriesKey("x-target-x", new ObjectName("x-domain-x:x-key-x=x-value-x"), "x-att-x");
+        SeriesKey noTarget1 = new SeriesKey(null, objectName, "x-att-x");
+        SeriesKey noTarget2 = new SeriesKey(null, objectName, "x-att-x");
+
+        assertEquals(key1, key1);
+        assertEquals(key1, key2);
+        assertEquals(key1.hashCode(), key2.hashCode());
+        assertEquals(noTarget1, noTarget2);
+        assertEquals(noTarget1.hashCode(), noTarget2.hashCode());
+        assertFalse(key1.equals(noTarget1));
+        assertFalse(noTarget1.equals(key1));
+        assertFalse(key1.equals(new SeriesKey("x-target-x", objectName, "x-other-att-x")));
+        assertFalse(key1.equals("x-not-key-x"));
+
+        assertEquals("x-target-x", key1.getTarget());
+        assertSame(objectName, key1.getObjectName());
+        assertEquals("x-att-x", key1.getAttributeName());
+        assertTrue(key1.toString().contains("attributeName=x-att-x"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingAttributeName() throws Exception {
+        new SeriesKey("x-target-x", new ObjectName("x-domain-x:x-key-x=x-value-x"), null);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the SeriesRegistry.
+ */
+public class SeriesRegistryTest {
+    private SeriesRegistry registry;
+    private SeriesKey key1;
+    private SeriesKey key2;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.registry = new SeriesRegistry();
+
+        ObjectName objectName = new ObjectName("x-domain-x:x-key-x=x-value-x");
+        this.key1 = new SeriesKey("x-target-x", objectName, "x-att1-x");
+        this.key2 = new SeriesKey("x-target-x", objectName, "x-att2-x");
+    }
+
+    @Test
+    public void testGetOrCreateId() throws Exception {
+        assertEquals(-1, this.registry.getId(this.key1));
+
+        assertEquals(0, this.registry.getOrCreateId(this.key1));
+        assertEquals(1, this.registry.getOrCreateId(this.key2));
+        assertEquals(0, this.registry.getOrCreateId(this.key1));
+
+        assertEquals(0, this.registry.getId(this.key1));
+        assertSame(this.key2, this.registry.getKey(1));
+        assertNull(this.registry.getKey(2));
+        assertNull(this.registry.getKey(-1));
+        assertEquals(2, this.registry.getSeriesCount());
+    }
+
+    @Test
+    public void testRegister() throws Exception {
+        this.registry.register(this.key2, 3);
+        this.registry.register(this.key2, 3);
+
+        assertEquals(3, this.registry.getId(this.key2));
+        assertSame(this.key2, this.registry.getKey(3));
+        assertNull(this.registry.getKey(0));
+        assertEquals(4, this.registry.getSeriesCount());
+
+        // New series are assigned IDs after the restored ones.
+        assertEquals(4, this.registry.getOrCreateId(this.key1));
+
+        assertEquals(Arrays.asList(null, this.key2, this.key1), this.registry.getKeys(2));
+        assertTrue(this.registry.getKeys(5).isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRegisterConflictingId() throws Exception {
+        this.registry.register(this.key1, 0);
+        this.registry.register(this.key1, 1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRegisterConflictingKey() throws Exception {
+        this.registry.register(this.key1, 0);
+        this.registry.register(this.key2, 0);
+    }
+}
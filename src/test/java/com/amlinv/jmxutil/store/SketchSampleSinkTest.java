@@ -0,0 +1,164 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the SketchSampleSink.
+ */
+public class SketchSampleSinkTest {
+    private SeriesRegistry registry;
+    private SketchSampleSink sink;
+
+    private int broker1Latency;
+    private int broker2Latency;
+    private int broker1Other;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.registry = new SeriesRegistry();
+        this.sink = new SketchSampleSink(this.registry, 1000L, 3, 0.01, 256);
+
+        ObjectName objectName = new ObjectName("x-domain-x:type=Service,name=x-service-x");
+        this.broker1Latency = this.registry.getOrCreateId(new SeriesKey("x-broker1-x", objectName, "Latency"));
+        this.broker2Latency = this.registry.getOrCreateId(new SeriesKey("x-broker2-x", objectName, "Latency"));
+        this.broker1Other = this.registry.getOrCreateId(new SeriesKey("x-broker1-x", objectName, "x-other-att-x"));
+    }
+
+    @Test
+    public void testGetters() throws Exception {
+        assertSame(this.registry, this.sink.getSeriesRegistry());
+        assertEquals(1000L, this.sink.getWindowSize());
+        assertEquals(3, this.sink.getWindowCount());
+        assertEquals(0.01, this.sink.getRelativeAccuracy(), 0.0);
+        assertEquals(256, this.sink.getMaxBuckets());
+
+        SketchSampleSink defaultSink = new SketchSampleSink(this.registry);
+        assertEquals(SketchSampleSink.DEFAULT_WINDOW_SIZE, defaultSink.getWindowSize());
+        assertEquals(SketchSampleSink.DEFAULT_WINDOW_COUNT, defaultSink.getWindowCount());
+        assertEquals(QuantileSketch.DEFAULT_RELATIVE_ACCURACY, defaultSink.getRelativeAccuracy(), 0.0);
+        assertEquals(QuantileSketch.DEFAULT_MAX_BUCKETS, defaultSink.getMaxBuckets());
+    }
+
+    @Test
+    public void testWindows() throws Exception {
+        assertTrue(this.sink.append(this.broker1Latency, 500L, 10.0));
+        assertTrue(this.sink.append(this.broker1Latency, 1500L, 20.0));
+        assertTrue(this.sink.append(this.broker1Latency, 2500L, 30.0));
+        assertFalse(this.sink.append(this.broker1Latency, 2600L, Double.NaN));
+
+        QuantileSketch sketch = this.sink.getSketch(this.broker1Latency, 2999L);
+        assertEquals(3L, sketch.getCount());
+        assertEquals(10.0, sketch.getMin(), 0.0);
+        assertEquals(30.0, sketch.getMax(), 0.0);
+
+        // Windows after "now" are excluded, as are windows before the retained range.
+        assertEquals(2L, this.sink.getSketch(this.broker1Latency, 1999L).getCount());
+        assertEquals(2L, this.sink.getSketch(this.broker1Latency, 3000L).getCount());
+
+        // The first window is replaced by a later one.
+        assertTrue(this.sink.append(this.broker1Latency, 3100L, 40.0));
+        sketch = this.sink.getSketch(this.broker1Latency, 3100L);
+        assertEquals(3L, sketch.getCount());
+        assertEquals(20.0, sketch.getMin(), 0.0);
+
+        // Samples of a window that was already replaced are rejected.
+        assertFalse(this.sink.append(this.broker1Latency, 200L, 1.0));
+        assertEquals(3L, this.sink.getSketch(this.broker1Latency, 3100L).getCount());
+    }
+
+    @Test
+    public void testUnknownSeries() throws Exception {
+        assertTrue(this.sink.getSketch(this.broker1Latency, 1000L).isEmpty());
+        assertTrue(this.sink.getSketch(99, 1000L).isEmpty());
+        assertTrue(this.sink.getSketch(-1, 1000L).isEmpty());
+
+        this.sink.append(this.broker2Latency, 500L, 1.0);
+        assertTrue(this.sink.getSketch(this.broker1Latency, 1000L).isEmpty());
+    }
+
+    @Test
+    public void testMergedAcrossTargets() throws Exception {
+        for (int cur = 1; cur <= 100; cur++) {
+            this.sink.append(this.broker1Latency, 100L, cur);
+            this.sink.append(this.broker2Latency, 100L, cur + 100);
+            this.sink.append(this.broker1Other, 100L, 100000.0);
+        }
+
+        QuantileSketch merged =
+                this.sink.getMergedSketch(new ObjectName("x-domain-x:type=Service,*"), "Latency", 500L);
+
+        assertEquals(200L, merged.getCount());
+        assertEquals(1.0, merged.getMin(), 0.0);
+        assertEquals(200.0, merged.getMax(), 0.0);
+        assertEquals(100.0, merged.getQuantile(0.5), 100.0 * 0.01);
+        assertEquals(198.0, merged.getQuantile(0.99), 198.0 * 0.01);
+
+        assertTrue(this.sink.getMergedSketch(new ObjectName("x-other-domain-x:*"), "Latency", 500L).isEmpty());
+    }
+
+    @Test
+    public void testMergeInto() throws Exception {
+        this.sink.append(this.broker1Latency, 100L, 5.0);
+
+        SketchSampleSink otherSink = new SketchSampleSink(this.registry, 1000L, 3, 0.01, 256);
+        otherSink.append(this.broker1Latency, 100L, 7.0);
+
+        QuantileSketch combined = new QuantileSketch(0.01, 256);
+        this.sink.mergeInto(combined, this.broker1Latency, 100L);
+        otherSink.mergeInto(combined, this.broker1Latency, 100L);
+
+        assertEquals(2L, combined.getCount());
+        assertEquals(12.0, combined.getSum(), 0.0);
+    }
+
+    @Test
+    public void testInvalidArguments() throws Exception {
+        try {
+            new SketchSampleSink(this.registry, 0L, 3, 0.01, 256);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("window size must be positive: 0", iaExc.getMessage());
+        }
+
+        try {
+            new SketchSampleSink(this.registry, 1000L, 0, 0.01, 256);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("window count must be positive: 0", iaExc.getMessage());
+        }
+
+        try {
+            new SketchSampleSink(this.registry, 1000L, 3, 2.0, 256);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("relative accuracy must be between 0 and 1: 2.0", iaExc.getMessage());
+        }
+
+        try {
+            this.sink.append(-1, 0L, 1.0);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("invalid series id -1", iaExc.getMessage());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the TimestampUtil.
+ */
+public class TimestampUtilTest {
+    @Test
+    public void testAlignDown() throws Exception {
+        assertEquals(3000L, TimestampUtil.alignDown(3999L, 1000L));
+        assertEquals(3000L, TimestampUtil.alignDown(3000L, 1000L));
+        assertEquals(0L, TimestampUtil.alignDown(0L, 1000L));
+        assertEquals(-1000L, TimestampUtil.alignDown(-1000L, 1000L));
+        assertEquals(-2000L, TimestampUtil.alignDown(-1001L, 1000L));
+    }
+}
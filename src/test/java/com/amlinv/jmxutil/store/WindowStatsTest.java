@@ -0,0 +1,40 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the WindowStats.
+ */
+public class WindowStatsTest {
+
+    @Test
+    public void testGetters() throws Exception {
+        WindowStats stats = new WindowStats(60000L, 4L, 2.5, 1.0, 4.0, 1.25);
+
+        assertEquals(60000L, stats.getWindowSize());
+        assertEquals(4L, stats.getCount());
+        assertEquals(2.5, stats.getMean(), 0.0);
+        assertEquals(1.0, stats.getMin(), 0.0);
+        assertEquals(4.0, stats.getMax(), 0.0);
+        assertEquals(1.25, stats.getVariance(), 0.0);
+        assertEquals(Math.sqrt(1.25), stats.getStandardDeviation(), 0.0);
+        assertTrue(stats.toString().contains("count=4"));
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ *   Copyright 2015 AML Innovation & Consulting LLC
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.amlinv.jmxutil.store;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verify operation of the WindowedStatsSampleSink.
+ */
+public class WindowedStatsSampleSinkTest {
+    private WindowedStatsSampleSink sink;
+
+    @Before
+    public void setupTest() throws Exception {
+        this.sink = new WindowedStatsSampleSink(1000L, 2000L, 5000L);
+    }
+
+    @Test
+    public void testGetters() throws Exception {
+        assertEquals(1000L, this.sink.getBucketSize());
+        assertArrayEquals(new long[] { 2000L, 5000L }, this.sink.getWindowSizes());
+
+        WindowedStatsSampleSink defaultSink = new WindowedStatsSampleSink();
+        assertEquals(WindowedStatsSampleSink.DEFAULT_BUCKET_SIZE, defaultSink.getBucketSize());
+        assertArrayEquals(WindowedStatsSampleSink.DEFAULT_WINDOW_SIZES, defaultSink.getWindowSizes());
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        WindowStats stats = this.sink.getStats(0, 2000L, 1000L);
+
+        assertEquals(2000L, stats.getWindowSize());
+        assertEquals(0L, stats.getCount());
+        assertTrue(Double.isNaN(stats.getMean()));
+        assertTrue(Double.isNaN(stats.getMin()));
+        assertTrue(Double.isNaN(stats.getMax()));
+        assertTrue(Double.isNaN(stats.getStandardDeviation()));
+
+        assertEquals(0L, this.sink.getStats(-1, 2000L, 1000L).getCount());
+        assertEquals(0L, this.sink.getStats(1000, 2000L, 1000L).getCount());
+    }
+
+    @Test
+    public void testWindows() throws Exception {
+        assertTrue(this.sink.append(0, 100L, 1.0));
+        assertTrue(this.sink.append(0, 1100L, 2.0));
+        assertTrue(this.sink.append(0, 2100L, 3.0));
+        assertTrue(this.sink.append(0, 3100L, 4.0));
+        assertTrue(this.sink.append(0, 3900L, 6.0));
+        assertFalse(this.sink.append(0, 3950L, Double.NaN));
+
+        WindowStats[] stats = this.sink.getStats(0, 3999L);
+
+        // The short window covers the buckets starting at 2000 and 3000.
+        assertEquals(3L, stats[0].getCount());
+        assertEquals(13.0 / 3, stats[0].getMean(), 1e-12);
+        assertEquals(3.0, stats[0].getMin(), 0.0);
+        assertEquals(6.0, stats[0].getMax(), 0.0);
+        assertEquals(Math.sqrt(14.0 / 9), stats[0].getStandardDeviation(), 1e-12);
+
+        assertEquals(5L, stats[1].getCount());
+        assertEquals(3.2, stats[1].getMean(), 1e-12);
+        assertEquals(1.0, stats[1].getMin(), 0.0);
+        assertEquals(6.0, stats[1].getMax(), 0.0);
+        assertEquals(Math.sqrt(14.8 / 5), stats[1].getStandardDeviation(), 1e-12);
+
+        // Buckets after "now" are excluded.
+        assertEquals(2L, this.sink.getStats(0, 5000L, 1500L).getCount());
+    }
+
+    @Test
+    public void testSliding() throws Exception {
+        for (long time = 0; time < 10000L; time += 500L) {
+            this.sink.append(0, time, time / 1000);
+        }
+
+        // The first buckets were replaced as the ring wrapped around.
+        WindowStats stats = this.sink.getStats(0, 5000L, 9999L);
+        assertEquals(10L, stats.getCount());
+        assertEquals(5.0, stats.getMin(), 0.0);
+        assertEquals(9.0, stats.getMax(), 0.0);
+        assertEquals(7.0, stats.getMean(), 0.0);
+
+        // Samples of a bucket that was already replaced are rejected.
+        assertFalse(this.sink.append(0, 1000L, 100.0));
+        assertEquals(7.0, this.sink.getStats(0, 5000L, 9999L).getMean(), 0.0);
+
+        // Later, with no more samples, the window empties.
+        assertEquals(0L, this.sink.getStats(0, 5000L, 20000L).getCount());
+    }
+
+    @Test
+    public void testMatchesDirectComputation() throws Exception {
+        Random random = new Random(99L);
+        double[] values = new double[5000];
+
+        for (int cur = 0; cur < values.length; cur++) {
+            values[cur] = 1.0e6 + random.nextGaussian() * 10.0;
+            this.sink.append(3, cur, values[cur]);
+        }
+
+        double sum = 0.0;
+        for (double oneValue : values) {
+            sum += oneValue;
+        }
+        double mean = sum / values.length;
+
+        double squaredDeviation = 0.0;
+        for (double oneValue : values) {
+            squaredDeviation += (oneValue - mean) * (oneValue - mean);
+        }
+
+        WindowStats stats = this.sink.getStats(3, 5000L, 4999L);
+        assertEquals(values.length, stats.getCount());
+        assertEquals(mean, stats.getMean(), 1e-6);
+        assertEquals(Math.sqrt(squaredDeviation / values.length), stats.getStandardDeviation(), 1e-6);
+    }
+
+    @Test
+    public void testMultipleSeriesAndReset() throws Exception {
+        this.sink.append(0, 100L, 1.0);
+        this.sink.append(40, 100L, 5.0);
+
+        assertEquals(1.0, this.sink.getStats(0, 2000L, 100L).getMean(), 0.0);
+        assertEquals(5.0, this.sink.getStats(40, 2000L, 100L).getMean(), 0.0);
+
+        this.sink.reset(40);
+        this.sink.reset(1000);
+        assertEquals(0L, this.sink.getStats(40, 2000L, 100L).getCount());
+        assertEquals(1L, this.sink.getStats(0, 2000L, 100L).getCount());
+
+        this.sink.append(40, 200L, 7.0);
+        assertEquals(7.0, this.sink.getStats(40, 2000L, 200L).getMean(), 0.0);
+    }
+
+    @Test
+    public void testInvalidArguments() throws Exception {
+        try {
+            new WindowedStatsSampleSink(0L, 1000L);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("bucket size must be positive: 0", iaExc.getMessage());
+        }
+
+        try {
+            new WindowedStatsSampleSink(1000L);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("at least one window size is required", iaExc.getMessage());
+        }
+
+        try {
+            new WindowedStatsSampleSink(1000L, 1500L);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("window size must be a positive multiple of the bucket size 1000: 1500", iaExc.getMessage());
+        }
+
+        try {
+            this.sink.getStats(0, 6000L, 0L);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("window size must be a positive multiple of the bucket size 1000 up to 5000: 6000",
+                    iaExc.getMessage());
+        }
+
+        try {
+            this.sink.append(-1, 0L, 1.0);
+            fail("missing expected exception");
+        } catch (IllegalArgumentException iaExc) {
+            assertEquals("invalid series id -1", iaExc.getMessage());
+        }
+    }
+}